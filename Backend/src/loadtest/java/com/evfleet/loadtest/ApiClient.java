@@ -0,0 +1,82 @@
+package com.evfleet.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+// REST side of the load test: logs in through /api/auth (registering the load-test user on first use) and times
+// every call into the shared LatencyStats under the given operation name.
+class ApiClient {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final LatencyStats stats;
+    private volatile String token;
+
+    ApiClient(String baseUrl, LatencyStats stats) {
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        this.baseUrl = baseUrl;
+        this.stats = stats;
+    }
+
+    void authenticate(String username, String password, String role) throws IOException, InterruptedException {
+        HttpResponse<String> login = send("auth.login", json("POST", "/api/auth/login",
+            Map.of("username", username, "password", password)));
+        if (login.statusCode() != 200) {
+            HttpResponse<String> register = send("auth.register", json("POST", "/api/auth/register", Map.of(
+                "username", username, "password", password, "email", username + "@loadtest.local",
+                "firstName", "Load", "lastName", "Test", "role", role)));
+            if (register.statusCode() != 200) {
+                throw new IllegalStateException("Could not log in or register " + username + ": HTTP "
+                    + register.statusCode() + " " + register.body());
+            }
+            login = register;
+        }
+        token = MAPPER.readTree(login.body()).path("token").asText();
+    }
+
+    JsonNode get(String operation, String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(operation, request(path).GET().build());
+        return response.statusCode() == 200 ? MAPPER.readTree(response.body()) : null;
+    }
+
+    JsonNode post(String operation, String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(operation, request(path).POST(HttpRequest.BodyPublishers.noBody()).build());
+        return response.statusCode() == 200 ? MAPPER.readTree(response.body()) : null;
+    }
+
+    private HttpResponse<String> send(String operation, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            stats.record(operation, System.nanoTime() - start, response.statusCode() < 400);
+            return response;
+        } catch (IOException e) {
+            stats.record(operation, System.nanoTime() - start, false);
+            throw e;
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private HttpRequest json(String method, String path, Object body) throws IOException {
+        return request(path)
+            .header("Content-Type", "application/json")
+            .method(method, HttpRequest.BodyPublishers.ofString(MAPPER.writeValueAsString(body)))
+            .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.evfleet.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency per operation in HdrHistogram recorders: writers never block, and every report takes an interval snapshot
+// that is also folded into the run total.
+class LatencyStats {
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    void record(String operation, long nanos, boolean success) {
+        Operation stats = operations.computeIfAbsent(operation, name -> new Operation());
+        if (success) {
+            stats.recorder.recordValue(Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS));
+        } else {
+            stats.errors.increment();
+        }
+    }
+
+    // Rows of: operation, count, errors, throughput, p50, p99, p99.9, max; for the last interval or the whole run,
+    // leaving out operations with nothing to report
+    String report(double seconds, boolean total) {
+        StringBuilder report = new StringBuilder(String.format("  %-36s %9s %7s %9s %9s %9s %9s %9s%n",
+            "operation", "count", "errors", "per sec", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        operations.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+            Operation stats = entry.getValue();
+            Histogram histogram;
+            long errors;
+            synchronized (stats) {
+                stats.interval = stats.recorder.getIntervalHistogram(stats.interval);
+                stats.total.add(stats.interval);
+                long totalErrors = stats.errors.sum();
+                errors = total ? totalErrors : totalErrors - stats.reportedErrors;
+                stats.reportedErrors = totalErrors;
+                histogram = total ? stats.total : stats.interval;
+            }
+            if (histogram.getTotalCount() == 0 && errors == 0) {
+                return;
+            }
+            report.append(String.format("  %-36s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n",
+                entry.getKey(), histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue())));
+        });
+        return report.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Operation {
+        final Recorder recorder = new Recorder(MAX_TRACKABLE_NANOS, 3);
+        final Histogram total = new Histogram(MAX_TRACKABLE_NANOS, 3);
+        final LongAdder errors = new LongAdder();
+        Histogram interval;
+        long reportedErrors;
+    }
+}
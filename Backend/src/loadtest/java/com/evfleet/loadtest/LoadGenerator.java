@@ -0,0 +1,176 @@
+package com.evfleet.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Load generator for a running backend. Simulated dashboard users poll the vehicle and station endpoints,
+// STOMP subscribers follow the simulation topics and drivers run charging start/end cycles, all for a fixed
+// duration. Prints throughput and p50/p99/p99.9 latency per operation at every interval and for the whole run.
+//
+//   mvn -Ploadtest compile exec:java -Dexec.args="--users=50 --subscribers=20 --chargers=4 --duration-s=120"
+public class LoadGenerator {
+    private static final String[] DASHBOARD_PATHS = {
+        "/api/vehicles", "/api/vehicles/live", "/api/charging-stations", "/api/charging-stations/available"
+    };
+
+    private final Map<String, String> options;
+    private final LatencyStats stats = new LatencyStats();
+    private final LongAdder stompMessages = new LongAdder();
+    private volatile boolean running = true;
+
+    LoadGenerator(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadGenerator(options).run();
+    }
+
+    void run() throws Exception {
+        String baseUrl = option("base-url", "http://localhost:9090");
+        String wsUrl = option("ws-url", baseUrl.replaceFirst("^http", "ws") + "/ws/vehicles");
+        int users = intOption("users", 20);
+        int subscribers = intOption("subscribers", 10);
+        int chargers = intOption("chargers", 2);
+        long durationMs = TimeUnit.SECONDS.toMillis(intOption("duration-s", 60));
+        long reportMs = TimeUnit.SECONDS.toMillis(intOption("report-interval-s", 10));
+
+        ApiClient setup = new ApiClient(baseUrl, stats);
+        authenticate(setup);
+        JsonNode vehicles = setup.get("setup", "/api/vehicles");
+        JsonNode stations = setup.get("setup", "/api/charging-stations");
+        if (vehicles == null || stations == null) {
+            throw new IllegalStateException("Could not read vehicles and stations from " + baseUrl);
+        }
+        System.out.printf("Target %s: %d vehicles, %d stations; %d dashboard users, %d STOMP subscribers, %d chargers, %d s%n",
+            baseUrl, vehicles.size(), stations.size(), users, subscribers, chargers, durationMs / 1000);
+
+        List<TelemetrySubscriber> stompClients = new ArrayList<>();
+        for (int i = 0; i < subscribers; i++) {
+            TelemetrySubscriber subscriber = new TelemetrySubscriber(wsUrl, option("destination", "/topic/simulation/*"),
+                stats, stompMessages);
+            subscriber.connect();
+            stompClients.add(subscriber);
+        }
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            workers.add(start("dashboard-" + i, () -> dashboardUser(baseUrl)));
+        }
+        List<JsonNode> chargeableStations = new ArrayList<>();
+        stations.forEach(station -> {
+            if (station.path("active").asBoolean(true) && !station.path("connectorTypes").asText().isEmpty()) {
+                chargeableStations.add(station);
+            }
+        });
+        if (chargers > 0 && (chargeableStations.isEmpty() || vehicles.size() == 0)) {
+            System.out.println("No stations with connectors or no vehicles, skipping charging cycles");
+        } else {
+            for (int i = 0; i < Math.min(chargers, vehicles.size()); i++) {
+                long vehicleId = vehicles.get(i).path("id").asLong();
+                int first = i;
+                workers.add(start("charger-" + i, () -> chargingCycles(baseUrl, vehicleId, chargeableStations, first)));
+            }
+        }
+
+        long startedAt = System.currentTimeMillis();
+        long lastReport = startedAt;
+        long lastMessages = 0;
+        while (System.currentTimeMillis() - startedAt < durationMs) {
+            Thread.sleep(Math.min(reportMs, durationMs - (System.currentTimeMillis() - startedAt)));
+            long now = System.currentTimeMillis();
+            double seconds = (now - lastReport) / 1000.0;
+            long messages = stompMessages.sum();
+            System.out.printf("%n[%ds] STOMP messages: %.1f/s%n%s", (now - startedAt) / 1000,
+                (messages - lastMessages) / seconds, stats.report(seconds, false));
+            lastReport = now;
+            lastMessages = messages;
+        }
+
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(35));
+        }
+        stompClients.forEach(TelemetrySubscriber::disconnect);
+        double seconds = (System.currentTimeMillis() - startedAt) / 1000.0;
+        System.out.printf("%nTotal over %.0f s, STOMP messages: %d (%.1f/s)%n%s", seconds, stompMessages.sum(),
+            stompMessages.sum() / seconds, stats.report(seconds, true));
+    }
+
+    private void dashboardUser(String baseUrl) {
+        ApiClient client = new ApiClient(baseUrl, stats);
+        long pollMs = intOption("poll-interval-ms", 1000);
+        try {
+            authenticate(client);
+            // Spread the first polls over one interval so users do not move in lockstep
+            Thread.sleep(ThreadLocalRandom.current().nextLong(pollMs + 1));
+            for (int i = ThreadLocalRandom.current().nextInt(DASHBOARD_PATHS.length); running; i++) {
+                String path = DASHBOARD_PATHS[i % DASHBOARD_PATHS.length];
+                client.get("GET " + path, path);
+                Thread.sleep(pollMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println(Thread.currentThread().getName() + " stopped: " + e.getMessage());
+        }
+    }
+
+    private void chargingCycles(String baseUrl, long vehicleId, List<JsonNode> stations, int first) {
+        ApiClient client = new ApiClient(baseUrl, stats);
+        long chargeMs = intOption("charge-duration-ms", 2000);
+        try {
+            authenticate(client);
+            for (int cycle = first; running; cycle++) {
+                JsonNode station = stations.get(cycle % stations.size());
+                String connector = station.path("connectorTypes").asText().split(",")[0].trim();
+                JsonNode session = client.post("POST charging start", "/api/charging-sessions/start?stationId="
+                    + station.path("id").asLong() + "&vehicleId=" + vehicleId
+                    + "&connectorType=" + URLEncoder.encode(connector, StandardCharsets.UTF_8));
+                if (session == null) {
+                    // Station full or vehicle still charging from an earlier run; try the next station
+                    Thread.sleep(1000);
+                    continue;
+                }
+                Thread.sleep(chargeMs);
+                client.post("POST charging end", "/api/charging-sessions/" + session.path("id").asLong() + "/end");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println(Thread.currentThread().getName() + " stopped: " + e.getMessage());
+        }
+    }
+
+    private void authenticate(ApiClient client) throws Exception {
+        client.authenticate(option("username", "loadtest_driver"), option("password", "Loadtest123"), "DRIVER");
+    }
+
+    private Thread start(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,86 @@
+package com.evfleet.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// One STOMP client subscribed to the simulation topics. Each update carries the timestamp of the simulation event
+// that produced it, so receipt time minus that timestamp is the end-to-end delivery lag: event queue wait, tick
+// processing, broker fan-out and the socket write. Only meaningful when client and server clocks agree.
+class TelemetrySubscriber {
+    static final String OPERATION = "stomp.delivery-lag";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final WebSocketStompClient stompClient;
+    private final String url;
+    private final String destination;
+    private final LatencyStats stats;
+    private final LongAdder received;
+    private StompSession session;
+
+    TelemetrySubscriber(String url, String destination, LatencyStats stats, LongAdder received) {
+        this.stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        this.url = url;
+        this.destination = destination;
+        this.stats = stats;
+        this.received = received;
+    }
+
+    void connect() throws Exception {
+        session = stompClient.connectAsync(url, new StompSessionHandlerAdapter() { }).get(10, TimeUnit.SECONDS);
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                long receivedAt = System.currentTimeMillis();
+                received.increment();
+                try {
+                    long sentAt = epochMillis(MAPPER.readTree((byte[]) payload).path("timestamp"));
+                    if (sentAt > 0) {
+                        stats.record(OPERATION, TimeUnit.MILLISECONDS.toNanos(receivedAt - sentAt), true);
+                    }
+                } catch (IOException e) {
+                    stats.record(OPERATION, 0, false);
+                }
+            }
+        });
+    }
+
+    void disconnect() {
+        if (session != null && session.isConnected()) {
+            session.disconnect();
+        }
+        stompClient.stop();
+    }
+
+    // LocalDateTime in the server's zone, serialized either as an ISO string or as a [y, M, d, h, m, s, nanos] array
+    private static long epochMillis(JsonNode timestamp) {
+        LocalDateTime time;
+        if (timestamp.isTextual()) {
+            time = LocalDateTime.parse(timestamp.asText());
+        } else if (timestamp.isArray() && timestamp.size() >= 6) {
+            time = LocalDateTime.of(timestamp.get(0).asInt(), timestamp.get(1).asInt(), timestamp.get(2).asInt(),
+                timestamp.get(3).asInt(), timestamp.get(4).asInt(), timestamp.get(5).asInt(),
+                timestamp.size() > 6 ? timestamp.get(6).asInt() : 0);
+        } else {
+            return -1;
+        }
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
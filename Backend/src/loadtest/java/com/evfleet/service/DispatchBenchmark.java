@@ -0,0 +1,75 @@
+package com.evfleet.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Times the dispatch optimizer on a synthetic fleet and station layout over a metropolitan area, after a JIT
+// warm-up, and reports whether the median run stays under the 100 ms target. No backend or database needed;
+// lives in this package to reach the optimizer directly.
+//
+//   mvn -Ploadtest compile exec:java -Dexec.mainClass=com.evfleet.service.DispatchBenchmark \
+//       -Dexec.args="--vehicles=10000 --stations=1000 --iterations=20 --seed=42"
+public class DispatchBenchmark {
+    private static final double TARGET_MILLIS = 100.0;
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int vehicleCount = Integer.parseInt(options.getOrDefault("vehicles", "10000"));
+        int stationCount = Integer.parseInt(options.getOrDefault("stations", "1000"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "20"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        if (vehicleCount < 0 || stationCount < 0 || iterations < 1) {
+            throw new IllegalArgumentException("Vehicles and stations must not be negative, iterations at least 1");
+        }
+
+        // Same tuning as the dispatch.* defaults in application.properties; the optimizer needs nothing else
+        ChargingDispatchService dispatch = new ChargingDispatchService(null, null, null, null, null,
+            25.0, 5.0, 40.0, 1.3, 45.0, 2);
+        ChargingDispatchService.DispatchProblem problem = syntheticProblem(vehicleCount, stationCount, seed);
+
+        for (int i = 0; i < Math.max(3, iterations / 4); i++) {
+            dispatch.optimize(problem);
+        }
+        double[] millis = new double[iterations];
+        ChargingDispatchService.DispatchPlan plan = null;
+        for (int i = 0; i < iterations; i++) {
+            plan = dispatch.optimize(problem);
+            millis[i] = plan.elapsedNanos / 1_000_000.0;
+        }
+        Arrays.sort(millis);
+
+        double median = millis[iterations / 2];
+        System.out.printf("%d vehicles, %d stations, %d iterations: %d assigned%n", vehicleCount, stationCount,
+            iterations, plan.assigned);
+        System.out.printf("min %.2f ms, median %.2f ms, p95 %.2f ms, max %.2f ms; median %s the %.0f ms target%n",
+            millis[0], median, millis[Math.min(iterations - 1, (int) Math.ceil(iterations * 0.95) - 1)],
+            millis[iterations - 1], median < TARGET_MILLIS ? "within" : "over", TARGET_MILLIS);
+    }
+
+    private static ChargingDispatchService.DispatchProblem syntheticProblem(int vehicleCount, int stationCount, long seed) {
+        Random random = new Random(seed);
+        ChargingDispatchService.DispatchProblem problem = new ChargingDispatchService.DispatchProblem(vehicleCount, stationCount);
+        double baseLat = 48.70, baseLng = 2.10, spanDegrees = 0.5; // roughly 55 x 37 km
+        for (int v = 0; v < vehicleCount; v++) {
+            problem.vehicleLat[v] = baseLat + random.nextDouble() * spanDegrees;
+            problem.vehicleLng[v] = baseLng + random.nextDouble() * spanDegrees;
+            problem.vehicleSoc[v] = 5.0 + random.nextDouble() * (VehicleRecommendationService.WARNING_BATTERY_LEVEL - 5.0);
+            problem.vehicleReachKm[v] = problem.vehicleSoc[v] / 100.0 * 75.0 / 0.18;
+        }
+        for (int s = 0; s < stationCount; s++) {
+            problem.stationLat[s] = baseLat + random.nextDouble() * spanDegrees;
+            problem.stationLng[s] = baseLng + random.nextDouble() * spanDegrees;
+            problem.stationConnectors[s] = 2 + random.nextInt(11);
+            problem.stationFree[s] = random.nextInt(problem.stationConnectors[s] + 1);
+        }
+        return problem;
+    }
+}
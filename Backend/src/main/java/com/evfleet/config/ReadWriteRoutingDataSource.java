@@ -0,0 +1,62 @@
+package com.evfleet.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sends connections for read-only transactions to the replica pool while the lag monitor reports it usable, and
+// everything else (writes, non-transactional JDBC, schema management) to the primary. The read-only flag is only
+// known once the transaction has started, so this must sit behind a LazyConnectionDataSourceProxy.
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                      MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+
+        FunctionCounter.builder("evfleet.datasource.routed", primaryConnections, LongAdder::sum)
+            .tags("target", PRIMARY)
+            .register(meterRegistry);
+        FunctionCounter.builder("evfleet.datasource.routed", replicaConnections, LongAdder::sum)
+            .tags("target", REPLICA)
+            .register(meterRegistry);
+        FunctionCounter.builder("evfleet.datasource.replica.fallbacks", fallbacks, LongAdder::sum)
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (lagMonitor.isAvailable()) {
+                replicaConnections.increment();
+                return REPLICA;
+            }
+            fallbacks.increment();
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("primaryConnections", primaryConnections.sum());
+        stats.put("replicaConnections", replicaConnections.sum());
+        stats.put("replicaFallbacks", fallbacks.sum());
+        stats.put("replica", lagMonitor.getStatus());
+        return stats;
+    }
+}
@@ -0,0 +1,80 @@
+package com.evfleet.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Probes the replica's replication lag on an interval. The replica only takes read-only transactions while the last
+// probe succeeded and reported a lag within the limit; it starts out unavailable until the first probe.
+public class ReplicaLagMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+
+    private volatile boolean available;
+    private volatile double lagSeconds = Double.NaN;
+    private volatile long lastCheckedAt;
+    private volatile String lastError;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, String lagQuery, long maxLagMs, MeterRegistry meterRegistry) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.replicaJdbcTemplate.setQueryTimeout(5);
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagMs / 1000.0;
+
+        Gauge.builder("evfleet.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("evfleet.datasource.replica.available", this, monitor -> monitor.available ? 1 : 0)
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.lag-check-interval-ms:5000}")
+    public void check() {
+        boolean wasAvailable = available;
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(lagQuery, Double.class);
+            // NULL: the replica has not replayed anything yet
+            lagSeconds = lag != null ? lag : Double.POSITIVE_INFINITY;
+            lastError = null;
+            available = lagSeconds <= maxLagSeconds;
+        } catch (Exception e) {
+            lagSeconds = Double.NaN;
+            lastError = e.getMessage();
+            available = false;
+        }
+        lastCheckedAt = System.currentTimeMillis();
+
+        if (available != wasAvailable) {
+            if (available) {
+                logger.info("Replica available, lag {} s; read-only transactions go to the replica", lagSeconds);
+            } else {
+                logger.warn("Replica unavailable (lag {} s, limit {} s{}); read-only transactions fall back to the primary",
+                    lagSeconds, maxLagSeconds, lastError != null ? ", " + lastError : "");
+            }
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("available", available);
+        status.put("lagSeconds", Double.isFinite(lagSeconds) ? lagSeconds : null);
+        status.put("maxLagSeconds", maxLagSeconds);
+        status.put("lastCheckedAt", lastCheckedAt);
+        status.put("lastError", lastError);
+        return status;
+    }
+}
@@ -0,0 +1,63 @@
+package com.evfleet.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.Slice;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// Records how many rows each repository method returns, next to the latency Spring Boot already records as
+// spring.data.repository.invocations. Methods returning counts, flags or streams are left out.
+public class RepositoryRowsInterceptor implements MethodInterceptor {
+    private final MeterRegistry meterRegistry;
+    private final String repository;
+    private final Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public RepositoryRowsInterceptor(MeterRegistry meterRegistry, Class<?> repositoryInterface) {
+        this.meterRegistry = meterRegistry;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        Method method = invocation.getMethod();
+        if (returnsRows(method.getReturnType())) {
+            summaries.computeIfAbsent(method, m -> DistributionSummary.builder("evfleet.repository.rows")
+                    .tags("repository", repository, "method", m.getName())
+                    .publishPercentileHistogram()
+                    .maximumExpectedValue(100_000.0)
+                    .register(meterRegistry))
+                .record(rows(result));
+        }
+        return result;
+    }
+
+    private static boolean returnsRows(Class<?> type) {
+        return type != void.class && !type.isPrimitive() && !Number.class.isAssignableFrom(type)
+            && type != Boolean.class && !Stream.class.isAssignableFrom(type);
+    }
+
+    private static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,23 @@
+package com.evfleet.config;
+
+import com.evfleet.service.SimulationService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// "simulation" health contributor, part of the readiness group: OUT_OF_SERVICE until the fleet bootstrap is done
+@Component("simulation")
+public class SimulationHealthIndicator implements HealthIndicator {
+
+    private final SimulationService simulationService;
+
+    public SimulationHealthIndicator(SimulationService simulationService) {
+        this.simulationService = simulationService;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = simulationService.isReady() ? Health.up() : Health.outOfService();
+        return builder.withDetails(simulationService.getBootstrapStatus()).build();
+    }
+}
@@ -0,0 +1,95 @@
+package com.evfleet.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Times STOMP messages on one stage of the pipeline: "broker" is the hand-off from convertAndSend through the simple
+// broker's subscription matching (runs on the sending thread), "outbound" the write to one client session (runs on
+// the outbound channel's executor). Destinations are reduced to their topic family, /topic/simulation/VIN001 ->
+// /topic/simulation, so the number of series stays bounded.
+public class StompMetricsInterceptor implements ExecutorChannelInterceptor {
+    private final MeterRegistry meterRegistry;
+    private final String stage;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> failures = new ConcurrentHashMap<>();
+    private final ThreadLocal<long[]> startNanos = ThreadLocal.withInitial(() -> new long[1]);
+
+    public StompMetricsInterceptor(MeterRegistry meterRegistry, String stage) {
+        this.meterRegistry = meterRegistry;
+        this.stage = stage;
+    }
+
+    // Broker stage: the broker channel has no executor, so send and completion happen on the same thread. Each stage
+    // only sets its own start, since a channel without an executor also calls beforeHandle inside the send.
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (stage.equals("broker")) {
+            startNanos.get()[0] = System.nanoTime();
+        }
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (stage.equals("broker")) {
+            record(message, startNanos.get()[0], !sent || ex != null);
+        }
+    }
+
+    // Outbound stage: timed around the session write on the executor thread
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (stage.equals("outbound")) {
+            startNanos.get()[0] = System.nanoTime();
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (stage.equals("outbound")) {
+            record(message, startNanos.get()[0], ex != null);
+        }
+    }
+
+    private void record(Message<?> message, long start, boolean failed) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        String family = family(SimpMessageHeaderAccessor.getDestination(message.getHeaders()));
+        timers.computeIfAbsent(family, destination -> Timer.builder("evfleet.stomp.send")
+                .tags("stage", stage, "destination", destination)
+                .publishPercentileHistogram()
+                .register(meterRegistry))
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (failed) {
+            failures.computeIfAbsent(family, destination -> Counter.builder("evfleet.stomp.send.failures")
+                    .tags("stage", stage, "destination", destination)
+                    .register(meterRegistry))
+                .increment();
+        }
+    }
+
+    static String family(String destination) {
+        if (destination == null) {
+            return "none";
+        }
+        int first = destination.indexOf('/', 1);
+        if (first < 0) {
+            return destination;
+        }
+        int second = destination.indexOf('/', first + 1);
+        return second < 0 ? destination : destination.substring(0, second);
+    }
+}
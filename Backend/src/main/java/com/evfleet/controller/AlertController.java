@@ -0,0 +1,44 @@
+package com.evfleet.controller;
+
+import com.evfleet.dto.AlertEventDTO;
+import com.evfleet.service.AlertRuleEngine;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/alerts")
+public class AlertController {
+    private final AlertRuleEngine alertRuleEngine;
+
+    public AlertController(AlertRuleEngine alertRuleEngine) {
+        this.alertRuleEngine = alertRuleEngine;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<List<AlertEventDTO>> getActiveAlerts() {
+        return ResponseEntity.ok(alertRuleEngine.getActiveAlerts());
+    }
+
+    @GetMapping("/vehicles/{vin}")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<List<AlertEventDTO>> getVehicleAlerts(@PathVariable String vin) {
+        return ResponseEntity.ok(alertRuleEngine.getActiveAlerts(vin));
+    }
+
+    @GetMapping("/rules")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<List<Map<String, Object>>> getRules() {
+        return ResponseEntity.ok(alertRuleEngine.getRules());
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(alertRuleEngine.getStats());
+    }
+}
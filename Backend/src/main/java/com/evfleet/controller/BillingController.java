@@ -0,0 +1,96 @@
+package com.evfleet.controller;
+
+import com.evfleet.dto.BillingQuoteDTO;
+import com.evfleet.dto.BillingRunStatusDTO;
+import com.evfleet.dto.TariffDTO;
+import com.evfleet.entity.BillingRun;
+import com.evfleet.service.BillingService;
+import com.evfleet.service.TariffService;
+import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/billing")
+public class BillingController {
+    private final TariffService tariffService;
+    private final BillingService billingService;
+
+    public BillingController(TariffService tariffService, BillingService billingService) {
+        this.tariffService = tariffService;
+        this.billingService = billingService;
+    }
+
+    @GetMapping("/tariffs")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<List<TariffDTO>> getTariffs() {
+        return ResponseEntity.ok(tariffService.getTariffs());
+    }
+
+    @PostMapping("/tariffs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TariffDTO> createTariff(@Valid @RequestBody TariffDTO tariffDTO) {
+        try {
+            return ResponseEntity.ok(tariffService.createTariff(tariffDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("/tariffs/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TariffDTO> retireTariff(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(tariffService.retireTariff(id));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/quote")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<BillingQuoteDTO> quote(
+            @RequestParam Long stationId,
+            @RequestParam(required = false) String connectorType,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam double energyKwh) {
+        try {
+            return ResponseEntity.ok(tariffService.quote(stationId, connectorType, start, end, energyKwh));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PostMapping("/runs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BillingRunStatusDTO> runBilling() {
+        BillingRunStatusDTO started = billingService.startBilling();
+        if (started == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(billingService.getStatus());
+        }
+        // Nothing to bill, or the run could not be set up: it is already over
+        if (!started.isRunning()) {
+            return ResponseEntity.ok(started);
+        }
+        return ResponseEntity.accepted().body(started);
+    }
+
+    @GetMapping("/runs/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BillingRunStatusDTO> getBillingStatus() {
+        return ResponseEntity.ok(billingService.getStatus());
+    }
+
+    @GetMapping("/runs")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<BillingRun>> getRecentRuns() {
+        return ResponseEntity.ok(billingService.getRecentRuns());
+    }
+}
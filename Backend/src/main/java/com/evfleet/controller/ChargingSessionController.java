@@ -1,6 +1,10 @@
 package com.evfleet.controller;
 
+import com.evfleet.dto.ChargingProgressDTO;
+import com.evfleet.dto.ChargingQueueEntryDTO;
 import com.evfleet.dto.ChargingSessionDTO;
+import com.evfleet.service.ChargingCurveEngine;
+import com.evfleet.service.ChargingQueueService;
 import com.evfleet.service.ChargingSessionService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
@@ -8,14 +12,21 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/charging-sessions")
 public class ChargingSessionController {
     private final ChargingSessionService chargingSessionService;
+    private final ChargingQueueService chargingQueueService;
+    private final ChargingCurveEngine chargingCurveEngine;
 
-    public ChargingSessionController(ChargingSessionService chargingSessionService) {
+    public ChargingSessionController(ChargingSessionService chargingSessionService,
+                                     ChargingQueueService chargingQueueService,
+                                     ChargingCurveEngine chargingCurveEngine) {
         this.chargingSessionService = chargingSessionService;
+        this.chargingQueueService = chargingQueueService;
+        this.chargingCurveEngine = chargingCurveEngine;
     }
 
     @PostMapping("/start")
@@ -33,6 +44,19 @@ public class ChargingSessionController {
         return ResponseEntity.ok(chargingSessionService.endSession(id));
     }
 
+    @GetMapping("/{id}/progress")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<ChargingProgressDTO> getSessionProgress(@PathVariable Long id) {
+        ChargingProgressDTO progress = chargingCurveEngine.getProgress(id);
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/curve/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getChargingCurveStats() {
+        return ResponseEntity.ok(chargingCurveEngine.getStats());
+    }
+
     @GetMapping("/vehicle/{vehicleId}")
     @PreAuthorize("hasRole('DRIVER')")
     public ResponseEntity<List<ChargingSessionDTO>> getVehicleSessions(@PathVariable Long vehicleId) {
@@ -50,4 +74,38 @@ public class ChargingSessionController {
     public ResponseEntity<ChargingSessionDTO> getActiveSession(@PathVariable Long vehicleId) {
         return ResponseEntity.ok(chargingSessionService.getActiveSession(vehicleId));
     }
-} 
\ No newline at end of file
+
+    @PostMapping("/queue")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<ChargingQueueEntryDTO> joinQueue(
+            @RequestParam Long stationId,
+            @RequestParam Long vehicleId,
+            @RequestParam String connectorType) {
+        return ResponseEntity.ok(chargingSessionService.joinQueue(stationId, vehicleId, connectorType));
+    }
+
+    @DeleteMapping("/queue/vehicle/{vehicleId}")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<Void> leaveQueue(@PathVariable Long vehicleId) {
+        if (!chargingSessionService.leaveQueue(vehicleId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/queue/vehicle/{vehicleId}")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<ChargingQueueEntryDTO> getQueueEntry(@PathVariable Long vehicleId) {
+        ChargingQueueEntryDTO entry = chargingQueueService.getEntry(vehicleId);
+        if (entry == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(entry);
+    }
+
+    @GetMapping("/queue/station/{stationId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<List<ChargingQueueEntryDTO>> getStationQueue(@PathVariable Long stationId) {
+        return ResponseEntity.ok(chargingQueueService.getQueue(stationId));
+    }
+}
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.evfleet.controller;
 
+import com.evfleet.dto.ChangeSetDTO;
+import com.evfleet.dto.ProjectedPageDTO;
 import com.evfleet.dto.ChargingStationDTO;
+import com.evfleet.dto.StationFeedDTO;
 import com.evfleet.entity.ChargingStation;
 import com.evfleet.service.ChargingStationService;
+import com.evfleet.service.ProjectionService;
+import com.evfleet.service.StationFeedService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -14,9 +20,26 @@ import java.util.List;
 @RequestMapping("/api/charging-stations")
 public class ChargingStationController {
     private final ChargingStationService chargingStationService;
+    private final ProjectionService projectionService;
+    private final StationFeedService stationFeedService;
 
-    public ChargingStationController(ChargingStationService chargingStationService) {
+    public ChargingStationController(ChargingStationService chargingStationService,
+                                     ProjectionService projectionService,
+                                     StationFeedService stationFeedService) {
         this.chargingStationService = chargingStationService;
+        this.projectionService = projectionService;
+        this.stationFeedService = stationFeedService;
+    }
+
+    // STOMP: after subscribing to /topic/stations, clients subscribe to /app/stations/snapshot for the baseline
+    @SubscribeMapping("/stations/snapshot")
+    public StationFeedDTO subscribeStationSnapshot() {
+        return stationFeedService.getSnapshot();
+    }
+
+    @GetMapping("/feed/snapshot")
+    public ResponseEntity<StationFeedDTO> getStationSnapshot() {
+        return ResponseEntity.ok(stationFeedService.getSnapshot());
     }
 
     @PostMapping
@@ -35,6 +58,25 @@ public class ChargingStationController {
         return ResponseEntity.ok(chargingStationService.getAllStations());
     }
 
+    // Map and list views: only the requested columns, e.g. fields=name,lat,lng,available
+    @GetMapping("/summary")
+    public ResponseEntity<ProjectedPageDTO> getStationSummaries(
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            return ResponseEntity.ok(projectionService.getStations(fields, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Delta sync: pass the previous response's cursor as since; omit it for a full snapshot
+    @GetMapping("/changes")
+    public ResponseEntity<ChangeSetDTO<ChargingStationDTO>> getStationChanges(@RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(chargingStationService.getStationChanges(since));
+    }
+
     @GetMapping("/nearby")
     public ResponseEntity<List<ChargingStationDTO>> getNearbyStations(
             @RequestParam double latitude,
@@ -1,13 +1,20 @@
 package com.evfleet.controller;
 
+import com.evfleet.config.ReadWriteRoutingDataSource;
+import com.evfleet.service.QueryProfiler;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -17,6 +24,15 @@ public class DatabaseController {
     @PersistenceContext
     private EntityManager entityManager;
 
+    private final QueryProfiler queryProfiler;
+    // Only present when a read replica is configured
+    private final ObjectProvider<ReadWriteRoutingDataSource> routingDataSource;
+
+    public DatabaseController(QueryProfiler queryProfiler, ObjectProvider<ReadWriteRoutingDataSource> routingDataSource) {
+        this.queryProfiler = queryProfiler;
+        this.routingDataSource = routingDataSource;
+    }
+
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> checkDatabaseStatus() {
         Map<String, Object> response = new HashMap<>();
@@ -57,4 +73,44 @@ public class DatabaseController {
         }
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+
+    @GetMapping("/routing")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRouting() {
+        ReadWriteRoutingDataSource routing = routingDataSource.getIfAvailable();
+        if (routing == null) {
+            return ResponseEntity.ok(Map.of("replicaConfigured", false));
+        }
+        Map<String, Object> response = new HashMap<>(routing.getStats());
+        response.put("replicaConfigured", true);
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/profile/statements")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> getTopStatements(@RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(queryProfiler.getTopStatements(limit));
+    }
+
+    @GetMapping("/profile/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getProfileStats() {
+        return ResponseEntity.ok(queryProfiler.getStats());
+    }
+
+    @GetMapping("/profile/hibernate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getHibernateStatistics() {
+        return ResponseEntity.ok(queryProfiler.getHibernateStatistics());
+    }
+
+    @PostMapping("/profile/reset")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> resetProfile() {
+        queryProfiler.reset();
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.evfleet.controller;
+
+import com.evfleet.dto.DispatchAssignmentDTO;
+import com.evfleet.service.ChargingDispatchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/dispatch")
+public class DispatchController {
+
+    private final ChargingDispatchService chargingDispatchService;
+
+    public DispatchController(ChargingDispatchService chargingDispatchService) {
+        this.chargingDispatchService = chargingDispatchService;
+    }
+
+    @GetMapping("/assignments")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<List<DispatchAssignmentDTO>> getAssignments() {
+        return ResponseEntity.ok(chargingDispatchService.getAssignments());
+    }
+
+    @GetMapping("/assignments/{vin}")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<DispatchAssignmentDTO> getAssignment(@PathVariable String vin) {
+        DispatchAssignmentDTO assignment = chargingDispatchService.getAssignment(vin);
+        if (assignment == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(assignment);
+    }
+
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> runDispatch() {
+        return ResponseEntity.ok(chargingDispatchService.runDispatch());
+    }
+}
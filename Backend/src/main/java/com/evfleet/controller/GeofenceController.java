@@ -0,0 +1,87 @@
+package com.evfleet.controller;
+
+import com.evfleet.dto.GeofenceDTO;
+import com.evfleet.service.GeofenceService;
+import jakarta.validation.Valid;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/geofences")
+public class GeofenceController {
+    private final GeofenceService geofenceService;
+
+    public GeofenceController(GeofenceService geofenceService) {
+        this.geofenceService = geofenceService;
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<GeofenceDTO> createGeofence(@Valid @RequestBody GeofenceDTO geofenceDTO) {
+        try {
+            return ResponseEntity.ok(geofenceService.createGeofence(geofenceDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException | DataIntegrityViolationException e) {
+            // Name taken, also when a concurrent request got to it first
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<List<GeofenceDTO>> getAllGeofences() {
+        return ResponseEntity.ok(geofenceService.getAllGeofences());
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<GeofenceDTO> getGeofence(@PathVariable Long id) {
+        return ResponseEntity.ok(geofenceService.getGeofence(id));
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<GeofenceDTO> updateGeofence(
+            @PathVariable Long id,
+            @Valid @RequestBody GeofenceDTO geofenceDTO) {
+        try {
+            return ResponseEntity.ok(geofenceService.updateGeofence(id, geofenceDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException | DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> deleteGeofence(@PathVariable Long id) {
+        geofenceService.deleteGeofence(id);
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/{id}/vehicles")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<List<String>> getVehiclesInside(@PathVariable Long id) {
+        return ResponseEntity.ok(geofenceService.getVehiclesInside(id));
+    }
+
+    @GetMapping("/vehicles/{vin}")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<List<GeofenceDTO>> getVehicleGeofences(@PathVariable String vin) {
+        return ResponseEntity.ok(geofenceService.getVehicleGeofences(vin));
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(geofenceService.getStats());
+    }
+}
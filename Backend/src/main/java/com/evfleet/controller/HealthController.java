@@ -1,16 +1,44 @@
 package com.evfleet.controller;
 
+import com.evfleet.service.SimulationService;
+import com.evfleet.service.TimeoutService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/health")
 public class HealthController {
-    
+
+    private final SimulationService simulationService;
+    private final TimeoutService timeoutService;
+
+    public HealthController(SimulationService simulationService, TimeoutService timeoutService) {
+        this.simulationService = simulationService;
+        this.timeoutService = timeoutService;
+    }
+
     @GetMapping
     public ResponseEntity<String> checkHealth() {
         return ResponseEntity.ok("Application is running and connected to the database");
     }
-} 
\ No newline at end of file
+
+    // Readiness probe: 503 until the simulated fleet is loaded, registered and tracked
+    @GetMapping("/simulation")
+    public ResponseEntity<Map<String, Object>> checkSimulation() {
+        Map<String, Object> status = simulationService.getBootstrapStatus();
+        return ResponseEntity.status(simulationService.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+            .body(status);
+    }
+
+    @GetMapping("/timeouts")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getTimeoutStats() {
+        return ResponseEntity.ok(timeoutService.getStats());
+    }
+}
@@ -1,8 +1,11 @@
 package com.evfleet.controller;
 
 import com.evfleet.dto.MaintenanceDTO;
+import com.evfleet.dto.MaintenanceSweepStatusDTO;
 import com.evfleet.service.MaintenanceService;
+import com.evfleet.service.MaintenanceSweepService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -14,10 +17,12 @@ import java.util.List;
 public class MaintenanceController {
 
     private final MaintenanceService maintenanceService;
+    private final MaintenanceSweepService maintenanceSweepService;
 
     @Autowired
-    public MaintenanceController(MaintenanceService maintenanceService) {
+    public MaintenanceController(MaintenanceService maintenanceService, MaintenanceSweepService maintenanceSweepService) {
         this.maintenanceService = maintenanceService;
+        this.maintenanceSweepService = maintenanceSweepService;
     }
 
     @PostMapping
@@ -52,6 +57,23 @@ public class MaintenanceController {
         return ResponseEntity.ok(maintenanceService.getOverdueMaintenance());
     }
 
+    @PostMapping("/sweep")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MaintenanceSweepStatusDTO> runMaintenanceSweep() {
+        MaintenanceSweepStatusDTO started = maintenanceSweepService.startSweep();
+        if (started == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(maintenanceSweepService.getStatus());
+        }
+        // Progress is polled from /sweep/status
+        return ResponseEntity.accepted().body(started);
+    }
+
+    @GetMapping("/sweep/status")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<MaintenanceSweepStatusDTO> getMaintenanceSweepStatus() {
+        return ResponseEntity.ok(maintenanceSweepService.getStatus());
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> deleteMaintenance(@PathVariable Long id) {
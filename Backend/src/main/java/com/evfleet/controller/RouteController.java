@@ -0,0 +1,43 @@
+package com.evfleet.controller;
+
+import com.evfleet.service.RoutingService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/routes")
+public class RouteController {
+
+    private final RoutingService routingService;
+
+    public RouteController(RoutingService routingService) {
+        this.routingService = routingService;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<Map<String, Object>> findRoute(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(defaultValue = RoutingService.METRIC_DISTANCE) String metric,
+            @RequestParam(defaultValue = RoutingService.ALGORITHM_ASTAR) String algorithm,
+            @RequestParam(required = false) String vehicleType) {
+        try {
+            return ResponseEntity.ok(routingService.findRoute(from, to, metric, algorithm, vehicleType));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/graph")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<Map<String, Object>> getGraphSummary() {
+        return ResponseEntity.ok(routingService.getGraphSummary());
+    }
+}
@@ -1,9 +1,14 @@
 package com.evfleet.controller;
 
+import com.evfleet.dto.HeadlessScenarioRequest;
 import com.evfleet.dto.SimulationTripDTO;
 import com.evfleet.dto.VehicleDTO;
+import com.evfleet.dto.VehicleImportResultDTO;
+import com.evfleet.service.HeadlessSimulationService;
 import com.evfleet.service.SimulationService;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -16,10 +21,13 @@ import java.util.Map;
 public class SimulationController {
 
     private final SimulationService simulationService;
+    private final HeadlessSimulationService headlessSimulationService;
 
     @Autowired
-    public SimulationController(SimulationService simulationService) {
+    public SimulationController(SimulationService simulationService,
+                                HeadlessSimulationService headlessSimulationService) {
         this.simulationService = simulationService;
+        this.headlessSimulationService = headlessSimulationService;
     }
 
     @PostMapping("/start")
@@ -59,12 +67,30 @@ public class SimulationController {
         }
     }
 
+    // Re-runs the startup fleet registration; vehicles that already exist are left as they are
+    @PostMapping("/register-vehicles")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<VehicleImportResultDTO> registerVehiclesFromSimulation() {
+        try {
+            return ResponseEntity.ok(simulationService.registerVehiclesFromSimulation());
+        } catch (IllegalStateException e) {
+            // Trips are still loading
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
     @GetMapping("/statistics")
     @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
     public ResponseEntity<Map<String, Object>> getSimulationStatistics() {
         return ResponseEntity.ok(simulationService.getSimulationStatistics());
     }
 
+    @GetMapping("/shard")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getShardStatus() {
+        return ResponseEntity.ok(simulationService.getShardStatus());
+    }
+
     @GetMapping("/vehicles/{vin}/trips")
     @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
     public ResponseEntity<List<SimulationTripDTO>> getVehicleTrips(@PathVariable String vin) {
@@ -97,4 +123,26 @@ public class SimulationController {
             ));
         }
     }
-} 
\ No newline at end of file
+
+    @PostMapping("/headless")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> runHeadlessScenario(
+            @Valid @RequestBody(required = false) HeadlessScenarioRequest scenario) {
+        try {
+            return ResponseEntity.accepted().body(headlessSimulationService.startScenario(
+                scenario != null ? scenario : new HeadlessScenarioRequest()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "status", "error",
+                "message", e.getMessage()
+            ));
+        }
+    }
+
+    @GetMapping("/headless/{runId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getHeadlessRun(@PathVariable String runId) {
+        Map<String, Object> run = headlessSimulationService.getRun(runId);
+        return run != null ? ResponseEntity.ok(run) : ResponseEntity.notFound().build();
+    }
+}
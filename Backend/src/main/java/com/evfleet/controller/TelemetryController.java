@@ -0,0 +1,75 @@
+package com.evfleet.controller;
+
+import com.evfleet.dto.TelemetryMessageDTO;
+import com.evfleet.dto.TelemetryStatsDTO;
+import com.evfleet.service.TelemetryIngestionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/telemetry")
+public class TelemetryController {
+
+    private final TelemetryIngestionService telemetryIngestionService;
+
+    public TelemetryController(TelemetryIngestionService telemetryIngestionService) {
+        this.telemetryIngestionService = telemetryIngestionService;
+    }
+
+    // STOMP: vehicles connected to /ws/vehicles send to /app/telemetry
+    @MessageMapping("/telemetry")
+    public void receiveTelemetry(TelemetryMessageDTO message, Principal principal) {
+        telemetryIngestionService.offerAll(Collections.singletonList(message), telemetryIngestionService.reportableBy(principal));
+    }
+
+    @MessageMapping("/telemetry/batch")
+    public void receiveTelemetryBatch(List<TelemetryMessageDTO> messages, Principal principal) {
+        telemetryIngestionService.offerAll(messages, telemetryIngestionService.reportableBy(principal));
+    }
+
+    @PostMapping
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<Map<String, Object>> postTelemetry(@RequestBody List<TelemetryMessageDTO> messages,
+                                                             Principal principal) {
+        TelemetryIngestionService.OfferResult result =
+            telemetryIngestionService.offerAll(messages, telemetryIngestionService.reportableBy(principal));
+        Map<String, Object> body = Map.of(
+            "accepted", result.accepted(),
+            "rejected", result.rejected(),
+            "forbidden", result.forbidden(),
+            "backpressure", telemetryIngestionService.isBackpressure()
+        );
+        if (result.accepted() == 0 && !result.rejected().isEmpty()) {
+            // Buffer full and nothing taken: the client should retry after a short pause
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(body);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
+    }
+
+    @GetMapping("/vehicles/{vin}")
+    @PreAuthorize("hasRole('DRIVER') or hasRole('ADMIN') or hasRole('STATION_MANAGER')")
+    public ResponseEntity<TelemetryMessageDTO> getLatest(@PathVariable String vin) {
+        TelemetryMessageDTO latest = telemetryIngestionService.getLatest(vin);
+        if (latest == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(latest);
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<TelemetryStatsDTO> getStats() {
+        return ResponseEntity.ok(telemetryIngestionService.getStats());
+    }
+}
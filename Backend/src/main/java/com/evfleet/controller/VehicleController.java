@@ -1,25 +1,40 @@
 package com.evfleet.controller;
 
+import com.evfleet.dto.ChangeSetDTO;
+import com.evfleet.dto.ProjectedPageDTO;
 import com.evfleet.dto.VehicleDTO;
+import com.evfleet.dto.VehicleImportResultDTO;
+import com.evfleet.dto.VehicleLiveStateDTO;
 import com.evfleet.dto.VehicleStateDTO;
+import com.evfleet.service.ProjectionService;
+import com.evfleet.service.VehicleImportService;
 import com.evfleet.service.VehicleService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/vehicles")
 public class VehicleController {
 
     private final VehicleService vehicleService;
+    private final VehicleImportService vehicleImportService;
+    private final ProjectionService projectionService;
 
-    public VehicleController(VehicleService vehicleService) {
+    public VehicleController(VehicleService vehicleService, VehicleImportService vehicleImportService,
+                             ProjectionService projectionService) {
         this.vehicleService = vehicleService;
+        this.vehicleImportService = vehicleImportService;
+        this.projectionService = projectionService;
     }
 
     @PostMapping
@@ -27,6 +42,36 @@ public class VehicleController {
         return ResponseEntity.ok(vehicleService.registerVehicle(vehicleDTO));
     }
 
+    // The body is streamed straight into the importer: a JSON array of vehicles or a CSV file with a header row
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"})
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<VehicleImportResultDTO> importVehicles(HttpServletRequest request) {
+        VehicleImportService.Format format = MediaType.parseMediaType(request.getContentType())
+            .isCompatibleWith(MediaType.APPLICATION_JSON) ? VehicleImportService.Format.JSON : VehicleImportService.Format.CSV;
+        try {
+            return ResponseEntity.ok(vehicleImportService.importVehicles(request.getInputStream(), format));
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Served from the in-memory fleet state store, no database round trip
+    @GetMapping("/live")
+    public ResponseEntity<List<VehicleLiveStateDTO>> getLiveStates() {
+        return ResponseEntity.ok(vehicleService.getLiveStates());
+    }
+
+    @GetMapping("/live/{vin}")
+    public ResponseEntity<VehicleLiveStateDTO> getLiveState(@PathVariable String vin) {
+        return ResponseEntity.ok(vehicleService.getLiveState(vin));
+    }
+
+    @GetMapping("/live/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getLiveStateStats() {
+        return ResponseEntity.ok(vehicleService.getLiveStateStats());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<VehicleDTO> getVehicle(@PathVariable Long id) {
         return ResponseEntity.ok(vehicleService.getVehicle(id));
@@ -37,6 +82,25 @@ public class VehicleController {
         return ResponseEntity.ok(vehicleService.getAllVehicles());
     }
 
+    // Map and list views: only the requested columns, e.g. fields=vin,lat,lng,soc
+    @GetMapping("/summary")
+    public ResponseEntity<ProjectedPageDTO> getVehicleSummaries(
+            @RequestParam(required = false) String fields,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        try {
+            return ResponseEntity.ok(projectionService.getVehicles(fields, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Delta sync: pass the previous response's cursor as since; omit it for a full snapshot
+    @GetMapping("/changes")
+    public ResponseEntity<ChangeSetDTO<VehicleDTO>> getVehicleChanges(@RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(vehicleService.getVehicleChanges(since));
+    }
+
     @PostMapping("/{id}/states")
     public ResponseEntity<VehicleStateDTO> updateVehicleState(
             @PathVariable Long id,
@@ -1,14 +1,12 @@
 package com.evfleet.controller;
 
-import com.evfleet.dto.VehicleDTO;
+import com.evfleet.dto.VehicleImportResultDTO;
 import com.evfleet.service.VehicleSimulationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/simulation/vehicles")
 public class VehicleSimulationController {
@@ -22,10 +20,9 @@ public class VehicleSimulationController {
 
     @PostMapping("/load")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DRIVER')")
-    public ResponseEntity<List<VehicleDTO>> loadSimulationVehicles(@RequestParam String jsonFilePath) {
+    public ResponseEntity<VehicleImportResultDTO> loadSimulationVehicles(@RequestParam String jsonFilePath) {
         try {
-            List<VehicleDTO> vehicles = vehicleSimulationService.loadSimulationVehicles(jsonFilePath);
-            return ResponseEntity.ok(vehicles);
+            return ResponseEntity.ok(vehicleSimulationService.loadSimulationVehicles(jsonFilePath));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -0,0 +1,23 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class AlertEventDTO {
+    private String vin;
+    private String rule;
+    private String severity;
+    private String metric;
+    private Double value;
+    private Double threshold;
+    private Status status;
+    private LocalDateTime timestamp;
+
+    public enum Status {
+        RAISED,
+        CLEARED,
+        ACTIVE
+    }
+}
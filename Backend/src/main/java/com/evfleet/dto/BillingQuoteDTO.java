@@ -0,0 +1,32 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Price of a charging window under the tariffs in force, one segment per tariff interval it spans
+@Data
+public class BillingQuoteDTO {
+    private Long stationId;
+    private String operator;
+    private String connectorType;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private double energyKwh;
+    private double cost;
+    private List<Segment> segments = new ArrayList<>();
+
+    @Data
+    public static class Segment {
+        private LocalDateTime from;
+        private LocalDateTime to;
+        private double energyKwh;
+        private double pricePerKwh;
+        private double cost;
+        // Null where no tariff applies and the station's flat price was used
+        private Long tariffId;
+        private String tariffName;
+    }
+}
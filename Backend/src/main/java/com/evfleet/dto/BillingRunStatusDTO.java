@@ -0,0 +1,22 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class BillingRunStatusDTO {
+    private boolean running;
+    private Long runId;
+    private boolean resumed;
+    private int attempt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int partitions;
+    private int partitionsCompleted;
+    private long chunksProcessed;
+    private long sessionsBilled;
+    private double amountBilled;
+    private double sessionsPerSecond;
+    private String lastError;
+}
@@ -0,0 +1,16 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// One page of the changes feed. Pass cursor back as "since" on the next poll. When full is true, changed holds the
+// whole collection and the client should replace its copy (first poll, or a cursor older than the tombstones kept).
+@Data
+public class ChangeSetDTO<T> {
+    private long cursor;
+    private boolean full;
+    private List<T> changed = new ArrayList<>();
+    private List<Long> deleted = new ArrayList<>();
+}
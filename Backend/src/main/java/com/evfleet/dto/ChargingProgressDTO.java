@@ -0,0 +1,19 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ChargingProgressDTO {
+    private Long sessionId;
+    private Long stationId;
+    private String vin;
+    private String phase; // CC, CV, COMPLETE, ENDED
+    private double stateOfCharge;
+    private double powerKw;
+    private double energyDeliveredKwh;
+    // Time left until the charger terminates at the current curve, null once complete
+    private Long minutesToComplete;
+    private LocalDateTime timestamp;
+}
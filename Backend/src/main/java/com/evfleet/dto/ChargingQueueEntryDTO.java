@@ -0,0 +1,15 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ChargingQueueEntryDTO {
+    private Long stationId;
+    private Long vehicleId;
+    private String connectorType;
+    private Double batteryLevel;
+    private LocalDateTime enqueuedAt;
+    private Integer position;
+}
@@ -0,0 +1,16 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ChargingQueueEventDTO {
+    private String type; // QUEUED, ASSIGNED, CANCELLED, EXPIRED
+    private Long stationId;
+    private Long vehicleId;
+    private Long sessionId;
+    private Integer position;
+    private Integer queueLength;
+    private LocalDateTime timestamp;
+}
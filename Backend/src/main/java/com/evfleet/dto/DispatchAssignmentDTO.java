@@ -0,0 +1,18 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class DispatchAssignmentDTO {
+    private String vin;
+    private Long vehicleId;
+    private Double batteryLevel;
+    private Long stationId;
+    private String stationName;
+    private Double distanceKm;
+    private Double travelMinutes;
+    private Double expectedWaitMinutes;
+    private LocalDateTime assignedAt;
+}
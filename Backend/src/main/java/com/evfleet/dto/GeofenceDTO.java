@@ -0,0 +1,76 @@
+package com.evfleet.dto;
+
+import com.evfleet.entity.Geofence;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class GeofenceDTO {
+    private Long id;
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    @NotNull(message = "Type is required")
+    private Geofence.GeofenceType type;
+
+    @NotNull(message = "Polygon is required")
+    @Size(min = 3, message = "Polygon needs at least 3 points")
+    @Valid
+    private List<PointDTO> points;
+
+    private Boolean active;
+
+    @Data
+    public static class PointDTO {
+        @NotNull(message = "Latitude is required")
+        private Double latitude;
+
+        @NotNull(message = "Longitude is required")
+        private Double longitude;
+    }
+
+    public static GeofenceDTO fromEntity(Geofence geofence) {
+        GeofenceDTO dto = new GeofenceDTO();
+        dto.setId(geofence.getId());
+        dto.setName(geofence.getName());
+        dto.setType(geofence.getType());
+        dto.setActive(geofence.getActive());
+        List<PointDTO> points = new ArrayList<>();
+        for (String vertex : geofence.getPolygon().split(";")) {
+            String[] coordinates = vertex.split(",");
+            PointDTO point = new PointDTO();
+            point.setLatitude(Double.parseDouble(coordinates[0]));
+            point.setLongitude(Double.parseDouble(coordinates[1]));
+            points.add(point);
+        }
+        dto.setPoints(points);
+        return dto;
+    }
+
+    public Geofence toEntity() {
+        Geofence geofence = new Geofence();
+        geofence.setName(this.name);
+        geofence.setType(this.type);
+        geofence.setPolygon(encodePolygon());
+        geofence.setActive(this.active != null ? this.active : true);
+        return geofence;
+    }
+
+    public String encodePolygon() {
+        StringBuilder polygon = new StringBuilder();
+        for (PointDTO point : points) {
+            if (polygon.length() > 0) {
+                polygon.append(';');
+            }
+            polygon.append(point.getLatitude()).append(',').append(point.getLongitude());
+        }
+        return polygon.toString();
+    }
+}
@@ -0,0 +1,23 @@
+package com.evfleet.dto;
+
+import com.evfleet.entity.Geofence;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class GeofenceEventDTO {
+    private String vin;
+    private Long geofenceId;
+    private String geofenceName;
+    private Geofence.GeofenceType geofenceType;
+    private EventType event;
+    private Double latitude;
+    private Double longitude;
+    private LocalDateTime timestamp;
+
+    public enum EventType {
+        ENTER,
+        EXIT
+    }
+}
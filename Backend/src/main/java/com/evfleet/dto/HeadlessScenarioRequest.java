@@ -0,0 +1,44 @@
+package com.evfleet.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+@Data
+public class HeadlessScenarioRequest {
+    @Min(value = 1, message = "At least one vehicle per type is required")
+    @Max(value = 5000, message = "At most 5000 vehicles per type are supported")
+    private int vehiclesPerType = 1;
+
+    @DecimalMin(value = "0.1", message = "Duration must be at least 0.1 hours")
+    @DecimalMax(value = "8760", message = "Duration must not exceed one year")
+    private double durationHours = 168.0;
+
+    @DecimalMin(value = "0.1", message = "Speed multiplier must be between 0.1 and 10")
+    @DecimalMax(value = "10", message = "Speed multiplier must be between 0.1 and 10")
+    private double speedMultiplier = 1.0;
+
+    @DecimalMin(value = "0", message = "Charge reserve must be between 0 and 100")
+    @DecimalMax(value = "100", message = "Charge reserve must be between 0 and 100")
+    private double chargeReservePercent = 20.0;
+
+    @DecimalMin(value = "0", message = "Charge target must be between 0 and 100")
+    @DecimalMax(value = "100", message = "Charge target must be between 0 and 100")
+    private double chargeTargetPercent = 80.0;
+
+    @DecimalMin(value = "1", message = "Charger power must be at least 1 kW")
+    private double chargerPowerKw = 50.0;
+
+    @DecimalMin(value = "1", message = "Battery capacity must be at least 1 kWh")
+    private double batteryCapacityKwh = 75.0;
+
+    @DecimalMin(value = "0", message = "Parking time must not be negative")
+    private double parkingMinutes = 30.0;
+
+    @DecimalMin(value = "0.1", message = "Trace interval must be at least 0.1 minutes")
+    private double traceIntervalMinutes = 5.0;
+
+    private long seed = 42L;
+}
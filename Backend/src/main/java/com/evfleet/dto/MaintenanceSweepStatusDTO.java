@@ -0,0 +1,18 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class MaintenanceSweepStatusDTO {
+    private boolean running;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long vehiclesScanned;
+    private long chunksProcessed;
+    private long recommendationsCreated;
+    private long lastVehicleId;
+    private double vehiclesPerSecond;
+    private String lastError;
+}
@@ -0,0 +1,18 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// One page of a projected list: each row holds only the requested fields, in the order of "fields"
+@Data
+public class ProjectedPageDTO {
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    private List<String> fields = new ArrayList<>();
+    private List<Map<String, Object>> content = new ArrayList<>();
+}
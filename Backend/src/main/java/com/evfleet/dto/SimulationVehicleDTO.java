@@ -8,6 +8,13 @@ public class SimulationVehicleDTO {
     @JsonProperty("vin")
     private String vin;
 
+    // Optional, defaults to "<make> <model> <vin>"
+    @JsonProperty("name")
+    private String name;
+
+    @JsonProperty("type")
+    private String type;
+
     @JsonProperty("make")
     private String make;
 
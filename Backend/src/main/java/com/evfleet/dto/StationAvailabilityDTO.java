@@ -0,0 +1,21 @@
+package com.evfleet.dto;
+
+import com.evfleet.entity.ChargingStation;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class StationAvailabilityDTO {
+    private Long id;
+    private String stationId;
+    private String name;
+    private Double latitude;
+    private Double longitude;
+    private ChargingStation.StationStatus status;
+    private Integer availableConnectors;
+    private Integer totalConnectors;
+    // Set on the last delta for a deleted station; the other fields are then its final state
+    private boolean removed;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,17 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// A SNAPSHOT holds every station as of its sequence; a DELTA holds the stations changed since the previous sequence.
+// Apply deltas with a sequence above the snapshot's in order, and take a new snapshot on a gap.
+@Data
+public class StationFeedDTO {
+    private String type; // SNAPSHOT, DELTA
+    private long sequence;
+    private List<StationAvailabilityDTO> stations = new ArrayList<>();
+    private LocalDateTime timestamp;
+}
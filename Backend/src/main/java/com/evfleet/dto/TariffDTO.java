@@ -0,0 +1,60 @@
+package com.evfleet.dto;
+
+import com.evfleet.entity.Tariff;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Data
+public class TariffDTO {
+    private Long id;
+
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    private String operator;
+    private String connectorType;
+    private String daysOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+
+    @NotNull(message = "Price per kWh is required")
+    @PositiveOrZero(message = "Price per kWh must not be negative")
+    private Double pricePerKwh;
+
+    private LocalDateTime validFrom;
+    private LocalDateTime validUntil;
+
+    public static TariffDTO fromEntity(Tariff tariff) {
+        TariffDTO dto = new TariffDTO();
+        dto.setId(tariff.getId());
+        dto.setName(tariff.getName());
+        dto.setOperator(tariff.getOperator());
+        dto.setConnectorType(tariff.getConnectorType());
+        dto.setDaysOfWeek(tariff.getDaysOfWeek());
+        dto.setStartTime(tariff.getStartTime());
+        dto.setEndTime(tariff.getEndTime());
+        dto.setPricePerKwh(tariff.getPricePerKwh());
+        dto.setValidFrom(tariff.getValidFrom());
+        dto.setValidUntil(tariff.getValidUntil());
+        return dto;
+    }
+
+    public Tariff toEntity() {
+        Tariff tariff = new Tariff();
+        tariff.setName(name);
+        tariff.setOperator(operator);
+        tariff.setConnectorType(connectorType);
+        tariff.setDaysOfWeek(daysOfWeek);
+        tariff.setStartTime(startTime);
+        tariff.setEndTime(endTime);
+        tariff.setPricePerKwh(pricePerKwh);
+        tariff.setValidFrom(validFrom);
+        tariff.setValidUntil(validUntil);
+        return tariff;
+    }
+}
@@ -0,0 +1,18 @@
+package com.evfleet.dto;
+
+import com.evfleet.entity.Vehicle;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class TelemetryMessageDTO {
+    private String vin;
+    private LocalDateTime timestamp;
+    private Double latitude;
+    private Double longitude;
+    private Double speed;
+    private Double batteryLevel;
+    private Double odometer;
+    private Vehicle.VehicleState state;
+}
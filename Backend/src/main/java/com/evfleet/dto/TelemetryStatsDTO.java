@@ -0,0 +1,25 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+@Data
+public class TelemetryStatsDTO {
+    private long received;
+    private long accepted;
+    private long rejected;
+    private long forbidden;
+    private long invalid;
+    private long stale;
+    private long unknownVehicle;
+    private long processed;
+    private long persistedRows;
+    private long persistFailures;
+    private long persistDropped;
+    private long persistRefused;
+    private long published;
+    private long silenced;
+    private int bufferSize;
+    private int bufferCapacity;
+    private boolean backpressure;
+    private double messagesPerSecond;
+}
@@ -0,0 +1,28 @@
+package com.evfleet.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class VehicleImportResultDTO {
+    private long totalRows;
+    private long imported;
+    private long duplicates;
+    private long failed;
+    private long chunks;
+    private long durationMs;
+    private double vehiclesPerSecond;
+    private List<RowErrorDTO> errors = new ArrayList<>();
+    // More rows failed than are listed in errors
+    private boolean errorsTruncated;
+
+    @Data
+    public static class RowErrorDTO {
+        // 1-based data row, not counting a CSV header
+        private long row;
+        private String vin;
+        private String message;
+    }
+}
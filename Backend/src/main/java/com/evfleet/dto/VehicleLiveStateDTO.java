@@ -0,0 +1,20 @@
+package com.evfleet.dto;
+
+import com.evfleet.entity.Vehicle;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class VehicleLiveStateDTO {
+    private Long vehicleId;
+    private String vin;
+    private Double latitude;
+    private Double longitude;
+    private Double speed;
+    private Double batteryLevel;
+    private Double odometer;
+    private Vehicle.VehicleState state;
+    private LocalDateTime updatedAt;
+    private String source;
+}
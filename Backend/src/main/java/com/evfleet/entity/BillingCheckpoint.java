@@ -0,0 +1,38 @@
+package com.evfleet.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Progress of one partition of a billing run. last_session_id moves in the same transaction as the session
+// updates it covers, so a resumed partition continues exactly after the last committed chunk.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "billing_checkpoints", indexes = @Index(name = "idx_billing_checkpoints_run", columnList = "run_id"))
+public class BillingCheckpoint {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false)
+    private Long runId;
+
+    @Column(name = "partition_no", nullable = false)
+    private Integer partitionNo;
+
+    @Column(name = "last_session_id", nullable = false)
+    private Long lastSessionId;
+
+    @Column(name = "to_session_id", nullable = false)
+    private Long toSessionId;
+
+    @Column(name = "sessions_billed", nullable = false)
+    private Long sessionsBilled;
+
+    @Column(name = "amount_billed", nullable = false)
+    private Double amountBilled;
+
+    @Column(nullable = false)
+    private Boolean completed;
+}
@@ -0,0 +1,23 @@
+package com.evfleet.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Claim on running billing, shared by every backend instance on the database. The node running a billing run holds
+// the lease and renews it while it bills; a lease that has run out, e.g. because its holder died, can be taken over.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "billing_lease")
+public class BillingLease {
+    @Id
+    private String name;
+
+    private String holder;
+
+    @Column(name = "held_until")
+    private LocalDateTime heldUntil;
+}
@@ -0,0 +1,55 @@
+package com.evfleet.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One batch billing run over the completed, unbilled sessions with ids in [fromSessionId, toSessionId]. The range
+// is split into partitions, each with its own checkpoint; a run that did not complete is resumed by the next one,
+// and abandoned once it has been attempted billing.batch.max-attempts times.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "billing_runs")
+public class BillingRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Column(name = "from_session_id", nullable = false)
+    private Long fromSessionId;
+
+    @Column(name = "to_session_id", nullable = false)
+    private Long toSessionId;
+
+    @Column(name = "sessions_billed", nullable = false)
+    private Long sessionsBilled;
+
+    @Column(name = "amount_billed", nullable = false)
+    private Double amountBilled;
+
+    @Column(nullable = false, columnDefinition = "INTEGER DEFAULT 1")
+    private Integer attempts;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        ABANDONED
+    }
+}
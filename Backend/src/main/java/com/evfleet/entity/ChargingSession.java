@@ -39,6 +39,13 @@ public class ChargingSession {
     @Column
     private Double cost;
 
+    // Set when the batch billing run finalizes the cost; until then cost is the estimate priced at session end
+    @Column(name = "billed_at")
+    private LocalDateTime billedAt;
+
+    @Column(name = "billing_run_id")
+    private Long billingRunId;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private SessionStatus status;
@@ -13,7 +13,8 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "charging_stations")
+// updated_at is the cursor of the changes feed
+@Table(name = "charging_stations", indexes = @Index(name = "idx_charging_stations_updated_at", columnList = "updated_at"))
 @EntityListeners(AuditingEntityListener.class)
 public class ChargingStation {
     @Id
@@ -0,0 +1,49 @@
+package com.evfleet.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "geofences")
+@EntityListeners(AuditingEntityListener.class)
+public class Geofence {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private GeofenceType type;
+
+    // Vertices as "lat,lng;lat,lng;..." in ring order; the ring closes implicitly
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String polygon;
+
+    @Column(nullable = false)
+    private Boolean active;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum GeofenceType {
+        DEPOT,
+        CITY_ZONE,
+        RESTRICTED_AREA
+    }
+}
@@ -0,0 +1,37 @@
+package com.evfleet.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Trip progress of a vehicle its previous simulation node let go of, waiting for the vehicle's new owner to pick
+// it up and continue where it stopped; deleted once taken
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "simulation_handoffs")
+public class SimulationHandoff {
+    @Id
+    private String vin;
+
+    @Column(name = "from_node", nullable = false)
+    private String fromNode;
+
+    // Owner in the ring the previous node saw; informational, any node owning the VIN may take it
+    @Column(name = "to_node")
+    private String toNode;
+
+    @Column(name = "trip_index", nullable = false)
+    private Integer tripIndex;
+
+    @Column(name = "path_index", nullable = false)
+    private Integer pathIndex;
+
+    @Column(name = "speed_multiplier")
+    private Double speedMultiplier;
+
+    @Column(name = "handed_off_at", nullable = false)
+    private LocalDateTime handedOffAt;
+}
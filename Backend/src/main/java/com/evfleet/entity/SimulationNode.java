@@ -0,0 +1,30 @@
+package com.evfleet.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A backend node taking part in the sharded simulation. Each node refreshes its own row every heartbeat; nodes whose
+// heartbeat is older than the node timeout are out of the ring, and their rows are purged after a while.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "simulation_nodes")
+public class SimulationNode {
+    @Id
+    @Column(name = "node_id")
+    private String nodeId;
+
+    private String host;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "tracked_vehicles", nullable = false)
+    private Integer trackedVehicles;
+}
@@ -0,0 +1,51 @@
+package com.evfleet.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+// One time-of-use price. Operator and connector type narrow where it applies (null matches any); days and the
+// daily window narrow when. Tariffs are never edited in place: a price change is a new tariff and the old one is
+// retired by closing its validity, so sessions are always re-priced with the tariffs that were in force.
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "tariffs")
+public class Tariff {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column
+    private String operator;
+
+    @Column(name = "connector_type")
+    private String connectorType;
+
+    // e.g. "MON-FRI" or "SAT,SUN"; null for every day
+    @Column(name = "days_of_week")
+    private String daysOfWeek;
+
+    // Daily window [startTime, endTime); null start is midnight, null end is the end of the day, and an end at or
+    // before the start runs past midnight
+    @Column(name = "start_time")
+    private LocalTime startTime;
+
+    @Column(name = "end_time")
+    private LocalTime endTime;
+
+    @Column(name = "price_per_kwh", nullable = false)
+    private Double pricePerKwh;
+
+    @Column(name = "valid_from")
+    private LocalDateTime validFrom;
+
+    @Column(name = "valid_until")
+    private LocalDateTime validUntil;
+}
@@ -0,0 +1,38 @@
+package com.evfleet.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Marker left behind by a deleted record so delta-sync clients polling with a cursor learn about the deletion;
+// purged once older than the change log retention
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "tombstones", indexes = @Index(name = "idx_tombstones_type_deleted_at", columnList = "entity_type, deleted_at"))
+public class Tombstone {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    // VIN or station ID of the deleted record
+    @Column(name = "natural_key")
+    private String naturalKey;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public enum EntityType {
+        VEHICLE,
+        CHARGING_STATION
+    }
+}
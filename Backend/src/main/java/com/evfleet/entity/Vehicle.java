@@ -13,7 +13,8 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @Entity
-@Table(name = "vehicles")
+// updated_at is the cursor of the changes feed
+@Table(name = "vehicles", indexes = @Index(name = "idx_vehicles_updated_at", columnList = "updated_at"))
 @EntityListeners(AuditingEntityListener.class)
 public class Vehicle {
     @Id
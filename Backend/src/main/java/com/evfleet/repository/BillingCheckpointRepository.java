@@ -0,0 +1,12 @@
+package com.evfleet.repository;
+
+import com.evfleet.entity.BillingCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BillingCheckpointRepository extends JpaRepository<BillingCheckpoint, Long> {
+    List<BillingCheckpoint> findByRunIdOrderByPartitionNoAsc(Long runId);
+}
@@ -0,0 +1,16 @@
+package com.evfleet.repository;
+
+import com.evfleet.entity.BillingRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BillingRunRepository extends JpaRepository<BillingRun, Long> {
+    Optional<BillingRun> findFirstByStatusInOrderByIdDesc(Collection<BillingRun.Status> statuses);
+
+    List<BillingRun> findTop20ByOrderByIdDesc();
+}
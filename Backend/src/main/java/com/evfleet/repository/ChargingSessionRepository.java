@@ -2,19 +2,27 @@ package com.evfleet.repository;
 
 import com.evfleet.entity.ChargingSession;
 import com.evfleet.entity.Vehicle;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ChargingSessionRepository extends JpaRepository<ChargingSession, Long> {
     List<ChargingSession> findByVehicle(Vehicle vehicle);
     
     List<ChargingSession> findByChargingStationId(Long stationId);
+
+    // Row lock for ending a session, so two ends (a driver's and the abandon timeout's) cannot both settle it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT cs FROM ChargingSession cs WHERE cs.id = :id")
+    Optional<ChargingSession> findByIdForUpdate(@Param("id") Long id);
     
     @Query("SELECT cs FROM ChargingSession cs WHERE cs.startTime >= :start AND cs.endTime <= :end")
     List<ChargingSession> findSessionsBetweenDates(@Param("start") LocalDateTime start,
@@ -22,6 +30,9 @@ public interface ChargingSessionRepository extends JpaRepository<ChargingSession
     
     @Query("SELECT cs FROM ChargingSession cs WHERE cs.status = 'IN_PROGRESS'")
     List<ChargingSession> findActiveSessions();
+
+    @Query("SELECT cs FROM ChargingSession cs JOIN FETCH cs.vehicle JOIN FETCH cs.chargingStation WHERE cs.status = 'IN_PROGRESS'")
+    List<ChargingSession> findActiveSessionsWithVehicleAndStation();
     
     @Query("SELECT cs FROM ChargingSession cs WHERE cs.vehicle = :vehicle AND cs.status = 'IN_PROGRESS'")
     ChargingSession findActiveSessionByVehicle(@Param("vehicle") Vehicle vehicle);
@@ -1,11 +1,14 @@
 package com.evfleet.repository;
 
 import com.evfleet.entity.ChargingStation;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,5 +33,17 @@ public interface ChargingStationRepository extends JpaRepository<ChargingStation
     
     Optional<ChargingStation> findByStationId(String stationId);
 
+    // Row lock for changes to the connector count, held until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT cs FROM ChargingStation cs WHERE cs.id = :id")
+    Optional<ChargingStation> findByIdForUpdate(@Param("id") Long id);
+
+    // Unlocked read of the current count, so callers take the row lock only when a connector is free
+    @Query("SELECT cs.availableConnectors FROM ChargingStation cs WHERE cs.id = :id")
+    Optional<Integer> findAvailableConnectorsById(@Param("id") Long id);
+
     boolean existsByStationId(String stationId);
-} 
\ No newline at end of file
+
+    // Changes feed; served by the updated_at index
+    List<ChargingStation> findByUpdatedAtAfter(LocalDateTime since);
+}
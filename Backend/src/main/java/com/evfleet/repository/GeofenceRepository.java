@@ -0,0 +1,14 @@
+package com.evfleet.repository;
+
+import com.evfleet.entity.Geofence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GeofenceRepository extends JpaRepository<Geofence, Long> {
+    List<Geofence> findByActiveTrue();
+    boolean existsByName(String name);
+    boolean existsByNameAndIdNot(String name, Long id);
+}
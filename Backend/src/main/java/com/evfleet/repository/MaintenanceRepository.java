@@ -3,9 +3,12 @@ package com.evfleet.repository;
 import com.evfleet.entity.Maintenance;
 import com.evfleet.entity.Vehicle;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,4 +18,8 @@ public interface MaintenanceRepository extends JpaRepository<Maintenance, Long>
     List<Maintenance> findByScheduledDateBetween(LocalDateTime start, LocalDateTime end);
     List<Maintenance> findByVehicleAndScheduledDateBetween(Vehicle vehicle, LocalDateTime start, LocalDateTime end);
     List<Maintenance> findByStatusAndScheduledDateBefore(String status, LocalDateTime date);
+
+    @Query("SELECT m.vehicle.id, m.type FROM Maintenance m WHERE m.vehicle.id IN :vehicleIds AND m.status = :status")
+    List<Object[]> findVehicleIdAndTypeByVehicleIdInAndStatus(@Param("vehicleIds") Collection<Long> vehicleIds,
+                                                             @Param("status") String status);
 } 
\ No newline at end of file
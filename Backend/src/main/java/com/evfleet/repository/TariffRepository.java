@@ -0,0 +1,9 @@
+package com.evfleet.repository;
+
+import com.evfleet.entity.Tariff;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TariffRepository extends JpaRepository<Tariff, Long> {
+}
@@ -1,11 +1,15 @@
 package com.evfleet.repository;
 
 import com.evfleet.entity.Vehicle;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +20,19 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     
     @Query("SELECT COUNT(v) > 0 FROM Vehicle v WHERE v.vin = :vin AND v.driver.username = :username")
     boolean existsByVinAndDriverUsername(@Param("vin") String vin, @Param("username") String username);
-} 
\ No newline at end of file
+
+    @Query("SELECT v.vin FROM Vehicle v WHERE v.driver.username = :username")
+    List<String> findVinsByDriverUsername(@Param("username") String username);
+
+    // Keyset pagination: pass the last id of the previous chunk (0 for the first one)
+    List<Vehicle> findByIdGreaterThanOrderByIdAsc(Long lastId, Pageable pageable);
+
+    List<Vehicle> findByActiveTrueAndCurrentBatteryLevelLessThanEqual(Double batteryLevel);
+
+    // Set-based uniqueness check for bulk imports: [vin, name] of every vehicle clashing on either column
+    @Query("SELECT v.vin, v.name FROM Vehicle v WHERE v.vin IN :vins OR v.name IN :names")
+    List<Object[]> findVinAndNameByVinInOrNameIn(@Param("vins") Collection<String> vins, @Param("names") Collection<String> names);
+
+    // Changes feed; served by the updated_at index
+    List<Vehicle> findByUpdatedAtAfter(LocalDateTime since);
+}
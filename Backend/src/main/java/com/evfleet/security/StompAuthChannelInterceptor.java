@@ -0,0 +1,86 @@
+package com.evfleet.security;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Set;
+
+// The HTTP handshake on /ws/** is open, so STOMP frames are authenticated here instead: a CONNECT carrying an
+// "Authorization: Bearer <jwt>" native header becomes the session's user, and an invalid token rejects the CONNECT.
+// Connections without a token may still subscribe to the public topics, but only users with the same roles as
+// POST /api/telemetry may send to /app/telemetry and /app/telemetry/batch. Which vehicles a driver may report is
+// checked per message by the ingestion service.
+@Component
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+    private static final String TELEMETRY_DESTINATION = "/app/telemetry";
+    private static final Set<String> TELEMETRY_ROLES = Set.of("ROLE_DRIVER", "ROLE_ADMIN", "ROLE_STATION_MANAGER");
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final UserDetailsService userDetailsService;
+
+    public StompAuthChannelInterceptor(JwtTokenProvider jwtTokenProvider, UserDetailsService userDetailsService) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        if (accessor.getCommand() == StompCommand.CONNECT) {
+            String bearer = accessor.getFirstNativeHeader("Authorization");
+            if (bearer != null) {
+                accessor.setUser(authenticate(bearer));
+            }
+        } else if (accessor.getCommand() == StompCommand.SEND && isTelemetry(accessor.getDestination())
+                && !mayPostTelemetry(accessor.getUser())) {
+            throw new AccessDeniedException("Sending telemetry requires an authenticated vehicle, driver or operator");
+        }
+        return message;
+    }
+
+    private Authentication authenticate(String bearer) {
+        try {
+            String token = bearer.startsWith("Bearer ") ? bearer.substring(7) : bearer;
+            UserDetails userDetails = userDetailsService.loadUserByUsername(jwtTokenProvider.extractUsername(token));
+            if (jwtTokenProvider.validateToken(token, userDetails)) {
+                return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            }
+        } catch (Exception e) {
+            throw new BadCredentialsException("Invalid STOMP authorization token", e);
+        }
+        throw new BadCredentialsException("Invalid STOMP authorization token");
+    }
+
+    private static boolean isTelemetry(String destination) {
+        return destination != null
+            && (destination.equals(TELEMETRY_DESTINATION) || destination.startsWith(TELEMETRY_DESTINATION + "/"));
+    }
+
+    private static boolean mayPostTelemetry(Principal user) {
+        if (!(user instanceof Authentication authentication) || !authentication.isAuthenticated()) {
+            return false;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (TELEMETRY_ROLES.contains(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
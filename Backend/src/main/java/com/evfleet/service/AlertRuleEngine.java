@@ -0,0 +1,263 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.AlertEventDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Streaming evaluation of the configured alert rules (alerts.rules) against every vehicle sample. Each
+// (vehicle slot, rule) pair carries a small state machine, CLEAR -> PENDING (debounce) -> ACTIVE -> CLEAR once the
+// metric is back past the clear level, and only the RAISED / CLEARED transitions are published. A sample costs one
+// pass over the compiled rule arrays and allocates nothing unless an alert changes state.
+@Service
+public class AlertRuleEngine {
+    private static final Logger logger = LoggerFactory.getLogger(AlertRuleEngine.class);
+    private static final String ALERT_TOPIC = "/topic/alerts";
+    private static final String NORMAL = "NORMAL";
+    private static final byte CLEAR = 0;
+    private static final byte PENDING = 1;
+    private static final byte ACTIVE = 2;
+
+    private final AlertRules rules;
+    private final FleetStateStore fleetStateStore;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    // Guarded by lock; (slot, rule) pairs are laid out slot-major so one vehicle's rules are contiguous
+    private final Object lock = new Object();
+    private byte[] states = new byte[0];
+    private long[] since = new long[0];
+    private double[] values = new double[0];
+    private boolean[] evaluated = new boolean[0];
+    private final double[] sample = new double[AlertRules.METRIC_NAMES.length];
+
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong raised = new AtomicLong();
+    private final AtomicLong cleared = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+
+    public AlertRuleEngine(FleetStateStore fleetStateStore,
+                           SimpMessagingTemplate messagingTemplate,
+                           @Value("${alerts.rules:}") String specification) {
+        this.fleetStateStore = fleetStateStore;
+        this.messagingTemplate = messagingTemplate;
+        this.rules = AlertRules.compile(specification);
+        logger.info("Compiled {} alert rules: {}", rules.size(), String.join(", ", rules.names));
+    }
+
+    // NaN metrics were not part of the sample; rules on them keep their state
+    public void evaluate(int slot, double speed, double batteryLevel, double odometer, long at) {
+        int ruleCount = rules.size();
+        if (ruleCount == 0) {
+            return;
+        }
+        samples.incrementAndGet();
+        List<AlertEventDTO> events = null;
+        synchronized (lock) {
+            ensureSlot(slot);
+            evaluated[slot] = true;
+            sample[AlertRules.METRIC_SPEED] = speed;
+            sample[AlertRules.METRIC_BATTERY_LEVEL] = batteryLevel;
+            sample[AlertRules.METRIC_ODOMETER] = odometer;
+
+            int base = slot * ruleCount;
+            for (int r = 0; r < ruleCount; r++) {
+                double value = sample[rules.metric[r]];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                int k = base + r;
+                if (states[k] == ACTIVE) {
+                    values[k] = value;
+                    if (!rules.breaches(r, value, rules.clearThreshold[r])) {
+                        states[k] = CLEAR;
+                        cleared.incrementAndGet();
+                        events = add(events, event(slot, r, value, AlertEventDTO.Status.CLEARED, at));
+                    }
+                } else if (rules.breaches(r, value, rules.threshold[r])) {
+                    if (states[k] == CLEAR) {
+                        states[k] = PENDING;
+                        since[k] = at;
+                    }
+                    if (at - since[k] >= rules.debounceMs[r]) {
+                        states[k] = ACTIVE;
+                        since[k] = at;
+                        values[k] = value;
+                        raised.incrementAndGet();
+                        events = add(events, event(slot, r, value, AlertEventDTO.Status.RAISED, at));
+                    }
+                } else if (states[k] == PENDING) {
+                    // Condition did not hold for the debounce period
+                    states[k] = CLEAR;
+                }
+            }
+        }
+        if (events != null) {
+            events.forEach(this::publish);
+        }
+    }
+
+    // Name of the most severe active alert (earlier rules win ties), or NORMAL
+    public String recommendation(int slot) {
+        int ruleCount = rules.size();
+        synchronized (lock) {
+            if (slot >= evaluated.length) {
+                return NORMAL;
+            }
+            int best = -1;
+            for (int r = 0; r < ruleCount; r++) {
+                if (states[slot * ruleCount + r] == ACTIVE && (best < 0 || rules.severity[r] > rules.severity[best])) {
+                    best = r;
+                }
+            }
+            return best >= 0 ? rules.names[best] : NORMAL;
+        }
+    }
+
+    public List<AlertEventDTO> getActiveAlerts(String vin) {
+        int slot = fleetStateStore.slotOf(vin);
+        List<AlertEventDTO> alerts = new ArrayList<>();
+        if (slot != FleetStateStore.NO_SLOT) {
+            synchronized (lock) {
+                collectActive(slot, alerts);
+            }
+        }
+        return alerts;
+    }
+
+    public List<AlertEventDTO> getActiveAlerts() {
+        List<AlertEventDTO> alerts = new ArrayList<>();
+        synchronized (lock) {
+            for (int slot = 0; slot < evaluated.length; slot++) {
+                if (evaluated[slot]) {
+                    collectActive(slot, alerts);
+                }
+            }
+        }
+        return alerts;
+    }
+
+    // Streamed state for vehicles that have reported samples, otherwise the rules applied to the given values
+    // directly (no debounce history to go on)
+    public List<AlertEventDTO> alertsFor(String vin, double speed, double batteryLevel, double odometer) {
+        int slot = fleetStateStore.slotOf(vin);
+        synchronized (lock) {
+            if (slot != FleetStateStore.NO_SLOT && slot < evaluated.length && evaluated[slot]) {
+                List<AlertEventDTO> alerts = new ArrayList<>();
+                collectActive(slot, alerts);
+                return alerts;
+            }
+        }
+        double[] values = {speed, batteryLevel, odometer};
+        List<AlertEventDTO> alerts = new ArrayList<>();
+        for (int r = 0; r < rules.size(); r++) {
+            double value = values[rules.metric[r]];
+            if (!Double.isNaN(value) && rules.breaches(r, value, rules.threshold[r])) {
+                AlertEventDTO alert = describe(r, value, AlertEventDTO.Status.ACTIVE, System.currentTimeMillis());
+                alert.setVin(vin);
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    public List<Map<String, Object>> getRules() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int r = 0; r < rules.size(); r++) {
+            Map<String, Object> rule = new LinkedHashMap<>();
+            rule.put("name", rules.names[r]);
+            rule.put("severity", AlertRules.SEVERITIES[rules.severity[r]]);
+            rule.put("metric", AlertRules.METRIC_NAMES[rules.metric[r]]);
+            rule.put("threshold", rules.threshold[r]);
+            rule.put("clearThreshold", rules.clearThreshold[r]);
+            rule.put("debounceMs", rules.debounceMs[r]);
+            rule.put("expression", rules.expressions[r]);
+            result.add(rule);
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        long active = 0;
+        synchronized (lock) {
+            for (byte state : states) {
+                if (state == ACTIVE) {
+                    active++;
+                }
+            }
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("rules", rules.size());
+        stats.put("samples", samples.get());
+        stats.put("raised", raised.get());
+        stats.put("cleared", cleared.get());
+        stats.put("activeAlerts", active);
+        stats.put("eventsPublished", published.get());
+        return stats;
+    }
+
+    private void collectActive(int slot, List<AlertEventDTO> alerts) {
+        int ruleCount = rules.size();
+        if (slot >= evaluated.length) {
+            return;
+        }
+        for (int r = 0; r < ruleCount; r++) {
+            int k = slot * ruleCount + r;
+            if (states[k] == ACTIVE) {
+                alerts.add(event(slot, r, values[k], AlertEventDTO.Status.ACTIVE, since[k]));
+            }
+        }
+    }
+
+    private void ensureSlot(int slot) {
+        if (slot >= evaluated.length) {
+            int length = Math.max(slot + 1, evaluated.length * 2);
+            int ruleCount = rules.size();
+            states = Arrays.copyOf(states, length * ruleCount);
+            since = Arrays.copyOf(since, length * ruleCount);
+            values = Arrays.copyOf(values, length * ruleCount);
+            evaluated = Arrays.copyOf(evaluated, length);
+        }
+    }
+
+    private static List<AlertEventDTO> add(List<AlertEventDTO> events, AlertEventDTO event) {
+        List<AlertEventDTO> list = events != null ? events : new ArrayList<>();
+        list.add(event);
+        return list;
+    }
+
+    private AlertEventDTO event(int slot, int rule, double value, AlertEventDTO.Status status, long at) {
+        AlertEventDTO event = describe(rule, value, status, at);
+        event.setVin(fleetStateStore.vin(slot));
+        return event;
+    }
+
+    private AlertEventDTO describe(int rule, double value, AlertEventDTO.Status status, long at) {
+        AlertEventDTO event = new AlertEventDTO();
+        event.setRule(rules.names[rule]);
+        event.setSeverity(AlertRules.SEVERITIES[rules.severity[rule]]);
+        event.setMetric(AlertRules.METRIC_NAMES[rules.metric[rule]]);
+        event.setValue(value);
+        event.setThreshold(status == AlertEventDTO.Status.CLEARED ? rules.clearThreshold[rule] : rules.threshold[rule]);
+        event.setStatus(status);
+        event.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(at), ZoneId.systemDefault()));
+        return event;
+    }
+
+    private void publish(AlertEventDTO event) {
+        try {
+            messagingTemplate.convertAndSend(ALERT_TOPIC, event);
+            messagingTemplate.convertAndSend(ALERT_TOPIC + "/" + event.getVin(), event);
+            published.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("Error broadcasting alert {} for vehicle {}: {}", event.getRule(), event.getVin(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.evfleet.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Alert rules compiled from their configuration text into parallel primitive arrays, so evaluating every rule
+// against a sample is a loop over arrays with no allocation. Rule syntax, rules separated by ';':
+//   <NAME> <INFO|WARNING|CRITICAL> when <speed|batteryLevel|odometer> <op> <threshold> [clear <value>] [for <n>s|ms]
+// "clear" sets the hysteresis band (the alert stays active until the metric crosses it back), "for" the debounce
+// (the condition must hold that long before the alert is raised).
+final class AlertRules {
+    static final int METRIC_SPEED = 0;
+    static final int METRIC_BATTERY_LEVEL = 1;
+    static final int METRIC_ODOMETER = 2;
+    static final String[] METRIC_NAMES = {"speed", "batteryLevel", "odometer"};
+    static final String[] SEVERITIES = {"INFO", "WARNING", "CRITICAL"};
+
+    private static final Pattern RULE = Pattern.compile(
+        "(\\w+)\\s+(INFO|WARNING|CRITICAL)\\s+when\\s+(\\w+)\\s*(<=|>=|<|>)\\s*(-?\\d+(?:\\.\\d+)?)" +
+        "(?:\\s+clear\\s+(-?\\d+(?:\\.\\d+)?))?(?:\\s+for\\s+(\\d+)(ms|s))?");
+
+    final String[] names;
+    final String[] expressions;
+    final int[] severity;
+    final int[] metric;
+    final boolean[] above;
+    final boolean[] inclusive;
+    final double[] threshold;
+    final double[] clearThreshold;
+    final long[] debounceMs;
+
+    private AlertRules(int count) {
+        names = new String[count];
+        expressions = new String[count];
+        severity = new int[count];
+        metric = new int[count];
+        above = new boolean[count];
+        inclusive = new boolean[count];
+        threshold = new double[count];
+        clearThreshold = new double[count];
+        debounceMs = new long[count];
+    }
+
+    static AlertRules compile(String specification) {
+        List<String> texts = new ArrayList<>();
+        if (specification != null) {
+            for (String text : specification.split(";")) {
+                if (!text.isBlank()) {
+                    texts.add(text.trim());
+                }
+            }
+        }
+
+        AlertRules rules = new AlertRules(texts.size());
+        for (int r = 0; r < texts.size(); r++) {
+            Matcher matcher = RULE.matcher(texts.get(r));
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Invalid alert rule: " + texts.get(r));
+            }
+            rules.names[r] = matcher.group(1);
+            rules.expressions[r] = texts.get(r);
+            rules.severity[r] = indexOf(SEVERITIES, matcher.group(2));
+            rules.metric[r] = indexOf(METRIC_NAMES, matcher.group(3));
+            if (rules.metric[r] < 0) {
+                throw new IllegalArgumentException("Unknown metric " + matcher.group(3) + " in alert rule " + rules.names[r]);
+            }
+            String operator = matcher.group(4);
+            rules.above[r] = operator.startsWith(">");
+            rules.inclusive[r] = operator.endsWith("=");
+            rules.threshold[r] = Double.parseDouble(matcher.group(5));
+            rules.clearThreshold[r] = matcher.group(6) != null ? Double.parseDouble(matcher.group(6)) : rules.threshold[r];
+            if (rules.above[r] ? rules.clearThreshold[r] > rules.threshold[r] : rules.clearThreshold[r] < rules.threshold[r]) {
+                throw new IllegalArgumentException("Clear level of alert rule " + rules.names[r] + " must be on the safe side of its threshold");
+            }
+            if (matcher.group(7) != null) {
+                long amount = Long.parseLong(matcher.group(7));
+                rules.debounceMs[r] = "s".equals(matcher.group(8)) ? amount * 1000 : amount;
+            }
+            for (int other = 0; other < r; other++) {
+                if (rules.names[other].equals(rules.names[r])) {
+                    throw new IllegalArgumentException("Duplicate alert rule name " + rules.names[r]);
+                }
+            }
+        }
+        return rules;
+    }
+
+    int size() {
+        return names.length;
+    }
+
+    // Whether the value is past the given level in the rule's direction
+    boolean breaches(int rule, double value, double level) {
+        if (above[rule]) {
+            return inclusive[rule] ? value >= level : value > level;
+        }
+        return inclusive[rule] ? value <= level : value < level;
+    }
+
+    private static int indexOf(String[] values, String value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -12,6 +12,10 @@ import java.util.Map;
 
 @Service
 public class AnalyticsService {
+    public static final String BATTERY_REPLACEMENT = "batteryReplacement";
+    public static final String TIRE_REPLACEMENT = "tireReplacement";
+    public static final String BRAKE_SYSTEM_CHECK = "brakeSystemCheck";
+
     private final VehicleRepository vehicleRepository;
 
     @Autowired
@@ -77,28 +81,38 @@ public class AnalyticsService {
         Vehicle vehicle = vehicleRepository.findByVin(vin)
             .orElseThrow(() -> new RuntimeException("Vehicle not found"));
 
-        Map<String, Object> predictions = new HashMap<>();
+        return new HashMap<>(predictMaintenance(vehicle, LocalDateTime.now()));
+    }
+
+    // Wear and battery-health rules shared by the per-VIN endpoint and the fleet sweep
+    public Map<String, String> predictMaintenance(Vehicle vehicle, LocalDateTime now) {
+        Map<String, String> predictions = new HashMap<>();
 
         // Predict battery replacement
         double batteryHealth = (vehicle.getCurrentBatteryLevel() / vehicle.getBatteryCapacity()) * 100;
         if (batteryHealth < 80) {
-            predictions.put("batteryReplacement", "Recommended within next 3 months");
+            predictions.put(BATTERY_REPLACEMENT, "Recommended within next 3 months");
+        }
+
+        // Vehicles registered today have no usage history yet
+        long daysInService = ChronoUnit.DAYS.between(vehicle.getCreatedAt(), now);
+        if (daysInService <= 0) {
+            return predictions;
         }
 
         // Predict maintenance based on usage
-        double averageDailyDistance = vehicle.getOdometer() / 
-            ChronoUnit.DAYS.between(vehicle.getCreatedAt(), LocalDateTime.now());
+        double averageDailyDistance = vehicle.getOdometer() / daysInService;
         if (averageDailyDistance > 200) {
-            predictions.put("tireReplacement", "Recommended within next month");
+            predictions.put(TIRE_REPLACEMENT, "Recommended within next month");
         }
 
         // Predict component wear
-        double utilizationRate = (vehicle.getTotalOperatingHours() / 
-            (ChronoUnit.DAYS.between(vehicle.getCreatedAt(), LocalDateTime.now()) * 24.0)) * 100;
+        double operatingHours = vehicle.getTotalOperatingHours() != null ? vehicle.getTotalOperatingHours() : 0.0;
+        double utilizationRate = (operatingHours / (daysInService * 24.0)) * 100;
         if (utilizationRate > 70) {
-            predictions.put("brakeSystemCheck", "Recommended within next 2 weeks");
+            predictions.put(BRAKE_SYSTEM_CHECK, "Recommended within next 2 weeks");
         }
 
         return predictions;
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
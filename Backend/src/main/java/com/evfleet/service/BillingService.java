@@ -0,0 +1,436 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.BillingRunStatusDTO;
+import com.evfleet.entity.BillingCheckpoint;
+import com.evfleet.entity.BillingRun;
+import com.evfleet.repository.BillingCheckpointRepository;
+import com.evfleet.repository.BillingRunRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+// Nightly batch billing: re-prices every completed, unbilled session with the compiled tariffs and marks it billed.
+// The session id range is split into partitions billed in parallel, each in keyset chunks; a chunk's session
+// updates and its checkpoint commit together, and only rows still unbilled are touched, so a crashed or
+// overlapping run never bills a session twice. An unfinished run is resumed from its checkpoints before a new one
+// starts, up to billing.batch.max-attempts times; after that it is abandoned and a fresh run takes over.
+@Service
+public class BillingService {
+    private static final Logger logger = LoggerFactory.getLogger(BillingService.class);
+    private static final String COMPLETED = "COMPLETED";
+    private static final String UNBILLED_RANGE_SQL =
+        "SELECT MIN(id), MAX(id) FROM charging_sessions WHERE status = '" + COMPLETED + "' AND billed_at IS NULL";
+    private static final String SELECT_UNBILLED_SQL =
+        "SELECT cs.id, cs.start_time, cs.end_time, cs.energy_delivered, cs.connector_type, st.operator, st.price_per_kwh " +
+        "FROM charging_sessions cs JOIN charging_stations st ON st.id = cs.station_id " +
+        "WHERE cs.id > ? AND cs.id <= ? AND cs.status = '" + COMPLETED + "' AND cs.billed_at IS NULL " +
+        "ORDER BY cs.id LIMIT ?";
+    private static final String BILL_SESSION_SQL =
+        "UPDATE charging_sessions SET cost = ?, billed_at = ?, billing_run_id = ? WHERE id = ? AND billed_at IS NULL";
+    private static final String ADVANCE_CHECKPOINT_SQL =
+        "UPDATE billing_checkpoints SET last_session_id = ?, sessions_billed = sessions_billed + ?, " +
+        "amount_billed = amount_billed + ?, completed = ? WHERE id = ?";
+    private static final String LEASE_NAME = "billing";
+    private static final String CLAIM_LEASE_SQL =
+        "UPDATE billing_lease SET holder = ?, held_until = ? WHERE name = ? AND (holder IS NULL OR held_until < ?)";
+    private static final String INSERT_LEASE_SQL = "INSERT INTO billing_lease (name, holder, held_until) VALUES (?, ?, ?)";
+    private static final String RENEW_LEASE_SQL = "UPDATE billing_lease SET held_until = ? WHERE name = ? AND holder = ?";
+    private static final String RELEASE_LEASE_SQL =
+        "UPDATE billing_lease SET holder = NULL, held_until = NULL WHERE name = ? AND holder = ?";
+    private static final String CHECKPOINT_TOTALS_SQL =
+        "SELECT COALESCE(SUM(sessions_billed), 0), COALESCE(SUM(amount_billed), 0) FROM billing_checkpoints WHERE run_id = ?";
+
+    private final BillingRunRepository billingRunRepository;
+    private final BillingCheckpointRepository billingCheckpointRepository;
+    private final TariffService tariffService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService partitionExecutor;
+    private final ExecutorService runExecutor;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final long leaseMs;
+    // Identifies this instance as lease holder; unique per start, so a restarted node does not inherit its old lease
+    private final String leaseHolder = UUID.randomUUID().toString();
+    private final AtomicLong leaseRenewedAt = new AtomicLong();
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile BillingRunStatusDTO status = new BillingRunStatusDTO();
+    private final LongAdder sessionsBilled = new LongAdder();
+    private final DoubleAdder amountBilled = new DoubleAdder();
+    private final LongAdder chunksProcessed = new LongAdder();
+    private final AtomicInteger partitionsCompleted = new AtomicInteger();
+    private volatile long startNanos;
+
+    public BillingService(BillingRunRepository billingRunRepository,
+                          BillingCheckpointRepository billingCheckpointRepository,
+                          TariffService tariffService,
+                          JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${billing.batch.chunk-size:1000}") int chunkSize,
+                          @Value("${billing.batch.parallelism:0}") int parallelism,
+                          @Value("${billing.batch.max-attempts:3}") int maxAttempts,
+                          @Value("${billing.batch.lease-ms:300000}") long leaseMs) {
+        this.billingRunRepository = billingRunRepository;
+        this.billingCheckpointRepository = billingCheckpointRepository;
+        this.tariffService = tariffService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.leaseMs = leaseMs;
+        this.partitionExecutor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "billing-partition");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.runExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "billing-run");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(cron = "${billing.batch.cron:0 30 1 * * *}")
+    public void scheduledRun() {
+        if (!runBilling()) {
+            logger.warn("Skipping scheduled billing run, a run is still in progress on this or another node");
+        }
+    }
+
+    // Runs (or resumes) a billing run on the calling thread; returns false if one is already in progress here or
+    // on another node
+    public boolean runBilling() {
+        if (!claim()) {
+            return false;
+        }
+        BillingRunStatusDTO progress = begin();
+        BillingRun run = prepare(progress);
+        if (run != null) {
+            bill(run, progress);
+        }
+        return true;
+    }
+
+    // Starts (or resumes) a billing run and bills it on the billing executor; returns null if one is already in
+    // progress here or on another node. The run is resolved before returning, so the status carries its id.
+    public BillingRunStatusDTO startBilling() {
+        if (!claim()) {
+            return null;
+        }
+        BillingRunStatusDTO progress = begin();
+        BillingRun run = prepare(progress);
+        if (run != null) {
+            try {
+                runExecutor.execute(() -> bill(run, progress));
+            } catch (RejectedExecutionException e) {
+                progress.setLastError("Billing executor is shut down");
+                finish(run, BillingRun.Status.FAILED, progress.getLastError());
+                end(progress);
+            }
+        }
+        return getStatus();
+    }
+
+    // One run at a time in this JVM, and across nodes through the billing lease
+    private boolean claim() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Timestamp until = new Timestamp(now + leaseMs);
+            boolean claimed = jdbcTemplate.update(CLAIM_LEASE_SQL, leaseHolder, until, LEASE_NAME, new Timestamp(now)) > 0;
+            if (!claimed) {
+                try {
+                    claimed = jdbcTemplate.update(INSERT_LEASE_SQL, LEASE_NAME, leaseHolder, until) > 0;
+                } catch (DuplicateKeyException e) {
+                    // The lease row exists and is held by another node
+                }
+            }
+            if (claimed) {
+                leaseRenewedAt.set(now);
+                return true;
+            }
+        } catch (Exception e) {
+            logger.error("Could not claim the billing lease: {}", e.getMessage());
+        }
+        running.set(false);
+        return false;
+    }
+
+    // Called by the partitions after each chunk; renews at most every third of the lease. A node that lost the lease,
+    // e.g. after stalling past it, stops so the new holder is the only one billing.
+    private void renewLease() {
+        long now = System.currentTimeMillis();
+        long renewedAt = leaseRenewedAt.get();
+        if (now - renewedAt < leaseMs / 3 || !leaseRenewedAt.compareAndSet(renewedAt, now)) {
+            return;
+        }
+        if (jdbcTemplate.update(RENEW_LEASE_SQL, new Timestamp(now + leaseMs), LEASE_NAME, leaseHolder) == 0) {
+            throw new IllegalStateException("Billing lease was taken over by another node");
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            jdbcTemplate.update(RELEASE_LEASE_SQL, LEASE_NAME, leaseHolder);
+        } catch (Exception e) {
+            // Runs out on its own
+            logger.warn("Could not release the billing lease: {}", e.getMessage());
+        }
+    }
+
+    private BillingRunStatusDTO begin() {
+        BillingRunStatusDTO progress = new BillingRunStatusDTO();
+        progress.setRunning(true);
+        progress.setStartedAt(LocalDateTime.now());
+        sessionsBilled.reset();
+        amountBilled.reset();
+        chunksProcessed.reset();
+        partitionsCompleted.set(0);
+        startNanos = System.nanoTime();
+        status = progress;
+        return progress;
+    }
+
+    // The run to bill, or null (with the run ended) if there is nothing to bill or it could not be set up
+    private BillingRun prepare(BillingRunStatusDTO progress) {
+        try {
+            // Bill with the tariffs as stored now, not as last refreshed
+            tariffService.reload();
+            BillingRun run = resumeOrStart(progress);
+            if (run == null) {
+                end(progress);
+            }
+            return run;
+        } catch (Exception e) {
+            logger.error("Could not start billing run: {}", e.getMessage());
+            progress.setLastError(e.getMessage());
+            end(progress);
+            return null;
+        }
+    }
+
+    private void bill(BillingRun run, BillingRunStatusDTO progress) {
+        try {
+            List<BillingCheckpoint> checkpoints = billingCheckpointRepository.findByRunIdOrderByPartitionNoAsc(run.getId());
+            progress.setPartitions(checkpoints.size());
+            List<CompletableFuture<Void>> partitions = new ArrayList<>();
+            for (BillingCheckpoint checkpoint : checkpoints) {
+                if (checkpoint.getCompleted()) {
+                    partitionsCompleted.incrementAndGet();
+                    continue;
+                }
+                Long runId = run.getId();
+                partitions.add(CompletableFuture.runAsync(() -> billPartition(runId, checkpoint), partitionExecutor));
+            }
+            CompletableFuture.allOf(partitions.toArray(CompletableFuture<?>[]::new)).join();
+            finish(run, BillingRun.Status.COMPLETED, null);
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.error("Billing run {} failed after {} sessions: {}", run.getId(), sessionsBilled.sum(),
+                cause.getMessage());
+            progress.setLastError(cause.getMessage());
+            finish(run, BillingRun.Status.FAILED, cause.getMessage());
+        } finally {
+            end(progress);
+        }
+    }
+
+    private void end(BillingRunStatusDTO progress) {
+        snapshot(progress);
+        progress.setFinishedAt(LocalDateTime.now());
+        progress.setRunning(false);
+        releaseLease();
+        running.set(false);
+        logger.info("Billing run {} finished: {} sessions, amount {}, {} sessions/s",
+            progress.getRunId() != null ? progress.getRunId() : "-", progress.getSessionsBilled(),
+            String.format("%.2f", progress.getAmountBilled()), String.format("%.1f", progress.getSessionsPerSecond()));
+    }
+
+    public BillingRunStatusDTO getStatus() {
+        BillingRunStatusDTO current = status;
+        if (current.isRunning()) {
+            snapshot(current);
+        }
+        return current;
+    }
+
+    public List<BillingRun> getRecentRuns() {
+        return billingRunRepository.findTop20ByOrderByIdDesc();
+    }
+
+    private BillingRun resumeOrStart(BillingRunStatusDTO progress) {
+        BillingRun unfinished = billingRunRepository
+            .findFirstByStatusInOrderByIdDesc(List.of(BillingRun.Status.RUNNING, BillingRun.Status.FAILED))
+            .orElse(null);
+        if (unfinished != null && unfinished.getAttempts() >= maxAttempts) {
+            // A run that keeps failing would otherwise block billing for good; whatever it left unbilled is
+            // picked up by the fresh run below
+            logger.warn("Abandoning billing run {} after {} attempts: {}", unfinished.getId(),
+                unfinished.getAttempts(), unfinished.getLastError());
+            finish(unfinished, BillingRun.Status.ABANDONED, unfinished.getLastError());
+        } else if (unfinished != null) {
+            logger.info("Resuming billing run {} over sessions {}..{}, attempt {}", unfinished.getId(),
+                unfinished.getFromSessionId(), unfinished.getToSessionId(), unfinished.getAttempts() + 1);
+            unfinished.setStatus(BillingRun.Status.RUNNING);
+            unfinished.setAttempts(unfinished.getAttempts() + 1);
+            unfinished.setLastError(null);
+            billingRunRepository.save(unfinished);
+            progress.setRunId(unfinished.getId());
+            progress.setAttempt(unfinished.getAttempts());
+            progress.setResumed(true);
+            return unfinished;
+        }
+
+        Long[] range = jdbcTemplate.queryForObject(UNBILLED_RANGE_SQL,
+            (rs, rowNum) -> new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+        if (range == null || range[0] == null) {
+            return null;
+        }
+
+        return transactionTemplate.execute(tx -> {
+            BillingRun run = new BillingRun();
+            run.setStatus(BillingRun.Status.RUNNING);
+            run.setFromSessionId(range[0]);
+            run.setToSessionId(range[1]);
+            run.setAttempts(1);
+            run.setSessionsBilled(0L);
+            run.setAmountBilled(0.0);
+            run.setStartedAt(LocalDateTime.now());
+            run = billingRunRepository.save(run);
+
+            // Equal id ranges; ids are allocated in sequence, so partitions come out roughly even
+            long span = range[1] - range[0] + 1;
+            int partitions = (int) Math.min(parallelism, span);
+            long width = (span + partitions - 1) / partitions;
+            for (int p = 0; p < partitions; p++) {
+                long from = range[0] + p * width;
+                if (from > range[1]) {
+                    break;
+                }
+                BillingCheckpoint checkpoint = new BillingCheckpoint();
+                checkpoint.setRunId(run.getId());
+                checkpoint.setPartitionNo(p);
+                checkpoint.setLastSessionId(from - 1);
+                checkpoint.setToSessionId(Math.min(range[1], from + width - 1));
+                checkpoint.setSessionsBilled(0L);
+                checkpoint.setAmountBilled(0.0);
+                checkpoint.setCompleted(false);
+                billingCheckpointRepository.save(checkpoint);
+            }
+            progress.setRunId(run.getId());
+            progress.setAttempt(1);
+            logger.info("Started billing run {} over sessions {}..{}", run.getId(), range[0], range[1]);
+            return run;
+        });
+    }
+
+    private void billPartition(Long runId, BillingCheckpoint checkpoint) {
+        long lastId = checkpoint.getLastSessionId();
+        while (true) {
+            LocalDateTime billedAt = LocalDateTime.now();
+            Timestamp billedAtTimestamp = Timestamp.valueOf(billedAt);
+            List<Object[]> rows = new ArrayList<>();
+            List<Double> costs = new ArrayList<>();
+            jdbcTemplate.query(SELECT_UNBILLED_SQL, rs -> {
+                LocalDateTime start = rs.getTimestamp(2).toLocalDateTime();
+                Timestamp end = rs.getTimestamp(3);
+                double energy = rs.getDouble(4);
+                double cost = tariffService.price(rs.getString(6), rs.getString(5), start,
+                    end != null ? end.toLocalDateTime() : start, energy, rs.getDouble(7));
+                rows.add(new Object[]{cost, billedAtTimestamp, runId, rs.getLong(1)});
+                costs.add(cost);
+            }, lastId, checkpoint.getToSessionId(), chunkSize);
+
+            boolean completed = rows.size() < chunkSize;
+            long chunkLastId = rows.isEmpty() ? lastId : (Long) rows.get(rows.size() - 1)[3];
+            long[] billed = new long[1];
+            double[] amount = new double[1];
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (!rows.isEmpty()) {
+                    int[] counts = jdbcTemplate.batchUpdate(BILL_SESSION_SQL, rows);
+                    for (int i = 0; i < counts.length; i++) {
+                        // Rows billed by an overlapping run in the meantime report 0 and are not counted again
+                        if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                            billed[0]++;
+                            amount[0] += costs.get(i);
+                        }
+                    }
+                }
+                jdbcTemplate.update(ADVANCE_CHECKPOINT_SQL, chunkLastId, billed[0], amount[0], completed,
+                    checkpoint.getId());
+            });
+
+            lastId = chunkLastId;
+            sessionsBilled.add(billed[0]);
+            amountBilled.add(amount[0]);
+            chunksProcessed.increment();
+            logger.debug("Billing run {} partition {}: {} sessions up to id {}", runId, checkpoint.getPartitionNo(),
+                billed[0], lastId);
+            if (completed) {
+                partitionsCompleted.incrementAndGet();
+                return;
+            }
+            renewLease();
+        }
+    }
+
+    private void finish(BillingRun run, BillingRun.Status outcome, String error) {
+        try {
+            // Totals from the checkpoints, so a resumed run also counts what earlier attempts billed. Read with SQL:
+            // the checkpoints were advanced with JDBC, so entities already loaded in this persistence context are stale.
+            jdbcTemplate.query(CHECKPOINT_TOTALS_SQL, rs -> {
+                run.setSessionsBilled(rs.getLong(1));
+                run.setAmountBilled(Math.round(rs.getDouble(2) * 100.0) / 100.0);
+            }, run.getId());
+            run.setStatus(outcome);
+            run.setFinishedAt(LocalDateTime.now());
+            run.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            billingRunRepository.save(run);
+        } catch (Exception e) {
+            logger.error("Could not record the outcome of billing run {}: {}", run.getId(), e.getMessage());
+        }
+    }
+
+    private void snapshot(BillingRunStatusDTO progress) {
+        progress.setSessionsBilled(sessionsBilled.sum());
+        progress.setAmountBilled(Math.round(amountBilled.sum() * 100.0) / 100.0);
+        progress.setChunksProcessed(chunksProcessed.sum());
+        progress.setPartitionsCompleted(partitionsCompleted.get());
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        progress.setSessionsPerSecond(seconds > 0 ? sessionsBilled.sum() / seconds : 0.0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runExecutor.shutdownNow();
+        partitionExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,90 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.ChangeSetDTO;
+import com.evfleet.entity.Tombstone;
+import com.evfleet.repository.TombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Server side of the "since" delta sync: cursors are epoch millis of the updated_at column, deletions are kept as
+// tombstones for the retention period. Each poll re-reads an overlap window before the cursor, since a transaction
+// can stamp updated_at and commit a moment later; clients apply changes by id, so repeats are harmless. Change sets
+// are read from the primary: a lagging replica would hand out a cursor past rows it has not received yet.
+@Service
+public class ChangeLogService {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLogService.class);
+
+    private final TombstoneRepository tombstoneRepository;
+    private final long overlapMs;
+    private final long retentionMs;
+
+    public ChangeLogService(TombstoneRepository tombstoneRepository,
+                            @Value("${change-log.overlap-ms:2000}") long overlapMs,
+                            @Value("${change-log.tombstone-retention-hours:168}") long retentionHours) {
+        this.tombstoneRepository = tombstoneRepository;
+        this.overlapMs = overlapMs;
+        this.retentionMs = TimeUnit.HOURS.toMillis(retentionHours);
+    }
+
+    // Joins the caller's transaction, so the tombstone exists exactly when the delete commits
+    @Transactional
+    public void recordDeletion(Tombstone.EntityType entityType, Long entityId, String naturalKey) {
+        Tombstone tombstone = new Tombstone();
+        tombstone.setEntityType(entityType);
+        tombstone.setEntityId(entityId);
+        tombstone.setNaturalKey(naturalKey);
+        tombstone.setDeletedAt(LocalDateTime.now());
+        tombstoneRepository.save(tombstone);
+    }
+
+    // Records changed after the cursor (or everything, if there is no usable cursor) plus the ids deleted since.
+    // Read-write, so the routing data source picks the primary.
+    @Transactional
+    public <T> ChangeSetDTO<T> changesSince(Long since, Tombstone.EntityType entityType,
+                                            Function<LocalDateTime, List<T>> changedAfter, Supplier<List<T>> all) {
+        long now = System.currentTimeMillis();
+        // A cursor from a node whose clock runs ahead of this one's
+        if (since != null && since > now) {
+            since = now;
+        }
+        ChangeSetDTO<T> changes = new ChangeSetDTO<>();
+        changes.setCursor(now);
+        if (since == null || since <= 0 || since < now - retentionMs) {
+            changes.setFull(true);
+            changes.setChanged(all.get());
+            return changes;
+        }
+
+        LocalDateTime from = toLocalDateTime(since - overlapMs);
+        changes.setChanged(changedAfter.apply(from));
+        for (Tombstone tombstone : tombstoneRepository.findByEntityTypeAndDeletedAtAfter(entityType, from)) {
+            changes.getDeleted().add(tombstone.getEntityId());
+        }
+        return changes;
+    }
+
+    @Scheduled(fixedDelayString = "${change-log.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeTombstones() {
+        int purged = tombstoneRepository.deleteByDeletedAtBefore(toLocalDateTime(System.currentTimeMillis() - retentionMs));
+        if (purged > 0) {
+            logger.info("Purged {} tombstones older than the change log retention", purged);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
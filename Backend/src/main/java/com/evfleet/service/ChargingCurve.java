@@ -0,0 +1,129 @@
+package com.evfleet.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// CC/CV charging profile of one vehicle type. Below the knee SoC the battery takes constant power: the lesser of
+// the vehicle's limit for the connector (AC on-board charger or DC) and the station rating. Above the knee the
+// charger holds voltage and power falls linearly with the remaining capacity, so SoC closes on 100% exponentially
+// and charging terminates once power is down to a twentieth of the CC level. Both phases integrate in closed form,
+// so a step of any length is exact and costs at most one exp().
+// Profiles from configuration, separated by ';':  <type match>:<max DC kW>/<max AC kW>/<knee SoC %>
+// The match is a case-insensitive substring of the vehicle type, first match wins, '*' matches any type.
+final class ChargingCurve {
+    static final byte PHASE_CC = 0;
+    static final byte PHASE_CV = 1;
+    static final byte PHASE_COMPLETE = 2;
+    static final String[] PHASE_NAMES = {"CC", "CV", "COMPLETE"};
+
+    private static final double TERMINATION_FRACTION = 0.05;
+    private static final ChargingCurve DEFAULT = new ChargingCurve("*", 100, 11, 80);
+    private static final Pattern PROFILE = Pattern.compile(
+        "([^:]+):\\s*(\\d+(?:\\.\\d+)?)\\s*/\\s*(\\d+(?:\\.\\d+)?)\\s*/\\s*(\\d+(?:\\.\\d+)?)");
+    private static final Set<String> AC_CONNECTORS = Set.of("AC", "TYPE1", "TYPE2", "J1772", "SCHUKO");
+
+    final String match;
+    final double maxDcKw;
+    final double maxAcKw;
+    final double kneeSoc;
+    final double cutoffSoc;
+
+    private ChargingCurve(String match, double maxDcKw, double maxAcKw, double kneeSoc) {
+        if (maxDcKw <= 0 || maxAcKw <= 0 || kneeSoc <= 0 || kneeSoc >= 100) {
+            throw new IllegalArgumentException("Invalid charging curve for " + match
+                + ": power limits must be positive and the knee between 0 and 100");
+        }
+        this.match = match;
+        this.maxDcKw = maxDcKw;
+        this.maxAcKw = maxAcKw;
+        this.kneeSoc = kneeSoc;
+        this.cutoffSoc = 100 - TERMINATION_FRACTION * (100 - kneeSoc);
+    }
+
+    static List<ChargingCurve> parse(String specification) {
+        List<ChargingCurve> curves = new ArrayList<>();
+        if (specification != null) {
+            for (String text : specification.split(";")) {
+                if (text.isBlank()) {
+                    continue;
+                }
+                Matcher matcher = PROFILE.matcher(text.trim());
+                if (!matcher.matches()) {
+                    throw new IllegalArgumentException("Invalid charging curve: " + text.trim());
+                }
+                curves.add(new ChargingCurve(matcher.group(1).trim().toLowerCase(Locale.ROOT),
+                    Double.parseDouble(matcher.group(2)), Double.parseDouble(matcher.group(3)),
+                    Double.parseDouble(matcher.group(4))));
+            }
+        }
+        return curves;
+    }
+
+    static ChargingCurve select(List<ChargingCurve> curves, String vehicleType) {
+        String type = vehicleType != null ? vehicleType.toLowerCase(Locale.ROOT) : "";
+        for (ChargingCurve curve : curves) {
+            if (curve.match.equals("*") || type.contains(curve.match)) {
+                return curve;
+            }
+        }
+        return DEFAULT;
+    }
+
+    // CC power for a session: the vehicle's limit for the connector, capped by the station rating
+    double powerLimitKw(String connectorType, Double stationKw) {
+        String connector = connectorType != null
+            ? connectorType.toUpperCase(Locale.ROOT).replaceAll("[\\s_-]", "") : "";
+        double vehicleKw = AC_CONNECTORS.contains(connector) ? maxAcKw : maxDcKw;
+        return stationKw != null && stationKw > 0 ? Math.min(vehicleKw, stationKw) : vehicleKw;
+    }
+
+    byte phase(double soc) {
+        return soc >= cutoffSoc ? PHASE_COMPLETE : soc < kneeSoc ? PHASE_CC : PHASE_CV;
+    }
+
+    // Power drawn by the battery at the given SoC
+    double powerAt(double soc, double ccPowerKw) {
+        if (soc >= cutoffSoc) {
+            return 0.0;
+        }
+        return soc < kneeSoc ? ccPowerKw : ccPowerKw * (100 - soc) / (100 - kneeSoc);
+    }
+
+    // SoC after charging for the given hours from soc at ccPowerKw into a battery of capacityKwh
+    double advance(double soc, double hours, double ccPowerKw, double capacityKwh) {
+        if (hours <= 0 || soc >= cutoffSoc) {
+            return soc;
+        }
+        // CC: SoC rises linearly at r %/h up to the knee
+        double rate = ccPowerKw / capacityKwh * 100;
+        if (soc < kneeSoc) {
+            double toKnee = (kneeSoc - soc) / rate;
+            if (hours <= toKnee) {
+                return soc + rate * hours;
+            }
+            hours -= toKnee;
+            soc = kneeSoc;
+        }
+        // CV: d(soc)/dt = rate * (100 - soc) / (100 - knee)
+        double next = 100 - (100 - soc) * Math.exp(-rate / (100 - kneeSoc) * hours);
+        return Math.min(next, cutoffSoc);
+    }
+
+    // Charging time left until termination
+    double hoursToComplete(double soc, double ccPowerKw, double capacityKwh) {
+        if (soc >= cutoffSoc) {
+            return 0.0;
+        }
+        double rate = ccPowerKw / capacityKwh * 100;
+        double hours = 0.0;
+        if (soc < kneeSoc) {
+            hours = (kneeSoc - soc) / rate;
+            soc = kneeSoc;
+        }
+        return hours + Math.log((100 - soc) / (100 - cutoffSoc)) * (100 - kneeSoc) / rate;
+    }
+}
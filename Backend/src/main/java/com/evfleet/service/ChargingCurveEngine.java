@@ -0,0 +1,384 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.ChargingProgressDTO;
+import com.evfleet.entity.ChargingSession;
+import com.evfleet.entity.ChargingStation;
+import com.evfleet.entity.Vehicle;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+// Live charging of every IN_PROGRESS session. Sessions sit in primitive columns indexed by a handle and are stepped
+// on a shared timer wheel, each once per step interval, so the work is spread evenly over the ticks. A step
+// integrates the vehicle type's CC/CV curve over the time since the last one, writes the SoC to the fleet state
+// store and, at most once per publish interval (and on phase changes), streams progress to
+// /topic/charging-session/{sessionId} and /topic/charging-session/station/{stationId}.
+// The curve is a pure function of the session's initial SoC and elapsed time, so endSession settles a session from
+// its row alone and sessions restored after a restart catch up on the time they were not stepped.
+@Service
+public class ChargingCurveEngine {
+    private static final Logger logger = LoggerFactory.getLogger(ChargingCurveEngine.class);
+    private static final String SESSION_TOPIC = "/topic/charging-session/";
+    private static final String STATION_TOPIC = "/topic/charging-session/station/";
+    private static final String ENDED = "ENDED";
+    private static final double DEFAULT_CAPACITY_KWH = 60.0;
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+
+    private final FleetStateStore fleetStateStore;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final List<ChargingCurve> curves;
+    private final long stepMs;
+    private final long publishIntervalMs;
+    private final double timeScale;
+    private final double efficiency;
+
+    // Guarded by lock
+    private final Object lock = new Object();
+    private final TimerWheel wheel;
+    private final Map<Long, Integer> handles = new HashMap<>();
+    private int[] freeHandles = new int[0];
+    private int freeCount;
+    private int handleCount;
+    private long[] sessionIds = new long[0];
+    private long[] stationIds = new long[0];
+    private String[] vins = new String[0];
+    private int[] vehicleSlots = new int[0];
+    private ChargingCurve[] sessionCurves = new ChargingCurve[0];
+    private double[] ccPowerKw = new double[0];
+    private double[] capacityKwh = new double[0];
+    private double[] initialSoc = new double[0];
+    private double[] soc = new double[0];
+    private long[] lastStepAt = new long[0];
+    private long[] lastPublishAt = new long[0];
+    private byte[] phases = new byte[0];
+    private long stepNow;
+    private List<ChargingProgressDTO> outbox = new ArrayList<>();
+    private final IntConsumer stepper = this::step;
+
+    private final AtomicLong steps = new AtomicLong();
+    private final AtomicLong stepNanos = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+
+    public ChargingCurveEngine(FleetStateStore fleetStateStore,
+                               SimpMessagingTemplate messagingTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${charging.curve.profiles:}") String profiles,
+                               @Value("${charging.curve.tick-ms:100}") long tickMs,
+                               @Value("${charging.curve.step-ms:1000}") long stepMs,
+                               @Value("${charging.curve.publish-interval-ms:5000}") long publishIntervalMs,
+                               @Value("${charging.curve.time-scale:1.0}") double timeScale,
+                               @Value("${charging.curve.efficiency:0.92}") double efficiency) {
+        if (stepMs < tickMs || timeScale <= 0 || efficiency <= 0 || efficiency > 1) {
+            throw new IllegalArgumentException("charging.curve needs step-ms >= tick-ms, a positive time-scale and efficiency in (0, 1]");
+        }
+        this.fleetStateStore = fleetStateStore;
+        this.messagingTemplate = messagingTemplate;
+        this.curves = ChargingCurve.parse(profiles);
+        this.stepMs = stepMs;
+        this.publishIntervalMs = publishIntervalMs;
+        this.timeScale = timeScale;
+        this.efficiency = efficiency;
+        // One revolution per step interval, so a session comes round to the same bucket every step
+        this.wheel = new TimerWheel(tickMs, (int) Math.max(1, stepMs / tickMs), System.currentTimeMillis());
+
+        Gauge.builder("evfleet.charging.sessions.active", this, ChargingCurveEngine::activeSessions).register(meterRegistry);
+        FunctionCounter.builder("evfleet.charging.curve.steps", steps, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("evfleet.charging.curve.published", published, AtomicLong::get).register(meterRegistry);
+    }
+
+    // Starts (or restarts) live charging of a session; call once it is committed
+    public void track(ChargingSession session) {
+        Vehicle vehicle = session.getVehicle();
+        ChargingStation station = session.getChargingStation();
+        ChargingCurve curve = ChargingCurve.select(curves, vehicle.getType());
+        double capacity = capacity(vehicle);
+        double power = curve.powerLimitKw(session.getConnectorType(), station.getPowerRating());
+        double startSoc = startSoc(session);
+        int vehicleSlot = fleetStateStore.register(vehicle);
+        long now = System.currentTimeMillis();
+        // Sessions restored after a restart catch up on the time they were not stepped
+        double currentSoc = curve.advance(startSoc, chargingHours(session.getStartTime(), now), power, capacity);
+
+        List<ChargingProgressDTO> events;
+        synchronized (lock) {
+            Integer existing = handles.get(session.getId());
+            int handle = existing != null ? existing : allocate();
+            handles.put(session.getId(), handle);
+            sessionIds[handle] = session.getId();
+            stationIds[handle] = station.getId();
+            vins[handle] = vehicle.getVin();
+            vehicleSlots[handle] = vehicleSlot;
+            sessionCurves[handle] = curve;
+            ccPowerKw[handle] = power;
+            capacityKwh[handle] = capacity;
+            initialSoc[handle] = startSoc;
+            soc[handle] = currentSoc;
+            lastStepAt[handle] = now;
+            lastPublishAt[handle] = now;
+            phases[handle] = curve.phase(currentSoc);
+            if (phases[handle] != ChargingCurve.PHASE_COMPLETE) {
+                wheel.schedule(handle, now + stepMs);
+            } else {
+                wheel.cancel(handle);
+            }
+            writeLiveState(handle, now);
+            outbox.add(progress(handle, now));
+            events = drainOutbox();
+        }
+        publish(events);
+    }
+
+    // Energy and final SoC of a session charged from its start until endTime. Pure, so it can run inside the
+    // ending transaction; stop tracking with untrack once that commits.
+    public ChargingProgressDTO settle(ChargingSession session, LocalDateTime endTime) {
+        Vehicle vehicle = session.getVehicle();
+        ChargingCurve curve = ChargingCurve.select(curves, vehicle.getType());
+        double capacity = capacity(vehicle);
+        double power = curve.powerLimitKw(session.getConnectorType(), session.getChargingStation().getPowerRating());
+        double startSoc = startSoc(session);
+        long end = endTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        double finalSoc = curve.advance(startSoc, chargingHours(session.getStartTime(), end), power, capacity);
+
+        ChargingProgressDTO outcome = new ChargingProgressDTO();
+        outcome.setSessionId(session.getId());
+        outcome.setStationId(session.getChargingStation().getId());
+        outcome.setVin(vehicle.getVin());
+        outcome.setPhase(ENDED);
+        outcome.setStateOfCharge(finalSoc);
+        outcome.setPowerKw(0.0);
+        outcome.setEnergyDeliveredKwh(energyKwh(capacity, startSoc, finalSoc));
+        outcome.setTimestamp(endTime);
+        return outcome;
+    }
+
+    // Wall-clock time at which the session's curve terminates; pure like settle
+    public long completesAt(ChargingSession session) {
+        Vehicle vehicle = session.getVehicle();
+        ChargingCurve curve = ChargingCurve.select(curves, vehicle.getType());
+        double power = curve.powerLimitKw(session.getConnectorType(), session.getChargingStation().getPowerRating());
+        double hours = curve.hoursToComplete(startSoc(session), power, capacity(vehicle)) / timeScale;
+        return session.getStartTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            + Math.round(hours * MILLIS_PER_HOUR);
+    }
+
+    // Stops stepping the session and publishes its final progress
+    public void untrack(Long sessionId, ChargingProgressDTO outcome) {
+        synchronized (lock) {
+            Integer handle = handles.remove(sessionId);
+            if (handle != null) {
+                wheel.cancel(handle);
+                vins[handle] = null;
+                sessionCurves[handle] = null;
+                release(handle);
+            }
+        }
+        if (outcome != null) {
+            publish(List.of(outcome));
+        }
+    }
+
+    // Session id to VIN of every session charging on this node
+    public Map<Long, String> trackedSessions() {
+        Map<Long, String> tracked = new HashMap<>();
+        synchronized (lock) {
+            handles.forEach((sessionId, handle) -> tracked.put(sessionId, vins[handle]));
+        }
+        return tracked;
+    }
+
+    @Scheduled(fixedRateString = "${charging.curve.tick-ms:100}")
+    public void tick() {
+        List<ChargingProgressDTO> events;
+        synchronized (lock) {
+            long now = System.currentTimeMillis();
+            stepNow = now;
+            long start = System.nanoTime();
+            int stepped = wheel.advance(now, stepper);
+            if (stepped > 0) {
+                stepNanos.addAndGet(System.nanoTime() - start);
+                steps.addAndGet(stepped);
+            }
+            events = drainOutbox();
+        }
+        publish(events);
+    }
+
+    public ChargingProgressDTO getProgress(Long sessionId) {
+        synchronized (lock) {
+            Integer handle = handles.get(sessionId);
+            if (handle == null) {
+                return null;
+            }
+            // Integrated up to now without disturbing the stepped state
+            long now = System.currentTimeMillis();
+            double stepSoc = soc[handle];
+            soc[handle] = sessionCurves[handle].advance(stepSoc, hours(now - lastStepAt[handle]),
+                ccPowerKw[handle], capacityKwh[handle]);
+            ChargingProgressDTO progress = progress(handle, now);
+            soc[handle] = stepSoc;
+            return progress;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (lock) {
+            int complete = 0;
+            for (int handle : handles.values()) {
+                if (phases[handle] == ChargingCurve.PHASE_COMPLETE) {
+                    complete++;
+                }
+            }
+            stats.put("activeSessions", handles.size());
+            stats.put("completeSessions", complete);
+            stats.put("scheduledSteps", wheel.size());
+        }
+        long stepCount = steps.get();
+        stats.put("steps", stepCount);
+        stats.put("meanStepMicros", stepCount > 0 ? Math.round(stepNanos.get() / (double) stepCount) / 1000.0 : 0.0);
+        stats.put("published", published.get());
+        stats.put("stepMs", stepMs);
+        stats.put("publishIntervalMs", publishIntervalMs);
+        stats.put("timeScale", timeScale);
+        return stats;
+    }
+
+    // Wheel callback, under lock
+    private void step(int handle) {
+        long now = stepNow;
+        ChargingCurve curve = sessionCurves[handle];
+        soc[handle] = curve.advance(soc[handle], hours(now - lastStepAt[handle]), ccPowerKw[handle], capacityKwh[handle]);
+        lastStepAt[handle] = now;
+        byte phase = curve.phase(soc[handle]);
+        boolean phaseChanged = phase != phases[handle];
+        phases[handle] = phase;
+
+        writeLiveState(handle, now);
+        if (phaseChanged || now - lastPublishAt[handle] >= publishIntervalMs) {
+            lastPublishAt[handle] = now;
+            outbox.add(progress(handle, now));
+        }
+        if (phase != ChargingCurve.PHASE_COMPLETE) {
+            wheel.schedule(handle, now + stepMs);
+        }
+    }
+
+    private void writeLiveState(int handle, long now) {
+        fleetStateStore.write(vehicleSlots[handle], FleetStateStore.SOURCE_API, Double.NaN, Double.NaN, 0.0,
+            soc[handle], Double.NaN, Vehicle.VehicleState.CHARGING, now);
+    }
+
+    private ChargingProgressDTO progress(int handle, long now) {
+        ChargingCurve curve = sessionCurves[handle];
+        double currentSoc = soc[handle];
+        byte phase = curve.phase(currentSoc);
+        ChargingProgressDTO progress = new ChargingProgressDTO();
+        progress.setSessionId(sessionIds[handle]);
+        progress.setStationId(stationIds[handle]);
+        progress.setVin(vins[handle]);
+        progress.setPhase(ChargingCurve.PHASE_NAMES[phase]);
+        progress.setStateOfCharge(currentSoc);
+        progress.setPowerKw(curve.powerAt(currentSoc, ccPowerKw[handle]));
+        progress.setEnergyDeliveredKwh(energyKwh(capacityKwh[handle], initialSoc[handle], currentSoc));
+        if (phase != ChargingCurve.PHASE_COMPLETE) {
+            double hours = curve.hoursToComplete(currentSoc, ccPowerKw[handle], capacityKwh[handle]) / timeScale;
+            progress.setMinutesToComplete(Math.round(hours * 60));
+        }
+        progress.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()));
+        return progress;
+    }
+
+    private List<ChargingProgressDTO> drainOutbox() {
+        if (outbox.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ChargingProgressDTO> events = outbox;
+        outbox = new ArrayList<>();
+        return events;
+    }
+
+    private void publish(List<ChargingProgressDTO> events) {
+        for (ChargingProgressDTO event : events) {
+            try {
+                messagingTemplate.convertAndSend(SESSION_TOPIC + event.getSessionId(), event);
+                messagingTemplate.convertAndSend(STATION_TOPIC + event.getStationId(), event);
+                published.incrementAndGet();
+            } catch (Exception e) {
+                logger.error("Error broadcasting charging progress of session {}: {}", event.getSessionId(), e.getMessage());
+            }
+        }
+    }
+
+    // Grid-side energy: what the battery took plus conversion losses
+    private double energyKwh(double capacity, double fromSoc, double toSoc) {
+        return capacity * Math.max(0.0, toSoc - fromSoc) / 100 / efficiency;
+    }
+
+    private double chargingHours(LocalDateTime start, long endMillis) {
+        long startMillis = start.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return hours(endMillis - startMillis);
+    }
+
+    private double hours(long millis) {
+        return Math.max(0L, millis) * timeScale / MILLIS_PER_HOUR;
+    }
+
+    private static double capacity(Vehicle vehicle) {
+        Double capacity = vehicle.getBatteryCapacity();
+        return capacity != null && capacity > 0 ? capacity : DEFAULT_CAPACITY_KWH;
+    }
+
+    private static double startSoc(ChargingSession session) {
+        Double start = session.getInitialSoc() != null ? session.getInitialSoc() : session.getInitialBatteryLevel();
+        return start != null ? Math.max(0.0, Math.min(100.0, start)) : 0.0;
+    }
+
+    private int activeSessions() {
+        synchronized (lock) {
+            return handles.size();
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeHandles[--freeCount];
+        }
+        int handle = handleCount++;
+        if (handle >= sessionIds.length) {
+            int length = Math.max(16, sessionIds.length * 2);
+            sessionIds = Arrays.copyOf(sessionIds, length);
+            stationIds = Arrays.copyOf(stationIds, length);
+            vins = Arrays.copyOf(vins, length);
+            vehicleSlots = Arrays.copyOf(vehicleSlots, length);
+            sessionCurves = Arrays.copyOf(sessionCurves, length);
+            ccPowerKw = Arrays.copyOf(ccPowerKw, length);
+            capacityKwh = Arrays.copyOf(capacityKwh, length);
+            initialSoc = Arrays.copyOf(initialSoc, length);
+            soc = Arrays.copyOf(soc, length);
+            lastStepAt = Arrays.copyOf(lastStepAt, length);
+            lastPublishAt = Arrays.copyOf(lastPublishAt, length);
+            phases = Arrays.copyOf(phases, length);
+        }
+        return handle;
+    }
+
+    private void release(int handle) {
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, Math.max(16, freeHandles.length * 2));
+        }
+        freeHandles[freeCount++] = handle;
+    }
+}
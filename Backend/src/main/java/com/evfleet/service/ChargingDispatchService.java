@@ -0,0 +1,335 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.DispatchAssignmentDTO;
+import com.evfleet.entity.ChargingStation;
+import com.evfleet.entity.Vehicle;
+import com.evfleet.repository.ChargingStationRepository;
+import com.evfleet.repository.VehicleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Periodically sends every vehicle under the battery warning level to a charging station.
+// Greedy by urgency: the emptiest vehicles pick first, each taking the station with the lowest
+// travel time plus expected wait, and station load is updated as connectors fill up.
+@Service
+public class ChargingDispatchService {
+    private static final Logger logger = LoggerFactory.getLogger(ChargingDispatchService.class);
+    private static final String DISPATCH_TOPIC = "/topic/dispatch/";
+
+    private final VehicleRepository vehicleRepository;
+    private final ChargingStationRepository chargingStationRepository;
+    private final ChargingQueueService chargingQueueService;
+    private final EnergyConsumptionModel energyConsumptionModel;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final double searchRadiusKm;
+    private final double cellSizeKm;
+    private final double averageSpeedKmh;
+    private final double roadFactor;
+    private final double averageSessionMinutes;
+    private final int maxQueuePerConnector;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Map<String, DispatchAssignmentDTO> assignments = Collections.emptyMap();
+
+    public ChargingDispatchService(VehicleRepository vehicleRepository,
+                                   ChargingStationRepository chargingStationRepository,
+                                   ChargingQueueService chargingQueueService,
+                                   EnergyConsumptionModel energyConsumptionModel,
+                                   SimpMessagingTemplate messagingTemplate,
+                                   @Value("${dispatch.search-radius-km:25}") double searchRadiusKm,
+                                   @Value("${dispatch.grid-cell-km:5}") double cellSizeKm,
+                                   @Value("${dispatch.average-speed-kmh:40}") double averageSpeedKmh,
+                                   @Value("${dispatch.road-factor:1.3}") double roadFactor,
+                                   @Value("${dispatch.average-session-minutes:45}") double averageSessionMinutes,
+                                   @Value("${dispatch.max-queue-per-connector:2}") int maxQueuePerConnector) {
+        this.vehicleRepository = vehicleRepository;
+        this.chargingStationRepository = chargingStationRepository;
+        this.chargingQueueService = chargingQueueService;
+        this.energyConsumptionModel = energyConsumptionModel;
+        this.messagingTemplate = messagingTemplate;
+        this.searchRadiusKm = searchRadiusKm;
+        this.cellSizeKm = cellSizeKm;
+        this.averageSpeedKmh = averageSpeedKmh;
+        this.roadFactor = roadFactor;
+        this.averageSessionMinutes = averageSessionMinutes;
+        this.maxQueuePerConnector = maxQueuePerConnector;
+    }
+
+    @Scheduled(fixedDelayString = "${dispatch.interval-ms:30000}")
+    public void scheduledDispatch() {
+        runDispatch();
+    }
+
+    public Map<String, Object> runDispatch() {
+        if (!running.compareAndSet(false, true)) {
+            return Map.of("status", "skipped", "message", "Dispatch already running");
+        }
+        try {
+            List<Vehicle> vehicles = vehicleRepository.findByActiveTrueAndCurrentBatteryLevelLessThanEqual(
+                VehicleRecommendationService.WARNING_BATTERY_LEVEL);
+            List<ChargingStation> stations = chargingStationRepository.findAll().stream()
+                .filter(station -> Boolean.TRUE.equals(station.getActive()))
+                .filter(station -> station.getStatus() == ChargingStation.StationStatus.AVAILABLE
+                    || station.getStatus() == ChargingStation.StationStatus.IN_USE)
+                .toList();
+
+            DispatchProblem problem = new DispatchProblem(vehicles.size(), stations.size());
+            for (int v = 0; v < vehicles.size(); v++) {
+                Vehicle vehicle = vehicles.get(v);
+                problem.vehicleLat[v] = vehicle.getLatitude();
+                problem.vehicleLng[v] = vehicle.getLongitude();
+                problem.vehicleSoc[v] = vehicle.getCurrentBatteryLevel();
+                problem.vehicleReachKm[v] = remainingRangeKm(vehicle);
+            }
+            for (int s = 0; s < stations.size(); s++) {
+                ChargingStation station = stations.get(s);
+                problem.stationLat[s] = station.getLatitude();
+                problem.stationLng[s] = station.getLongitude();
+                problem.stationConnectors[s] = Math.max(1, station.getTotalConnectors());
+                problem.stationFree[s] = Math.max(0, station.getAvailableConnectors());
+                problem.stationQueued[s] = chargingQueueService.getQueueLength(station.getId());
+            }
+
+            DispatchPlan plan = optimize(problem);
+
+            LocalDateTime now = LocalDateTime.now();
+            Map<String, DispatchAssignmentDTO> latest = new HashMap<>();
+            Map<String, DispatchAssignmentDTO> previous = assignments;
+            for (int v = 0; v < vehicles.size(); v++) {
+                int s = plan.stationOf[v];
+                if (s < 0) {
+                    continue;
+                }
+                Vehicle vehicle = vehicles.get(v);
+                ChargingStation station = stations.get(s);
+
+                DispatchAssignmentDTO assignment = new DispatchAssignmentDTO();
+                assignment.setVin(vehicle.getVin());
+                assignment.setVehicleId(vehicle.getId());
+                assignment.setBatteryLevel(vehicle.getCurrentBatteryLevel());
+                assignment.setStationId(station.getId());
+                assignment.setStationName(station.getName());
+                assignment.setDistanceKm(plan.distanceKm[v]);
+                assignment.setTravelMinutes(plan.distanceKm[v] / averageSpeedKmh * 60.0);
+                assignment.setExpectedWaitMinutes(plan.waitMinutes[v]);
+                assignment.setAssignedAt(now);
+                latest.put(vehicle.getVin(), assignment);
+
+                // Only tell the vehicle when its station changed
+                DispatchAssignmentDTO before = previous.get(vehicle.getVin());
+                if (before == null || !before.getStationId().equals(station.getId())) {
+                    broadcastAssignment(assignment);
+                }
+            }
+            assignments = latest;
+
+            logger.info("Dispatch assigned {}/{} low-battery vehicles across {} stations in {} ms",
+                plan.assigned, vehicles.size(), stations.size(), String.format("%.2f", plan.elapsedNanos / 1_000_000.0));
+
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("status", "success");
+            summary.put("vehicles", vehicles.size());
+            summary.put("stations", stations.size());
+            summary.put("assigned", plan.assigned);
+            summary.put("optimizeMillis", plan.elapsedNanos / 1_000_000.0);
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public List<DispatchAssignmentDTO> getAssignments() {
+        return new ArrayList<>(assignments.values());
+    }
+
+    public DispatchAssignmentDTO getAssignment(String vin) {
+        return assignments.get(vin);
+    }
+
+    DispatchPlan optimize(DispatchProblem problem) {
+        long start = System.nanoTime();
+        int vehicleCount = problem.vehicleCount;
+        int stationCount = problem.stationCount;
+
+        DispatchPlan plan = new DispatchPlan(vehicleCount);
+        if (vehicleCount == 0 || stationCount == 0) {
+            plan.elapsedNanos = System.nanoTime() - start;
+            return plan;
+        }
+
+        StationGridIndex grid = new StationGridIndex(problem.stationLat, problem.stationLng, stationCount, cellSizeKm);
+        int[] load = Arrays.copyOf(problem.stationQueued, stationCount);
+        int[] capacity = new int[stationCount];
+        for (int s = 0; s < stationCount; s++) {
+            capacity[s] = problem.stationFree[s] + problem.stationConnectors[s] * maxQueuePerConnector;
+        }
+
+        // Stations that still have room, bucketed by how many rounds of sessions a newcomer waits for.
+        // The lowest non-empty bucket bounds the wait anywhere, which lets the ring search stop early.
+        int[] roundCount = new int[maxQueuePerConnector + 2];
+        for (int s = 0; s < stationCount; s++) {
+            if (load[s] < capacity[s]) {
+                roundCount[waitRound(load[s], problem.stationFree[s], problem.stationConnectors[s])]++;
+            }
+        }
+
+        // Most urgent vehicles choose first; sort packed (battery, index) keys to stay on primitives
+        long[] order = new long[vehicleCount];
+        for (int v = 0; v < vehicleCount; v++) {
+            order[v] = (Math.max(0L, Math.round(problem.vehicleSoc[v] * 1000.0)) << 32) | v;
+        }
+        Arrays.sort(order);
+
+        int[] candidates = new int[stationCount];
+        double minutesPerKm = 60.0 / averageSpeedKmh;
+        double cellSize = grid.cellSizeKm();
+        for (long key : order) {
+            int v = (int) key;
+            double minWait = minimumWaitMinutes(roundCount);
+            double radius = Math.min(searchRadiusKm, problem.vehicleReachKm[v] / roadFactor);
+            double px = grid.projectX(problem.vehicleLng[v]);
+            double py = grid.projectY(problem.vehicleLat[v]);
+            int lastRing = Math.min(grid.maxRing(px, py), (int) Math.ceil(radius / cellSize) + 1);
+
+            int best = -1;
+            double bestCost = Double.MAX_VALUE, bestDistance = 0, bestWait = 0;
+            for (int ring = 0; ring <= lastRing; ring++) {
+                // Every station in this ring is at least (ring - 1) cells away, so stop once that alone costs more
+                double nearest = Math.max(0, ring - 1) * cellSize;
+                if (nearest > radius || nearest * roadFactor * minutesPerKm + minWait >= bestCost) {
+                    break;
+                }
+
+                int found = grid.ring(px, py, ring, candidates);
+                for (int i = 0; i < found; i++) {
+                    int s = candidates[i];
+                    if (load[s] >= capacity[s]) {
+                        continue;
+                    }
+                    double straight = grid.distanceKm(s, px, py);
+                    if (straight > radius) {
+                        continue;
+                    }
+                    double distance = straight * roadFactor;
+                    double wait = expectedWaitMinutes(load[s], problem.stationFree[s], problem.stationConnectors[s]);
+                    double cost = distance * minutesPerKm + wait;
+                    if (cost < bestCost) {
+                        best = s;
+                        bestCost = cost;
+                        bestDistance = distance;
+                        bestWait = wait;
+                    }
+                }
+            }
+
+            if (best >= 0) {
+                int free = problem.stationFree[best], connectors = problem.stationConnectors[best];
+                roundCount[waitRound(load[best], free, connectors)]--;
+                load[best]++;
+                if (load[best] < capacity[best]) {
+                    roundCount[waitRound(load[best], free, connectors)]++;
+                }
+                plan.stationOf[v] = best;
+                plan.distanceKm[v] = bestDistance;
+                plan.waitMinutes[v] = bestWait;
+                plan.assigned++;
+            }
+        }
+
+        plan.elapsedNanos = System.nanoTime() - start;
+        return plan;
+    }
+
+    // 0 = a connector is free, n = the newcomer waits for n rounds of sessions
+    private int waitRound(int load, int free, int connectors) {
+        int ahead = load - free;
+        return ahead < 0 ? 0 : Math.min(maxQueuePerConnector + 1, ahead / connectors + 1);
+    }
+
+    private double expectedWaitMinutes(int load, int free, int connectors) {
+        int ahead = load - free;
+        if (ahead < 0) {
+            return 0.0;
+        }
+        // Vehicles already waiting are served in rounds, plus the residual time of the sessions in progress
+        return (ahead / connectors) * averageSessionMinutes + averageSessionMinutes / 2.0;
+    }
+
+    private double minimumWaitMinutes(int[] roundCount) {
+        for (int round = 0; round < roundCount.length; round++) {
+            if (roundCount[round] > 0) {
+                return round == 0 ? 0.0 : (round - 1) * averageSessionMinutes + averageSessionMinutes / 2.0;
+            }
+        }
+        return Double.MAX_VALUE;
+    }
+
+    private double remainingRangeKm(Vehicle vehicle) {
+        double availableEnergyKwh = vehicle.getCurrentBatteryLevel() / 100.0 * vehicle.getBatteryCapacity();
+        int typeIndex = energyConsumptionModel.typeIndex(vehicle.getType());
+        if (typeIndex >= 0) {
+            return energyConsumptionModel.predictRangeKm(typeIndex, availableEnergyKwh * 1000.0);
+        }
+        return availableEnergyKwh / vehicle.getEfficiency() * 100.0;
+    }
+
+    private void broadcastAssignment(DispatchAssignmentDTO assignment) {
+        try {
+            messagingTemplate.convertAndSend(DISPATCH_TOPIC + assignment.getVin(), assignment);
+        } catch (Exception e) {
+            logger.error("Error broadcasting dispatch assignment for vehicle {}: {}", assignment.getVin(), e.getMessage());
+        }
+    }
+
+    static final class DispatchProblem {
+        final int vehicleCount;
+        final int stationCount;
+        final double[] vehicleLat;
+        final double[] vehicleLng;
+        final double[] vehicleSoc;
+        final double[] vehicleReachKm;
+        final double[] stationLat;
+        final double[] stationLng;
+        final int[] stationConnectors;
+        final int[] stationFree;
+        final int[] stationQueued;
+
+        DispatchProblem(int vehicleCount, int stationCount) {
+            this.vehicleCount = vehicleCount;
+            this.stationCount = stationCount;
+            this.vehicleLat = new double[vehicleCount];
+            this.vehicleLng = new double[vehicleCount];
+            this.vehicleSoc = new double[vehicleCount];
+            this.vehicleReachKm = new double[vehicleCount];
+            this.stationLat = new double[stationCount];
+            this.stationLng = new double[stationCount];
+            this.stationConnectors = new int[stationCount];
+            this.stationFree = new int[stationCount];
+            this.stationQueued = new int[stationCount];
+        }
+    }
+
+    static final class DispatchPlan {
+        final int[] stationOf;
+        final double[] distanceKm;
+        final double[] waitMinutes;
+        int assigned;
+        long elapsedNanos;
+
+        DispatchPlan(int vehicleCount) {
+            this.stationOf = new int[vehicleCount];
+            Arrays.fill(stationOf, -1);
+            this.distanceKm = new double[vehicleCount];
+            this.waitMinutes = new double[vehicleCount];
+        }
+    }
+}
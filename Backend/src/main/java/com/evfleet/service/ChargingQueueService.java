@@ -0,0 +1,271 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.ChargingQueueEntryDTO;
+import com.evfleet.dto.ChargingQueueEventDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory waiting lists for stations without a free connector. Each station has a lock-free
+// skip list ordered by battery level then arrival, so enqueue, cancel and poll are O(log n) and never touch the DB.
+// A place in line expires after the maximum wait, so vehicles that left without cancelling stop holding it.
+@Service
+public class ChargingQueueService {
+    private static final Logger logger = LoggerFactory.getLogger(ChargingQueueService.class);
+    private static final String STATION_QUEUE_TOPIC = "/topic/charging-queue/";
+    private static final String VEHICLE_QUEUE_TOPIC = "/topic/charging-queue/vehicle/";
+
+    private final Map<Long, StationQueue> queues = new ConcurrentHashMap<>();
+    private final Map<Long, QueueEntry> entriesByVehicle = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TimeoutService timeoutService;
+    private final long maxWaitMs;
+    private final int waitTimeouts;
+
+    public ChargingQueueService(SimpMessagingTemplate messagingTemplate,
+                                TimeoutService timeoutService,
+                                @Value("${charging.queue.max-wait-ms:7200000}") long maxWaitMs) {
+        this.messagingTemplate = messagingTemplate;
+        this.timeoutService = timeoutService;
+        this.maxWaitMs = maxWaitMs;
+        this.waitTimeouts = timeoutService.registerKind("charging-queue", this::expire);
+    }
+
+    // Not announced yet: the caller publishes QUEUED once its transaction commits, or withdraws the entry
+    public ChargingQueueEntryDTO enqueue(Long stationId, Long vehicleId, String connectorType, double batteryLevel) {
+        QueueEntry entry = new QueueEntry(stationId, vehicleId, connectorType, batteryLevel,
+            LocalDateTime.now(), sequence.incrementAndGet());
+
+        if (entriesByVehicle.putIfAbsent(vehicleId, entry) != null) {
+            throw new IllegalStateException("Vehicle is already waiting in a charging queue");
+        }
+        StationQueue queue = queues.computeIfAbsent(stationId, id -> new StationQueue());
+        queue.add(entry);
+        timeoutService.schedule(waitTimeouts, vehicleId, expiresAt(entry));
+        return toDTO(entry, queue.positionOf(entry));
+    }
+
+    public void publishQueued(Long vehicleId) {
+        QueueEntry entry = entriesByVehicle.get(vehicleId);
+        StationQueue queue = entry != null ? queues.get(entry.stationId) : null;
+        if (queue != null) {
+            publish("QUEUED", entry, null, queue.positionOf(entry), queue.size());
+        }
+    }
+
+    // Takes back an entry whose enqueue never committed; nobody was told about it, so nothing is published
+    public void withdraw(Long vehicleId) {
+        timeoutService.cancel(waitTimeouts, vehicleId);
+        QueueEntry entry = entriesByVehicle.get(vehicleId);
+        if (entry != null) {
+            remove(entry, null);
+        }
+    }
+
+    public boolean cancel(Long vehicleId) {
+        timeoutService.cancel(waitTimeouts, vehicleId);
+        QueueEntry entry = entriesByVehicle.get(vehicleId);
+        return entry != null && remove(entry, "CANCELLED");
+    }
+
+    // Timeout handler. A vehicle that left and joined again in the meantime has a timer of its own.
+    private void expire(long vehicleId) {
+        QueueEntry entry = entriesByVehicle.get(vehicleId);
+        if (entry != null && expiresAt(entry) <= System.currentTimeMillis() && remove(entry, "EXPIRED")) {
+            logger.info("Queue entry of vehicle {} at station {} expired", vehicleId, entry.stationId);
+        }
+    }
+
+    private boolean remove(QueueEntry entry, String type) {
+        if (!entriesByVehicle.remove(entry.vehicleId, entry)) {
+            return false;
+        }
+        StationQueue queue = queues.get(entry.stationId);
+        if (queue != null) {
+            queue.remove(entry);
+        }
+        if (type != null) {
+            publish(type, entry, null, null, queue != null ? queue.size() : 0);
+        }
+        return true;
+    }
+
+    // Removes and returns the highest-priority waiting vehicle, or null if nobody is waiting
+    public QueueEntry pollNext(Long stationId) {
+        StationQueue queue = queues.get(stationId);
+        if (queue == null) {
+            return null;
+        }
+        QueueEntry entry;
+        while ((entry = queue.poll()) != null) {
+            // A concurrent cancel may already have claimed this entry
+            if (entriesByVehicle.remove(entry.vehicleId, entry)) {
+                timeoutService.cancel(waitTimeouts, entry.vehicleId);
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    // Puts an entry back at its original position, e.g. when the assignment transaction rolled back
+    public void requeue(QueueEntry entry) {
+        if (entriesByVehicle.putIfAbsent(entry.vehicleId, entry) == null) {
+            queues.computeIfAbsent(entry.stationId, id -> new StationQueue()).add(entry);
+            timeoutService.schedule(waitTimeouts, entry.vehicleId, expiresAt(entry));
+        }
+    }
+
+    public void publishAssigned(QueueEntry entry, Long sessionId) {
+        StationQueue queue = queues.get(entry.stationId);
+        publish("ASSIGNED", entry, sessionId, null, queue != null ? queue.size() : 0);
+    }
+
+    public void publishDropped(QueueEntry entry) {
+        StationQueue queue = queues.get(entry.stationId);
+        publish("CANCELLED", entry, null, null, queue != null ? queue.size() : 0);
+    }
+
+    public List<ChargingQueueEntryDTO> getQueue(Long stationId) {
+        StationQueue queue = queues.get(stationId);
+        List<ChargingQueueEntryDTO> entries = new ArrayList<>();
+        if (queue == null) {
+            return entries;
+        }
+        int position = 1;
+        for (QueueEntry entry : queue.entries) {
+            entries.add(toDTO(entry, position++));
+        }
+        return entries;
+    }
+
+    public ChargingQueueEntryDTO getEntry(Long vehicleId) {
+        QueueEntry entry = entriesByVehicle.get(vehicleId);
+        if (entry == null) {
+            return null;
+        }
+        StationQueue queue = queues.get(entry.stationId);
+        return toDTO(entry, queue != null ? queue.positionOf(entry) : null);
+    }
+
+    public int getQueueLength(Long stationId) {
+        StationQueue queue = queues.get(stationId);
+        return queue != null ? queue.size() : 0;
+    }
+
+    private void publish(String type, QueueEntry entry, Long sessionId, Integer position, int queueLength) {
+        ChargingQueueEventDTO event = new ChargingQueueEventDTO();
+        event.setType(type);
+        event.setStationId(entry.stationId);
+        event.setVehicleId(entry.vehicleId);
+        event.setSessionId(sessionId);
+        event.setPosition(position);
+        event.setQueueLength(queueLength);
+        event.setTimestamp(LocalDateTime.now());
+        try {
+            messagingTemplate.convertAndSend(STATION_QUEUE_TOPIC + entry.stationId, event);
+            messagingTemplate.convertAndSend(VEHICLE_QUEUE_TOPIC + entry.vehicleId, event);
+        } catch (Exception e) {
+            logger.error("Error broadcasting queue event for station {}: {}", entry.stationId, e.getMessage());
+        }
+    }
+
+    private long expiresAt(QueueEntry entry) {
+        return entry.enqueuedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + maxWaitMs;
+    }
+
+    private ChargingQueueEntryDTO toDTO(QueueEntry entry, Integer position) {
+        ChargingQueueEntryDTO dto = new ChargingQueueEntryDTO();
+        dto.setStationId(entry.stationId);
+        dto.setVehicleId(entry.vehicleId);
+        dto.setConnectorType(entry.connectorType);
+        dto.setBatteryLevel(entry.batteryLevel);
+        dto.setEnqueuedAt(entry.enqueuedAt);
+        dto.setPosition(position);
+        return dto;
+    }
+
+    public static final class QueueEntry implements Comparable<QueueEntry> {
+        private final Long stationId;
+        private final Long vehicleId;
+        private final String connectorType;
+        private final double batteryLevel;
+        private final LocalDateTime enqueuedAt;
+        private final long sequence;
+
+        private QueueEntry(Long stationId, Long vehicleId, String connectorType, double batteryLevel,
+                           LocalDateTime enqueuedAt, long sequence) {
+            this.stationId = stationId;
+            this.vehicleId = vehicleId;
+            this.connectorType = connectorType;
+            this.batteryLevel = batteryLevel;
+            this.enqueuedAt = enqueuedAt;
+            this.sequence = sequence;
+        }
+
+        public Long getStationId() {
+            return stationId;
+        }
+
+        public Long getVehicleId() {
+            return vehicleId;
+        }
+
+        public String getConnectorType() {
+            return connectorType;
+        }
+
+        // Emptiest battery first, then first come first served
+        @Override
+        public int compareTo(QueueEntry other) {
+            int byBattery = Double.compare(batteryLevel, other.batteryLevel);
+            return byBattery != 0 ? byBattery : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static final class StationQueue {
+        private final ConcurrentSkipListSet<QueueEntry> entries = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private void add(QueueEntry entry) {
+            if (entries.add(entry)) {
+                size.incrementAndGet();
+            }
+        }
+
+        private void remove(QueueEntry entry) {
+            if (entries.remove(entry)) {
+                size.decrementAndGet();
+            }
+        }
+
+        private QueueEntry poll() {
+            QueueEntry entry = entries.pollFirst();
+            if (entry != null) {
+                size.decrementAndGet();
+            }
+            return entry;
+        }
+
+        private int size() {
+            return size.get();
+        }
+
+        // O(n); only used for API responses, never on the assignment path
+        private int positionOf(QueueEntry entry) {
+            return entries.headSet(entry).size() + 1;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.evfleet.service;
 
+import com.evfleet.dto.ChargingProgressDTO;
+import com.evfleet.dto.ChargingQueueEntryDTO;
 import com.evfleet.dto.ChargingSessionDTO;
 import com.evfleet.entity.ChargingSession;
 import com.evfleet.entity.ChargingStation;
@@ -7,44 +9,239 @@ import com.evfleet.entity.Vehicle;
 import com.evfleet.repository.ChargingSessionRepository;
 import com.evfleet.repository.ChargingStationRepository;
 import com.evfleet.repository.VehicleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class ChargingSessionService {
+    private static final Logger logger = LoggerFactory.getLogger(ChargingSessionService.class);
+
     private final ChargingSessionRepository chargingSessionRepository;
     private final ChargingStationRepository chargingStationRepository;
     private final VehicleRepository vehicleRepository;
+    private final ChargingQueueService chargingQueueService;
+    private final FleetStateStore fleetStateStore;
+    private final TariffService tariffService;
+    private final ChargingCurveEngine chargingCurveEngine;
+    private final TimeoutService timeoutService;
+    private final StationFeedService stationFeedService;
+    private final SimulationShardService shardService;
+    private final TransactionTemplate transactionTemplate;
+    // For work done after a commit, when the finished transaction is still bound to the thread
+    private final TransactionTemplate afterCommitTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long maxDurationMs;
+    private final long idleTimeoutMs;
+    private final int sessionTimeouts;
 
     public ChargingSessionService(ChargingSessionRepository chargingSessionRepository,
                                 ChargingStationRepository chargingStationRepository,
-                                VehicleRepository vehicleRepository) {
+                                VehicleRepository vehicleRepository,
+                                ChargingQueueService chargingQueueService,
+                                FleetStateStore fleetStateStore,
+                                TariffService tariffService,
+                                ChargingCurveEngine chargingCurveEngine,
+                                TimeoutService timeoutService,
+                                StationFeedService stationFeedService,
+                                SimulationShardService shardService,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${charging.session.max-duration-ms:43200000}") long maxDurationMs,
+                                @Value("${charging.session.idle-timeout-ms:1800000}") long idleTimeoutMs) {
         this.chargingSessionRepository = chargingSessionRepository;
         this.chargingStationRepository = chargingStationRepository;
         this.vehicleRepository = vehicleRepository;
+        this.chargingQueueService = chargingQueueService;
+        this.fleetStateStore = fleetStateStore;
+        this.tariffService = tariffService;
+        this.chargingCurveEngine = chargingCurveEngine;
+        this.timeoutService = timeoutService;
+        this.stationFeedService = stationFeedService;
+        this.shardService = shardService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.afterCommitTemplate = new TransactionTemplate(transactionManager);
+        this.afterCommitTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        this.maxDurationMs = maxDurationMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.sessionTimeouts = timeoutService.registerKind("charging-session", this::closeAbandonedSession);
+    }
+
+    // Live charging and auto-close deadlines of the sessions left in progress by the previous run. With a sharded
+    // simulation only the sessions of the vehicles this node owns are charged here.
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreActiveSessions() {
+        int restored = 0;
+        for (ChargingSession session : chargingSessionRepository.findActiveSessionsWithVehicleAndStation()) {
+            if (owns(session.getVehicle().getVin())) {
+                chargingCurveEngine.track(session);
+                armTimeout(session);
+                restored++;
+            }
+        }
+        logger.info("Restored {} in-progress charging sessions", restored);
     }
 
+    // Sharded simulation: sessions follow their vehicle's owner. The owner starts charging sessions started through
+    // another node, and sessions of vehicles it took over. It stops charging the ones ended elsewhere, and the ones
+    // of vehicles it gave up. Read from the primary, so a session that has just started is not missed.
+    @Scheduled(fixedDelayString = "${simulation.shard.heartbeat-ms:2000}")
+    public void reconcileShardSessions() {
+        if (!shardService.isEnabled()) {
+            return;
+        }
+        // Taken before the read, so a session that starts here in between is not mistaken for one ended elsewhere
+        Map<Long, String> tracked = chargingCurveEngine.trackedSessions();
+        List<ChargingSession> active = transactionTemplate.execute(
+            status -> chargingSessionRepository.findActiveSessionsWithVehicleAndStation());
+        Set<Long> owned = new HashSet<>();
+        Set<Long> stillActive = new HashSet<>();
+        for (ChargingSession session : active) {
+            stillActive.add(session.getId());
+            if (owns(session.getVehicle().getVin())) {
+                owned.add(session.getId());
+                if (!tracked.containsKey(session.getId())) {
+                    chargingCurveEngine.track(session);
+                    armTimeout(session);
+                }
+            }
+        }
+        Map<Long, String> endedElsewhere = new HashMap<>();
+        tracked.forEach((sessionId, vin) -> {
+            if (owned.contains(sessionId)) {
+                return;
+            }
+            chargingCurveEngine.untrack(sessionId, null);
+            timeoutService.cancel(sessionTimeouts, sessionId);
+            if (!stillActive.contains(sessionId) && owns(vin)) {
+                endedElsewhere.put(sessionId, vin);
+            }
+        });
+        if (!endedElsewhere.isEmpty()) {
+            settleEndedElsewhere(endedElsewhere);
+        }
+    }
+
+    // The settled SoC is taken from the session row: until now this node kept flushing the charging state into the
+    // vehicle row, possibly over what the ending node wrote there
+    private void settleEndedElsewhere(Map<Long, String> vinsBySession) {
+        List<ChargingSession> ended = transactionTemplate.execute(
+            status -> chargingSessionRepository.findAllById(vinsBySession.keySet()));
+        long now = System.currentTimeMillis();
+        for (ChargingSession session : ended) {
+            int slot = fleetStateStore.slotOf(vinsBySession.get(session.getId()));
+            if (slot != FleetStateStore.NO_SLOT
+                    && fleetStateStore.state(slot) == Vehicle.VehicleState.CHARGING) {
+                Double finalSoc = session.getFinalBatteryLevel();
+                fleetStateStore.write(slot, FleetStateStore.SOURCE_API, Double.NaN, Double.NaN, Double.NaN,
+                    finalSoc != null ? finalSoc : Double.NaN, Double.NaN, Vehicle.VehicleState.AVAILABLE, now);
+            }
+        }
+    }
+
+    private boolean owns(String vin) {
+        ConsistentHashRing ring = shardService.ring();
+        return ring == null || shardService.getNodeId().equals(ring.owner(vin));
+    }
+
+    // Starts charging on a free connector right away; a vehicle that is willing to wait joins the queue instead
     @Transactional
     public ChargingSessionDTO startSession(Long stationId, Long vehicleId, String connectorType) {
-        ChargingStation station = chargingStationRepository.findById(stationId)
+        timeTransaction("start");
+        ChargingStation station = chargingStationRepository.findByIdForUpdate(stationId)
                 .orElseThrow(() -> new EntityNotFoundException("Charging station not found"));
         
         Vehicle vehicle = vehicleRepository.findById(vehicleId)
                 .orElseThrow(() -> new EntityNotFoundException("Vehicle not found"));
 
         if (station.getAvailableConnectors() <= 0) {
-            throw new IllegalStateException("No available connectors at this station");
+            throw new IllegalStateException("No available connectors at this station; join its queue to wait for one");
         }
 
         if (chargingSessionRepository.findActiveSessionByVehicle(vehicle) != null) {
             throw new IllegalStateException("Vehicle is already in a charging session");
         }
 
+        return ChargingSessionDTO.fromEntity(createSession(station, vehicle, connectorType));
+    }
+
+    // Joining only touches the in-memory queue, so it takes no station lock; a connector released meanwhile
+    // is caught after commit, by this join or by the endSession that released it
+    @Transactional
+    public ChargingQueueEntryDTO joinQueue(Long stationId, Long vehicleId, String connectorType) {
+        if (!chargingStationRepository.existsById(stationId)) {
+            throw new EntityNotFoundException("Charging station not found");
+        }
+
+        Vehicle vehicle = vehicleRepository.findById(vehicleId)
+                .orElseThrow(() -> new EntityNotFoundException("Vehicle not found"));
+
+        if (chargingSessionRepository.findActiveSessionByVehicle(vehicle) != null) {
+            throw new IllegalStateException("Vehicle is already in a charging session");
+        }
+
+        ChargingQueueEntryDTO entry = chargingQueueService.enqueue(stationId, vehicleId, connectorType,
+                vehicle.getCurrentBatteryLevel());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                chargingQueueService.publishQueued(vehicleId);
+                assignFreeConnectors(stationId);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    chargingQueueService.withdraw(vehicleId);
+                }
+            }
+        });
+        return entry;
+    }
+
+    // Runs after a commit, in a transaction of its own. The station is locked only if a connector is free,
+    // so a join that raced an endSession still gets the connector that endSession freed.
+    private void assignFreeConnectors(Long stationId) {
+        try {
+            afterCommitTemplate.executeWithoutResult(status -> {
+                if (chargingStationRepository.findAvailableConnectorsById(stationId).orElse(0) <= 0) {
+                    return;
+                }
+                chargingStationRepository.findByIdForUpdate(stationId).ifPresent(this::assignQueuedVehicles);
+            });
+        } catch (RuntimeException e) {
+            logger.error("Could not assign free connectors at station {}: {}", stationId, e.getMessage());
+        }
+    }
+
+    public boolean leaveQueue(Long vehicleId) {
+        return chargingQueueService.cancel(vehicleId);
+    }
+
+    private ChargingSession createSession(ChargingStation station, Vehicle vehicle, String connectorType) {
         // Create new charging session
         ChargingSession session = new ChargingSession();
         session.setChargingStation(station);
@@ -66,58 +263,154 @@ public class ChargingSessionService {
         // Update the station's charging sessions list
         station.getChargingSessions().add(session);
         chargingStationRepository.save(station);
-        
-        return ChargingSessionDTO.fromEntity(session);
+        stationFeedService.publishAfterCommit(station);
+
+        // Live charging starts once the session exists for everyone else, on the node that simulates the vehicle
+        ChargingSession started = session;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (owns(vehicle.getVin())) {
+                    chargingCurveEngine.track(started);
+                    armTimeout(started);
+                }
+            }
+        });
+        return session;
+    }
+
+    // Hands free connectors to waiting vehicles; queue events go out only once the assignment commits
+    private void assignQueuedVehicles(ChargingStation station) {
+        while (station.getAvailableConnectors() > 0) {
+            ChargingQueueService.QueueEntry entry = chargingQueueService.pollNext(station.getId());
+            if (entry == null) {
+                return;
+            }
+
+            Vehicle vehicle = vehicleRepository.findById(entry.getVehicleId()).orElse(null);
+            if (vehicle == null || chargingSessionRepository.findActiveSessionByVehicle(vehicle) != null) {
+                // Dropped whether or not the transaction commits, but announced only once it has ended
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        chargingQueueService.publishDropped(entry);
+                    }
+                });
+                continue;
+            }
+
+            ChargingSession session = createSession(station, vehicle, entry.getConnectorType());
+            Long sessionId = session.getId();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    chargingQueueService.publishAssigned(entry, sessionId);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        chargingQueueService.requeue(entry);
+                    }
+                }
+            });
+        }
     }
 
     @Transactional
     public ChargingSessionDTO endSession(Long sessionId) {
-        ChargingSession session = chargingSessionRepository.findById(sessionId)
+        timeTransaction("end");
+        // Locked first: a concurrent end waits here and then finds the session completed
+        ChargingSession session = chargingSessionRepository.findByIdForUpdate(sessionId)
                 .orElseThrow(() -> new EntityNotFoundException("Charging session not found"));
 
         if (session.getStatus() != ChargingSession.SessionStatus.IN_PROGRESS) {
             throw new IllegalStateException("Session is not in progress");
         }
+        // Locked before anything reads the station, so the connector count is current
+        ChargingStation station = chargingStationRepository.findByIdForUpdate(session.getChargingStation().getId())
+                .orElseThrow(() -> new EntityNotFoundException("Charging station not found"));
 
-        // Calculate charging duration in hours
+        // Energy and battery level from the vehicle's CC/CV charging curve over the session
         LocalDateTime endTime = LocalDateTime.now();
-        long durationMinutes = java.time.Duration.between(session.getStartTime(), endTime).toMinutes();
-        double durationHours = durationMinutes / 60.0;
-
-        // Calculate energy delivered based on charging station power rating and duration
-        double powerRating = session.getChargingStation().getPowerRating(); // in kW
-        double energyDelivered = powerRating * durationHours; // in kWh
-
-        // Calculate new battery level
-        double batteryCapacity = session.getVehicle().getBatteryCapacity(); // in kWh
-        double initialLevel = session.getInitialBatteryLevel();
-        double energyIncrease = (energyDelivered / batteryCapacity) * 100; // percentage increase
-        double newBatteryLevel = Math.min(100.0, initialLevel + energyIncrease);
+        ChargingProgressDTO outcome = chargingCurveEngine.settle(session, endTime);
+        double energyDelivered = outcome.getEnergyDeliveredKwh(); // in kWh
+        double newBatteryLevel = outcome.getStateOfCharge();
 
         // Update vehicle's battery level
         Vehicle vehicle = session.getVehicle();
+        fleetStateStore.overlay(vehicle);
         vehicle.setCurrentBatteryLevel(newBatteryLevel);
         vehicle.setLastChargedLevel(newBatteryLevel);
         vehicle.setLastChargedTime(endTime);
         vehicle.setCurrentState(Vehicle.VehicleState.AVAILABLE);
         vehicleRepository.save(vehicle);
+        fleetStateStore.apply(vehicle);
 
         // Update session details
         session.setEndTime(endTime);
         session.setStatus(ChargingSession.SessionStatus.COMPLETED);
         session.setFinalBatteryLevel(newBatteryLevel);
         session.setEnergyDelivered(energyDelivered);
-        session.setCost(calculateCost(session.getChargingStation().getPricePerKwh(), energyDelivered));
+
+        // Estimate under the tariffs in force; the nightly billing run finalizes it
+        session.setCost(tariffService.price(station.getOperator(), session.getConnectorType(),
+                session.getStartTime(), endTime, energyDelivered, station.getPricePerKwh()));
 
         // Update station's available connectors
-        ChargingStation station = session.getChargingStation();
         station.setAvailableConnectors(station.getAvailableConnectors() + 1);
         chargingStationRepository.save(station);
+        stationFeedService.publishAfterCommit(station);
 
         session = chargingSessionRepository.save(session);
+        Long stationId = station.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                chargingCurveEngine.untrack(sessionId, outcome);
+                timeoutService.cancel(sessionTimeouts, sessionId);
+                // A vehicle that joined after the assignment below polled the queue found no free connector yet
+                if (chargingQueueService.getQueueLength(stationId) > 0) {
+                    assignFreeConnectors(stationId);
+                }
+            }
+        });
+        assignQueuedVehicles(station);
         return ChargingSessionDTO.fromEntity(session);
     }
 
+    // A session is closed once its curve has been complete for the idle timeout, or after the maximum duration
+    private void armTimeout(ChargingSession session) {
+        long startedAt = session.getStartTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long idleAt = chargingCurveEngine.completesAt(session) + idleTimeoutMs;
+        timeoutService.schedule(sessionTimeouts, session.getId(), Math.min(startedAt + maxDurationMs, idleAt));
+    }
+
+    // Timeout handler: ends the session as if the driver had, releasing its connector to the queue
+    private void closeAbandonedSession(long sessionId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> endSession(sessionId));
+            logger.info("Closed abandoned charging session {}", sessionId);
+        } catch (EntityNotFoundException | IllegalStateException e) {
+            // Ended or removed in the meantime
+            logger.debug("Charging session {} no longer open: {}", sessionId, e.getMessage());
+        }
+    }
+
+    // Latency up to the end of the surrounding transaction, so commit time is included; rollbacks count as errors
+    private void timeTransaction(String operation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                sample.stop(Timer.builder("evfleet.charging.session")
+                    .tags("operation", operation, "outcome", status == STATUS_COMMITTED ? "success" : "error")
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            }
+        });
+    }
+
     @Transactional(readOnly = true)
     public List<ChargingSessionDTO> getVehicleSessions(Long vehicleId) {
         Vehicle vehicle = vehicleRepository.findById(vehicleId)
@@ -154,8 +447,4 @@ public class ChargingSessionService {
         double finalLevel = session.getFinalBatteryLevel();
         return batteryCapacity * (finalLevel - initialLevel) / 100.0;
     }
-
-    private double calculateCost(double pricePerKwh, double energyDelivered) {
-        return pricePerKwh * energyDelivered;
-    }
 } 
\ No newline at end of file
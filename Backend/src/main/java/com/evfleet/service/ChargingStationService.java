@@ -1,7 +1,9 @@
 package com.evfleet.service;
 
+import com.evfleet.dto.ChangeSetDTO;
 import com.evfleet.dto.ChargingStationDTO;
 import com.evfleet.entity.ChargingStation;
+import com.evfleet.entity.Tombstone;
 import com.evfleet.repository.ChargingStationRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,15 +15,22 @@ import java.util.stream.Collectors;
 @Service
 public class ChargingStationService {
     private final ChargingStationRepository chargingStationRepository;
+    private final ChangeLogService changeLogService;
+    private final StationFeedService stationFeedService;
 
-    public ChargingStationService(ChargingStationRepository chargingStationRepository) {
+    public ChargingStationService(ChargingStationRepository chargingStationRepository,
+                                  ChangeLogService changeLogService,
+                                  StationFeedService stationFeedService) {
         this.chargingStationRepository = chargingStationRepository;
+        this.changeLogService = changeLogService;
+        this.stationFeedService = stationFeedService;
     }
 
     @Transactional
     public ChargingStationDTO createStation(ChargingStationDTO stationDTO) {
         ChargingStation station = stationDTO.toEntity();
         station = chargingStationRepository.save(station);
+        stationFeedService.publishAfterCommit(station);
         return ChargingStationDTO.fromEntity(station);
     }
 
@@ -39,6 +48,14 @@ public class ChargingStationService {
                 .collect(Collectors.toList());
     }
 
+    public ChangeSetDTO<ChargingStationDTO> getStationChanges(Long since) {
+        return changeLogService.changesSince(since, Tombstone.EntityType.CHARGING_STATION,
+                from -> chargingStationRepository.findByUpdatedAtAfter(from).stream()
+                        .map(ChargingStationDTO::fromEntity)
+                        .collect(Collectors.toList()),
+                this::getAllStations);
+    }
+
     @Transactional(readOnly = true)
     public List<ChargingStationDTO> getNearbyStations(double latitude, double longitude, double radiusInKm) {
         return chargingStationRepository.findNearbyStations(latitude, longitude, radiusInKm).stream()
@@ -70,15 +87,17 @@ public class ChargingStationService {
         existingStation.setConnectorTypes(stationDTO.getConnectorTypes());
 
         existingStation = chargingStationRepository.save(existingStation);
+        stationFeedService.publishAfterCommit(existingStation);
         return ChargingStationDTO.fromEntity(existingStation);
     }
 
     @Transactional
     public void deleteStation(Long id) {
-        if (!chargingStationRepository.existsById(id)) {
-            throw new EntityNotFoundException("Charging station not found");
-        }
-        chargingStationRepository.deleteById(id);
+        ChargingStation station = chargingStationRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Charging station not found"));
+        chargingStationRepository.delete(station);
+        changeLogService.recordDeletion(Tombstone.EntityType.CHARGING_STATION, id, station.getStationId());
+        stationFeedService.publishAfterCommit(station);
     }
 
     @Transactional
@@ -88,6 +107,7 @@ public class ChargingStationService {
         
         station.setStatus(newStatus);
         station = chargingStationRepository.save(station);
+        stationFeedService.publishAfterCommit(station);
         return ChargingStationDTO.fromEntity(station);
     }
 
@@ -102,6 +122,7 @@ public class ChargingStationService {
         
         station.setAvailableConnectors(availableConnectors);
         station = chargingStationRepository.save(station);
+        stationFeedService.publishAfterCommit(station);
         return ChargingStationDTO.fromEntity(station);
     }
 } 
\ No newline at end of file
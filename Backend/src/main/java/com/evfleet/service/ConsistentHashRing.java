@@ -0,0 +1,83 @@
+package com.evfleet.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Consistent hash ring over node ids. Each node sits at a number of pseudo-random points (virtual nodes) and a key
+// belongs to the first point at or after its own hash, wrapping round; a node joining or leaving only moves the keys
+// on the arcs it takes or gives up, about 1/n of them. Points depend on nothing but the node ids, so every node
+// builds the same ring from the same membership. Immutable.
+final class ConsistentHashRing {
+    private final List<String> nodes;
+    private final int virtualNodes;
+    private final long[] points;
+    private final int[] owners;
+
+    ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("A ring needs at least one virtual node per member");
+        }
+        this.nodes = List.copyOf(new TreeSet<>(members));
+        this.virtualNodes = virtualNodes;
+
+        int count = nodes.size() * virtualNodes;
+        long[] hashes = new long[count];
+        Integer[] order = new Integer[count];
+        for (int node = 0; node < nodes.size(); node++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int point = node * virtualNodes + v;
+                hashes[point] = hash(nodes.get(node) + "#" + v);
+                order[point] = point;
+            }
+        }
+        // Ties go to the lower node index, which is the same on every node since members are sorted
+        Arrays.sort(order, Comparator.<Integer>comparingLong(point -> hashes[point]).thenComparingInt(point -> point));
+        this.points = new long[count];
+        this.owners = new int[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = order[i] / virtualNodes;
+        }
+    }
+
+    // Null for an empty ring
+    String owner(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return nodes.get(owners[index == points.length ? 0 : index]);
+    }
+
+    boolean contains(String node) {
+        return Collections.binarySearch(nodes, node) >= 0;
+    }
+
+    List<String> nodes() {
+        return nodes;
+    }
+
+    ConsistentHashRing without(String node) {
+        List<String> remaining = new ArrayList<>(nodes);
+        remaining.remove(node);
+        return new ConsistentHashRing(remaining, virtualNodes);
+    }
+
+    // FNV-1a over the UTF-8 bytes, then the MurmurHash3 finalizer so similar ids and VINs spread over the ring
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
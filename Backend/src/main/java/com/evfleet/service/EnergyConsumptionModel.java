@@ -0,0 +1,159 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.SimulationTripDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-vehicle-type linear consumption model (energyWh = intercept + whPerKm * km) fitted
+// by least squares over the trip logs. Predictions are a couple of multiply-adds on a cached snapshot.
+@Component
+public class EnergyConsumptionModel {
+    private static final Logger logger = LoggerFactory.getLogger(EnergyConsumptionModel.class);
+
+    private volatile Coefficients coefficients = new Coefficients(new String[0], new double[0], new double[0], new int[0]);
+
+    public void fit(Map<String, List<SimulationTripDTO>> tripsByType) {
+        int typeCount = tripsByType.size();
+        String[] types = new String[typeCount];
+        double[] interceptWh = new double[typeCount];
+        double[] whPerKm = new double[typeCount];
+        int[] samples = new int[typeCount];
+
+        int t = 0;
+        for (Map.Entry<String, List<SimulationTripDTO>> entry : tripsByType.entrySet()) {
+            List<SimulationTripDTO> trips = entry.getValue();
+
+            // Copy into primitive columns once, then fit in a single pass
+            double[] distance = new double[trips.size()];
+            double[] energy = new double[trips.size()];
+            int n = 0;
+            for (SimulationTripDTO trip : trips) {
+                if (trip.getDistanceKm() == null || trip.getEnergyConsumedWh() == null || trip.getDistanceKm() <= 0) {
+                    continue;
+                }
+                distance[n] = trip.getDistanceKm();
+                energy[n] = trip.getEnergyConsumedWh();
+                n++;
+            }
+
+            double[] fitted = fitLinear(distance, energy, n);
+            types[t] = entry.getKey();
+            interceptWh[t] = fitted[0];
+            whPerKm[t] = fitted[1];
+            samples[t] = n;
+            logger.info("Fitted consumption model for {}: {} Wh/km + {} Wh ({} trips)",
+                entry.getKey(), String.format("%.2f", fitted[1]), String.format("%.1f", fitted[0]), n);
+            t++;
+        }
+
+        coefficients = new Coefficients(types, interceptWh, whPerKm, samples);
+    }
+
+    // Returns {intercept, slope}; falls back to a ratio through the origin when the slope is not identifiable
+    static double[] fitLinear(double[] x, double[] y, int n) {
+        double sumX = 0, sumY = 0, sumXX = 0, sumXY = 0;
+        for (int i = 0; i < n; i++) {
+            sumX += x[i];
+            sumY += y[i];
+            sumXX += x[i] * x[i];
+            sumXY += x[i] * y[i];
+        }
+        if (n == 0 || sumX <= 0) {
+            return new double[]{0.0, 0.0};
+        }
+
+        double denominator = n * sumXX - sumX * sumX;
+        if (n >= 2 && Math.abs(denominator) > 1e-9 * n * sumXX) {
+            double slope = (n * sumXY - sumX * sumY) / denominator;
+            double intercept = (sumY - slope * sumX) / n;
+            // A negative intercept or slope means too few or too noisy trips; keep the physical model instead
+            if (slope > 0 && intercept >= 0) {
+                return new double[]{intercept, slope};
+            }
+        }
+        return new double[]{0.0, sumY / sumX};
+    }
+
+    public int typeIndex(String vehicleType) {
+        return coefficients.indexOf(vehicleType);
+    }
+
+    public boolean hasType(String vehicleType) {
+        return typeIndex(vehicleType) >= 0;
+    }
+
+    public double predictEnergyWh(int typeIndex, double distanceKm) {
+        Coefficients c = coefficients;
+        return c.interceptWh[typeIndex] + c.whPerKm[typeIndex] * distanceKm;
+    }
+
+    public double predictRangeKm(int typeIndex, double availableEnergyWh) {
+        Coefficients c = coefficients;
+        double usable = availableEnergyWh - c.interceptWh[typeIndex];
+        return usable > 0 ? usable / c.whPerKm[typeIndex] : 0.0;
+    }
+
+    public double whPerKm(int typeIndex) {
+        return coefficients.whPerKm[typeIndex];
+    }
+
+    // Vehicle type whose fitted consumption is closest to the observed Wh/km
+    public String classify(double observedWhPerKm) {
+        Coefficients c = coefficients;
+        String best = null;
+        double bestDelta = Double.MAX_VALUE;
+        for (int i = 0; i < c.types.length; i++) {
+            double delta = Math.abs(c.whPerKm[i] - observedWhPerKm);
+            if (delta < bestDelta) {
+                bestDelta = delta;
+                best = c.types[i];
+            }
+        }
+        return best;
+    }
+
+    public Map<String, Map<String, Object>> describe() {
+        Coefficients c = coefficients;
+        Map<String, Map<String, Object>> description = new LinkedHashMap<>();
+        for (int i = 0; i < c.types.length; i++) {
+            Map<String, Object> model = new HashMap<>();
+            model.put("whPerKm", c.whPerKm[i]);
+            model.put("interceptWh", c.interceptWh[i]);
+            model.put("trips", c.samples[i]);
+            description.put(c.types[i], model);
+        }
+        return description;
+    }
+
+    private static final class Coefficients {
+        private final String[] types;
+        private final double[] interceptWh;
+        private final double[] whPerKm;
+        private final int[] samples;
+        private final Map<String, Integer> index = new HashMap<>();
+
+        private Coefficients(String[] types, double[] interceptWh, double[] whPerKm, int[] samples) {
+            this.types = types;
+            this.interceptWh = interceptWh;
+            this.whPerKm = whPerKm;
+            this.samples = samples;
+            for (int i = 0; i < types.length; i++) {
+                index.put(types[i], i);
+            }
+        }
+
+        private int indexOf(String type) {
+            if (type == null) {
+                return -1;
+            }
+            Integer i = index.get(SimulationService.normalizeVehicleType(type));
+            return i != null ? i : -1;
+        }
+    }
+}
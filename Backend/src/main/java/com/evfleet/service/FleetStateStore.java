@@ -0,0 +1,688 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.VehicleDTO;
+import com.evfleet.dto.VehicleLiveStateDTO;
+import com.evfleet.entity.Vehicle;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.lang.invoke.VarHandle;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Authoritative live state of every vehicle (position, speed, SoC, odometer, state) in primitive columns indexed
+// by a stable vehicle slot. Each slot is guarded by a seqlock: a writer claims it with one CAS, readers never lock
+// and simply retry if they overlap a write. Changed slots are flushed to the vehicles table in one JDBC batch on an
+// interval and at shutdown, so the database sees one row per moving vehicle per flush instead of one save per update.
+@Service
+public class FleetStateStore {
+    private static final Logger logger = LoggerFactory.getLogger(FleetStateStore.class);
+    public static final int NO_SLOT = -1;
+
+    // Who last moved the vehicle; once real telemetry arrives the simulation stops writing that vehicle
+    public static final byte SOURCE_DATABASE = 0;
+    public static final byte SOURCE_SIMULATION = 1;
+    public static final byte SOURCE_TELEMETRY = 2;
+    public static final byte SOURCE_API = 3;
+    // Simulated by another node of a sharded simulation: the row is authoritative and the slot holds only what this
+    // node wrote since (API changes, a charging session), with everything else unknown
+    public static final byte SOURCE_REMOTE = 4;
+    private static final String[] SOURCE_NAMES = {"DATABASE", "SIMULATION", "TELEMETRY", "API", "REMOTE"};
+
+    private static final Vehicle.VehicleState[] STATES = Vehicle.VehicleState.values();
+    private static final int SEGMENT_SHIFT = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int LOAD_CHUNK = 500;
+
+    private static final String SELECT_SQL =
+        "SELECT id, vin, latitude, longitude, current_speed, current_battery_level, odometer, current_state, " +
+        "last_updated FROM vehicles";
+    // Unknown columns are sent as NULL and keep their database value. updated_at is left alone: it marks changes to
+    // the vehicle record for the changes feed, and live state has its own feeds
+    private static final String FLUSH_SQL =
+        "UPDATE vehicles SET latitude = COALESCE(?, latitude), longitude = COALESCE(?, longitude), " +
+        "current_latitude = COALESCE(?, current_latitude), current_longitude = COALESCE(?, current_longitude), " +
+        "current_speed = COALESCE(?, current_speed), current_battery_level = COALESCE(?, current_battery_level), " +
+        "current_soc = COALESCE(?, current_soc), odometer = COALESCE(?, odometer), " +
+        "current_state = COALESCE(?, current_state), last_updated = COALESCE(?, last_updated) " +
+        "WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Integer> slotByVin = new ConcurrentHashMap<>();
+    private final Object registrationLock = new Object();
+    // Segments never move once allocated, so growing the directory cannot lose a concurrent write
+    private volatile Segment[] segments = new Segment[0];
+    private volatile int size;
+
+    private final LongAdder lookupHits = new LongAdder();
+    private final LongAdder lookupMisses = new LongAdder();
+    private final Timer flushTimer;
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushFailures = new AtomicLong();
+    private volatile long lastFlushAt;
+    private volatile long lastFlushMillis;
+    private volatile int lastFlushRows;
+    // Only used inside the synchronized flush
+    private final Reading flushReading = new Reading();
+
+    public FleetStateStore(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Lookups by VIN are the cache in front of the vehicles table; a miss costs the caller a database load
+        FunctionCounter.builder("cache.gets", lookupHits, LongAdder::sum)
+            .tags("cache", "fleet-state", "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("cache.gets", lookupMisses, LongAdder::sum)
+            .tags("cache", "fleet-state", "result", "miss").register(meterRegistry);
+        Gauge.builder("evfleet.fleet.state.vehicles", this, FleetStateStore::size).register(meterRegistry);
+        FunctionCounter.builder("evfleet.fleet.state.writes", writes, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("evfleet.fleet.state.flushed.rows", flushedRows, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("evfleet.fleet.state.flush.failures", flushFailures, AtomicLong::get).register(meterRegistry);
+        this.flushTimer = Timer.builder("evfleet.fleet.state.flush")
+            .description("Batch UPDATE of dirty vehicle rows")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        long start = System.currentTimeMillis();
+        jdbcTemplate.query(SELECT_SQL, this::loadRow);
+        logger.info("Loaded live state for {} vehicles in {} ms", size, System.currentTimeMillis() - start);
+    }
+
+    // Pulls the given VINs from the database if they have no slot yet; returns how many were found
+    public int load(Collection<String> vins) {
+        List<String> missing = new ArrayList<>();
+        for (String vin : vins) {
+            if (vin != null && !slotByVin.containsKey(vin)) {
+                missing.add(vin);
+            }
+        }
+        int before = size;
+        for (int from = 0; from < missing.size(); from += LOAD_CHUNK) {
+            List<String> chunk = missing.subList(from, Math.min(missing.size(), from + LOAD_CHUNK));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query(SELECT_SQL + " WHERE vin IN (" + placeholders + ")", this::loadRow, chunk.toArray());
+        }
+        return size - before;
+    }
+
+    // Slot for an entity the caller already holds; existing live state is left untouched
+    public int register(Vehicle vehicle) {
+        Integer slot = slotByVin.get(vehicle.getVin());
+        if (slot != null) {
+            return slot;
+        }
+        return insert(vehicle.getId(), vehicle.getVin(), value(vehicle.getLatitude()), value(vehicle.getLongitude()),
+            value(vehicle.getCurrentSpeed()), value(vehicle.getCurrentBatteryLevel()), value(vehicle.getOdometer()),
+            vehicle.getCurrentState(), epochMillis(vehicle.getLastUpdated()));
+    }
+
+    // Takes over values an entity save has just written, without scheduling another flush of them. A vehicle another
+    // node simulates keeps moving there, so its slot forgets what it held instead of caching the saved values.
+    public void apply(Vehicle vehicle) {
+        int slot = register(vehicle);
+        Segment segment = segment(slot);
+        if (segment.source[slot & SEGMENT_MASK] == SOURCE_REMOTE) {
+            release(slot);
+            return;
+        }
+        write(slot, SOURCE_DATABASE, value(vehicle.getLatitude()), value(vehicle.getLongitude()),
+            value(vehicle.getCurrentSpeed()), value(vehicle.getCurrentBatteryLevel()), value(vehicle.getOdometer()),
+            vehicle.getCurrentState(), System.currentTimeMillis());
+    }
+
+    // Hands the vehicle to another simulation node after its state has been flushed: every value becomes unknown, so
+    // overlays and flushes leave the row, which the new owner keeps current, alone
+    public void release(int slot) {
+        Segment segment = segment(slot);
+        int i = slot & SEGMENT_MASK;
+        long version = lock(segment, i);
+        segment.latitude[i] = Double.NaN;
+        segment.longitude[i] = Double.NaN;
+        segment.speed[i] = Double.NaN;
+        segment.batteryLevel[i] = Double.NaN;
+        segment.odometer[i] = Double.NaN;
+        segment.state[i] = -1;
+        segment.source[i] = SOURCE_REMOTE;
+        segment.versions.set(i, version + 1);
+    }
+
+    // Takes a vehicle back from another simulation node with the values its row holds now
+    public int acquire(Vehicle vehicle) {
+        int slot = register(vehicle);
+        Segment segment = segment(slot);
+        int i = slot & SEGMENT_MASK;
+        long version = lock(segment, i);
+        segment.latitude[i] = value(vehicle.getLatitude());
+        segment.longitude[i] = value(vehicle.getLongitude());
+        segment.speed[i] = value(vehicle.getCurrentSpeed());
+        segment.batteryLevel[i] = value(vehicle.getCurrentBatteryLevel());
+        segment.odometer[i] = value(vehicle.getOdometer());
+        segment.state[i] = vehicle.getCurrentState() != null ? (byte) vehicle.getCurrentState().ordinal() : -1;
+        if (segment.source[i] == SOURCE_REMOTE) {
+            segment.source[i] = SOURCE_DATABASE;
+        }
+        segment.versions.set(i, version + 1);
+        writes.incrementAndGet();
+        return slot;
+    }
+
+    public int slotOf(String vin) {
+        Integer slot = slotByVin.get(vin);
+        if (slot == null) {
+            lookupMisses.increment();
+            return NO_SLOT;
+        }
+        lookupHits.increment();
+        return slot;
+    }
+
+    public long vehicleId(int slot) {
+        return segment(slot).vehicleIds[slot & SEGMENT_MASK];
+    }
+
+    public String vin(int slot) {
+        return segment(slot).vins[slot & SEGMENT_MASK];
+    }
+
+    // Writes {latitude, longitude} without allocating; NaN where the position is unknown
+    public void position(int slot, double[] out) {
+        Segment segment = segment(slot);
+        int i = slot & SEGMENT_MASK;
+        while (true) {
+            long version = segment.versions.get(i);
+            if ((version & 1) == 0) {
+                out[0] = segment.latitude[i];
+                out[1] = segment.longitude[i];
+                VarHandle.acquireFence();
+                if (segment.versions.get(i) == version) {
+                    return;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // NaN where the battery level is unknown
+    public double batteryLevel(int slot) {
+        Segment segment = segment(slot);
+        int i = slot & SEGMENT_MASK;
+        while (true) {
+            long version = segment.versions.get(i);
+            if ((version & 1) == 0) {
+                double batteryLevel = segment.batteryLevel[i];
+                VarHandle.acquireFence();
+                if (segment.versions.get(i) == version) {
+                    return batteryLevel;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // NaN where the odometer is unknown
+    public double odometer(int slot) {
+        Segment segment = segment(slot);
+        int i = slot & SEGMENT_MASK;
+        while (true) {
+            long version = segment.versions.get(i);
+            if ((version & 1) == 0) {
+                double odometer = segment.odometer[i];
+                VarHandle.acquireFence();
+                if (segment.versions.get(i) == version) {
+                    return odometer;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // A single byte read, so no seqlock round trip is needed
+    public Vehicle.VehicleState state(int slot) {
+        int ordinal = segment(slot).state[slot & SEGMENT_MASK];
+        return ordinal >= 0 ? STATES[ordinal] : null;
+    }
+
+    public byte source(int slot) {
+        return segment(slot).source[slot & SEGMENT_MASK];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // NaN numbers and a null state keep the current value. Returns false if a simulation or telemetry sample is
+    // older than the one held, or if the simulation tries to move a vehicle that reports real telemetry.
+    public boolean write(int slot, byte source, double latitude, double longitude, double speed, double batteryLevel,
+                         double odometer, Vehicle.VehicleState state, long sampledAt) {
+        Segment segment = segment(slot);
+        int i = slot & SEGMENT_MASK;
+        long version = lock(segment, i);
+
+        boolean sampled = source == SOURCE_SIMULATION || source == SOURCE_TELEMETRY;
+        if ((sampled && sampledAt < segment.sampledAt[i])
+                || (source == SOURCE_SIMULATION && segment.source[i] == SOURCE_TELEMETRY)) {
+            // Nothing changed, so readers may keep the version they already saw
+            segment.versions.set(i, version - 1);
+            return false;
+        }
+        if (!Double.isNaN(latitude)) segment.latitude[i] = latitude;
+        if (!Double.isNaN(longitude)) segment.longitude[i] = longitude;
+        if (!Double.isNaN(speed)) segment.speed[i] = speed;
+        if (!Double.isNaN(batteryLevel)) segment.batteryLevel[i] = batteryLevel;
+        if (!Double.isNaN(odometer)) segment.odometer[i] = odometer;
+        if (state != null) segment.state[i] = (byte) state.ordinal();
+        if (sampledAt > segment.sampledAt[i]) segment.sampledAt[i] = sampledAt;
+        if (sampled) segment.source[i] = source;
+        segment.versions.set(i, version + 1);
+
+        writes.incrementAndGet();
+        if (source != SOURCE_DATABASE) {
+            markDirty(segment, i);
+        }
+        return true;
+    }
+
+    // Hands a vehicle whose telemetry went silent back to the simulation; false if it was not reporting telemetry or
+    // sent a sample after quietSince, checked under the slot's lock so a sample racing the timer keeps the vehicle
+    public boolean releaseTelemetry(int slot, long quietSince) {
+        Segment segment = segment(slot);
+        int i = slot & SEGMENT_MASK;
+        long version = lock(segment, i);
+        if (segment.source[i] != SOURCE_TELEMETRY || segment.sampledAt[i] > quietSince) {
+            segment.versions.set(i, version - 1);
+            return false;
+        }
+        segment.source[i] = SOURCE_DATABASE;
+        segment.versions.set(i, version + 1);
+        return true;
+    }
+
+    public VehicleLiveStateDTO snapshot(String vin) {
+        int slot = slotOf(vin);
+        return slot != NO_SLOT ? snapshot(slot) : null;
+    }
+
+    // Vehicles simulated by another node are read from their rows
+    public VehicleLiveStateDTO snapshot(int slot) {
+        Segment segment = segment(slot);
+        int i = slot & SEGMENT_MASK;
+        Reading reading = new Reading();
+        read(segment, i, reading);
+        if (reading.source == SOURCE_REMOTE) {
+            List<VehicleLiveStateDTO> rows = loadRemote(List.of(segment.vehicleIds[i]));
+            if (!rows.isEmpty()) {
+                return rows.get(0);
+            }
+        }
+        return toDto(segment.vehicleIds[i], segment.vins[i], reading);
+    }
+
+    public List<VehicleLiveStateDTO> snapshotAll() {
+        int count = size;
+        Segment[] current = segments;
+        Reading reading = new Reading();
+        List<VehicleLiveStateDTO> result = new ArrayList<>(count);
+        Map<Long, Integer> remote = new HashMap<>();
+        for (int slot = 0; slot < count; slot++) {
+            Segment segment = current[slot >>> SEGMENT_SHIFT];
+            int i = slot & SEGMENT_MASK;
+            read(segment, i, reading);
+            if (reading.source == SOURCE_REMOTE) {
+                remote.put(segment.vehicleIds[i], result.size());
+            }
+            result.add(toDto(segment.vehicleIds[i], segment.vins[i], reading));
+        }
+        if (!remote.isEmpty()) {
+            for (VehicleLiveStateDTO row : loadRemote(remote.keySet())) {
+                result.set(remote.get(row.getVehicleId()), row);
+            }
+        }
+        return result;
+    }
+
+    // By VIN, for a page of rows: the vehicles simulated by another node are read in one query, not one each.
+    // VINs the store does not know are left out.
+    public Map<String, VehicleLiveStateDTO> snapshots(Collection<String> vins) {
+        Reading reading = new Reading();
+        Map<String, VehicleLiveStateDTO> result = new HashMap<>();
+        List<Long> remote = new ArrayList<>();
+        for (String vin : vins) {
+            int slot = slotOf(vin);
+            if (slot == NO_SLOT) {
+                continue;
+            }
+            Segment segment = segment(slot);
+            int i = slot & SEGMENT_MASK;
+            read(segment, i, reading);
+            if (reading.source == SOURCE_REMOTE) {
+                remote.add(segment.vehicleIds[i]);
+            }
+            result.put(vin, toDto(segment.vehicleIds[i], segment.vins[i], reading));
+        }
+        if (!remote.isEmpty()) {
+            for (VehicleLiveStateDTO row : loadRemote(remote)) {
+                result.put(row.getVin(), row);
+            }
+        }
+        return result;
+    }
+
+    // Replaces the persisted live columns of a DTO built from a vehicle row with the in-memory values
+    public void overlay(VehicleDTO dto) {
+        int slot = slotOf(dto.getVin());
+        if (slot == NO_SLOT) {
+            return;
+        }
+        Reading reading = new Reading();
+        read(segment(slot), slot & SEGMENT_MASK, reading);
+        if (!Double.isNaN(reading.latitude)) dto.setLatitude(reading.latitude);
+        if (!Double.isNaN(reading.longitude)) dto.setLongitude(reading.longitude);
+        if (!Double.isNaN(reading.speed)) dto.setCurrentSpeed(reading.speed);
+        if (!Double.isNaN(reading.batteryLevel)) dto.setCurrentBatteryLevel(reading.batteryLevel);
+        if (!Double.isNaN(reading.odometer)) dto.setOdometer(reading.odometer);
+        if (reading.state >= 0) dto.setCurrentState(STATES[reading.state]);
+    }
+
+    // Same for a managed entity about to be saved, so a full-row JPA update cannot write stale live columns back
+    public void overlay(Vehicle vehicle) {
+        int slot = slotOf(vehicle.getVin());
+        if (slot == NO_SLOT) {
+            return;
+        }
+        Reading reading = new Reading();
+        read(segment(slot), slot & SEGMENT_MASK, reading);
+        if (!Double.isNaN(reading.latitude)) {
+            vehicle.setLatitude(reading.latitude);
+            vehicle.setCurrentLatitude(reading.latitude);
+        }
+        if (!Double.isNaN(reading.longitude)) {
+            vehicle.setLongitude(reading.longitude);
+            vehicle.setCurrentLongitude(reading.longitude);
+        }
+        if (!Double.isNaN(reading.speed)) vehicle.setCurrentSpeed(reading.speed);
+        if (!Double.isNaN(reading.batteryLevel)) vehicle.setCurrentBatteryLevel(reading.batteryLevel);
+        if (!Double.isNaN(reading.odometer)) vehicle.setOdometer(reading.odometer);
+        if (reading.state >= 0) vehicle.setCurrentState(STATES[reading.state]);
+    }
+
+    @Scheduled(fixedDelayString = "${fleet.state.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        long start = System.currentTimeMillis();
+        int count = size;
+        Segment[] current = segments;
+        List<Object[]> rows = new ArrayList<>();
+        int[] slots = new int[64];
+
+        for (int s = 0; s < current.length && (s << SEGMENT_SHIFT) < count; s++) {
+            Segment segment = current[s];
+            for (int w = 0; w < segment.dirty.length(); w++) {
+                if (segment.dirty.get(w) == 0) {
+                    continue;
+                }
+                // Clear before reading: a write racing with the flush marks the slot again for the next one
+                long word = segment.dirty.getAndSet(w, 0);
+                while (word != 0) {
+                    int i = (w << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    read(segment, i, flushReading);
+                    if (rows.size() == slots.length) {
+                        slots = Arrays.copyOf(slots, slots.length * 2);
+                    }
+                    slots[rows.size()] = (s << SEGMENT_SHIFT) | i;
+                    rows.add(flushRow(segment.vehicleIds[i], flushReading));
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, rows);
+            flushedRows.addAndGet(rows.size());
+            lastFlushRows = rows.size();
+            lastFlushAt = start;
+            lastFlushMillis = System.currentTimeMillis() - start;
+            flushTimer.record(lastFlushMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Keep the vehicles dirty so the next flush writes their then-current state
+            for (int r = 0; r < rows.size(); r++) {
+                markDirty(segment(slots[r]), slots[r] & SEGMENT_MASK);
+            }
+            flushFailures.incrementAndGet();
+            logger.error("Failed to flush live state of {} vehicles: {}", rows.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        logger.info("Flushed live fleet state on shutdown ({} rows in total)", flushedRows.get());
+    }
+
+    public Map<String, Object> getStats() {
+        int count = size;
+        Segment[] current = segments;
+        long dirty = 0;
+        for (int s = 0; s < current.length && (s << SEGMENT_SHIFT) < count; s++) {
+            for (int w = 0; w < current[s].dirty.length(); w++) {
+                dirty += Long.bitCount(current[s].dirty.get(w));
+            }
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("vehicles", count);
+        stats.put("dirtyVehicles", dirty);
+        stats.put("writes", writes.get());
+        stats.put("flushedRows", flushedRows.get());
+        stats.put("flushFailures", flushFailures.get());
+        stats.put("lastFlushRows", lastFlushRows);
+        stats.put("lastFlushMillis", lastFlushMillis);
+        stats.put("lastFlushAt", lastFlushAt > 0 ? toLocalDateTime(lastFlushAt) : null);
+        return stats;
+    }
+
+    private List<VehicleLiveStateDTO> loadRemote(Collection<Long> vehicleIds) {
+        List<Long> ids = new ArrayList<>(vehicleIds);
+        List<VehicleLiveStateDTO> rows = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += LOAD_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + LOAD_CHUNK));
+            String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query(SELECT_SQL + " WHERE id IN (" + placeholders + ")", rs -> {
+                Reading reading = new Reading();
+                reading.latitude = column(rs, "latitude");
+                reading.longitude = column(rs, "longitude");
+                reading.speed = column(rs, "current_speed");
+                reading.batteryLevel = column(rs, "current_battery_level");
+                reading.odometer = column(rs, "odometer");
+                String state = rs.getString("current_state");
+                reading.state = state != null ? Vehicle.VehicleState.valueOf(state).ordinal() : -1;
+                reading.source = SOURCE_REMOTE;
+                Timestamp lastUpdated = rs.getTimestamp("last_updated");
+                reading.sampledAt = lastUpdated != null ? lastUpdated.getTime() : 0L;
+                rows.add(toDto(rs.getLong("id"), rs.getString("vin"), reading));
+            }, chunk.toArray());
+        }
+        return rows;
+    }
+
+    private void loadRow(ResultSet rs) throws SQLException {
+        String state = rs.getString("current_state");
+        Timestamp lastUpdated = rs.getTimestamp("last_updated");
+        insert(rs.getLong("id"), rs.getString("vin"), column(rs, "latitude"), column(rs, "longitude"),
+            column(rs, "current_speed"), column(rs, "current_battery_level"), column(rs, "odometer"),
+            state != null ? Vehicle.VehicleState.valueOf(state) : null,
+            lastUpdated != null ? lastUpdated.getTime() : 0L);
+    }
+
+    private int insert(long vehicleId, String vin, double latitude, double longitude, double speed,
+                       double batteryLevel, double odometer, Vehicle.VehicleState state, long sampledAt) {
+        synchronized (registrationLock) {
+            Integer existing = slotByVin.get(vin);
+            if (existing != null) {
+                return existing;
+            }
+            int slot = size;
+            if ((slot >>> SEGMENT_SHIFT) == segments.length) {
+                Segment[] grown = Arrays.copyOf(segments, segments.length + 1);
+                grown[segments.length] = new Segment();
+                segments = grown;
+            }
+            // The slot is not visible to anyone yet, so plain writes are enough; size and the map publish it
+            Segment segment = segments[slot >>> SEGMENT_SHIFT];
+            int i = slot & SEGMENT_MASK;
+            segment.vehicleIds[i] = vehicleId;
+            segment.vins[i] = vin;
+            segment.latitude[i] = latitude;
+            segment.longitude[i] = longitude;
+            segment.speed[i] = speed;
+            segment.batteryLevel[i] = batteryLevel;
+            segment.odometer[i] = odometer;
+            segment.state[i] = state != null ? (byte) state.ordinal() : -1;
+            segment.sampledAt[i] = sampledAt;
+            segment.source[i] = SOURCE_DATABASE;
+            size = slot + 1;
+            slotByVin.put(vin, slot);
+            return slot;
+        }
+    }
+
+    private Segment segment(int slot) {
+        return segments[slot >>> SEGMENT_SHIFT];
+    }
+
+    // Spins only while another writer holds the same vehicle, which single-writer ownership makes rare
+    private long lock(Segment segment, int i) {
+        while (true) {
+            long version = segment.versions.get(i);
+            if ((version & 1) == 0 && segment.versions.compareAndSet(i, version, version + 1)) {
+                return version + 1;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void read(Segment segment, int i, Reading reading) {
+        while (true) {
+            long version = segment.versions.get(i);
+            if ((version & 1) == 0) {
+                reading.latitude = segment.latitude[i];
+                reading.longitude = segment.longitude[i];
+                reading.speed = segment.speed[i];
+                reading.batteryLevel = segment.batteryLevel[i];
+                reading.odometer = segment.odometer[i];
+                reading.state = segment.state[i];
+                reading.source = segment.source[i];
+                reading.sampledAt = segment.sampledAt[i];
+                // Keeps the column reads above from drifting past the version re-check
+                VarHandle.acquireFence();
+                if (segment.versions.get(i) == version) {
+                    return;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void markDirty(Segment segment, int i) {
+        int w = i >>> 6;
+        long bit = 1L << (i & 63);
+        if ((segment.dirty.get(w) & bit) == 0) {
+            segment.dirty.getAndAccumulate(w, bit, (a, b) -> a | b);
+        }
+    }
+
+    private Object[] flushRow(long vehicleId, Reading reading) {
+        return new Object[]{
+            boxed(reading.latitude), boxed(reading.longitude), boxed(reading.latitude), boxed(reading.longitude),
+            boxed(reading.speed), boxed(reading.batteryLevel), boxed(reading.batteryLevel), boxed(reading.odometer),
+            reading.state >= 0 ? STATES[reading.state].name() : null,
+            reading.sampledAt > 0 ? new Timestamp(reading.sampledAt) : null,
+            vehicleId};
+    }
+
+    private VehicleLiveStateDTO toDto(long vehicleId, String vin, Reading reading) {
+        VehicleLiveStateDTO dto = new VehicleLiveStateDTO();
+        dto.setVehicleId(vehicleId);
+        dto.setVin(vin);
+        dto.setLatitude(boxed(reading.latitude));
+        dto.setLongitude(boxed(reading.longitude));
+        dto.setSpeed(boxed(reading.speed));
+        dto.setBatteryLevel(boxed(reading.batteryLevel));
+        dto.setOdometer(boxed(reading.odometer));
+        dto.setState(reading.state >= 0 ? STATES[reading.state] : null);
+        dto.setUpdatedAt(reading.sampledAt > 0 ? toLocalDateTime(reading.sampledAt) : null);
+        dto.setSource(SOURCE_NAMES[reading.source]);
+        return dto;
+    }
+
+    private static double column(ResultSet rs, String name) throws SQLException {
+        double value = rs.getDouble(name);
+        return rs.wasNull() ? Double.NaN : value;
+    }
+
+    private static double value(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static final class Segment {
+        private final long[] vehicleIds = new long[SEGMENT_SIZE];
+        private final String[] vins = new String[SEGMENT_SIZE];
+        private final double[] latitude = new double[SEGMENT_SIZE];
+        private final double[] longitude = new double[SEGMENT_SIZE];
+        private final double[] speed = new double[SEGMENT_SIZE];
+        private final double[] batteryLevel = new double[SEGMENT_SIZE];
+        private final double[] odometer = new double[SEGMENT_SIZE];
+        private final long[] sampledAt = new long[SEGMENT_SIZE];
+        private final byte[] state = new byte[SEGMENT_SIZE];
+        private final byte[] source = new byte[SEGMENT_SIZE];
+        // Seqlock per slot: odd while a write is in progress
+        private final AtomicLongArray versions = new AtomicLongArray(SEGMENT_SIZE);
+        private final AtomicLongArray dirty = new AtomicLongArray(SEGMENT_SIZE >>> 6);
+    }
+
+    private static final class Reading {
+        private double latitude;
+        private double longitude;
+        private double speed;
+        private double batteryLevel;
+        private double odometer;
+        private int state;
+        private int source;
+        private long sampledAt;
+    }
+}
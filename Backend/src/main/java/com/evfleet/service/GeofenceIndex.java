@@ -0,0 +1,179 @@
+package com.evfleet.service;
+
+// Geofence polygons projected to a local km plane, plus a uniform grid that maps each cell to the polygons whose
+// bounding box overlaps it (CSR layout, as in StationGridIndex). A point query only looks at the polygons of its
+// own cell: a bounding box check first, then an even-odd ray cast over the polygon's edges.
+final class GeofenceIndex {
+    private static final int MAX_CELLS = 1 << 20;
+
+    private final double kmPerDegreeLng;
+    private final int[] vertexStart;
+    private final double[] vertexX;
+    private final double[] vertexY;
+    private final double[] minX;
+    private final double[] maxX;
+    private final double[] minY;
+    private final double[] maxY;
+    private final double cellSizeKm;
+    private final double originX;
+    private final double originY;
+    private final int rows;
+    private final int columns;
+    private final int[] cellStart;
+    private final int[] cellPolygons;
+    private final int maxPerCell;
+
+    // latitudes[p] / longitudes[p] are the vertices of polygon p in ring order
+    GeofenceIndex(double[][] latitudes, double[][] longitudes, double requestedCellSizeKm) {
+        int count = latitudes.length;
+
+        double meanLatitude = 0.0;
+        int vertices = 0;
+        for (int p = 0; p < count; p++) {
+            for (double latitude : latitudes[p]) {
+                meanLatitude += latitude;
+            }
+            vertices += latitudes[p].length;
+        }
+        meanLatitude = vertices > 0 ? meanLatitude / vertices : 0.0;
+        this.kmPerDegreeLng = StationGridIndex.KM_PER_DEGREE_LNG * Math.cos(Math.toRadians(meanLatitude));
+
+        // All vertices in two flat arrays, polygon p owning [vertexStart[p], vertexStart[p + 1])
+        this.vertexStart = new int[count + 1];
+        this.vertexX = new double[vertices];
+        this.vertexY = new double[vertices];
+        this.minX = new double[count];
+        this.maxX = new double[count];
+        this.minY = new double[count];
+        this.maxY = new double[count];
+        double lowX = Double.MAX_VALUE, highX = -Double.MAX_VALUE;
+        double lowY = Double.MAX_VALUE, highY = -Double.MAX_VALUE;
+        int v = 0;
+        for (int p = 0; p < count; p++) {
+            vertexStart[p] = v;
+            minX[p] = minY[p] = Double.MAX_VALUE;
+            maxX[p] = maxY[p] = -Double.MAX_VALUE;
+            for (int k = 0; k < latitudes[p].length; k++, v++) {
+                vertexX[v] = projectX(longitudes[p][k]);
+                vertexY[v] = projectY(latitudes[p][k]);
+                minX[p] = Math.min(minX[p], vertexX[v]);
+                maxX[p] = Math.max(maxX[p], vertexX[v]);
+                minY[p] = Math.min(minY[p], vertexY[v]);
+                maxY[p] = Math.max(maxY[p], vertexY[v]);
+            }
+            lowX = Math.min(lowX, minX[p]);
+            highX = Math.max(highX, maxX[p]);
+            lowY = Math.min(lowY, minY[p]);
+            highY = Math.max(highY, maxY[p]);
+        }
+        vertexStart[count] = v;
+        if (count == 0) {
+            lowX = highX = lowY = highY = 0.0;
+        }
+
+        // Geofences spread over a very large area get coarser cells rather than an enormous grid
+        double cellSize = requestedCellSizeKm;
+        while (((long) ((highY - lowY) / cellSize) + 1) * ((long) ((highX - lowX) / cellSize) + 1) > MAX_CELLS) {
+            cellSize *= 2;
+        }
+        this.cellSizeKm = cellSize;
+        this.originX = lowX;
+        this.originY = lowY;
+        this.rows = (int) ((highY - lowY) / cellSize) + 1;
+        this.columns = (int) ((highX - lowX) / cellSize) + 1;
+
+        // Two passes over the cells each bounding box covers: count, then fill
+        this.cellStart = new int[rows * columns + 1];
+        for (int p = 0; p < count; p++) {
+            for (int r = row(minY[p]); r <= row(maxY[p]); r++) {
+                for (int c = column(minX[p]); c <= column(maxX[p]); c++) {
+                    cellStart[r * columns + c + 1]++;
+                }
+            }
+        }
+        int most = 0;
+        for (int cell = 0; cell < rows * columns; cell++) {
+            most = Math.max(most, cellStart[cell + 1]);
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        this.maxPerCell = most;
+        this.cellPolygons = new int[cellStart[rows * columns]];
+        int[] fill = new int[rows * columns];
+        for (int p = 0; p < count; p++) {
+            for (int r = row(minY[p]); r <= row(maxY[p]); r++) {
+                for (int c = column(minX[p]); c <= column(maxX[p]); c++) {
+                    int cell = r * columns + c;
+                    cellPolygons[cellStart[cell] + fill[cell]++] = p;
+                }
+            }
+        }
+    }
+
+    int size() {
+        return minX.length;
+    }
+
+    // Upper bound on what containing() can return, for sizing the caller's buffer
+    int maxPerCell() {
+        return maxPerCell;
+    }
+
+    int cellCount() {
+        return rows * columns;
+    }
+
+    double cellSizeKm() {
+        return cellSizeKm;
+    }
+
+    // Writes the indices of the polygons containing the point into out and returns how many there are
+    int containing(double latitude, double longitude, int[] out) {
+        double x = projectX(longitude);
+        double y = projectY(latitude);
+        if (x < originX || y < originY) {
+            return 0;
+        }
+        int r = (int) ((y - originY) / cellSizeKm);
+        int c = (int) ((x - originX) / cellSizeKm);
+        if (r >= rows || c >= columns) {
+            return 0;
+        }
+        int cell = r * columns + c;
+        int found = 0;
+        for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+            int p = cellPolygons[k];
+            if (x >= minX[p] && x <= maxX[p] && y >= minY[p] && y <= maxY[p] && inside(p, x, y)) {
+                out[found++] = p;
+            }
+        }
+        return found;
+    }
+
+    private boolean inside(int p, double x, double y) {
+        boolean inside = false;
+        int end = vertexStart[p + 1];
+        for (int i = vertexStart[p], j = end - 1; i < end; j = i++) {
+            if ((vertexY[i] > y) != (vertexY[j] > y)
+                    && x < (vertexX[j] - vertexX[i]) * (y - vertexY[i]) / (vertexY[j] - vertexY[i]) + vertexX[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private double projectX(double longitude) {
+        return longitude * kmPerDegreeLng;
+    }
+
+    private double projectY(double latitude) {
+        return latitude * StationGridIndex.KM_PER_DEGREE_LAT;
+    }
+
+    private int row(double y) {
+        return Math.min(rows - 1, (int) ((y - originY) / cellSizeKm));
+    }
+
+    private int column(double x) {
+        return Math.min(columns - 1, (int) ((x - originX) / cellSizeKm));
+    }
+}
@@ -0,0 +1,342 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.GeofenceDTO;
+import com.evfleet.dto.GeofenceEventDTO;
+import com.evfleet.entity.Geofence;
+import com.evfleet.repository.GeofenceRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Depot, city-zone and restricted-area geofences. Every position update is checked against the polygons of its
+// grid cell only, and compared with the vehicle's last known containment (kept per fleet state store slot), so
+// enter/exit events are found without scanning all geofences; an unchanged position skips the check entirely.
+@Service
+public class GeofenceService {
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceService.class);
+    private static final String GEOFENCE_TOPIC = "/topic/geofences";
+    private static final long[] NONE = new long[0];
+
+    private final GeofenceRepository geofenceRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final FleetStateStore fleetStateStore;
+    private final double cellSizeKm;
+    private volatile Fences fences = new Fences(new GeofenceIndex(new double[0][], new double[0][], 1.0),
+        new Geofence[0], 0);
+
+    // Per vehicle slot, guarded by evaluationLock: sorted ids of the geofences it is inside, and the
+    // position and index version they were computed for (version 0 means never evaluated)
+    private final Object evaluationLock = new Object();
+    private long[][] inside = new long[0][];
+    private double[] lastLatitude = new double[0];
+    private double[] lastLongitude = new double[0];
+    private int[] evaluatedVersion = new int[0];
+    private int[] candidates = new int[16];
+
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+
+    public GeofenceService(GeofenceRepository geofenceRepository,
+                           SimpMessagingTemplate messagingTemplate,
+                           FleetStateStore fleetStateStore,
+                           @Value("${geofence.grid-cell-km:1}") double cellSizeKm) {
+        this.geofenceRepository = geofenceRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.fleetStateStore = fleetStateStore;
+        this.cellSizeKm = cellSizeKm;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuildIndex() {
+        List<Geofence> active = geofenceRepository.findByActiveTrue();
+        double[][] latitudes = new double[active.size()][];
+        double[][] longitudes = new double[active.size()][];
+        for (int p = 0; p < active.size(); p++) {
+            String[] vertices = active.get(p).getPolygon().split(";");
+            latitudes[p] = new double[vertices.length];
+            longitudes[p] = new double[vertices.length];
+            for (int k = 0; k < vertices.length; k++) {
+                String[] coordinates = vertices[k].split(",");
+                latitudes[p][k] = Double.parseDouble(coordinates[0]);
+                longitudes[p][k] = Double.parseDouble(coordinates[1]);
+            }
+        }
+        GeofenceIndex index = new GeofenceIndex(latitudes, longitudes, cellSizeKm);
+
+        List<GeofenceEventDTO> exits = new ArrayList<>();
+        synchronized (evaluationLock) {
+            Fences rebuilt = new Fences(index, active.toArray(new Geofence[0]), fences.version + 1);
+            if (candidates.length < index.maxPerCell()) {
+                candidates = new int[index.maxPerCell()];
+            }
+            // Vehicles inside a geofence that was deleted or deactivated leave it now, not at their next update
+            for (int slot = 0; slot < inside.length; slot++) {
+                long[] ids = inside[slot];
+                long[] kept = new long[ids.length];
+                int keptCount = 0;
+                for (long id : ids) {
+                    if (rebuilt.byId.containsKey(id)) {
+                        kept[keptCount++] = id;
+                    } else {
+                        Geofence removed = fences.byId.get(id);
+                        exits.add(event(slot, removed, id, GeofenceEventDTO.EventType.EXIT,
+                            lastLatitude[slot], lastLongitude[slot], System.currentTimeMillis()));
+                    }
+                }
+                if (keptCount < ids.length) {
+                    inside[slot] = Arrays.copyOf(kept, keptCount);
+                }
+            }
+            fences = rebuilt;
+        }
+        exits.forEach(this::publish);
+        logger.info("Indexed {} geofences in {} cells of {} km", index.size(), index.cellCount(), index.cellSizeKm());
+    }
+
+    // Called for every position update of a vehicle, by its single writer (the simulation or the telemetry
+    // consumer); the lock is only contended while both are running
+    public void evaluate(int slot, double latitude, double longitude, long at) {
+        if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            return;
+        }
+        List<GeofenceEventDTO> events = null;
+        synchronized (evaluationLock) {
+            Fences current = fences;
+            ensureSlot(slot);
+            if (evaluatedVersion[slot] == current.version
+                    && lastLatitude[slot] == latitude && lastLongitude[slot] == longitude) {
+                unchanged.incrementAndGet();
+                return;
+            }
+            evaluations.incrementAndGet();
+            boolean firstSighting = evaluatedVersion[slot] == 0;
+            evaluatedVersion[slot] = current.version;
+            lastLatitude[slot] = latitude;
+            lastLongitude[slot] = longitude;
+
+            int found = current.index.containing(latitude, longitude, candidates);
+            long[] previous = inside[slot];
+            if (found == previous.length && allKnown(current, found, previous)) {
+                return;
+            }
+
+            long[] now = new long[found];
+            for (int k = 0; k < found; k++) {
+                now[k] = current.geofences[candidates[k]].getId();
+            }
+            Arrays.sort(now);
+            inside[slot] = now;
+
+            // The first position only establishes where the vehicle is; it has not entered anything yet
+            if (!firstSighting) {
+                events = new ArrayList<>();
+                for (long id : now) {
+                    if (Arrays.binarySearch(previous, id) < 0) {
+                        events.add(event(slot, current.byId.get(id), id, GeofenceEventDTO.EventType.ENTER, latitude, longitude, at));
+                    }
+                }
+                for (long id : previous) {
+                    if (Arrays.binarySearch(now, id) < 0) {
+                        events.add(event(slot, current.byId.get(id), id, GeofenceEventDTO.EventType.EXIT, latitude, longitude, at));
+                    }
+                }
+            }
+        }
+        if (events != null) {
+            events.forEach(this::publish);
+        }
+    }
+
+    @Transactional
+    public GeofenceDTO createGeofence(GeofenceDTO geofenceDTO) {
+        validatePolygon(geofenceDTO);
+        if (geofenceRepository.existsByName(geofenceDTO.getName())) {
+            throw new IllegalStateException("Geofence with name " + geofenceDTO.getName() + " already exists");
+        }
+        Geofence geofence = geofenceRepository.save(geofenceDTO.toEntity());
+        rebuildAfterCommit();
+        return GeofenceDTO.fromEntity(geofence);
+    }
+
+    @Transactional(readOnly = true)
+    public GeofenceDTO getGeofence(Long id) {
+        return geofenceRepository.findById(id)
+                .map(GeofenceDTO::fromEntity)
+                .orElseThrow(() -> new EntityNotFoundException("Geofence not found"));
+    }
+
+    @Transactional(readOnly = true)
+    public List<GeofenceDTO> getAllGeofences() {
+        return geofenceRepository.findAll().stream()
+                .map(GeofenceDTO::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public GeofenceDTO updateGeofence(Long id, GeofenceDTO geofenceDTO) {
+        validatePolygon(geofenceDTO);
+        Geofence geofence = geofenceRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Geofence not found"));
+        if (geofenceRepository.existsByNameAndIdNot(geofenceDTO.getName(), id)) {
+            throw new IllegalStateException("Geofence with name " + geofenceDTO.getName() + " already exists");
+        }
+        geofence.setName(geofenceDTO.getName());
+        geofence.setType(geofenceDTO.getType());
+        geofence.setPolygon(geofenceDTO.encodePolygon());
+        if (geofenceDTO.getActive() != null) {
+            geofence.setActive(geofenceDTO.getActive());
+        }
+        geofence = geofenceRepository.save(geofence);
+        rebuildAfterCommit();
+        return GeofenceDTO.fromEntity(geofence);
+    }
+
+    @Transactional
+    public void deleteGeofence(Long id) {
+        if (!geofenceRepository.existsById(id)) {
+            throw new EntityNotFoundException("Geofence not found");
+        }
+        geofenceRepository.deleteById(id);
+        rebuildAfterCommit();
+    }
+
+    public List<GeofenceDTO> getVehicleGeofences(String vin) {
+        int slot = fleetStateStore.slotOf(vin);
+        if (slot == FleetStateStore.NO_SLOT) {
+            throw new EntityNotFoundException("Vehicle not found with VIN: " + vin);
+        }
+        Fences current = fences;
+        long[] ids;
+        synchronized (evaluationLock) {
+            ids = slot < inside.length ? inside[slot] : NONE;
+        }
+        List<GeofenceDTO> result = new ArrayList<>();
+        for (long id : ids) {
+            Geofence geofence = current.byId.get(id);
+            if (geofence != null) {
+                result.add(GeofenceDTO.fromEntity(geofence));
+            }
+        }
+        return result;
+    }
+
+    public List<String> getVehiclesInside(Long geofenceId) {
+        List<String> vins = new ArrayList<>();
+        synchronized (evaluationLock) {
+            for (int slot = 0; slot < inside.length; slot++) {
+                if (Arrays.binarySearch(inside[slot], geofenceId) >= 0) {
+                    vins.add(fleetStateStore.vin(slot));
+                }
+            }
+        }
+        return vins;
+    }
+
+    public Map<String, Object> getStats() {
+        Fences current = fences;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("geofences", current.index.size());
+        stats.put("gridCells", current.index.cellCount());
+        stats.put("cellSizeKm", current.index.cellSizeKm());
+        stats.put("maxGeofencesPerCell", current.index.maxPerCell());
+        stats.put("evaluations", evaluations.get());
+        stats.put("unchangedPositions", unchanged.get());
+        stats.put("eventsPublished", published.get());
+        return stats;
+    }
+
+    private void validatePolygon(GeofenceDTO geofenceDTO) {
+        for (GeofenceDTO.PointDTO point : geofenceDTO.getPoints()) {
+            if (point.getLatitude() < -90 || point.getLatitude() > 90
+                    || point.getLongitude() < -180 || point.getLongitude() > 180) {
+                throw new IllegalArgumentException("Invalid geofence point: " + point.getLatitude() + "," + point.getLongitude());
+            }
+        }
+    }
+
+    private void rebuildAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rebuildIndex();
+            }
+        });
+    }
+
+    private boolean allKnown(Fences current, int found, long[] previous) {
+        for (int k = 0; k < found; k++) {
+            if (Arrays.binarySearch(previous, current.geofences[candidates[k]].getId()) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void ensureSlot(int slot) {
+        if (slot >= inside.length) {
+            int old = inside.length;
+            int length = Math.max(slot + 1, old * 2);
+            inside = Arrays.copyOf(inside, length);
+            Arrays.fill(inside, old, length, NONE);
+            lastLatitude = Arrays.copyOf(lastLatitude, length);
+            lastLongitude = Arrays.copyOf(lastLongitude, length);
+            evaluatedVersion = Arrays.copyOf(evaluatedVersion, length);
+        }
+    }
+
+    private GeofenceEventDTO event(int slot, Geofence geofence, long id, GeofenceEventDTO.EventType type,
+                                   double latitude, double longitude, long at) {
+        GeofenceEventDTO event = new GeofenceEventDTO();
+        event.setVin(fleetStateStore.vin(slot));
+        event.setGeofenceId(id);
+        event.setGeofenceName(geofence != null ? geofence.getName() : null);
+        event.setGeofenceType(geofence != null ? geofence.getType() : null);
+        event.setEvent(type);
+        event.setLatitude(latitude);
+        event.setLongitude(longitude);
+        event.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(at), ZoneId.systemDefault()));
+        return event;
+    }
+
+    private void publish(GeofenceEventDTO event) {
+        try {
+            messagingTemplate.convertAndSend(GEOFENCE_TOPIC, event);
+            messagingTemplate.convertAndSend(GEOFENCE_TOPIC + "/" + event.getVin(), event);
+            published.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("Error broadcasting geofence event for vehicle {}: {}", event.getVin(), e.getMessage());
+        }
+    }
+
+    private static final class Fences {
+        private final GeofenceIndex index;
+        private final Geofence[] geofences;
+        private final Map<Long, Geofence> byId = new HashMap<>();
+        private final int version;
+
+        private Fences(GeofenceIndex index, Geofence[] geofences, int version) {
+            this.index = index;
+            this.geofences = geofences;
+            this.version = version;
+            for (Geofence geofence : geofences) {
+                byId.put(geofence.getId(), geofence);
+            }
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.HeadlessScenarioRequest;
+import com.evfleet.dto.SimulationTripDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Replays the trip logs for a synthetic fleet under a virtual clock, as fast as the CPU allows.
+// Vehicles drive their type's trips node by node, park between trips and charge when the next trip would
+// cut into the reserve; SoC traces, charging sessions and KPIs are written to files instead of STOMP. Runs go
+// to a background thread one at a time; the last few runs' status and results are kept for polling.
+@Service
+public class HeadlessSimulationService {
+    private static final Logger logger = LoggerFactory.getLogger(HeadlessSimulationService.class);
+    private static final DateTimeFormatter RUN_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final byte DRIVING = 0;
+    private static final byte PARKED = 1;
+    private static final byte CHARGING = 2;
+    private static final String[] PHASE_NAMES = {"DRIVING", "PARKED", "CHARGING"};
+    private static final int RETAINED_RUNS = 20;
+
+    private final SimulationService simulationService;
+    private final EnergyConsumptionModel energyConsumptionModel;
+    private final ObjectMapper objectMapper;
+    private final double baseSpeedKmh;
+    private final Path outputDirectory;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "headless-simulation");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, HeadlessRun> runs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, HeadlessRun> eldest) {
+            return size() > RETAINED_RUNS;
+        }
+    };
+
+    public HeadlessSimulationService(SimulationService simulationService,
+                                     EnergyConsumptionModel energyConsumptionModel,
+                                     ObjectMapper objectMapper,
+                                     @Value("${simulation.base-speed-kmh:40}") double baseSpeedKmh,
+                                     @Value("${simulation.headless.output-dir:simulation-results}") String outputDirectory) {
+        this.simulationService = simulationService;
+        this.energyConsumptionModel = energyConsumptionModel;
+        this.objectMapper = objectMapper;
+        this.baseSpeedKmh = baseSpeedKmh;
+        this.outputDirectory = Paths.get(outputDirectory);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    // Starts a run in the background and returns its initial status; the run id is known up front
+    public Map<String, Object> startScenario(HeadlessScenarioRequest scenario) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A headless simulation run is already in progress");
+        }
+        try {
+            Fleet fleet = buildFleet(scenario);
+            if (fleet.size == 0) {
+                throw new IllegalStateException("No simulation trips are loaded");
+            }
+            HeadlessRun run = new HeadlessRun("run-" + LocalDateTime.now().format(RUN_ID_FORMATTER) + "-" + scenario.getSeed());
+            synchronized (runs) {
+                runs.put(run.runId, run);
+            }
+            try {
+                executor.execute(() -> complete(run, fleet, scenario));
+            } catch (RejectedExecutionException e) {
+                synchronized (runs) {
+                    runs.remove(run.runId);
+                }
+                throw new IllegalStateException("Headless simulation executor is shut down", e);
+            }
+            return run.toMap();
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    // Null for a run that is unknown or no longer retained
+    public Map<String, Object> getRun(String runId) {
+        synchronized (runs) {
+            HeadlessRun run = runs.get(runId);
+            return run != null ? run.toMap() : null;
+        }
+    }
+
+    private void complete(HeadlessRun run, Fleet fleet, HeadlessScenarioRequest scenario) {
+        try {
+            run.result = execute(run.runId, fleet, scenario);
+            run.status = "COMPLETED";
+        } catch (Exception e) {
+            logger.error("Headless run {} failed: {}", run.runId, e.getMessage(), e);
+            run.error = e instanceof IOException ? "Failed to write headless simulation results: " + e.getMessage()
+                : e.getMessage();
+            run.status = "FAILED";
+        } finally {
+            run.finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> execute(String runId, Fleet fleet, HeadlessScenarioRequest scenario) throws IOException {
+        Path runDirectory = outputDirectory.resolve(runId);
+        Files.createDirectories(runDirectory);
+        Path tracePath = runDirectory.resolve("soc_trace.csv");
+        Path chargingPath = runDirectory.resolve("charging_events.csv");
+        Path kpiPath = runDirectory.resolve("kpis.json");
+
+        long endMillis = Math.round(scenario.getDurationHours() * 3_600_000);
+        long traceIntervalMillis = Math.round(scenario.getTraceIntervalMinutes() * 60_000);
+        long parkingMillis = Math.round(scenario.getParkingMinutes() * 60_000);
+        double speedKmh = baseSpeedKmh * scenario.getSpeedMultiplier();
+
+        SimulationEventQueue events = new SimulationEventQueue();
+        Random random = new Random(scenario.getSeed());
+        for (int v = 0; v < fleet.size; v++) {
+            // Stagger departures over the first hour so same-type vehicles don't move in lockstep
+            fleet.phase[v] = PARKED;
+            schedule(fleet, events, v, (long) (random.nextDouble() * 3_600_000));
+        }
+
+        long processed = 0;
+        long wallStart = System.nanoTime();
+        try (BufferedWriter trace = Files.newBufferedWriter(tracePath);
+             BufferedWriter charging = Files.newBufferedWriter(chargingPath)) {
+            trace.write("sim_seconds,vin,vehicle_type,state,trip,node,soc_percent,odometer_km\n");
+            charging.write("vin,vehicle_type,start_seconds,end_seconds,start_soc_percent,end_soc_percent,energy_kwh\n");
+
+            int v;
+            while (events.peekDue() <= endMillis && (v = events.pollDue(endMillis)) >= 0) {
+                long now = fleet.dueAt[v];
+                processed++;
+                switch (fleet.phase[v]) {
+                    case DRIVING -> arriveAtNode(fleet, v, now, speedKmh, parkingMillis, events);
+                    case PARKED -> depart(fleet, v, now, speedKmh, scenario, events, charging, trace);
+                    case CHARGING -> finishCharging(fleet, v, now, events, charging);
+                    default -> throw new IllegalStateException("Unknown vehicle phase " + fleet.phase[v]);
+                }
+                if (now - fleet.lastTraceAt[v] >= traceIntervalMillis) {
+                    writeTrace(trace, fleet, v, now);
+                }
+            }
+            // Close out sessions still running when the scenario ends
+            for (v = 0; v < fleet.size; v++) {
+                if (fleet.phase[v] == CHARGING) {
+                    double hours = (endMillis - fleet.chargeStartedAt[v]) / 3_600_000.0;
+                    double addedPercent = hours * scenario.getChargerPowerKw() / fleet.capacityKwh * 100.0;
+                    fleet.soc[v] = Math.min(fleet.chargeTargetSoc[v], fleet.chargeStartSoc[v] + addedPercent);
+                    writeChargingEvent(charging, fleet, v, endMillis);
+                }
+            }
+        }
+        double wallSeconds = (System.nanoTime() - wallStart) / 1_000_000_000.0;
+
+        Map<String, Object> kpis = computeKpis(fleet, scenario, endMillis);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("runId", runId);
+        result.put("vehicles", fleet.size);
+        result.put("simulatedSeconds", endMillis / 1000.0);
+        result.put("wallSeconds", wallSeconds);
+        result.put("simSecondsPerWallSecond", wallSeconds > 0 ? endMillis / 1000.0 / wallSeconds : null);
+        result.put("eventsProcessed", processed);
+        result.put("kpis", kpis);
+        result.put("files", List.of(tracePath.toString(), chargingPath.toString(), kpiPath.toString()));
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(kpiPath.toFile(), result);
+
+        logger.info("Headless run {} simulated {} h for {} vehicles in {} s ({} sim-s/wall-s)", runId,
+            scenario.getDurationHours(), fleet.size, String.format("%.2f", wallSeconds),
+            String.format("%.0f", endMillis / 1000.0 / Math.max(wallSeconds, 1e-9)));
+        return result;
+    }
+
+    private Fleet buildFleet(HeadlessScenarioRequest scenario) {
+        List<String> types = new ArrayList<>();
+        List<List<SimulationTripDTO>> trips = new ArrayList<>();
+        simulationService.getTripsByType().forEach((type, typeTrips) -> {
+            if (!typeTrips.isEmpty()) {
+                types.add(type);
+                trips.add(typeTrips);
+            }
+        });
+
+        Fleet fleet = new Fleet(types.size() * scenario.getVehiclesPerType(), scenario.getBatteryCapacityKwh(), trips);
+        int v = 0;
+        for (int t = 0; t < types.size(); t++) {
+            int typeIndex = energyConsumptionModel.typeIndex(types.get(t));
+            for (int k = 0; k < scenario.getVehiclesPerType(); k++, v++) {
+                fleet.vin[v] = String.format("SIM%02d-%05d", t + 1, k + 1);
+                fleet.type[v] = types.get(t);
+                fleet.tripSet[v] = t;
+                fleet.modelIndex[v] = typeIndex;
+                fleet.trip[v] = k % trips.get(t).size();
+                fleet.soc[v] = trips.get(t).get(fleet.trip[v]).getSocPercentage();
+                fleet.lastTraceAt[v] = Long.MIN_VALUE / 2;
+            }
+        }
+        return fleet;
+    }
+
+    private void depart(Fleet fleet, int v, long now, double speedKmh, HeadlessScenarioRequest scenario,
+                        SimulationEventQueue events, BufferedWriter charging, BufferedWriter trace) throws IOException {
+        SimulationTripDTO trip = fleet.trips(v).get(fleet.trip[v]);
+        double neededPercent = tripEnergyWh(fleet, v, trip) / (fleet.capacityKwh * 1000.0) * 100.0;
+
+        // Charge first when this trip would end below the reserve
+        if (fleet.soc[v] - neededPercent < scenario.getChargeReservePercent() && fleet.soc[v] < 100.0) {
+            double target = Math.min(100.0, Math.max(scenario.getChargeTargetPercent(),
+                neededPercent + scenario.getChargeReservePercent()));
+            if (target > fleet.soc[v]) {
+                double energyKwh = (target - fleet.soc[v]) / 100.0 * fleet.capacityKwh;
+                fleet.phase[v] = CHARGING;
+                fleet.chargeStartedAt[v] = now;
+                fleet.chargeStartSoc[v] = fleet.soc[v];
+                fleet.chargeTargetSoc[v] = target;
+                schedule(fleet, events, v, now + Math.max(1, Math.round(energyKwh / scenario.getChargerPowerKw() * 3_600_000)));
+                writeTrace(trace, fleet, v, now);
+                return;
+            }
+        }
+
+        int modelIndex = fleet.modelIndex[v];
+        if (modelIndex >= 0) {
+            // Fixed per-trip overhead of the fitted model, e.g. climate control
+            fleet.soc[v] -= energyConsumptionModel.predictEnergyWh(modelIndex, 0.0) / (fleet.capacityKwh * 1000.0) * 100.0;
+        }
+        fleet.phase[v] = DRIVING;
+        fleet.node[v] = 0;
+        schedule(fleet, events, v, now + segmentMillis(trip, speedKmh));
+    }
+
+    private void arriveAtNode(Fleet fleet, int v, long now, double speedKmh, long parkingMillis, SimulationEventQueue events) {
+        SimulationTripDTO trip = fleet.trips(v).get(fleet.trip[v]);
+        double segmentKm = segmentKm(trip);
+        double energyWh = fleet.modelIndex[v] >= 0
+            ? energyConsumptionModel.whPerKm(fleet.modelIndex[v]) * segmentKm
+            : trip.getEnergyConsumedWh() / Math.max(1, trip.getPath().length - 1);
+
+        fleet.node[v]++;
+        fleet.odometerKm[v] += segmentKm;
+        fleet.drivingEnergyWh[v] += energyWh;
+        fleet.drivingMillis[v] += now - fleet.segmentStartedAt[v];
+        fleet.soc[v] -= energyWh / (fleet.capacityKwh * 1000.0) * 100.0;
+        if (fleet.soc[v] <= 0.0 && !fleet.stranded[v]) {
+            fleet.stranded[v] = true;
+            fleet.strandings++;
+        }
+        fleet.soc[v] = Math.max(0.0, fleet.soc[v]);
+        fleet.minSoc = Math.min(fleet.minSoc, fleet.soc[v]);
+
+        if (fleet.node[v] >= trip.getPath().length - 1) {
+            fleet.tripsCompleted[v]++;
+            fleet.trip[v] = (fleet.trip[v] + 1) % fleet.trips(v).size();
+            fleet.node[v] = 0;
+            fleet.phase[v] = PARKED;
+            schedule(fleet, events, v, now + parkingMillis);
+        } else {
+            schedule(fleet, events, v, now + segmentMillis(trip, speedKmh));
+        }
+    }
+
+    private void finishCharging(Fleet fleet, int v, long now, SimulationEventQueue events,
+                                BufferedWriter charging) throws IOException {
+        fleet.soc[v] = fleet.chargeTargetSoc[v];
+        writeChargingEvent(charging, fleet, v, now);
+        fleet.stranded[v] = false;
+        fleet.phase[v] = PARKED;
+        // Depart right away; the departure check now passes
+        schedule(fleet, events, v, now);
+    }
+
+    private void schedule(Fleet fleet, SimulationEventQueue events, int v, long dueAt) {
+        fleet.segmentStartedAt[v] = fleet.dueAt[v];
+        fleet.dueAt[v] = dueAt;
+        events.schedule(v, dueAt);
+    }
+
+    private double tripEnergyWh(Fleet fleet, int v, SimulationTripDTO trip) {
+        return fleet.modelIndex[v] >= 0
+            ? energyConsumptionModel.predictEnergyWh(fleet.modelIndex[v], trip.getDistanceKm())
+            : trip.getEnergyConsumedWh();
+    }
+
+    private double segmentKm(SimulationTripDTO trip) {
+        return trip.getDistanceKm() / Math.max(1, trip.getPath().length - 1);
+    }
+
+    private long segmentMillis(SimulationTripDTO trip, double speedKmh) {
+        return Math.max(1, Math.round(segmentKm(trip) / speedKmh * 3_600_000));
+    }
+
+    private void writeTrace(BufferedWriter trace, Fleet fleet, int v, long now) throws IOException {
+        fleet.lastTraceAt[v] = now;
+        trace.write(String.format(Locale.ROOT, "%.1f,%s,%s,%s,%d,%d,%.3f,%.3f%n", now / 1000.0, fleet.vin[v],
+            csv(fleet.type[v]), PHASE_NAMES[fleet.phase[v]], fleet.trip[v], fleet.node[v], fleet.soc[v], fleet.odometerKm[v]));
+    }
+
+    private void writeChargingEvent(BufferedWriter charging, Fleet fleet, int v, long endedAt) throws IOException {
+        double energyKwh = (fleet.soc[v] - fleet.chargeStartSoc[v]) / 100.0 * fleet.capacityKwh;
+        fleet.chargingSessions++;
+        fleet.chargedKwh += energyKwh;
+        fleet.chargingMillis += endedAt - fleet.chargeStartedAt[v];
+        charging.write(String.format(Locale.ROOT, "%s,%s,%.1f,%.1f,%.3f,%.3f,%.4f%n", fleet.vin[v], csv(fleet.type[v]),
+            fleet.chargeStartedAt[v] / 1000.0, endedAt / 1000.0, fleet.chargeStartSoc[v], fleet.soc[v], energyKwh));
+    }
+
+    private String csv(String value) {
+        return value.indexOf(',') >= 0 || value.indexOf('"') >= 0 ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+    }
+
+    private Map<String, Object> computeKpis(Fleet fleet, HeadlessScenarioRequest scenario, long endMillis) {
+        Map<String, Map<String, Double>> byType = new LinkedHashMap<>();
+        double distanceKm = 0.0, drivingEnergyWh = 0.0, drivingMillis = 0.0, finalSoc = 0.0;
+        long trips = 0;
+        for (int v = 0; v < fleet.size; v++) {
+            distanceKm += fleet.odometerKm[v];
+            drivingEnergyWh += fleet.drivingEnergyWh[v];
+            drivingMillis += fleet.drivingMillis[v];
+            finalSoc += fleet.soc[v];
+            trips += fleet.tripsCompleted[v];
+
+            Map<String, Double> type = byType.computeIfAbsent(fleet.type[v], key -> new LinkedHashMap<>());
+            type.merge("vehicles", 1.0, Double::sum);
+            type.merge("distanceKm", fleet.odometerKm[v], Double::sum);
+            type.merge("energyKwh", fleet.drivingEnergyWh[v] / 1000.0, Double::sum);
+            type.merge("tripsCompleted", (double) fleet.tripsCompleted[v], Double::sum);
+        }
+
+        Map<String, Object> kpis = new LinkedHashMap<>();
+        kpis.put("simulatedHours", scenario.getDurationHours());
+        kpis.put("tripsCompleted", trips);
+        kpis.put("distanceKm", distanceKm);
+        kpis.put("drivingEnergyKwh", drivingEnergyWh / 1000.0);
+        kpis.put("chargingSessions", fleet.chargingSessions);
+        kpis.put("chargedKwh", fleet.chargedKwh);
+        kpis.put("averageChargingMinutes", fleet.chargingSessions > 0 ? fleet.chargingMillis / 60_000.0 / fleet.chargingSessions : 0.0);
+        kpis.put("drivingUtilization", drivingMillis / ((double) endMillis * fleet.size));
+        kpis.put("strandedEvents", fleet.strandings);
+        kpis.put("minimumSocPercent", fleet.minSoc);
+        kpis.put("averageFinalSocPercent", finalSoc / fleet.size);
+        kpis.put("byVehicleType", byType);
+        return kpis;
+    }
+
+    // Column-oriented vehicle state; index v is also the vehicle's slot in the event queue
+    private static final class Fleet {
+        private final int size;
+        private final double capacityKwh;
+        private final String[] vin;
+        private final String[] type;
+        private final List<List<SimulationTripDTO>> tripSets;
+        private final int[] tripSet;
+        private final int[] modelIndex;
+        private final byte[] phase;
+        private final int[] trip;
+        private final int[] node;
+        private final double[] soc;
+        private final double[] odometerKm;
+        private final double[] drivingEnergyWh;
+        private final long[] drivingMillis;
+        private final int[] tripsCompleted;
+        private final boolean[] stranded;
+        private final long[] dueAt;
+        private final long[] segmentStartedAt;
+        private final long[] lastTraceAt;
+        private final long[] chargeStartedAt;
+        private final double[] chargeStartSoc;
+        private final double[] chargeTargetSoc;
+        private int chargingSessions;
+        private double chargedKwh;
+        private long chargingMillis;
+        private int strandings;
+        private double minSoc = 100.0;
+
+        private Fleet(int size, double capacityKwh, List<List<SimulationTripDTO>> tripSets) {
+            this.size = size;
+            this.capacityKwh = capacityKwh;
+            this.tripSets = tripSets;
+            this.vin = new String[size];
+            this.type = new String[size];
+            this.tripSet = new int[size];
+            this.modelIndex = new int[size];
+            this.phase = new byte[size];
+            this.trip = new int[size];
+            this.node = new int[size];
+            this.soc = new double[size];
+            this.odometerKm = new double[size];
+            this.drivingEnergyWh = new double[size];
+            this.drivingMillis = new long[size];
+            this.tripsCompleted = new int[size];
+            this.stranded = new boolean[size];
+            this.dueAt = new long[size];
+            this.segmentStartedAt = new long[size];
+            this.lastTraceAt = new long[size];
+            this.chargeStartedAt = new long[size];
+            this.chargeStartSoc = new double[size];
+            this.chargeTargetSoc = new double[size];
+        }
+
+        private List<SimulationTripDTO> trips(int v) {
+            return tripSets.get(tripSet[v]);
+        }
+    }
+
+    private static final class HeadlessRun {
+        private final String runId;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile String status = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+        private volatile Map<String, Object> result;
+
+        private HeadlessRun(String runId) {
+            this.runId = runId;
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("runId", runId);
+            map.put("status", status);
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            map.put("error", error);
+            map.put("result", result);
+            return map;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
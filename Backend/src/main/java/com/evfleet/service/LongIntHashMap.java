@@ -0,0 +1,105 @@
+package com.evfleet.service;
+
+import java.util.Arrays;
+
+// Open-addressing long -> int map with linear probing; avoids boxing a Long per OSM node id or timer key
+final class LongIntHashMap {
+    static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    int get(long key) {
+        int slot = slot(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    // Returns the existing value, or stores and returns the given one
+    int putIfAbsent(long key, int value) {
+        int slot = slot(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return value;
+    }
+
+    // Returns the removed value, or MISSING. Later keys of the probe run shift back into the gap, so no tombstones
+    int remove(long key) {
+        int slot = slot(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                int removed = values[slot];
+                int gap = slot;
+                int probe = (slot + 1) & mask;
+                while (values[probe] != MISSING) {
+                    int home = slot(keys[probe]);
+                    // Move back unless the key's home lies cyclically within (gap, probe]
+                    if (((probe - home) & mask) >= ((probe - gap) & mask)) {
+                        keys[gap] = keys[probe];
+                        values[gap] = values[probe];
+                        gap = probe;
+                    }
+                    probe = (probe + 1) & mask;
+                }
+                values[gap] = MISSING;
+                size--;
+                return removed;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != MISSING) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
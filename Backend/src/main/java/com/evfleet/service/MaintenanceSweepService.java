@@ -0,0 +1,243 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.MaintenanceSweepStatusDTO;
+import com.evfleet.entity.Vehicle;
+import com.evfleet.repository.MaintenanceRepository;
+import com.evfleet.repository.VehicleRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Fleet-wide predictive maintenance: keyset chunks, parallel rule evaluation, JDBC batch inserts.
+// Every chunk is its own short read and write, so a sweep never holds a long transaction.
+@Service
+public class MaintenanceSweepService {
+    private static final Logger logger = LoggerFactory.getLogger(MaintenanceSweepService.class);
+    private static final String SCHEDULED = "SCHEDULED";
+    private static final String INSERT_MAINTENANCE_SQL =
+        "INSERT INTO maintenance (vehicle_id, type, description, scheduled_date, status, notes, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Prediction key -> maintenance type and how far ahead it gets scheduled
+    private static final Map<String, String> MAINTENANCE_TYPES = Map.of(
+        AnalyticsService.BATTERY_REPLACEMENT, "BATTERY_REPLACEMENT",
+        AnalyticsService.TIRE_REPLACEMENT, "TIRE_REPLACEMENT",
+        AnalyticsService.BRAKE_SYSTEM_CHECK, "BRAKE_INSPECTION"
+    );
+    private static final Map<String, Integer> LEAD_DAYS = Map.of(
+        AnalyticsService.BATTERY_REPLACEMENT, 90,
+        AnalyticsService.TIRE_REPLACEMENT, 30,
+        AnalyticsService.BRAKE_SYSTEM_CHECK, 14
+    );
+
+    private final VehicleRepository vehicleRepository;
+    private final MaintenanceRepository maintenanceRepository;
+    private final AnalyticsService analyticsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService ruleExecutor;
+    // Drives sweeps started through the API; not the rule pool, whose threads the sweep waits on
+    private final ExecutorService runExecutor;
+    private final int chunkSize;
+    private final int parallelism;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile MaintenanceSweepStatusDTO status = new MaintenanceSweepStatusDTO();
+
+    public MaintenanceSweepService(VehicleRepository vehicleRepository,
+                                   MaintenanceRepository maintenanceRepository,
+                                   AnalyticsService analyticsService,
+                                   JdbcTemplate jdbcTemplate,
+                                   @Value("${maintenance.sweep.chunk-size:500}") int chunkSize,
+                                   @Value("${maintenance.sweep.parallelism:0}") int parallelism) {
+        this.vehicleRepository = vehicleRepository;
+        this.maintenanceRepository = maintenanceRepository;
+        this.analyticsService = analyticsService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.ruleExecutor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "maintenance-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.runExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "maintenance-sweep-run");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Scheduled(cron = "${maintenance.sweep.cron:0 0 2 * * *}")
+    public void scheduledSweep() {
+        if (!runSweep()) {
+            logger.warn("Skipping scheduled maintenance sweep, previous sweep still running");
+        }
+    }
+
+    // Runs a full sweep on the calling thread; returns false if one is already in progress
+    public boolean runSweep() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        sweep(begin());
+        return true;
+    }
+
+    // Starts a full sweep on the sweep executor; returns null if one is already in progress
+    public MaintenanceSweepStatusDTO startSweep() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        MaintenanceSweepStatusDTO progress = begin();
+        try {
+            runExecutor.execute(() -> sweep(progress));
+        } catch (RejectedExecutionException e) {
+            progress.setLastError("Maintenance sweep executor is shut down");
+            progress.setFinishedAt(LocalDateTime.now());
+            progress.setRunning(false);
+            running.set(false);
+        }
+        return progress;
+    }
+
+    private MaintenanceSweepStatusDTO begin() {
+        MaintenanceSweepStatusDTO progress = new MaintenanceSweepStatusDTO();
+        progress.setRunning(true);
+        progress.setStartedAt(LocalDateTime.now());
+        status = progress;
+        return progress;
+    }
+
+    private void sweep(MaintenanceSweepStatusDTO progress) {
+        long startNanos = System.nanoTime();
+
+        try {
+            long lastId = 0L;
+            while (true) {
+                List<Vehicle> chunk = vehicleRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                lastId = chunk.get(chunk.size() - 1).getId();
+
+                int created = processChunk(chunk);
+
+                progress.setVehiclesScanned(progress.getVehiclesScanned() + chunk.size());
+                progress.setRecommendationsCreated(progress.getRecommendationsCreated() + created);
+                progress.setChunksProcessed(progress.getChunksProcessed() + 1);
+                progress.setLastVehicleId(lastId);
+                progress.setVehiclesPerSecond(throughput(progress.getVehiclesScanned(), startNanos));
+                logger.debug("Maintenance sweep chunk {} done: {} vehicles, {} recommendations, up to id {}",
+                    progress.getChunksProcessed(), chunk.size(), created, lastId);
+
+                if (chunk.size() < chunkSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Maintenance sweep failed after {} vehicles: {}", progress.getVehiclesScanned(), e.getMessage());
+            progress.setLastError(e.getMessage());
+        } finally {
+            progress.setVehiclesPerSecond(throughput(progress.getVehiclesScanned(), startNanos));
+            progress.setFinishedAt(LocalDateTime.now());
+            progress.setRunning(false);
+            running.set(false);
+        }
+
+        logger.info("Maintenance sweep finished: {} vehicles, {} recommendations, {} vehicles/s",
+            progress.getVehiclesScanned(), progress.getRecommendationsCreated(),
+            String.format("%.1f", progress.getVehiclesPerSecond()));
+    }
+
+    public MaintenanceSweepStatusDTO getStatus() {
+        return status;
+    }
+
+    private int processChunk(List<Vehicle> chunk) throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+
+        // One set-based lookup per chunk so open recommendations are not duplicated
+        Map<Long, Set<String>> openTypes = new HashMap<>();
+        List<Long> vehicleIds = chunk.stream().map(Vehicle::getId).toList();
+        for (Object[] row : maintenanceRepository.findVehicleIdAndTypeByVehicleIdInAndStatus(vehicleIds, SCHEDULED)) {
+            openTypes.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+
+        // Evaluate the rules on contiguous slices of the chunk in parallel
+        int sliceSize = Math.max(1, (chunk.size() + parallelism - 1) / parallelism);
+        List<CompletableFuture<List<Object[]>>> slices = new ArrayList<>();
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            List<Vehicle> slice = chunk.subList(from, Math.min(chunk.size(), from + sliceSize));
+            slices.add(CompletableFuture.supplyAsync(() -> evaluate(slice, openTypes, now), ruleExecutor));
+        }
+
+        List<Object[]> batch = new ArrayList<>();
+        for (CompletableFuture<List<Object[]>> slice : slices) {
+            batch.addAll(slice.get());
+        }
+
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MAINTENANCE_SQL, batch);
+        }
+        return batch.size();
+    }
+
+    private List<Object[]> evaluate(List<Vehicle> vehicles, Map<Long, Set<String>> openTypes, LocalDateTime now) {
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp createdAt = Timestamp.valueOf(now);
+
+        for (Vehicle vehicle : vehicles) {
+            Map<String, String> predictions;
+            try {
+                predictions = analyticsService.predictMaintenance(vehicle, now);
+            } catch (Exception e) {
+                logger.warn("Skipping vehicle {} in maintenance sweep: {}", vehicle.getVin(), e.getMessage());
+                continue;
+            }
+
+            Set<String> open = openTypes.getOrDefault(vehicle.getId(), Collections.emptySet());
+            for (Map.Entry<String, String> prediction : predictions.entrySet()) {
+                String type = MAINTENANCE_TYPES.get(prediction.getKey());
+                if (type == null || open.contains(type)) {
+                    continue;
+                }
+                rows.add(new Object[]{
+                    vehicle.getId(),
+                    type,
+                    prediction.getValue(),
+                    Timestamp.valueOf(now.plusDays(LEAD_DAYS.get(prediction.getKey()))),
+                    SCHEDULED,
+                    "Generated by predictive maintenance sweep",
+                    createdAt,
+                    createdAt
+                });
+            }
+        }
+        return rows;
+    }
+
+    private double throughput(long vehicles, long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return seconds > 0 ? vehicles / seconds : 0.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        runExecutor.shutdownNow();
+        ruleExecutor.shutdownNow();
+    }
+}
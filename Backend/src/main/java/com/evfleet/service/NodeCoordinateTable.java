@@ -0,0 +1,211 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.SimulationTripDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// WGS84 coordinates for every road graph node, in primitive arrays indexed like the graph, plus per-trip
+// cumulative distances along the node polyline. Coordinates come from an optional node CSV; nodes it does not
+// list fall back to the graph's position estimate in local metres, projected around the configured origin.
+@Component
+public class NodeCoordinateTable {
+    private static final Logger logger = LoggerFactory.getLogger(NodeCoordinateTable.class);
+    private static final double EARTH_RADIUS_M = 6_378_137.0;
+
+    private final ResourceLoader resourceLoader;
+    private final String coordinatesFile;
+    private final double originLatitude;
+    private final double originLongitude;
+    private volatile Table table = new Table(new double[0], new double[0], new HashMap<>());
+
+    public NodeCoordinateTable(ResourceLoader resourceLoader,
+                               @Value("${simulation.node-coordinates-file:}") String coordinatesFile,
+                               @Value("${simulation.origin-latitude:51.5074}") double originLatitude,
+                               @Value("${simulation.origin-longitude:-0.1278}") double originLongitude) {
+        this.resourceLoader = resourceLoader;
+        this.coordinatesFile = coordinatesFile;
+        this.originLatitude = originLatitude;
+        this.originLongitude = originLongitude;
+    }
+
+    public void build(RoadGraph.Snapshot graph, Map<String, List<SimulationTripDTO>> tripsByType) {
+        int nodeCount = graph.nodeCount();
+        double[] latitude = new double[nodeCount];
+        double[] longitude = new double[nodeCount];
+
+        // Batch projection of the estimated positions, then overlay whatever the node file knows exactly
+        for (int i = 0; i < nodeCount; i++) {
+            latitude[i] = projectLatitude(graph.y[i]);
+            longitude[i] = projectLongitude(graph.x[i]);
+        }
+        int loaded = loadCoordinates(graph, latitude, longitude);
+
+        Map<String, TripGeometry[]> geometry = new HashMap<>();
+        tripsByType.forEach((type, trips) -> {
+            TripGeometry[] tripGeometry = new TripGeometry[trips.size()];
+            for (int t = 0; t < trips.size(); t++) {
+                tripGeometry[t] = TripGeometry.of(trips.get(t), graph, latitude, longitude);
+            }
+            geometry.put(type, tripGeometry);
+        });
+
+        table = new Table(latitude, longitude, geometry);
+        logger.info("Built node coordinate table for {} nodes ({} from node file)", nodeCount, loaded);
+    }
+
+    private int loadCoordinates(RoadGraph.Snapshot graph, double[] latitude, double[] longitude) {
+        if (coordinatesFile == null || coordinatesFile.isBlank()) {
+            return 0;
+        }
+        Resource resource = resourceLoader.getResource(coordinatesFile);
+        if (!resource.exists()) {
+            logger.warn("Node coordinate file {} not found, using estimated positions", coordinatesFile);
+            return 0;
+        }
+
+        // node_id,latitude,longitude; a header line or unknown nodes are skipped
+        int loaded = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(",");
+                if (columns.length < 3) {
+                    continue;
+                }
+                try {
+                    int node = graph.indexOf(Long.parseLong(columns[0].trim()));
+                    if (node != LongIntHashMap.MISSING) {
+                        latitude[node] = Double.parseDouble(columns[1].trim());
+                        longitude[node] = Double.parseDouble(columns[2].trim());
+                        loaded++;
+                    }
+                } catch (NumberFormatException e) {
+                    // Header or malformed row
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to read node coordinate file {}: {}", coordinatesFile, e.getMessage());
+        }
+        return loaded;
+    }
+
+    // Local metres north of the origin to degrees latitude
+    public double projectLatitude(double yMetres) {
+        return originLatitude + Math.toDegrees(yMetres / EARTH_RADIUS_M);
+    }
+
+    // Local metres east of the origin to degrees longitude
+    public double projectLongitude(double xMetres) {
+        return originLongitude + Math.toDegrees(xMetres / (EARTH_RADIUS_M * Math.cos(Math.toRadians(originLatitude))));
+    }
+
+    public boolean hasGeometry(String vehicleType, int tripIndex) {
+        return geometry(vehicleType, tripIndex) != null;
+    }
+
+    // Writes {latitude, longitude} of the point segmentFraction of the way from path node pathIndex to the next
+    public void position(String vehicleType, int tripIndex, int pathIndex, double segmentFraction, double[] out) {
+        Table current = table;
+        TripGeometry trip = geometry(vehicleType, tripIndex);
+        int from = trip.nodes[pathIndex];
+        if (pathIndex + 1 >= trip.nodes.length || segmentFraction <= 0.0) {
+            out[0] = current.latitude[from];
+            out[1] = current.longitude[from];
+            return;
+        }
+        int to = trip.nodes[pathIndex + 1];
+        out[0] = current.latitude[from] + (current.latitude[to] - current.latitude[from]) * segmentFraction;
+        out[1] = current.longitude[from] + (current.longitude[to] - current.longitude[from]) * segmentFraction;
+    }
+
+    public double distanceAlongKm(String vehicleType, int tripIndex, int pathIndex, double segmentFraction) {
+        double[] cumulative = geometry(vehicleType, tripIndex).cumulativeKm;
+        if (pathIndex + 1 >= cumulative.length) {
+            return cumulative[cumulative.length - 1];
+        }
+        return cumulative[pathIndex] + (cumulative[pathIndex + 1] - cumulative[pathIndex]) * segmentFraction;
+    }
+
+    public double segmentKm(String vehicleType, int tripIndex, int pathIndex) {
+        double[] cumulative = geometry(vehicleType, tripIndex).cumulativeKm;
+        return pathIndex + 1 < cumulative.length ? cumulative[pathIndex + 1] - cumulative[pathIndex] : 0.0;
+    }
+
+    private TripGeometry geometry(String vehicleType, int tripIndex) {
+        TripGeometry[] trips = table.geometry.get(vehicleType);
+        return trips != null && tripIndex < trips.length ? trips[tripIndex] : null;
+    }
+
+    private static final class Table {
+        private final double[] latitude;
+        private final double[] longitude;
+        private final Map<String, TripGeometry[]> geometry;
+
+        private Table(double[] latitude, double[] longitude, Map<String, TripGeometry[]> geometry) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.geometry = geometry;
+        }
+    }
+
+    private static final class TripGeometry {
+        private final int[] nodes;
+        // Distance from the first node to each node, scaled so the last entry is the logged trip distance
+        private final double[] cumulativeKm;
+
+        private TripGeometry(int[] nodes, double[] cumulativeKm) {
+            this.nodes = nodes;
+            this.cumulativeKm = cumulativeKm;
+        }
+
+        private static TripGeometry of(SimulationTripDTO trip, RoadGraph.Snapshot graph, double[] latitude, double[] longitude) {
+            String[] path = trip.getPath();
+            if (path == null || path.length < 2 || trip.getDistanceKm() == null) {
+                return null;
+            }
+            int[] nodes = new int[path.length];
+            for (int i = 0; i < path.length; i++) {
+                try {
+                    nodes[i] = graph.indexOf(Long.parseLong(path[i].trim()));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                if (nodes[i] == LongIntHashMap.MISSING) {
+                    return null;
+                }
+            }
+
+            double[] cumulative = new double[path.length];
+            for (int i = 1; i < path.length; i++) {
+                cumulative[i] = cumulative[i - 1] + distanceKm(latitude[nodes[i - 1]], longitude[nodes[i - 1]],
+                    latitude[nodes[i]], longitude[nodes[i]]);
+            }
+            double total = cumulative[path.length - 1];
+            for (int i = 1; i < path.length; i++) {
+                cumulative[i] = total > 0
+                    ? cumulative[i] / total * trip.getDistanceKm()
+                    : trip.getDistanceKm() * i / (path.length - 1);
+            }
+            return new TripGeometry(nodes, cumulative);
+        }
+
+        // Equirectangular approximation; plenty for road segments a few hundred metres long
+        private static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+            double x = Math.toRadians(lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+            double y = Math.toRadians(lat2 - lat1);
+            return Math.sqrt(x * x + y * y) * EARTH_RADIUS_M / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.ProjectedPageDTO;
+import com.evfleet.dto.VehicleLiveStateDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+
+// Paged list views that select only the requested columns into tuples, so no entity is hydrated, no lazy
+// association is touched and nothing enters the persistence context. Field names map to a fixed catalogue of
+// JPQL paths per entity, which is also what keeps the generated query safe.
+@Service
+public class ProjectionService {
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Map<String, Field> VEHICLE_FIELDS = catalogue(
+        new Field("id", "v.id", null),
+        new Field("vin", "v.vin", null),
+        new Field("name", "v.name", null),
+        new Field("make", "v.make", null),
+        new Field("model", "v.model", null),
+        new Field("type", "v.type", null),
+        new Field("year", "v.year", null),
+        new Field("state", "v.currentState", VehicleLiveStateDTO::getState),
+        new Field("soc", "v.currentBatteryLevel", VehicleLiveStateDTO::getBatteryLevel),
+        new Field("lat", "v.latitude", VehicleLiveStateDTO::getLatitude),
+        new Field("lng", "v.longitude", VehicleLiveStateDTO::getLongitude),
+        new Field("speed", "v.currentSpeed", VehicleLiveStateDTO::getSpeed),
+        new Field("odometer", "v.odometer", VehicleLiveStateDTO::getOdometer),
+        new Field("batteryCapacity", "v.batteryCapacity", null),
+        new Field("active", "v.active", null),
+        // The foreign key column; no join to users
+        new Field("driverId", "v.driver.id", null),
+        new Field("updatedAt", "v.updatedAt", null));
+    private static final List<String> VEHICLE_DEFAULTS = List.of("id", "vin", "name", "state", "soc", "lat", "lng");
+
+    private static final Map<String, Field> STATION_FIELDS = catalogue(
+        new Field("id", "s.id", null),
+        new Field("stationId", "s.stationId", null),
+        new Field("name", "s.name", null),
+        new Field("address", "s.address", null),
+        new Field("lat", "s.latitude", null),
+        new Field("lng", "s.longitude", null),
+        new Field("status", "s.status", null),
+        new Field("available", "s.availableConnectors", null),
+        new Field("total", "s.totalConnectors", null),
+        new Field("power", "s.powerRating", null),
+        new Field("price", "s.pricePerKwh", null),
+        new Field("connectorTypes", "s.connectorTypes", null),
+        new Field("operator", "s.operator", null),
+        new Field("active", "s.active", null),
+        new Field("updatedAt", "s.updatedAt", null));
+    private static final List<String> STATION_DEFAULTS = List.of("id", "name", "lat", "lng", "status", "available");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final FleetStateStore fleetStateStore;
+
+    public ProjectionService(FleetStateStore fleetStateStore) {
+        this.fleetStateStore = fleetStateStore;
+    }
+
+    // Position, speed, SoC and state are taken from the live store when it tracks the vehicle, like the full list
+    @Transactional(readOnly = true)
+    public ProjectedPageDTO getVehicles(String fields, int page, int size) {
+        return query("Vehicle v", VEHICLE_FIELDS, VEHICLE_DEFAULTS, "v.vin", fields, page, size);
+    }
+
+    @Transactional(readOnly = true)
+    public ProjectedPageDTO getStations(String fields, int page, int size) {
+        return query("ChargingStation s", STATION_FIELDS, STATION_DEFAULTS, null, fields, page, size);
+    }
+
+    private ProjectedPageDTO query(String from, Map<String, Field> catalogue, List<String> defaults, String livePath,
+                                   String fields, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<Field> selected = select(catalogue, defaults, fields);
+        boolean live = livePath != null && selected.stream().anyMatch(field -> field.live != null);
+
+        StringJoiner columns = new StringJoiner(", ");
+        selected.forEach(field -> columns.add(field.path));
+        // Key for the live store: a selected column, or an extra trailing one
+        int keyColumn = -1;
+        if (live) {
+            for (int i = 0; i < selected.size() && keyColumn < 0; i++) {
+                keyColumn = selected.get(i).path.equals(livePath) ? i : -1;
+            }
+            if (keyColumn < 0) {
+                keyColumn = selected.size();
+                columns.add(livePath);
+            }
+        }
+        String alias = from.substring(from.indexOf(' ') + 1);
+        List<Tuple> tuples = entityManager
+            .createQuery("SELECT " + columns + " FROM " + from + " ORDER BY " + alias + ".id", Tuple.class)
+            .setFirstResult(page * size)
+            .setMaxResults(size)
+            .getResultList();
+        long total = entityManager.createQuery("SELECT COUNT(" + alias + ") FROM " + from, Long.class).getSingleResult();
+
+        ProjectedPageDTO result = new ProjectedPageDTO();
+        result.setPage(page);
+        result.setSize(size);
+        result.setTotalElements(total);
+        result.setTotalPages((int) ((total + size - 1) / size));
+        selected.forEach(field -> result.getFields().add(field.name));
+        // One live store read for the page, so vehicles simulated by other nodes cost one query in all
+        Map<String, VehicleLiveStateDTO> liveStates = Collections.emptyMap();
+        if (live) {
+            List<String> keys = new ArrayList<>(tuples.size());
+            for (Tuple tuple : tuples) {
+                keys.add((String) tuple.get(keyColumn));
+            }
+            liveStates = fleetStateStore.snapshots(keys);
+        }
+        for (Tuple tuple : tuples) {
+            VehicleLiveStateDTO liveState = live ? liveStates.get((String) tuple.get(keyColumn)) : null;
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < selected.size(); i++) {
+                Field field = selected.get(i);
+                Object value = tuple.get(i);
+                if (liveState != null && field.live != null) {
+                    Object liveValue = field.live.apply(liveState);
+                    if (liveValue != null && !(liveValue instanceof Double d && d.isNaN())) {
+                        value = liveValue;
+                    }
+                }
+                row.put(field.name, value);
+            }
+            result.getContent().add(row);
+        }
+        return result;
+    }
+
+    private static List<Field> select(Map<String, Field> catalogue, List<String> defaults, String fields) {
+        List<String> names = fields == null || fields.isBlank() ? defaults : Arrays.asList(fields.split(","));
+        Map<String, Field> selected = new LinkedHashMap<>();
+        for (String name : names) {
+            Field field = catalogue.get(name.trim());
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field " + name.trim() + ", expected one of " + catalogue.keySet());
+            }
+            selected.putIfAbsent(field.name, field);
+        }
+        return new ArrayList<>(selected.values());
+    }
+
+    private static Map<String, Field> catalogue(Field... fields) {
+        Map<String, Field> catalogue = new LinkedHashMap<>();
+        for (Field field : fields) {
+            catalogue.put(field.name, field);
+        }
+        return Collections.unmodifiableMap(catalogue);
+    }
+
+    private record Field(String name, String path, Function<VehicleLiveStateDTO, Object> live) {
+    }
+}
@@ -0,0 +1,218 @@
+package com.evfleet.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Statement-level SQL profile fed by the JDBC proxy around the DataSource, so it sees Hibernate and JdbcTemplate
+// statements alike. Every execution is aggregated per normalized statement (an N+1 shows up as one statement with a
+// call count in the thousands); only statements over the slow threshold are logged, and only a sample of those.
+// Hibernate's own statistics (entity / collection fetches) are read on demand.
+@Service
+public class QueryProfiler implements QueryExecutionListener {
+    private static final Logger logger = LoggerFactory.getLogger(QueryProfiler.class);
+    private static final String START_NANOS = "profilerStartNanos";
+    private static final String OVERFLOW = "<other statements>";
+    // IN lists and multi-row VALUES differ only in their parameter count
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final long slowThresholdNanos;
+    private final double slowSampleRate;
+    private final int maxStatements;
+
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder slowQueries = new LongAdder();
+    private final LongAdder slowQueriesLogged = new LongAdder();
+    private volatile long since = System.currentTimeMillis();
+
+    public QueryProfiler(ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                         @Value("${sql.profiling.slow-query-threshold-ms:200}") long slowThresholdMs,
+                         @Value("${sql.profiling.slow-query-sample-rate:1.0}") double slowSampleRate,
+                         @Value("${sql.profiling.max-statements:500}") int maxStatements) {
+        if (slowSampleRate < 0 || slowSampleRate > 1) {
+            throw new IllegalArgumentException("sql.profiling.slow-query-sample-rate must be between 0 and 1");
+        }
+        // Resolved lazily: the EntityManagerFactory is built on the DataSource this profiler is attached to
+        this.entityManagerFactory = entityManagerFactory;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+        this.slowSampleRate = slowSampleRate;
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+        if (start == null || queryInfoList.isEmpty()) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        String sql = queryInfoList.get(0).getQuery();
+        executions.increment();
+        statsFor(sql).record(elapsed, !execInfo.isSuccess(), execInfo.isBatch() ? execInfo.getBatchSize() : 0);
+
+        if (elapsed >= slowThresholdNanos) {
+            slowQueries.increment();
+            if (slowSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+                slowQueriesLogged.increment();
+                logger.warn("Slow query ({} ms{}): {}", TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    execInfo.isBatch() ? ", batch of " + execInfo.getBatchSize() : "", sql);
+            }
+        }
+    }
+
+    // Statements by total execution time, slowest first
+    public List<Map<String, Object>> getTopStatements(int limit) {
+        List<Map.Entry<String, StatementStats>> entries = new ArrayList<>(statements.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().totalNanos.sum(), a.getValue().totalNanos.sum()));
+        long grandTotal = entries.stream().mapToLong(entry -> entry.getValue().totalNanos.sum()).sum();
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<String, StatementStats> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            StatementStats stats = entry.getValue();
+            long calls = stats.calls.sum();
+            long total = stats.totalNanos.sum();
+            Map<String, Object> statement = new LinkedHashMap<>();
+            statement.put("sql", entry.getKey());
+            statement.put("calls", calls);
+            statement.put("batchItems", stats.batchItems.sum());
+            statement.put("totalMs", toMillis(total));
+            statement.put("meanMs", calls > 0 ? toMillis(total / calls) : 0.0);
+            statement.put("maxMs", toMillis(stats.maxNanos.get()));
+            statement.put("errors", stats.errors.sum());
+            statement.put("percentOfTotal", grandTotal > 0 ? Math.round(total * 1000.0 / grandTotal) / 10.0 : 0.0);
+            result.add(statement);
+        }
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("since", since);
+        stats.put("executions", executions.sum());
+        stats.put("distinctStatements", statements.size());
+        stats.put("slowQueries", slowQueries.sum());
+        stats.put("slowQueriesLogged", slowQueriesLogged.sum());
+        stats.put("slowQueryThresholdMs", TimeUnit.NANOSECONDS.toMillis(slowThresholdNanos));
+        stats.put("slowQuerySampleRate", slowSampleRate);
+        return stats;
+    }
+
+    // Session-factory wide Hibernate counters; per-role fetch counts are where lazy-loading N+1s show up
+    public Map<String, Object> getHibernateStatistics() {
+        Statistics statistics = hibernateStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("startTime", statistics.getStart().toEpochMilli());
+        result.put("sessionsOpened", statistics.getSessionOpenCount());
+        result.put("transactions", statistics.getTransactionCount());
+        result.put("flushes", statistics.getFlushCount());
+        result.put("preparedStatements", statistics.getPrepareStatementCount());
+        result.put("queryExecutions", statistics.getQueryExecutionCount());
+        result.put("queryExecutionMaxTimeMs", statistics.getQueryExecutionMaxTime());
+        result.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+        result.put("entityLoads", statistics.getEntityLoadCount());
+        result.put("entityFetches", statistics.getEntityFetchCount());
+        result.put("collectionLoads", statistics.getCollectionLoadCount());
+        result.put("collectionFetches", statistics.getCollectionFetchCount());
+
+        Map<String, Long> entityFetches = new TreeMap<>();
+        for (String entity : statistics.getEntityNames()) {
+            long fetches = statistics.getEntityStatistics(entity).getFetchCount();
+            if (fetches > 0) {
+                entityFetches.put(entity, fetches);
+            }
+        }
+        Map<String, Long> collectionFetches = new TreeMap<>();
+        for (String role : statistics.getCollectionRoleNames()) {
+            long fetches = statistics.getCollectionStatistics(role).getFetchCount();
+            if (fetches > 0) {
+                collectionFetches.put(role, fetches);
+            }
+        }
+        result.put("entityFetchesByEntity", entityFetches);
+        result.put("collectionFetchesByRole", collectionFetches);
+        return result;
+    }
+
+    public void reset() {
+        statements.clear();
+        executions.reset();
+        slowQueries.reset();
+        slowQueriesLogged.reset();
+        since = System.currentTimeMillis();
+        hibernateStatistics().clear();
+        logger.info("SQL profile reset");
+    }
+
+    private Statistics hibernateStatistics() {
+        return entityManagerFactory.getObject().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private StatementStats statsFor(String sql) {
+        StatementStats stats = statements.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String key = normalize(sql);
+        stats = statements.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        // Bounded so ad-hoc SQL cannot grow the profile without limit
+        if (statements.size() >= maxStatements) {
+            return statements.computeIfAbsent(OVERFLOW, ignored -> new StatementStats());
+        }
+        return statements.computeIfAbsent(key, ignored -> new StatementStats());
+    }
+
+    private static String normalize(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return normalized.indexOf('?') >= 0 ? PARAMETER_LIST.matcher(normalized).replaceAll("(?, ...)") : normalized;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private static final class StatementStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder batchItems = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean failed, int batchItems) {
+            calls.increment();
+            this.batchItems.add(batchItems);
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (failed) {
+                errors.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.SimulationTripDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Directed road graph over the OSM node ids in the trip paths, stored as forward and reverse CSR arrays.
+// The logs carry no node coordinates or per-edge lengths, so each traversal gets its trip's distance spread
+// evenly over the path and node positions are interpolated between trip endpoints; repeated traversals are averaged.
+@Component
+public class RoadGraph {
+    private static final Logger logger = LoggerFactory.getLogger(RoadGraph.class);
+
+    private final EnergyConsumptionModel energyConsumptionModel;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public RoadGraph(EnergyConsumptionModel energyConsumptionModel) {
+        this.energyConsumptionModel = energyConsumptionModel;
+    }
+
+    public void build(Map<String, List<SimulationTripDTO>> tripsByType) {
+        long start = System.nanoTime();
+
+        int traversalCapacity = 0;
+        for (List<SimulationTripDTO> trips : tripsByType.values()) {
+            for (SimulationTripDTO trip : trips) {
+                if (trip.getPath() != null) {
+                    traversalCapacity += trip.getPath().length;
+                }
+            }
+        }
+
+        LongIntHashMap index = new LongIntHashMap(traversalCapacity);
+        long[] nodeIds = new long[traversalCapacity];
+        double[] sumX = new double[traversalCapacity];
+        double[] sumY = new double[traversalCapacity];
+        int[] observations = new int[traversalCapacity];
+        int[] from = new int[traversalCapacity];
+        int[] to = new int[traversalCapacity];
+        double[] lengthKm = new double[traversalCapacity];
+        double[] energyKm = new double[traversalCapacity];
+        int traversals = 0;
+        int skippedTrips = 0;
+
+        for (Map.Entry<String, List<SimulationTripDTO>> entry : tripsByType.entrySet()) {
+            int typeIndex = energyConsumptionModel.typeIndex(entry.getKey());
+            double typeWhPerKm = typeIndex >= 0 ? energyConsumptionModel.whPerKm(typeIndex) : 0.0;
+
+            for (SimulationTripDTO trip : entry.getValue()) {
+                int[] path = resolvePath(trip, index, nodeIds);
+                if (path == null) {
+                    skippedTrips++;
+                    continue;
+                }
+
+                // How much harder than its type's average this trip drove, attributed to every road it used
+                double segmentKm = trip.getDistanceKm() / (path.length - 1);
+                double energyFactor = 1.0;
+                if (typeWhPerKm > 0 && trip.getEnergyConsumedWh() != null && trip.getDistanceKm() > 0) {
+                    energyFactor = trip.getEnergyConsumedWh() / trip.getDistanceKm() / typeWhPerKm;
+                }
+
+                double startX = trip.getStartPosition().getX(), startY = trip.getStartPosition().getY();
+                double endX = trip.getEndPosition().getX(), endY = trip.getEndPosition().getY();
+                for (int i = 0; i < path.length; i++) {
+                    double progress = (double) i / (path.length - 1);
+                    sumX[path[i]] += startX + (endX - startX) * progress;
+                    sumY[path[i]] += startY + (endY - startY) * progress;
+                    observations[path[i]]++;
+
+                    if (i > 0 && path[i - 1] != path[i]) {
+                        from[traversals] = path[i - 1];
+                        to[traversals] = path[i];
+                        lengthKm[traversals] = segmentKm;
+                        energyKm[traversals] = segmentKm * energyFactor;
+                        traversals++;
+                    }
+                }
+            }
+        }
+
+        int nodeCount = index.size();
+        double[] x = new double[nodeCount];
+        double[] y = new double[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            x[i] = sumX[i] / observations[i];
+            y[i] = sumY[i] / observations[i];
+        }
+
+        Csr outgoing = Csr.build(nodeCount, from, to, lengthKm, energyKm, traversals);
+        Csr incoming = outgoing.reverse(nodeCount);
+        Snapshot built = new Snapshot(Arrays.copyOf(nodeIds, nodeCount), index, x, y, outgoing, incoming);
+        snapshot = built;
+
+        logger.info("Built road graph: {} nodes, {} edges from {} traversals ({} trips skipped) in {} ms",
+            nodeCount, outgoing.target.length, traversals, skippedTrips,
+            String.format("%.1f", (System.nanoTime() - start) / 1_000_000.0));
+    }
+
+    // Maps a trip's path onto node indices, registering unseen nodes; null if the trip cannot be used
+    private int[] resolvePath(SimulationTripDTO trip, LongIntHashMap index, long[] nodeIds) {
+        String[] path = trip.getPath();
+        if (path == null || path.length < 2 || trip.getDistanceKm() == null
+                || trip.getStartPosition() == null || trip.getEndPosition() == null) {
+            return null;
+        }
+        long[] ids = new long[path.length];
+        try {
+            for (int i = 0; i < path.length; i++) {
+                ids[i] = Long.parseLong(path[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            logger.warn("Skipping trip with non-numeric path node: {}", e.getMessage());
+            return null;
+        }
+
+        int[] resolved = new int[path.length];
+        for (int i = 0; i < ids.length; i++) {
+            int next = index.size();
+            resolved[i] = index.putIfAbsent(ids[i], next);
+            if (resolved[i] == next) {
+                nodeIds[next] = ids[i];
+            }
+        }
+        return resolved;
+    }
+
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public Map<String, Object> describe() {
+        Snapshot graph = snapshot;
+        Map<String, Object> description = new HashMap<>();
+        description.put("nodes", graph.nodeCount());
+        description.put("edges", graph.edgeCount());
+        description.put("distanceBoundPerKm", graph.distanceBoundPerKm);
+        description.put("energyBoundPerKm", graph.energyBoundPerKm);
+        return description;
+    }
+
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new long[0], new LongIntHashMap(0), new double[0], new double[0],
+            Csr.build(0, new int[0], new int[0], new double[0], new double[0], 0), Csr.build(0, new int[0], new int[0], new double[0], new double[0], 0));
+
+        final long[] nodeIds;
+        final double[] x;
+        final double[] y;
+        final Csr outgoing;
+        final Csr incoming;
+        // Smallest edge cost per straight-line km, so scaled straight-line distance never overestimates (A* heuristic)
+        final double distanceBoundPerKm;
+        final double energyBoundPerKm;
+        private final LongIntHashMap index;
+
+        private Snapshot(long[] nodeIds, LongIntHashMap index, double[] x, double[] y, Csr outgoing, Csr incoming) {
+            this.nodeIds = nodeIds;
+            this.index = index;
+            this.x = x;
+            this.y = y;
+            this.outgoing = outgoing;
+            this.incoming = incoming;
+
+            double distanceBound = Double.MAX_VALUE, energyBound = Double.MAX_VALUE;
+            for (int v = 0; v < nodeIds.length; v++) {
+                for (int e = outgoing.start[v]; e < outgoing.start[v + 1]; e++) {
+                    double straightKm = straightLineKm(v, outgoing.target[e]);
+                    if (straightKm > 1e-9) {
+                        distanceBound = Math.min(distanceBound, outgoing.lengthKm[e] / straightKm);
+                        energyBound = Math.min(energyBound, outgoing.energyKm[e] / straightKm);
+                    }
+                }
+            }
+            this.distanceBoundPerKm = distanceBound == Double.MAX_VALUE ? 0.0 : distanceBound;
+            this.energyBoundPerKm = energyBound == Double.MAX_VALUE ? 0.0 : energyBound;
+        }
+
+        int indexOf(long nodeId) {
+            return index.get(nodeId);
+        }
+
+        int nodeCount() {
+            return nodeIds.length;
+        }
+
+        int edgeCount() {
+            return outgoing.target.length;
+        }
+
+        double straightLineKm(int a, int b) {
+            double dx = x[a] - x[b];
+            double dy = y[a] - y[b];
+            return Math.sqrt(dx * dx + dy * dy) / 1000.0;
+        }
+    }
+
+    // Adjacency in compressed sparse row form: the edges of node v are start[v] until start[v + 1]
+    static final class Csr {
+        final int[] start;
+        final int[] target;
+        final double[] lengthKm;
+        // Length weighted by how much more (or less) energy than average vehicles used on this edge
+        final double[] energyKm;
+
+        private Csr(int[] start, int[] target, double[] lengthKm, double[] energyKm) {
+            this.start = start;
+            this.target = target;
+            this.lengthKm = lengthKm;
+            this.energyKm = energyKm;
+        }
+
+        // Counting sort by source, then parallel traversals of the same edge are merged into their mean
+        static Csr build(int nodeCount, int[] from, int[] to, double[] lengthKm, double[] energyKm, int count) {
+            int[] bucket = new int[nodeCount + 1];
+            for (int i = 0; i < count; i++) {
+                bucket[from[i] + 1]++;
+            }
+            for (int v = 0; v < nodeCount; v++) {
+                bucket[v + 1] += bucket[v];
+            }
+            int[] fill = Arrays.copyOf(bucket, bucket.length);
+            int[] sortedTo = new int[count];
+            double[] sortedLength = new double[count];
+            double[] sortedEnergy = new double[count];
+            for (int i = 0; i < count; i++) {
+                int slot = fill[from[i]]++;
+                sortedTo[slot] = to[i];
+                sortedLength[slot] = lengthKm[i];
+                sortedEnergy[slot] = energyKm[i];
+            }
+
+            int[] start = new int[nodeCount + 1];
+            int[] target = new int[count];
+            double[] length = new double[count];
+            double[] energy = new double[count];
+            int[] merged = new int[count];
+            int edges = 0;
+            for (int v = 0; v < nodeCount; v++) {
+                start[v] = edges;
+                for (int i = bucket[v]; i < bucket[v + 1]; i++) {
+                    int existing = -1;
+                    for (int e = start[v]; e < edges; e++) {
+                        if (target[e] == sortedTo[i]) {
+                            existing = e;
+                            break;
+                        }
+                    }
+                    if (existing < 0) {
+                        existing = edges++;
+                        target[existing] = sortedTo[i];
+                    }
+                    length[existing] += sortedLength[i];
+                    energy[existing] += sortedEnergy[i];
+                    merged[existing]++;
+                }
+            }
+            start[nodeCount] = edges;
+            for (int e = 0; e < edges; e++) {
+                length[e] /= merged[e];
+                energy[e] /= merged[e];
+            }
+            return new Csr(start, Arrays.copyOf(target, edges), Arrays.copyOf(length, edges), Arrays.copyOf(energy, edges));
+        }
+
+        // Same edges keyed by their head node, for searching backwards from a destination
+        Csr reverse(int nodeCount) {
+            int edges = target.length;
+            int[] from = new int[edges];
+            for (int v = 0; v < nodeCount; v++) {
+                for (int e = start[v]; e < start[v + 1]; e++) {
+                    from[e] = v;
+                }
+            }
+            return build(nodeCount, target, from, lengthKm, energyKm, edges);
+        }
+    }
+}
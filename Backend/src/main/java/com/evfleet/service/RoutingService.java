@@ -0,0 +1,330 @@
+package com.evfleet.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Shortest paths over the in-memory RoadGraph by distance or energy, using A* or bidirectional Dijkstra.
+// Search arrays are reused per thread and reset lazily with a generation stamp, so a query allocates only its result.
+@Service
+public class RoutingService {
+    public static final String METRIC_DISTANCE = "distance";
+    public static final String METRIC_ENERGY = "energy";
+    public static final String ALGORITHM_ASTAR = "astar";
+    public static final String ALGORITHM_BIDIRECTIONAL = "bidirectional";
+
+    private final RoadGraph roadGraph;
+    private final EnergyConsumptionModel energyConsumptionModel;
+    private final ThreadLocal<SearchState> searchState = ThreadLocal.withInitial(SearchState::new);
+
+    public RoutingService(RoadGraph roadGraph, EnergyConsumptionModel energyConsumptionModel) {
+        this.roadGraph = roadGraph;
+        this.energyConsumptionModel = energyConsumptionModel;
+    }
+
+    public Map<String, Object> findRoute(String fromNodeId, String toNodeId, String metric, String algorithm, String vehicleType) {
+        RoadGraph.Snapshot graph = roadGraph.snapshot();
+        int source = resolveNode(graph, fromNodeId);
+        int target = resolveNode(graph, toNodeId);
+
+        boolean byEnergy;
+        if (METRIC_DISTANCE.equalsIgnoreCase(metric)) {
+            byEnergy = false;
+        } else if (METRIC_ENERGY.equalsIgnoreCase(metric)) {
+            byEnergy = true;
+        } else {
+            throw new IllegalArgumentException("Unknown route metric: " + metric);
+        }
+
+        int typeIndex = vehicleType != null ? energyConsumptionModel.typeIndex(vehicleType) : -1;
+        if (vehicleType != null && typeIndex < 0) {
+            throw new IllegalArgumentException("Unknown vehicle type: " + vehicleType);
+        }
+
+        long start = System.nanoTime();
+        SearchState state = searchState.get();
+        state.prepare(graph.nodeCount());
+        int[] path;
+        if (ALGORITHM_ASTAR.equalsIgnoreCase(algorithm)) {
+            path = aStar(graph, state, source, target, byEnergy);
+        } else if (ALGORITHM_BIDIRECTIONAL.equalsIgnoreCase(algorithm)) {
+            path = bidirectionalDijkstra(graph, state, source, target, byEnergy);
+        } else {
+            throw new IllegalArgumentException("Unknown routing algorithm: " + algorithm);
+        }
+        double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+
+        Map<String, Object> route = new HashMap<>();
+        route.put("from", fromNodeId);
+        route.put("to", toNodeId);
+        route.put("metric", byEnergy ? METRIC_ENERGY : METRIC_DISTANCE);
+        route.put("algorithm", algorithm.toLowerCase());
+        route.put("found", path != null);
+        route.put("settledNodes", state.settled);
+        route.put("elapsedMillis", elapsedMillis);
+        if (path == null) {
+            return route;
+        }
+
+        double distanceKm = 0.0, energyKm = 0.0;
+        List<String> nodes = new ArrayList<>(path.length);
+        nodes.add(Long.toString(graph.nodeIds[path[0]]));
+        for (int i = 1; i < path.length; i++) {
+            int edge = findEdge(graph.outgoing, path[i - 1], path[i]);
+            distanceKm += graph.outgoing.lengthKm[edge];
+            energyKm += graph.outgoing.energyKm[edge];
+            nodes.add(Long.toString(graph.nodeIds[path[i]]));
+        }
+        route.put("path", nodes);
+        route.put("distanceKm", distanceKm);
+        if (typeIndex >= 0) {
+            route.put("vehicleType", SimulationService.normalizeVehicleType(vehicleType));
+            route.put("energyWh", energyConsumptionModel.predictEnergyWh(typeIndex, energyKm));
+        }
+        return route;
+    }
+
+    public Map<String, Object> getGraphSummary() {
+        return roadGraph.describe();
+    }
+
+    private int resolveNode(RoadGraph.Snapshot graph, String nodeId) {
+        int node = LongIntHashMap.MISSING;
+        try {
+            node = graph.indexOf(Long.parseLong(nodeId.trim()));
+        } catch (NumberFormatException e) {
+            // Falls through to the unknown-node error below
+        }
+        if (node == LongIntHashMap.MISSING) {
+            throw new IllegalArgumentException("Unknown road node: " + nodeId);
+        }
+        return node;
+    }
+
+    private int[] aStar(RoadGraph.Snapshot graph, SearchState state, int source, int target, boolean byEnergy) {
+        RoadGraph.Csr edges = graph.outgoing;
+        double[] weight = byEnergy ? edges.energyKm : edges.lengthKm;
+        double bound = byEnergy ? graph.energyBoundPerKm : graph.distanceBoundPerKm;
+        int stamp = state.stamp;
+
+        state.reach(state.forwardCost, state.forwardParent, state.forwardSeen, source, 0.0, -1);
+        state.forwardHeap.push(bound * graph.straightLineKm(source, target), source);
+        while (!state.forwardHeap.isEmpty()) {
+            int v = state.forwardHeap.pop();
+            if (state.forwardDone[v] == stamp) {
+                continue;
+            }
+            state.forwardDone[v] = stamp;
+            state.settled++;
+            if (v == target) {
+                return state.forwardPath(source, target);
+            }
+            double cost = state.forwardCost[v];
+            for (int e = edges.start[v]; e < edges.start[v + 1]; e++) {
+                int u = edges.target[e];
+                double next = cost + weight[e];
+                if (state.forwardSeen[u] != stamp || next < state.forwardCost[u]) {
+                    state.reach(state.forwardCost, state.forwardParent, state.forwardSeen, u, next, v);
+                    state.forwardHeap.push(next + bound * graph.straightLineKm(u, target), u);
+                }
+            }
+        }
+        return null;
+    }
+
+    private int[] bidirectionalDijkstra(RoadGraph.Snapshot graph, SearchState state, int source, int target, boolean byEnergy) {
+        if (source == target) {
+            return new int[]{source};
+        }
+        int stamp = state.stamp;
+        double best = Double.MAX_VALUE;
+        int meeting = -1;
+
+        state.reach(state.forwardCost, state.forwardParent, state.forwardSeen, source, 0.0, -1);
+        state.forwardHeap.push(0.0, source);
+        state.reach(state.backwardCost, state.backwardParent, state.backwardSeen, target, 0.0, -1);
+        state.backwardHeap.push(0.0, target);
+
+        while (!state.forwardHeap.isEmpty() && !state.backwardHeap.isEmpty()) {
+            // No undiscovered connection can be shorter than the two frontiers combined
+            if (state.forwardHeap.peekKey() + state.backwardHeap.peekKey() >= best) {
+                break;
+            }
+            boolean forward = state.forwardHeap.size() <= state.backwardHeap.size();
+            RoadGraph.Csr edges = forward ? graph.outgoing : graph.incoming;
+            double[] weight = byEnergy ? edges.energyKm : edges.lengthKm;
+            NodeHeap heap = forward ? state.forwardHeap : state.backwardHeap;
+            double[] cost = forward ? state.forwardCost : state.backwardCost;
+            int[] parent = forward ? state.forwardParent : state.backwardParent;
+            int[] seen = forward ? state.forwardSeen : state.backwardSeen;
+            int[] done = forward ? state.forwardDone : state.backwardDone;
+            double[] otherCost = forward ? state.backwardCost : state.forwardCost;
+            int[] otherSeen = forward ? state.backwardSeen : state.forwardSeen;
+
+            int v = heap.pop();
+            if (done[v] == stamp) {
+                continue;
+            }
+            done[v] = stamp;
+            state.settled++;
+            for (int e = edges.start[v]; e < edges.start[v + 1]; e++) {
+                int u = edges.target[e];
+                double next = cost[v] + weight[e];
+                if (seen[u] != stamp || next < cost[u]) {
+                    state.reach(cost, parent, seen, u, next, v);
+                    heap.push(next, u);
+                }
+                if (otherSeen[u] == stamp && cost[u] + otherCost[u] < best) {
+                    best = cost[u] + otherCost[u];
+                    meeting = u;
+                }
+            }
+        }
+        return meeting < 0 ? null : state.joinedPath(source, meeting);
+    }
+
+    // Parallel traversals are merged when the graph is built, so a node pair has exactly one edge
+    private int findEdge(RoadGraph.Csr edges, int from, int to) {
+        for (int e = edges.start[from]; e < edges.start[from + 1]; e++) {
+            if (edges.target[e] == to) {
+                return e;
+            }
+        }
+        throw new IllegalStateException("Route uses a missing edge");
+    }
+
+    private static final class SearchState {
+        private double[] forwardCost = new double[0];
+        private double[] backwardCost = new double[0];
+        private int[] forwardParent = new int[0];
+        private int[] backwardParent = new int[0];
+        private int[] forwardSeen = new int[0];
+        private int[] backwardSeen = new int[0];
+        private int[] forwardDone = new int[0];
+        private int[] backwardDone = new int[0];
+        private final NodeHeap forwardHeap = new NodeHeap();
+        private final NodeHeap backwardHeap = new NodeHeap();
+        private int stamp;
+        private int settled;
+
+        private void prepare(int nodeCount) {
+            if (forwardCost.length < nodeCount || stamp == Integer.MAX_VALUE) {
+                forwardCost = new double[nodeCount];
+                backwardCost = new double[nodeCount];
+                forwardParent = new int[nodeCount];
+                backwardParent = new int[nodeCount];
+                forwardSeen = new int[nodeCount];
+                backwardSeen = new int[nodeCount];
+                forwardDone = new int[nodeCount];
+                backwardDone = new int[nodeCount];
+                stamp = 0;
+            }
+            stamp++;
+            settled = 0;
+            forwardHeap.clear();
+            backwardHeap.clear();
+        }
+
+        private void reach(double[] cost, int[] parent, int[] seen, int node, double value, int from) {
+            cost[node] = value;
+            parent[node] = from;
+            seen[node] = stamp;
+        }
+
+        private int[] forwardPath(int source, int target) {
+            int length = 1;
+            for (int v = target; v != source; v = forwardParent[v]) {
+                length++;
+            }
+            int[] path = new int[length];
+            for (int v = target, i = length - 1; i >= 0; v = forwardParent[v], i--) {
+                path[i] = v;
+            }
+            return path;
+        }
+
+        // Forward parents lead from the meeting node back to the source, backward parents on to the target
+        private int[] joinedPath(int source, int meeting) {
+            int[] head = forwardPath(source, meeting);
+            int tail = 0;
+            for (int v = backwardParent[meeting]; v != -1; v = backwardParent[v]) {
+                tail++;
+            }
+            int[] path = Arrays.copyOf(head, head.length + tail);
+            int i = head.length;
+            for (int v = backwardParent[meeting]; v != -1; v = backwardParent[v]) {
+                path[i++] = v;
+            }
+            return path;
+        }
+    }
+
+    // Binary min-heap of (cost, node) pairs in parallel primitive arrays; stale entries are skipped on pop
+    private static final class NodeHeap {
+        private double[] keys = new double[64];
+        private int[] nodes = new int[64];
+        private int size;
+
+        private void clear() {
+            size = 0;
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private double peekKey() {
+            return keys[0];
+        }
+
+        private void push(double key, int node) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size << 1);
+                nodes = Arrays.copyOf(nodes, size << 1);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+
+        private int pop() {
+            int top = nodes[0];
+            double key = keys[--size];
+            int node = nodes[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+            return top;
+        }
+    }
+}
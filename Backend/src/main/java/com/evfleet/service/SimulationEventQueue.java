@@ -0,0 +1,145 @@
+package com.evfleet.service;
+
+import java.util.Arrays;
+
+// Min-heap of (due time, vehicle slot) pairs in primitive arrays with at most one live event per slot.
+// Rescheduling or cancelling leaves the old heap entry behind; it is recognised as stale and skipped when polled.
+final class SimulationEventQueue {
+    private static final long NONE = Long.MIN_VALUE;
+
+    private long[] due = new long[64];
+    private int[] slots = new int[64];
+    private int size;
+    private long[] scheduled = new long[0];
+    private int live;
+
+    void schedule(int slot, long dueAt) {
+        ensureSlot(slot);
+        if (scheduled[slot] == NONE) {
+            live++;
+        }
+        scheduled[slot] = dueAt;
+        push(dueAt, slot);
+        // Frequent speed changes would otherwise grow the heap with stale entries
+        if (size > 2 * live + 64) {
+            compact();
+        }
+    }
+
+    void cancel(int slot) {
+        if (slot < scheduled.length && scheduled[slot] != NONE) {
+            scheduled[slot] = NONE;
+            live--;
+        }
+    }
+
+    // Due time of the slot's pending event, or Long.MIN_VALUE if none
+    long scheduledAt(int slot) {
+        return slot < scheduled.length ? scheduled[slot] : NONE;
+    }
+
+    // Removes and returns the earliest slot due at or before now, or -1 if nothing is due yet
+    int pollDue(long now) {
+        while (size > 0) {
+            long dueAt = due[0];
+            int slot = slots[0];
+            if (scheduled[slot] != dueAt) {
+                pop();
+                continue;
+            }
+            if (dueAt > now) {
+                return -1;
+            }
+            pop();
+            scheduled[slot] = NONE;
+            live--;
+            return slot;
+        }
+        return -1;
+    }
+
+    // Earliest live due time, or Long.MAX_VALUE when the queue is empty
+    long peekDue() {
+        while (size > 0 && scheduled[slots[0]] != due[0]) {
+            pop();
+        }
+        return size > 0 ? due[0] : Long.MAX_VALUE;
+    }
+
+    int size() {
+        return live;
+    }
+
+    void clear() {
+        size = 0;
+        live = 0;
+        Arrays.fill(scheduled, NONE);
+    }
+
+    private void ensureSlot(int slot) {
+        if (slot >= scheduled.length) {
+            int old = scheduled.length;
+            scheduled = Arrays.copyOf(scheduled, Math.max(slot + 1, old * 2));
+            Arrays.fill(scheduled, old, scheduled.length, NONE);
+        }
+    }
+
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (scheduled[slots[i]] == due[i]) {
+                due[kept] = due[i];
+                slots[kept] = slots[i];
+                kept++;
+            }
+        }
+        size = kept;
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i, due[i], slots[i]);
+        }
+    }
+
+    private void push(long dueAt, int slot) {
+        if (size == due.length) {
+            due = Arrays.copyOf(due, size << 1);
+            slots = Arrays.copyOf(slots, size << 1);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (due[parent] <= dueAt) {
+                break;
+            }
+            due[i] = due[parent];
+            slots[i] = slots[parent];
+            i = parent;
+        }
+        due[i] = dueAt;
+        slots[i] = slot;
+    }
+
+    private void pop() {
+        size--;
+        if (size > 0) {
+            siftDown(0, due[size], slots[size]);
+        }
+    }
+
+    private void siftDown(int i, long dueAt, int slot) {
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && due[child + 1] < due[child]) {
+                child++;
+            }
+            if (dueAt <= due[child]) {
+                break;
+            }
+            due[i] = due[child];
+            slots[i] = slots[child];
+            i = child;
+        }
+        due[i] = dueAt;
+        slots[i] = slot;
+    }
+}
@@ -1,70 +1,282 @@
 package com.evfleet.service;
 
+import com.evfleet.dto.ChangeSetDTO;
 import com.evfleet.dto.SimulationDataDTO;
 import com.evfleet.dto.SimulationTripDTO;
 import com.evfleet.dto.VehicleDTO;
+import com.evfleet.dto.VehicleImportResultDTO;
+import com.evfleet.entity.Tombstone;
 import com.evfleet.entity.Vehicle;
 import com.evfleet.repository.VehicleRepository;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class SimulationService {
     private static final Logger logger = LoggerFactory.getLogger(SimulationService.class);
     private static final String SIMULATION_TOPIC = "/topic/simulation/";
+    private static final long MIN_EVENT_INTERVAL_MS = 100;
+    private static final long CATCH_UP_LIMIT_MS = 5000;
+    private static final long CHARGING_RECHECK_MS = 5000;
+    // Shard of a node without a lease: no vehicles
+    private static final ConsistentHashRing NO_RING = new ConsistentHashRing(Collections.emptyList(), 1);
     private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     private final Map<String, List<SimulationTripDTO>> vehicleTrips = new ConcurrentHashMap<>();
-    private final Map<String, Integer> currentTripIndex = new ConcurrentHashMap<>();
-    private final Map<String, Integer> currentPathIndex = new ConcurrentHashMap<>();
-    private final Map<String, LocalDateTime> lastUpdateTime = new ConcurrentHashMap<>();
     private final Map<String, Double> simulationSpeeds = new ConcurrentHashMap<>();
 
+    // Per-vehicle progress; a vehicle's slot indexes progressBySlot and identifies it in the event queue
+    private final Map<String, VehicleProgress> progressByVin = new ConcurrentHashMap<>();
+    private final List<VehicleProgress> progressBySlot = new ArrayList<>();
+    private final SimulationEventQueue eventQueue = new SimulationEventQueue();
+    private final Object eventLock = new Object();
+    // Scratch buffer for {latitude, longitude}; only used while holding eventLock
+    private final double[] position = new double[2];
+
     private final VehicleRepository vehicleRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final ObjectMapper objectMapper;
-    private final VehicleService vehicleService;
-    private Map<String, Map<String, Object>> simulationData;
+    private final VehicleImportService vehicleImportService;
+    private final EnergyConsumptionModel energyConsumptionModel;
+    private final RoadGraph roadGraph;
+    private final NodeCoordinateTable nodeCoordinateTable;
+    private final FleetStateStore fleetStateStore;
+    private final GeofenceService geofenceService;
+    private final AlertRuleEngine alertRuleEngine;
+    private final SimulationShardService shardService;
+    private final ChangeLogService changeLogService;
+    private final double baseSpeedKmh;
+    private final Timer tickTimer;
+    private final DistributionSummary tickVehicles;
+    private final Timer rosterTimer;
+    private final Counter progressHits;
+    private final Counter progressMisses;
+    private volatile Map<String, Map<String, Object>> simulationData = Collections.emptyMap();
+    // Change log cursor of the last roster sync; 0 until the first one
+    private volatile long rosterCursor;
+
+    // Shard this node simulates, guarded by eventLock. A null ring means the whole fleet. Vehicles that moved here
+    // from a node still in the ring wait for its handoff until handoffDeadline; handoffs taken wait in resumeFrom
+    // for the roster sync that starts their vehicles.
+    private ConsistentHashRing appliedRing;
+    private ConsistentHashRing handoffFrom;
+    private long handoffDeadline;
+    private int awaitingHandoff;
+    private final Map<String, SimulationShardService.Handoff> resumeFrom = new HashMap<>();
+    // Lease the applied ring was taken under; a different epoch means the lease lapsed in between
+    private volatile long appliedLeaseEpoch;
+    private volatile boolean leaving;
+
+    // Fleet bootstrap runs after startup on its own thread; these describe how far it got
+    private volatile BootstrapPhase bootstrapPhase = BootstrapPhase.PENDING;
+    private volatile LocalDateTime bootstrapStartedAt;
+    private volatile LocalDateTime bootstrapFinishedAt;
+    private volatile long tripsLoadMillis;
+    private volatile long fleetRegistrationMillis;
+    private volatile VehicleImportResultDTO fleetRegistration;
+    private volatile String bootstrapError;
+    private volatile int bootstrapAttempts;
+    private volatile LocalDateTime bootstrapRetryAt;
+    private final long bootstrapRetryInitialMs;
+    private final long bootstrapRetryMaxMs;
+
+    public enum BootstrapPhase {
+        PENDING,
+        LOADING_TRIPS,
+        REGISTERING_FLEET,
+        READY,
+        FAILED
+    }
 
     @Autowired
     public SimulationService(VehicleRepository vehicleRepository, 
                            SimpMessagingTemplate messagingTemplate,
                            ObjectMapper objectMapper,
-                           VehicleService vehicleService) {
+                           VehicleImportService vehicleImportService,
+                           EnergyConsumptionModel energyConsumptionModel,
+                           RoadGraph roadGraph,
+                           NodeCoordinateTable nodeCoordinateTable,
+                           FleetStateStore fleetStateStore,
+                           GeofenceService geofenceService,
+                           AlertRuleEngine alertRuleEngine,
+                           SimulationShardService shardService,
+                           ChangeLogService changeLogService,
+                           MeterRegistry meterRegistry,
+                           @Value("${simulation.base-speed-kmh:40}") double baseSpeedKmh,
+                           @Value("${simulation.bootstrap.retry-initial-ms:5000}") long bootstrapRetryInitialMs,
+                           @Value("${simulation.bootstrap.retry-max-ms:300000}") long bootstrapRetryMaxMs) {
         this.vehicleRepository = vehicleRepository;
         this.messagingTemplate = messagingTemplate;
         this.objectMapper = objectMapper;
-        this.vehicleService = vehicleService;
-        loadSimulationData();
+        this.vehicleImportService = vehicleImportService;
+        this.energyConsumptionModel = energyConsumptionModel;
+        this.roadGraph = roadGraph;
+        this.nodeCoordinateTable = nodeCoordinateTable;
+        this.fleetStateStore = fleetStateStore;
+        this.geofenceService = geofenceService;
+        this.alertRuleEngine = alertRuleEngine;
+        this.shardService = shardService;
+        this.changeLogService = changeLogService;
+        this.baseSpeedKmh = baseSpeedKmh;
+        this.bootstrapRetryInitialMs = Math.max(1, bootstrapRetryInitialMs);
+        this.bootstrapRetryMaxMs = Math.max(this.bootstrapRetryInitialMs, bootstrapRetryMaxMs);
+        this.tickTimer = Timer.builder("evfleet.simulation.tick")
+            .description("Event poll: advancing due vehicles, live state, geofence and alert evaluation, broadcasts")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.tickVehicles = DistributionSummary.builder("evfleet.simulation.tick.vehicles")
+            .description("Vehicles advanced per event poll")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.rosterTimer = Timer.builder("evfleet.simulation.roster.refresh").register(meterRegistry);
+        // Simulation data requests answered from tracked progress instead of the vehicle row
+        this.progressHits = Counter.builder("cache.gets")
+            .tags("cache", "simulation-progress", "result", "hit").register(meterRegistry);
+        this.progressMisses = Counter.builder("cache.gets")
+            .tags("cache", "simulation-progress", "result", "miss").register(meterRegistry);
+        Gauge.builder("evfleet.simulation.tracked.vehicles", this, SimulationService::trackedVehicles)
+            .register(meterRegistry);
+    }
+
+    // Keeps trip parsing and fleet registration off the startup path; readiness is reported by getBootstrapStatus
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBootstrap() {
+        Thread thread = new Thread(this::bootstrap, "simulation-bootstrap");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // A failed attempt, e.g. because the database was not reachable yet, is retried with exponential backoff until
+    // one succeeds, so readiness recovers without a restart
+    private void bootstrap() {
+        long backoffMs = bootstrapRetryInitialMs;
+        while (!attemptBootstrap()) {
+            bootstrapRetryAt = LocalDateTime.now().plus(Duration.ofMillis(backoffMs));
+            logger.warn("Retrying simulation bootstrap in {} ms (attempt {} failed)", backoffMs, bootstrapAttempts);
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoffMs = Math.min(backoffMs * 2, bootstrapRetryMaxMs);
+        }
+        bootstrapRetryAt = null;
+    }
+
+    private boolean attemptBootstrap() {
+        bootstrapAttempts++;
+        bootstrapStartedAt = LocalDateTime.now();
+        bootstrapFinishedAt = null;
+        try {
+            // Trips only come from the classpath, so they are not parsed again once loaded
+            if (simulationData.isEmpty()) {
+                bootstrapPhase = BootstrapPhase.LOADING_TRIPS;
+                long start = System.currentTimeMillis();
+                loadSimulationData();
+                tripsLoadMillis = System.currentTimeMillis() - start;
+            }
+
+            bootstrapPhase = BootstrapPhase.REGISTERING_FLEET;
+            long start = System.currentTimeMillis();
+            registerVehiclesFromSimulation();
+            joinShard();
+            syncRoster(true);
+            fleetRegistrationMillis = System.currentTimeMillis() - start;
+
+            bootstrapError = null;
+            bootstrapPhase = BootstrapPhase.READY;
+            logger.info("Simulation ready: trips loaded in {} ms, fleet registered and tracked in {} ms",
+                tripsLoadMillis, fleetRegistrationMillis);
+            return true;
+        } catch (Exception e) {
+            bootstrapError = e.getMessage();
+            bootstrapPhase = BootstrapPhase.FAILED;
+            logger.error("Simulation bootstrap failed: {}", e.getMessage(), e);
+            return false;
+        } finally {
+            bootstrapFinishedAt = LocalDateTime.now();
+        }
+    }
+
+    private int trackedVehicles() {
+        synchronized (eventLock) {
+            return eventQueue.size();
+        }
+    }
+
+    public boolean isReady() {
+        return bootstrapPhase == BootstrapPhase.READY;
+    }
+
+    public Map<String, Object> getBootstrapStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("phase", bootstrapPhase);
+        status.put("ready", isReady());
+        status.put("startedAt", bootstrapStartedAt);
+        status.put("finishedAt", bootstrapFinishedAt);
+        status.put("tripsLoadMs", tripsLoadMillis);
+        status.put("fleetRegistrationMs", fleetRegistrationMillis);
+        status.put("vehicleTypes", vehicleTrips.size());
+        VehicleImportResultDTO registration = fleetRegistration;
+        if (registration != null) {
+            status.put("vehiclesRegistered", registration.getImported());
+            status.put("vehiclesAlreadyPresent", registration.getDuplicates());
+            status.put("vehiclesFailed", registration.getFailed());
+        }
+        status.put("trackedVehicles", trackedVehicles());
+        status.put("shardNode", shardService.isEnabled() ? shardService.getNodeId() : null);
+        status.put("error", bootstrapError);
+        status.put("attempts", bootstrapAttempts);
+        status.put("nextRetryAt", bootstrapRetryAt);
+        return status;
     }
 
     private void loadSimulationData() {
         try {
             ClassPathResource resource = new ClassPathResource("ev_simulation_logs.json");
-            simulationData = objectMapper.readValue(resource.getInputStream(), Map.class);
-            
-            // Initialize trips for each vehicle type
-            for (Map.Entry<String, Map<String, Object>> entry : simulationData.entrySet()) {
+            Map<String, Map<String, Object>> rawData = objectMapper.readValue(resource.getInputStream(), Map.class);
+
+            // The log file's type names are double-encoded UTF-8; repair them so they match vehicle models
+            Map<String, Map<String, Object>> loadedData = new LinkedHashMap<>();
+            rawData.forEach((type, data) -> loadedData.put(normalizeVehicleType(type), data));
+
+            // Trips are parsed into local lists and only published once complete
+            Map<String, List<SimulationTripDTO>> loadedTrips = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, Object>> entry : loadedData.entrySet()) {
                 String vehicleType = entry.getKey();
                 Map<String, Object> vehicleData = entry.getValue();
                 
                 // Initialize trips list for this vehicle type
                 List<SimulationTripDTO> trips = new ArrayList<>();
-                vehicleTrips.put(vehicleType, trips);
+                loadedTrips.put(vehicleType, trips);
                 
                 // Load trips from the simulation data
                 if (vehicleData.containsKey("trips")) {
@@ -100,59 +312,51 @@ public class SimulationService {
                         trips.add(tripDTO);
                     }
                 }
-                
-                // Initialize tracking indices
-                currentTripIndex.put(vehicleType, 0);
-                currentPathIndex.put(vehicleType, 0);
-                lastUpdateTime.put(vehicleType, LocalDateTime.now());
-                simulationSpeeds.put(vehicleType, 1.0);
             }
             
             // Log the number of trips loaded for each vehicle type
-            vehicleTrips.forEach((type, trips) -> 
+            loadedTrips.forEach((type, trips) ->
                 logger.info("Loaded {} trips for vehicle type: {}", trips.size(), type));
-            
-            registerVehiclesFromSimulation();
+
+            energyConsumptionModel.fit(loadedTrips);
+            roadGraph.build(loadedTrips);
+            nodeCoordinateTable.build(roadGraph.snapshot(), loadedTrips);
+            simulationData = loadedData;
+            vehicleTrips.putAll(loadedTrips);
         } catch (IOException e) {
             logger.error("Failed to load simulation data: {}", e.getMessage());
             throw new RuntimeException("Failed to load simulation data", e);
         }
     }
 
+    static String normalizeVehicleType(String vehicleType) {
+        if (vehicleType.indexOf('\u00C3') < 0) {
+            return vehicleType;
+        }
+        return new String(vehicleType.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+    }
+
     private String determineVehicleTypeFromTrip(SimulationTripDTO trip) {
-        // Determine vehicle type based on energy consumption characteristics
+        // Determine vehicle type from the fitted consumption of each type
         double energyPerKm = trip.getEnergyConsumedWh() / trip.getDistanceKm();
-        
-        if (energyPerKm > 40) {
-            return "SUV électrique";
-        } else if (energyPerKm > 30) {
-            return "Véhicule électrique premium";
-        } else if (energyPerKm > 20) {
-            return "Véhicule électrique compact";
-        } else {
-            return "Véhicule électrique urbain";
-        }
+        String vehicleType = energyConsumptionModel.classify(energyPerKm);
+        return vehicleType != null ? vehicleType : "Véhicule électrique urbain";
     }
 
-    @Transactional
-    public void registerVehiclesFromSimulation() {
+    // Idempotent: VINs that are already registered are counted as present and left alone
+    public VehicleImportResultDTO registerVehiclesFromSimulation() {
+        if (simulationData.isEmpty()) {
+            throw new IllegalStateException("Simulation data is not loaded yet");
+        }
+        List<VehicleDTO> fleet = new ArrayList<>();
         int vinCounter = 1;
         for (Map.Entry<String, Map<String, Object>> entry : simulationData.entrySet()) {
             String vehicleType = entry.getKey();
             Map<String, Object> vehicleData = entry.getValue();
             double initialSoc = (double) vehicleData.get("initial_soc");
 
-            String vin = "VIN" + String.format("%03d", vinCounter);
-            
-            // Skip if vehicle already exists
-            if (vehicleRepository.existsByVin(vin)) {
-                logger.info("Vehicle with VIN {} already exists, skipping registration", vin);
-                vinCounter++;
-                continue;
-            }
-
             VehicleDTO vehicleDTO = new VehicleDTO();
-            vehicleDTO.setVin(vin);
+            vehicleDTO.setVin("VIN" + String.format("%03d", vinCounter));
             vehicleDTO.setName(vehicleType + " " + String.format("%03d", vinCounter));
             vehicleDTO.setType(vehicleType);
             vehicleDTO.setMake("Tesla"); // Default make, can be customized
@@ -167,44 +371,325 @@ public class SimulationService {
             vehicleDTO.setLongitude(-0.1278);
             vehicleDTO.setOdometer(0.0);
             vehicleDTO.setActive(true);
+            fleet.add(vehicleDTO);
+            vinCounter++;
+        }
 
-            try {
-                vehicleService.registerVehicle(vehicleDTO);
-                
-                // Initialize simulation tracking maps for this vehicle type
-                if (!vehicleTrips.containsKey(vehicleType)) {
-                    vehicleTrips.put(vehicleType, new ArrayList<>());
-                    currentTripIndex.put(vehicleType, 0);
-                    currentPathIndex.put(vehicleType, 0);
-                    lastUpdateTime.put(vehicleType, LocalDateTime.now());
-                    simulationSpeeds.put(vin, 1.0); // Default speed multiplier
+        VehicleImportResultDTO result = vehicleImportService.registerAll(fleet);
+        if (result.getFailed() > 0) {
+            logger.warn("Simulation fleet registration rejected {} vehicles: {}", result.getFailed(), result.getErrors());
+        }
+        logger.info("Simulation fleet: {} vehicles registered, {} already present, {} failed",
+            result.getImported(), result.getDuplicates(), result.getFailed());
+        fleetRegistration = result;
+        return result;
+    }
+
+    // Picks up vehicles added, removed or edited since the last refresh; movement itself is event driven
+    @Scheduled(fixedDelayString = "${simulation.roster-refresh-ms:30000}")
+    public void refreshRoster() {
+        // The bootstrap does the first sync itself once the trips are in
+        if (isReady()) {
+            rosterTimer.record(() -> syncRoster(false));
+        }
+    }
+
+    // A full sync reads every vehicle row, which shard membership changes need; otherwise only the rows changed since
+    // the last sync and the vehicles deleted since are read
+    private void syncRoster(boolean full) {
+        ChangeSetDTO<Vehicle> changes = changeLogService.changesSince(full ? null : rosterCursor,
+            Tombstone.EntityType.VEHICLE, vehicleRepository::findByUpdatedAtAfter, vehicleRepository::findAll);
+        long now = System.currentTimeMillis();
+        Set<String> present = new HashSet<>();
+        List<LiveUpdate> joined = new ArrayList<>();
+        int waiting = 0;
+
+        synchronized (eventLock) {
+            if (leaving) {
+                return;
+            }
+            for (Vehicle vehicle : changes.getChanged()) {
+                String vehicleType = determineVehicleType(vehicle);
+                // Vehicles of other shards count as absent; the ones this node had were handed off already
+                if (vehicleTrips.getOrDefault(vehicleType, Collections.emptyList()).isEmpty()
+                        || !owns(vehicle.getVin())) {
+                    stopTracking(progressByVin.get(vehicle.getVin()));
+                    continue;
+                }
+                present.add(vehicle.getVin());
+                VehicleProgress progress = progressByVin.get(vehicle.getVin());
+                if (progress != null && progress.active) {
+                    resumeFrom.remove(vehicle.getVin());
+                    boolean retyped = !vehicleType.equals(progress.vehicleType);
+                    if (retyped) {
+                        // The new type's trips start from the beginning; what was driven stays on the odometer
+                        double driven = distanceIntoTrip(progress, progress.pathIndex, segmentFraction(progress, now));
+                        progress.odometer += driven;
+                        progress.soc = socAt(progress, driven);
+                    }
+                    progress.refresh(vehicle, vehicleType);
+                    if (retyped) {
+                        progress.socKm = distanceIntoTrip(progress, progress.pathIndex, 0.0);
+                    }
+                } else {
+                    progress = startTracking(vehicle, vehicleType, now);
+                    if (progress == null) {
+                        waiting++;
+                        continue;
+                    }
+                    joined.add(recordLiveState(progress, buildSimulationData(progress, now), now));
+                }
+            }
+            if (changes.isFull()) {
+                for (VehicleProgress progress : progressBySlot) {
+                    if (!present.contains(progress.vin)) {
+                        stopTracking(progress);
+                    }
+                }
+                awaitingHandoff = waiting;
+            } else {
+                Set<Long> deleted = new HashSet<>(changes.getDeleted());
+                for (VehicleProgress progress : progressBySlot) {
+                    if (deleted.contains(progress.vehicleId)) {
+                        stopTracking(progress);
+                    }
                 }
-                
-                logger.info("Successfully registered vehicle with VIN {}", vin);
-            } catch (IllegalArgumentException e) {
-                logger.warn("Failed to register vehicle with VIN {}: {}", vin, e.getMessage());
             }
-            
-            vinCounter++;
         }
+        rosterCursor = changes.getCursor();
+
+        joined.forEach(this::publish);
     }
 
-    @Scheduled(fixedRate = 5000) // Update every 5 seconds
-    public void generateAndBroadcastSimulationData() {
-        List<Vehicle> vehicles = vehicleRepository.findAll();
-        for (Vehicle vehicle : vehicles) {
-            String vehicleType = determineVehicleType(vehicle);
-            if (vehicleTrips.containsKey(vehicleType)) {
-                SimulationDataDTO simulationData = generateSimulationData(vehicle, vehicleType);
-                broadcastSimulationData(vehicle.getVin(), simulationData);
+    // Under eventLock
+    private void stopTracking(VehicleProgress progress) {
+        if (progress != null && progress.active) {
+            progress.active = false;
+            eventQueue.cancel(progress.slot);
+        }
+    }
+
+    // Applies shard membership changes: vehicles now owned by another node are handed off with their trip progress,
+    // and vehicles now owned here start once their handoff is in, or once their previous owner has had its chance
+    @Scheduled(fixedDelayString = "${simulation.shard.heartbeat-ms:2000}")
+    public void rebalanceShard() {
+        if (!shardService.isEnabled() || !isReady() || leaving) {
+            return;
+        }
+        long leaseEpoch = shardService.leaseEpoch();
+        if (leaseEpoch != appliedLeaseEpoch) {
+            fenceShard();
+        }
+        // Empty without a lease, which releases whatever the event poll has not fenced yet
+        ConsistentHashRing ring = shardService.ring();
+        boolean resync;
+        boolean waited;
+        synchronized (eventLock) {
+            resync = ring != appliedRing;
+            waited = awaitingHandoff > 0 && System.currentTimeMillis() >= handoffDeadline;
+        }
+        if (resync) {
+            handOff(ring, false);
+            appliedLeaseEpoch = leaseEpoch;
+        }
+        if (takeHandoffs() || resync || waited) {
+            rosterTimer.record(() -> syncRoster(true));
+        }
+        shardService.reportTracked(trackedVehicles());
+    }
+
+    // A clean leave: the vehicles go to the nodes that own them without this one before its heartbeat is removed
+    @PreDestroy
+    public void leaveShard() {
+        leaving = true;
+        ConsistentHashRing ring;
+        synchronized (eventLock) {
+            ring = appliedRing;
+        }
+        if (ring != null && shardService.isEnabled()) {
+            handOff(ring.without(shardService.getNodeId()), true);
+        }
+    }
+
+    // The lease ran out before a heartbeat could renew it: the other nodes may take these vehicles over at any moment,
+    // or already have, so they stop here at once, without the database round trips a handoff would need. The next
+    // rebalance rejoins with whatever lease the heartbeat has got by then.
+    private void fenceShard() {
+        int stopped = 0;
+        synchronized (eventLock) {
+            if (appliedRing == null || appliedRing.nodes().isEmpty()) {
+                return;
+            }
+            for (VehicleProgress progress : progressBySlot) {
+                if (progress.active) {
+                    progress.active = false;
+                    eventQueue.cancel(progress.slot);
+                    fleetStateStore.release(progress.stateSlot);
+                    stopped++;
+                }
+            }
+            appliedRing = NO_RING;
+            handoffFrom = null;
+            resumeFrom.clear();
+            awaitingHandoff = 0;
+        }
+        logger.warn("Simulation shard lease of node {} expired; stopped simulating {} vehicles",
+            shardService.getNodeId(), stopped);
+    }
+
+    private void joinShard() {
+        ConsistentHashRing ring = shardService.ring();
+        appliedLeaseEpoch = shardService.leaseEpoch();
+        synchronized (eventLock) {
+            appliedRing = ring;
+            // Until they see this node, the others still simulate the vehicles it takes over
+            handoffFrom = ring != null ? ring.without(shardService.getNodeId()) : null;
+            handoffDeadline = System.currentTimeMillis() + shardService.getNodeTimeoutMs();
+        }
+        takeHandoffs();
+    }
+
+    private void handOff(ConsistentHashRing ring, boolean all) {
+        List<SimulationShardService.Handoff> released = new ArrayList<>();
+        synchronized (eventLock) {
+            for (VehicleProgress progress : progressBySlot) {
+                if (progress.active && (all || !shardService.getNodeId().equals(ring.owner(progress.vin)))) {
+                    progress.active = false;
+                    eventQueue.cancel(progress.slot);
+                    released.add(new SimulationShardService.Handoff(progress.vin, ring.owner(progress.vin),
+                        progress.tripIndex, progress.pathIndex, simulationSpeeds.get(progress.vin)));
+                }
+            }
+            // After a lost lease this node rejoins, and the vehicles it gets back may still be with other nodes
+            handoffFrom = appliedRing.nodes().isEmpty() ? ring.without(shardService.getNodeId()) : appliedRing;
+            appliedRing = ring;
+            handoffDeadline = System.currentTimeMillis() + shardService.getNodeTimeoutMs();
+        }
+        if (released.isEmpty()) {
+            return;
+        }
+        try {
+            // New owners take the live columns from the vehicle rows, so those are written before the handoffs;
+            // after that this node's copies are stale and must not reach the rows again
+            fleetStateStore.flush();
+            for (SimulationShardService.Handoff handoff : released) {
+                fleetStateStore.release(progressByVin.get(handoff.vin()).stateSlot);
+            }
+            shardService.handOff(released);
+            logger.info("Handed off {} vehicles to other simulation nodes", released.size());
+        } catch (Exception e) {
+            // The new owners start these vehicles from their rows once the handoff deadline passes
+            logger.error("Failed to record handoff of {} vehicles: {}", released.size(), e.getMessage());
+        }
+    }
+
+    private boolean takeHandoffs() {
+        List<SimulationShardService.Handoff> taken;
+        try {
+            taken = shardService.takeHandoffs(vin -> {
+                synchronized (eventLock) {
+                    return appliedRing != null && owns(vin);
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Failed to read simulation handoffs: {}", e.getMessage());
+            return false;
+        }
+        if (taken.isEmpty()) {
+            return false;
+        }
+        synchronized (eventLock) {
+            taken.forEach(handoff -> resumeFrom.put(handoff.vin(), handoff));
+        }
+        return true;
+    }
+
+    // Under eventLock
+    private boolean owns(String vin) {
+        return appliedRing == null || shardService.getNodeId().equals(appliedRing.owner(vin));
+    }
+
+    // Under eventLock. Null while the vehicle's previous owner, still in the ring, has yet to hand it off.
+    private VehicleProgress startTracking(Vehicle vehicle, String vehicleType, long now) {
+        SimulationShardService.Handoff handoff = resumeFrom.remove(vehicle.getVin());
+        if (handoff == null && appliedRing != null && handoffFrom != null && now < handoffDeadline) {
+            String previousOwner = handoffFrom.owner(vehicle.getVin());
+            if (previousOwner != null && !previousOwner.equals(shardService.getNodeId())
+                    && appliedRing.contains(previousOwner)) {
+                return null;
             }
         }
+        return track(vehicle, vehicleType, now, handoff);
+    }
+
+    // Advances only the vehicles whose next path node is due; an idle poll is a single heap peek
+    @Scheduled(fixedDelayString = "${simulation.event-poll-ms:200}")
+    public void processDueEvents() {
+        long now = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        List<LiveUpdate> updates = new ArrayList<>();
+
+        if (shardService.isEnabled()
+                && (!shardService.holdsLease() || shardService.leaseEpoch() != appliedLeaseEpoch)) {
+            fenceShard();
+        }
+
+        synchronized (eventLock) {
+            if (eventQueue.peekDue() > now) {
+                tickTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                tickVehicles.record(0);
+                return;
+            }
+            int slot;
+            while ((slot = eventQueue.pollDue(now)) >= 0) {
+                VehicleProgress progress = progressBySlot.get(slot);
+                if (holdWhileCharging(progress, now)) {
+                    continue;
+                }
+                long dueAt = progress.nextEventAt;
+                advance(progress);
+                // Replay short delays exactly, but don't burst through a long stall node by node
+                scheduleNext(progress, dueAt < now - CATCH_UP_LIMIT_MS ? now : dueAt);
+                updates.add(recordLiveState(progress, buildSimulationData(progress, progress.lastEventAt),
+                    progress.lastEventAt));
+            }
+        }
+
+        updates.forEach(this::publish);
+        tickTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        tickVehicles.record(updates.size());
     }
 
     public SimulationDataDTO getCurrentSimulationData(String vin) {
+        // Tracked vehicles are answered from memory; only untracked ones need their row
+        synchronized (eventLock) {
+            VehicleProgress progress = progressByVin.get(vin);
+            if (progress != null && progress.active) {
+                progressHits.increment();
+                return buildSimulationData(progress, System.currentTimeMillis());
+            }
+        }
+        progressMisses.increment();
+
         Vehicle vehicle = vehicleRepository.findByVin(vin)
             .orElseThrow(() -> new RuntimeException("Vehicle not found: " + vin));
-        return generateSimulationData(vehicle, determineVehicleType(vehicle));
+        String vehicleType = determineVehicleType(vehicle);
+        if (vehicleTrips.getOrDefault(vehicleType, Collections.emptyList()).isEmpty()) {
+            return staticSimulationData(vehicle);
+        }
+
+        long now = System.currentTimeMillis();
+        synchronized (eventLock) {
+            VehicleProgress progress = progressByVin.get(vin);
+            if (progress == null || !progress.active) {
+                // Another node's vehicle is answered from its row, which that node's live state flush keeps current
+                progress = owns(vin) && !leaving ? startTracking(vehicle, vehicleType, now) : null;
+                if (progress == null) {
+                    return staticSimulationData(vehicle);
+                }
+            }
+            return buildSimulationData(progress, now);
+        }
     }
 
     public List<SimulationTripDTO> getVehicleTrips(String vin, Integer limit) {
@@ -215,6 +700,10 @@ public class SimulationService {
         return limit != null ? trips.subList(0, Math.min(limit, trips.size())) : trips;
     }
 
+    public Map<String, List<SimulationTripDTO>> getTripsByType() {
+        return Collections.unmodifiableMap(vehicleTrips);
+    }
+
     public SimulationTripDTO getCurrentPosition(String vin) {
         Vehicle vehicle = vehicleRepository.findByVin(vin)
             .orElseThrow(() -> new RuntimeException("Vehicle not found: " + vin));
@@ -225,8 +714,7 @@ public class SimulationService {
             throw new RuntimeException("No trips found for vehicle: " + vin);
         }
 
-        int currentTripIdx = currentTripIndex.getOrDefault(vehicleType, 0);
-        SimulationTripDTO currentTrip = trips.get(currentTripIdx);
+        SimulationTripDTO currentTrip = trips.get(currentTripIndex(vin, trips.size()));
         
         // Create a copy of the current trip with updated timestamp
         SimulationTripDTO currentPosition = new SimulationTripDTO();
@@ -248,28 +736,13 @@ public class SimulationService {
             .orElseThrow(() -> new RuntimeException("Vehicle not found: " + vin));
         String vehicleType = determineVehicleType(vehicle);
         
-        // Initialize maps if they don't exist for this vehicle type
-        if (!vehicleTrips.containsKey(vehicleType)) {
-            vehicleTrips.put(vehicleType, new ArrayList<>());
-            currentTripIndex.put(vehicleType, 0);
-            currentPathIndex.put(vehicleType, 0);
-            lastUpdateTime.put(vehicleType, LocalDateTime.now());
-            simulationSpeeds.put(vin, 1.0);
-        }
-        
-        List<SimulationTripDTO> trips = vehicleTrips.get(vehicleType);
+        List<SimulationTripDTO> trips = vehicleTrips.getOrDefault(vehicleType, Collections.emptyList());
         if (trips.isEmpty()) {
             logger.info("No trips available for vehicle type: {}", vehicleType);
             return Collections.emptyList();
         }
         
-        int tripIndex = currentTripIndex.get(vehicleType);
-        if (tripIndex >= trips.size()) {
-            logger.warn("Trip index {} out of bounds for vehicle type: {}", tripIndex, vehicleType);
-            return Collections.emptyList();
-        }
-        
-        SimulationTripDTO currentTrip = trips.get(tripIndex);
+        SimulationTripDTO currentTrip = trips.get(currentTripIndex(vin, trips.size()));
         if (currentTrip.getPath() == null || currentTrip.getPath().length == 0) {
             logger.warn("No path available for current trip of vehicle type: {}", vehicleType);
             return Collections.emptyList();
@@ -301,10 +774,20 @@ public class SimulationService {
             typeStats.put("totalDistance", totalDistance);
             typeStats.put("totalEnergy", totalEnergy);
             typeStats.put("avgEnergyPerKm", totalEnergy / totalDistance);
+            int typeIndex = energyConsumptionModel.typeIndex(type);
+            if (typeIndex >= 0) {
+                typeStats.put("fittedEnergyPerKm", energyConsumptionModel.whPerKm(typeIndex));
+            }
             
             tripStats.put(type, typeStats);
         });
         stats.put("tripStatistics", tripStats);
+
+        synchronized (eventLock) {
+            stats.put("trackedVehicles", eventQueue.size());
+            stats.put("nextEventAt", eventQueue.size() > 0 ? eventQueue.peekDue() : null);
+        }
+        stats.put("shard", getShardStatus());
         
         return stats;
     }
@@ -312,94 +795,255 @@ public class SimulationService {
     public void setSimulationSpeed(String vin, Double multiplier) {
         Vehicle vehicle = vehicleRepository.findByVin(vin)
             .orElseThrow(() -> new RuntimeException("Vehicle not found: " + vin));
-        simulationSpeeds.put(vin, Math.max(0.1, Math.min(10.0, multiplier)));
+        double clamped = Math.max(0.1, Math.min(10.0, multiplier));
+
+        synchronized (eventLock) {
+            Double previous = simulationSpeeds.put(vin, clamped);
+            VehicleProgress progress = progressByVin.get(vin);
+            if (progress != null && progress.active) {
+                // Keep the part of the current segment already driven and cover the rest at the new speed
+                long now = System.currentTimeMillis();
+                double driven = segmentFraction(progress, now);
+                long remaining = Math.max(0, progress.nextEventAt - now);
+                progress.nextEventAt = now + Math.round(remaining * (previous != null ? previous : 1.0) / clamped);
+                // Re-anchor the segment start so interpolated positions continue from the same point
+                progress.lastEventAt = driven < 1.0
+                    ? now - Math.round(driven * (progress.nextEventAt - now) / (1.0 - driven))
+                    : now;
+                eventQueue.schedule(progress.slot, progress.nextEventAt);
+            }
+        }
     }
 
     public void resetSimulation() {
-        vehicleTrips.keySet().forEach(type -> {
-            currentTripIndex.put(type, 0);
-            currentPathIndex.put(type, 0);
-            lastUpdateTime.put(type, LocalDateTime.now());
-        });
-        simulationSpeeds.clear();
+        long now = System.currentTimeMillis();
+        synchronized (eventLock) {
+            simulationSpeeds.clear();
+            for (VehicleProgress progress : progressBySlot) {
+                if (progress.active) {
+                    progress.odometer += distanceIntoTrip(progress, progress.pathIndex, segmentFraction(progress, now));
+                }
+                progress.tripIndex = 0;
+                progress.pathIndex = 0;
+                if (progress.active) {
+                    scheduleNext(progress, now);
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getShardStatus() {
+        Map<String, Object> status = shardService.getStatus();
+        synchronized (eventLock) {
+            status.put("trackedVehicles", eventQueue.size());
+            status.put("awaitingHandoff", awaitingHandoff);
+            status.put("handoffsPending", resumeFrom.size());
+        }
+        return status;
+    }
+
+    // A handoff continues the trip where the previous node stopped
+    private VehicleProgress track(Vehicle vehicle, String vehicleType, long now, SimulationShardService.Handoff handoff) {
+        VehicleProgress progress = progressByVin.get(vehicle.getVin());
+        if (progress == null) {
+            progress = new VehicleProgress(vehicle.getVin(), progressBySlot.size());
+            progressBySlot.add(progress);
+            progressByVin.put(vehicle.getVin(), progress);
+        }
+        progress.refresh(vehicle, vehicleType);
+        if (handoff != null) {
+            List<SimulationTripDTO> trips = vehicleTrips.get(vehicleType);
+            if (handoff.tripIndex() < trips.size()
+                    && handoff.pathIndex() < trips.get(handoff.tripIndex()).getPath().length) {
+                progress.tripIndex = handoff.tripIndex();
+                progress.pathIndex = handoff.pathIndex();
+            }
+            if (handoff.speedMultiplier() != null) {
+                simulationSpeeds.put(vehicle.getVin(), handoff.speedMultiplier());
+            }
+        }
+        // The row holds what the vehicle's previous node last flushed, which may be newer than this node's copy
+        progress.stateSlot = appliedRing != null ? fleetStateStore.acquire(vehicle) : fleetStateStore.register(vehicle);
+        // The odometer counts what was driven on the current trip so far, which buildSimulationData adds back
+        double odometer = fleetStateStore.odometer(progress.stateSlot);
+        if (Double.isNaN(odometer)) {
+            odometer = vehicle.getOdometer() != null ? vehicle.getOdometer() : 0.0;
+        }
+        progress.odometer = odometer - distanceIntoTrip(progress, progress.pathIndex, 0.0);
+        // Driving resumes from the live SoC, which charging may have raised since this vehicle last moved
+        resumeSoc(progress, vehicle.getCurrentBatteryLevel());
+        progress.active = true;
+        scheduleNext(progress, now);
+        return progress;
     }
 
-    private SimulationDataDTO generateSimulationData(Vehicle vehicle, String vehicleType) {
+    // Under eventLock. The simulation is the writer for vehicles without real telemetry
+    private LiveUpdate recordLiveState(VehicleProgress progress, SimulationDataDTO data, long at) {
+        boolean recorded = fleetStateStore.write(progress.stateSlot, FleetStateStore.SOURCE_SIMULATION,
+            data.getLatitude(), data.getLongitude(), data.getSpeed(), data.getBatteryLevel(), data.getOdometer(), null, at);
+        return new LiveUpdate(data, progress.stateSlot, at, recorded);
+    }
+
+    // Outside eventLock. Geofences and alert rules only see samples the live store took
+    private void publish(LiveUpdate update) {
+        SimulationDataDTO data = update.data();
+        if (update.recorded()) {
+            geofenceService.evaluate(update.stateSlot(), data.getLatitude(), data.getLongitude(), update.at());
+            alertRuleEngine.evaluate(update.stateSlot(), data.getSpeed(), data.getBatteryLevel(), data.getOdometer(),
+                update.at());
+            data.setRecommendation(alertRuleEngine.recommendation(update.stateSlot()));
+        }
+        broadcastSimulationData(data.getVin(), data);
+    }
+
+    private void advance(VehicleProgress progress) {
+        List<SimulationTripDTO> trips = vehicleTrips.get(progress.vehicleType);
+        int lastNode = trips.get(progress.tripIndex).getPath().length - 1;
+        progress.pathIndex++;
+        double reachedKm = distanceIntoTrip(progress, Math.min(progress.pathIndex, lastNode), 0.0);
+        progress.soc = socAt(progress, reachedKm);
+        progress.socKm = reachedKm;
+        if (progress.pathIndex > lastNode) {
+            progress.odometer += reachedKm;
+            progress.tripIndex = (progress.tripIndex + 1) % trips.size();
+            progress.pathIndex = 0;
+            progress.socKm = 0.0;
+        }
+    }
+
+    // SoC at the given distance into the current trip: what the vehicle had at socKm less the fitted consumption since
+    private double socAt(VehicleProgress progress, double distanceKm) {
+        double km = Math.max(0.0, distanceKm - progress.socKm);
+        int typeIndex = energyConsumptionModel.typeIndex(progress.vehicleType);
+        SimulationTripDTO trip = vehicleTrips.get(progress.vehicleType).get(progress.tripIndex);
+        double energyUsedWh = typeIndex >= 0
+            ? energyConsumptionModel.whPerKm(typeIndex) * km
+            : trip.getEnergyConsumedWh() * km / trip.getDistanceKm();
+        return Math.max(0.0, progress.soc - energyUsedWh / (progress.batteryCapacityKwh * 1000.0) * 100.0);
+    }
+
+    // Takes the live store's SoC at the current path node; the row's, then the trip log's, where the store has none
+    private void resumeSoc(VehicleProgress progress, Double fallback) {
+        double soc = fleetStateStore.batteryLevel(progress.stateSlot);
+        if (Double.isNaN(soc)) {
+            soc = fallback != null ? fallback
+                : vehicleTrips.get(progress.vehicleType).get(progress.tripIndex).getSocPercentage();
+        }
+        progress.soc = soc;
+        progress.socKm = distanceIntoTrip(progress, progress.pathIndex, 0.0);
+    }
+
+    // Next node arrival: the current segment's length at the base speed scaled by the vehicle's multiplier
+    private void scheduleNext(VehicleProgress progress, long from) {
+        SimulationTripDTO trip = vehicleTrips.get(progress.vehicleType).get(progress.tripIndex);
+        double segmentKm = nodeCoordinateTable.hasGeometry(progress.vehicleType, progress.tripIndex)
+            ? nodeCoordinateTable.segmentKm(progress.vehicleType, progress.tripIndex, progress.pathIndex)
+            : trip.getDistanceKm() / Math.max(1, trip.getPath().length - 1);
+        double speedKmh = baseSpeedKmh * simulationSpeeds.getOrDefault(progress.vin, 1.0);
+        long interval = Math.max(MIN_EVENT_INTERVAL_MS, Math.round(segmentKm / speedKmh * 3_600_000));
+
+        progress.lastEventAt = from;
+        progress.nextEventAt = from + interval;
+        eventQueue.schedule(progress.slot, progress.nextEventAt);
+    }
+
+    // A vehicle plugged in at a charger stays on its node, and the charging engine owns its SoC, until the session
+    // ends; it then drives its current segment from the start
+    private boolean holdWhileCharging(VehicleProgress progress, long now) {
+        if (fleetStateStore.state(progress.stateSlot) == Vehicle.VehicleState.CHARGING) {
+            progress.parked = true;
+            progress.lastEventAt = now;
+            progress.nextEventAt = now + CHARGING_RECHECK_MS;
+            eventQueue.schedule(progress.slot, progress.nextEventAt);
+            resumeSoc(progress, null);
+            return true;
+        }
+        if (progress.parked) {
+            progress.parked = false;
+            resumeSoc(progress, null);
+            scheduleNext(progress, now);
+            return true;
+        }
+        return false;
+    }
+
+    // Distance from the start of the current trip, as buildSimulationData measures it
+    private double distanceIntoTrip(VehicleProgress progress, int pathIndex, double segmentFraction) {
+        if (nodeCoordinateTable.hasGeometry(progress.vehicleType, progress.tripIndex)) {
+            return nodeCoordinateTable.distanceAlongKm(progress.vehicleType, progress.tripIndex, pathIndex,
+                segmentFraction);
+        }
+        SimulationTripDTO trip = vehicleTrips.get(progress.vehicleType).get(progress.tripIndex);
+        return trip.getDistanceKm()
+            * Math.min(1.0, (pathIndex + segmentFraction) / Math.max(1, trip.getPath().length - 1));
+    }
+
+    // How far the vehicle is between its current path node and the next one at the given time
+    private double segmentFraction(VehicleProgress progress, long at) {
+        if (progress.parked) {
+            return 0.0;
+        }
+        long length = progress.nextEventAt - progress.lastEventAt;
+        if (length <= 0) {
+            return 0.0;
+        }
+        return Math.max(0.0, Math.min(1.0, (double) (at - progress.lastEventAt) / length));
+    }
+
+    private int currentTripIndex(String vin, int tripCount) {
+        VehicleProgress progress = progressByVin.get(vin);
+        return progress != null && progress.tripIndex < tripCount ? progress.tripIndex : 0;
+    }
+
+    private SimulationDataDTO staticSimulationData(Vehicle vehicle) {
         SimulationDataDTO data = new SimulationDataDTO();
         data.setVin(vehicle.getVin());
         data.setTimestamp(LocalDateTime.now());
+        data.setLatitude(vehicle.getLatitude());
+        data.setLongitude(vehicle.getLongitude());
+        data.setSpeed(vehicle.getCurrentSpeed());
+        data.setBatteryLevel(vehicle.getCurrentBatteryLevel());
+        data.setOdometer(vehicle.getOdometer());
+        data.setState(vehicle.getCurrentState());
+        data.setTrafficCondition("NORMAL");
+        data.setRecommendation("NORMAL");
+        return data;
+    }
 
-        // Initialize maps if they don't exist for this vehicle type
-        if (!vehicleTrips.containsKey(vehicleType)) {
-            vehicleTrips.put(vehicleType, new ArrayList<>());
-            currentTripIndex.put(vehicleType, 0);
-            currentPathIndex.put(vehicleType, 0);
-            lastUpdateTime.put(vehicleType, LocalDateTime.now());
-            simulationSpeeds.put(vehicle.getVin(), 1.0);
-        }
-
-        List<SimulationTripDTO> trips = vehicleTrips.get(vehicleType);
-        int tripIndex = currentTripIndex.get(vehicleType);
-        int pathIndex = currentPathIndex.get(vehicleType);
+    private SimulationDataDTO buildSimulationData(VehicleProgress progress, long at) {
+        SimulationDataDTO data = new SimulationDataDTO();
+        data.setVin(progress.vin);
+        data.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(at), ZoneId.systemDefault()));
 
-        // If no trips exist, return basic vehicle data
-        if (trips.isEmpty()) {
-            data.setLatitude(vehicle.getLatitude());
-            data.setLongitude(vehicle.getLongitude());
-            data.setSpeed(vehicle.getCurrentSpeed());
-            data.setBatteryLevel(vehicle.getCurrentBatteryLevel());
-            data.setOdometer(vehicle.getOdometer());
-            data.setState(vehicle.getCurrentState());
-            data.setTrafficCondition("NORMAL");
-            data.setRecommendation("NORMAL");
-            return data;
-        }
-
-        if (tripIndex < trips.size()) {
-            SimulationTripDTO currentTrip = trips.get(tripIndex);
-            String[] path = currentTrip.getPath();
-
-            if (pathIndex < path.length) {
-                // Calculate position based on path progress
-                double progress = (double) pathIndex / path.length;
-                data.setLatitude(interpolate(
-                    currentTrip.getStartPosition().getX(),
-                    currentTrip.getEndPosition().getX(),
-                    progress
-                ));
-                data.setLongitude(interpolate(
-                    currentTrip.getStartPosition().getY(),
-                    currentTrip.getEndPosition().getY(),
-                    progress
-                ));
-
-                // Calculate speed based on distance and time
-                double timeElapsed = java.time.Duration.between(
-                    lastUpdateTime.get(vehicleType),
-                    LocalDateTime.now()
-                ).toSeconds();
-                double speed = (currentTrip.getDistanceKm() / path.length) / (timeElapsed / 3600.0);
-                data.setSpeed(speed);
-
-                // Update battery level based on energy consumption
-                double energyPerSegment = currentTrip.getEnergyConsumedWh() / path.length;
-                data.setBatteryLevel(currentTrip.getSocPercentage() - (energyPerSegment * pathIndex / 100.0));
-
-                // Update indices
-                currentPathIndex.put(vehicleType, pathIndex + 1);
-                if (pathIndex + 1 >= path.length) {
-                    currentTripIndex.put(vehicleType, (tripIndex + 1) % trips.size());
-                    currentPathIndex.put(vehicleType, 0);
-                }
-            }
+        SimulationTripDTO currentTrip = vehicleTrips.get(progress.vehicleType).get(progress.tripIndex);
+        String[] path = currentTrip.getPath();
+        int pathIndex = progress.pathIndex;
+        double segmentFraction = segmentFraction(progress, at);
 
-            data.setOdometer(vehicle.getOdometer() + (currentTrip.getDistanceKm() * pathIndex / path.length));
-            data.setState(vehicle.getCurrentState());
-            data.setTrafficCondition(calculateTrafficCondition(data.getSpeed()));
-            data.setRecommendation(generateRecommendation(data.getBatteryLevel(), data.getSpeed()));
+        // Position along the node polyline; trips outside the road graph fall back to their endpoints
+        double distanceCovered;
+        if (nodeCoordinateTable.hasGeometry(progress.vehicleType, progress.tripIndex)) {
+            nodeCoordinateTable.position(progress.vehicleType, progress.tripIndex, pathIndex, segmentFraction, position);
+            distanceCovered = nodeCoordinateTable.distanceAlongKm(progress.vehicleType, progress.tripIndex,
+                pathIndex, segmentFraction);
+        } else {
+            double fraction = Math.min(1.0, (pathIndex + segmentFraction) / Math.max(1, path.length - 1));
+            position[0] = nodeCoordinateTable.projectLatitude(interpolate(
+                currentTrip.getStartPosition().getY(), currentTrip.getEndPosition().getY(), fraction));
+            position[1] = nodeCoordinateTable.projectLongitude(interpolate(
+                currentTrip.getStartPosition().getX(), currentTrip.getEndPosition().getX(), fraction));
+            distanceCovered = currentTrip.getDistanceKm() * fraction;
         }
+        data.setLatitude(position[0]);
+        data.setLongitude(position[1]);
+        data.setSpeed(baseSpeedKmh * simulationSpeeds.getOrDefault(progress.vin, 1.0));
 
-        lastUpdateTime.put(vehicleType, LocalDateTime.now());
+        data.setBatteryLevel(socAt(progress, distanceCovered));
+
+        data.setOdometer(progress.odometer + distanceCovered);
+        data.setState(fleetStateStore.state(progress.stateSlot));
+        data.setTrafficCondition(calculateTrafficCondition(data.getSpeed()));
+        data.setRecommendation(alertRuleEngine.recommendation(progress.stateSlot));
         return data;
     }
 
@@ -414,13 +1058,14 @@ public class SimulationService {
         return "LIGHT";
     }
 
-    private String generateRecommendation(Double batteryLevel, Double speed) {
-        if (batteryLevel < 20) return "LOW_BATTERY_WARNING";
-        if (speed > 100) return "SPEED_WARNING";
-        return "NORMAL";
-    }
-
     private String determineVehicleType(Vehicle vehicle) {
+        if (vehicle.getType() != null) {
+            String vehicleType = normalizeVehicleType(vehicle.getType());
+            if (vehicleTrips.containsKey(vehicleType)) {
+                return vehicleType;
+            }
+        }
+
         // This is a simple mapping - you might want to make this more sophisticated
         if (vehicle.getModel().contains("SUV")) return "SUV électrique";
         if (vehicle.getModel().contains("Premium")) return "Véhicule électrique premium";
@@ -477,4 +1122,45 @@ public class SimulationService {
         
         return vehicleRepository.save(vehicle);
     }
-} 
\ No newline at end of file
+
+    // A sample recorded under eventLock, evaluated and broadcast once the lock is released
+    private record LiveUpdate(SimulationDataDTO data, int stateSlot, long at, boolean recorded) {
+    }
+
+    private static final class VehicleProgress {
+        private final String vin;
+        private final int slot;
+        private Long vehicleId;
+        private String vehicleType;
+        private int tripIndex;
+        private int pathIndex;
+        private double batteryCapacityKwh;
+        // Odometer at the start of the current trip
+        private double odometer;
+        // SoC when the vehicle was at socKm into the current trip; only the consumption since is subtracted
+        private double soc;
+        private double socKm;
+        // Slot in the live fleet state store
+        private int stateSlot;
+        private boolean active;
+        // Held at a charger by holdWhileCharging
+        private boolean parked;
+        private long lastEventAt;
+        private long nextEventAt;
+
+        private VehicleProgress(String vin, int slot) {
+            this.vin = vin;
+            this.slot = slot;
+        }
+
+        private void refresh(Vehicle vehicle, String vehicleType) {
+            if (!vehicleType.equals(this.vehicleType)) {
+                this.vehicleType = vehicleType;
+                this.tripIndex = 0;
+                this.pathIndex = 0;
+            }
+            this.vehicleId = vehicle.getId();
+            this.batteryCapacityKwh = vehicle.getBatteryCapacity();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.evfleet.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+// Membership of the sharded simulation. Every node refreshes its row in simulation_nodes each heartbeat and reads
+// back the rows refreshed within the node timeout, timed by the database clock so nodes' clocks need not agree; the
+// live node ids make up a consistent hash ring that decides which node simulates which VIN. Each successful heartbeat
+// renews this node's lease until one heartbeat interval before the others could drop it; without a lease the ring is
+// empty, so a node cut off from the database stops simulating before anyone takes its vehicles over, and rejoins once
+// its heartbeat gets through again. Vehicles changing owner carry their trip progress over in simulation_handoffs.
+// With sharding disabled there is no ring and this node simulates the whole fleet.
+@Service
+public class SimulationShardService {
+    private static final Logger logger = LoggerFactory.getLogger(SimulationShardService.class);
+    // Rows of nodes and handoffs untouched for this many node timeouts are purged
+    private static final int RETENTION_TIMEOUTS = 10;
+
+    private static final String UPDATE_SQL =
+        "UPDATE simulation_nodes SET heartbeat_at = CURRENT_TIMESTAMP, tracked_vehicles = ? WHERE node_id = ?";
+    private static final String INSERT_SQL =
+        "INSERT INTO simulation_nodes (node_id, host, started_at, heartbeat_at, tracked_vehicles) "
+            + "VALUES (?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, ?)";
+    private static final String MEMBERS_SQL =
+        "SELECT node_id, heartbeat_at, tracked_vehicles, CURRENT_TIMESTAMP AS db_now FROM simulation_nodes";
+    private static final String LEAVE_SQL = "DELETE FROM simulation_nodes WHERE node_id = ?";
+    private static final String PURGE_NODES_SQL = "DELETE FROM simulation_nodes WHERE heartbeat_at < ?";
+    private static final String PURGE_HANDOFFS_SQL = "DELETE FROM simulation_handoffs WHERE handed_off_at < ?";
+    private static final String HANDOFF_DELETE_SQL = "DELETE FROM simulation_handoffs WHERE vin = ?";
+    private static final String HANDOFF_INSERT_SQL =
+        "INSERT INTO simulation_handoffs (vin, from_node, to_node, trip_index, path_index, speed_multiplier, "
+            + "handed_off_at) VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+    private static final String HANDOFF_SELECT_SQL =
+        "SELECT vin, trip_index, path_index, speed_multiplier FROM simulation_handoffs";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final String nodeId;
+    private final String host;
+    private final long heartbeatMs;
+    private final long nodeTimeoutMs;
+    private final int virtualNodes;
+    private final ConsistentHashRing noRing;
+
+    // Written by heartbeat, which is synchronized; null while sharding is disabled or before the first heartbeat
+    private volatile ConsistentHashRing ring;
+    private volatile List<Map<String, Object>> members = Collections.emptyList();
+    private volatile int trackedVehicles;
+    private volatile long leaseUntil;
+    // Bumped whenever a heartbeat gets a lease after having none, so a node that stalled past its lease and resumed
+    // with a fresh one still knows that others may have taken its vehicles in between
+    private volatile long leaseEpoch;
+    private boolean left;
+
+    private final AtomicLong membershipChanges = new AtomicLong();
+    private final AtomicLong handoffsSent = new AtomicLong();
+    private final AtomicLong handoffsTaken = new AtomicLong();
+    private final AtomicLong heartbeatFailures = new AtomicLong();
+
+    public SimulationShardService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${simulation.shard.enabled:false}") boolean enabled,
+                                  @Value("${simulation.shard.node-id:}") String nodeId,
+                                  @Value("${server.port:8080}") int serverPort,
+                                  @Value("${simulation.shard.heartbeat-ms:2000}") long heartbeatMs,
+                                  @Value("${simulation.shard.node-timeout-ms:10000}") long nodeTimeoutMs,
+                                  @Value("${simulation.shard.virtual-nodes:128}") int virtualNodes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.host = localHost();
+        // Host and port tell apart several nodes on one machine and stay the same across restarts
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : host + ":" + serverPort;
+        this.heartbeatMs = heartbeatMs;
+        this.nodeTimeoutMs = nodeTimeoutMs;
+        this.virtualNodes = virtualNodes;
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("simulation.shard.virtual-nodes must be positive");
+        }
+        if (nodeTimeoutMs <= heartbeatMs) {
+            throw new IllegalArgumentException("simulation.shard.node-timeout-ms must exceed the heartbeat interval");
+        }
+        this.noRing = new ConsistentHashRing(Collections.emptyList(), virtualNodes);
+        Gauge.builder("evfleet.simulation.shard.members", this, service -> service.memberCount())
+            .register(meterRegistry);
+        FunctionCounter.builder("evfleet.simulation.shard.membership.changes", membershipChanges, AtomicLong::get)
+            .register(meterRegistry);
+        FunctionCounter.builder("evfleet.simulation.shard.handoffs", handoffsSent, AtomicLong::get)
+            .tag("direction", "sent")
+            .register(meterRegistry);
+        FunctionCounter.builder("evfleet.simulation.shard.handoffs", handoffsTaken, AtomicLong::get)
+            .tag("direction", "taken")
+            .register(meterRegistry);
+        FunctionCounter.builder("evfleet.simulation.shard.heartbeat.failures", heartbeatFailures, AtomicLong::get)
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getNodeTimeoutMs() {
+        return nodeTimeoutMs;
+    }
+
+    // The ring in force, joining first if this node has not had a heartbeat yet; null when sharding is disabled,
+    // and empty while this node holds no lease
+    ConsistentHashRing ring() {
+        if (!enabled) {
+            return null;
+        }
+        if (ring == null) {
+            heartbeat();
+        }
+        return holdsLease() ? ring : noRing;
+    }
+
+    // Timed on this node's clock from the start of the last successful heartbeat, which is no later than the
+    // heartbeat_at the others see, so the lease runs out while they still count this node
+    public boolean holdsLease() {
+        return !enabled || System.currentTimeMillis() < leaseUntil;
+    }
+
+    long leaseEpoch() {
+        return leaseEpoch;
+    }
+
+    // Reported by the simulation and published with the heartbeat, so each node's share is visible to the others
+    void reportTracked(int tracked) {
+        this.trackedVehicles = tracked;
+    }
+
+    @Scheduled(fixedRateString = "${simulation.shard.heartbeat-ms:2000}")
+    public synchronized void heartbeat() {
+        if (!enabled || left) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        try {
+            if (jdbcTemplate.update(UPDATE_SQL, trackedVehicles, nodeId) == 0) {
+                jdbcTemplate.update(INSERT_SQL, nodeId, host, trackedVehicles);
+            }
+            List<Map<String, Object>> rows = new ArrayList<>();
+            Set<String> live = new TreeSet<>();
+            long[] dbNow = new long[1];
+            jdbcTemplate.query(MEMBERS_SQL, rs -> {
+                dbNow[0] = rs.getTimestamp("db_now").getTime();
+                long ageMs = dbNow[0] - rs.getTimestamp("heartbeat_at").getTime();
+                String member = rs.getString("node_id");
+                if (ageMs <= nodeTimeoutMs || member.equals(nodeId)) {
+                    live.add(member);
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("nodeId", member);
+                    row.put("heartbeatAgeMs", Math.max(0, ageMs));
+                    row.put("trackedVehicles", rs.getInt("tracked_vehicles"));
+                    rows.add(row);
+                }
+            });
+            if (startedAt >= leaseUntil) {
+                leaseEpoch++;
+            }
+            leaseUntil = startedAt + nodeTimeoutMs - heartbeatMs;
+            members = rows;
+            if (ring == null || !ring.nodes().equals(new ArrayList<>(live))) {
+                applyRing(new ConsistentHashRing(live, virtualNodes));
+            }
+            Timestamp purgeBefore = new Timestamp(dbNow[0] - RETENTION_TIMEOUTS * nodeTimeoutMs);
+            jdbcTemplate.update(PURGE_NODES_SQL, purgeBefore);
+            jdbcTemplate.update(PURGE_HANDOFFS_SQL, purgeBefore);
+        } catch (Exception e) {
+            heartbeatFailures.incrementAndGet();
+            logger.error("Simulation shard heartbeat failed for node {}: {}", nodeId, e.getMessage());
+            if (ring == null) {
+                ring = noRing;
+            }
+        }
+    }
+
+    // Records vehicles this node let go of, replacing older handoffs of the same VINs
+    void handOff(List<Handoff> handoffs) {
+        if (handoffs.isEmpty()) {
+            return;
+        }
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        for (Handoff handoff : handoffs) {
+            deletes.add(new Object[]{handoff.vin()});
+            inserts.add(new Object[]{handoff.vin(), nodeId, handoff.toNode(), handoff.tripIndex(), handoff.pathIndex(),
+                handoff.speedMultiplier()});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(HANDOFF_DELETE_SQL, deletes);
+            jdbcTemplate.batchUpdate(HANDOFF_INSERT_SQL, inserts);
+        });
+        handoffsSent.addAndGet(handoffs.size());
+    }
+
+    // Removes and returns the pending handoffs of the VINs this node now owns
+    List<Handoff> takeHandoffs(Predicate<String> owned) {
+        List<Handoff> taken = new ArrayList<>();
+        jdbcTemplate.query(HANDOFF_SELECT_SQL, rs -> {
+            String vin = rs.getString("vin");
+            if (owned.test(vin)) {
+                // wasNull reports on the last column read, so the multiplier is settled before the indexes are read
+                double speed = rs.getDouble("speed_multiplier");
+                Double speedMultiplier = rs.wasNull() ? null : speed;
+                taken.add(new Handoff(vin, nodeId, rs.getInt("trip_index"), rs.getInt("path_index"), speedMultiplier));
+            }
+        });
+        if (!taken.isEmpty()) {
+            jdbcTemplate.batchUpdate(HANDOFF_DELETE_SQL,
+                taken.stream().map(handoff -> new Object[]{handoff.vin()}).toList());
+            handoffsTaken.addAndGet(taken.size());
+        }
+        return taken;
+    }
+
+    // Runs after the simulation has handed its vehicles off, since the simulation depends on this service
+    @PreDestroy
+    public synchronized void leave() {
+        if (!enabled || left) {
+            return;
+        }
+        left = true;
+        try {
+            jdbcTemplate.update(LEAVE_SQL, nodeId);
+            logger.info("Simulation node {} left the shard ring", nodeId);
+        } catch (Exception e) {
+            logger.warn("Simulation node {} could not remove its heartbeat; it drops out after the node timeout: {}",
+                nodeId, e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        ConsistentHashRing current = ring;
+        status.put("enabled", enabled);
+        status.put("nodeId", nodeId);
+        status.put("ring", current != null ? current.nodes() : List.of(nodeId));
+        status.put("leaseRemainingMs", enabled ? Math.max(0, leaseUntil - System.currentTimeMillis()) : null);
+        status.put("members", members);
+        status.put("virtualNodes", virtualNodes);
+        status.put("nodeTimeoutMs", nodeTimeoutMs);
+        status.put("membershipChanges", membershipChanges.get());
+        status.put("handoffsSent", handoffsSent.get());
+        status.put("handoffsTaken", handoffsTaken.get());
+        status.put("heartbeatFailures", heartbeatFailures.get());
+        return status;
+    }
+
+    private void applyRing(ConsistentHashRing next) {
+        ConsistentHashRing previous = ring;
+        ring = next;
+        membershipChanges.incrementAndGet();
+        logger.info("Simulation shard ring for node {}: {} (was {})", nodeId, next.nodes(),
+            previous != null ? previous.nodes() : "not joined");
+    }
+
+    private int memberCount() {
+        ConsistentHashRing current = ring;
+        return current != null ? current.nodes().size() : 1;
+    }
+
+    private static String localHost() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "localhost";
+        }
+    }
+
+    record Handoff(String vin, String toNode, int tripIndex, int pathIndex, Double speedMultiplier) {
+    }
+}
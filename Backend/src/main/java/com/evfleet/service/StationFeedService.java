@@ -0,0 +1,238 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.ChangeSetDTO;
+import com.evfleet.dto.StationAvailabilityDTO;
+import com.evfleet.dto.StationFeedDTO;
+import com.evfleet.entity.ChargingStation;
+import com.evfleet.entity.Tombstone;
+import com.evfleet.repository.ChargingStationRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Station availability feed for map clients on /topic/stations. Writers hand over a station id once their
+// transaction commits, so any number of changes within an interval become one pending id. Each flush reads the
+// pending stations' committed rows (commit callbacks may run out of commit order, the rows cannot) and publishes the
+// ones that actually changed as one numbered DELTA; a station without a row is published as removed. Clients
+// subscribe first, then ask for a SNAPSHOT, which carries the sequence of the last delta it includes. With a sharded
+// simulation, sessions and station edits also commit on other nodes, so each flush also queues the stations whose
+// committed rows changed since the last one.
+@Service
+public class StationFeedService {
+    private static final Logger logger = LoggerFactory.getLogger(StationFeedService.class);
+    private static final String STATIONS_TOPIC = "/topic/stations";
+
+    private final ChargingStationRepository chargingStationRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ChangeLogService changeLogService;
+    private final SimulationShardService shardService;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    // Guarded by lock
+    private final Object lock = new Object();
+    private final Map<Long, StationAvailabilityDTO> current = new TreeMap<>();
+    private long sequence;
+    private volatile boolean loaded;
+    // Changes feed cursor of the committed rows; only used by the scheduled flush
+    private Long rowCursor;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+
+    public StationFeedService(ChargingStationRepository chargingStationRepository,
+                              SimpMessagingTemplate messagingTemplate,
+                              ChangeLogService changeLogService,
+                              SimulationShardService shardService,
+                              MeterRegistry meterRegistry) {
+        this.chargingStationRepository = chargingStationRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.changeLogService = changeLogService;
+        this.shardService = shardService;
+        for (Map.Entry<String, AtomicLong> counter : Map.of("published", published, "coalesced", coalesced,
+                "unchanged", unchanged).entrySet()) {
+            FunctionCounter.builder("evfleet.stations.feed.changes", counter.getValue(), AtomicLong::get)
+                .tag("outcome", counter.getKey())
+                .register(meterRegistry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadStations() {
+        rowCursor = System.currentTimeMillis();
+        List<ChargingStation> stations = chargingStationRepository.findAll();
+        synchronized (lock) {
+            for (ChargingStation station : stations) {
+                current.put(station.getId(), toDTO(station));
+            }
+        }
+        loaded = true;
+        logger.info("Station feed loaded {} stations", stations.size());
+    }
+
+    // Queues the station for the next flush, once the surrounding transaction (if any) commits; a deleted station
+    // is published as removed
+    public void publishAfterCommit(ChargingStation station) {
+        Long id = station.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            queue(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queue(id);
+            }
+        });
+    }
+
+    @Scheduled(fixedRateString = "${stations.feed.interval-ms:1000}")
+    public void flush() {
+        if (!loaded) {
+            return;
+        }
+        if (shardService.isEnabled()) {
+            queueCommittedChanges();
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Long id : pending) {
+            if (pending.remove(id)) {
+                ids.add(id);
+            }
+        }
+        Map<Long, ChargingStation> stations = new HashMap<>();
+        try {
+            for (ChargingStation station : chargingStationRepository.findAllById(ids)) {
+                stations.put(station.getId(), station);
+            }
+        } catch (Exception e) {
+            // Left for the next flush rather than lost, or removed stations would be read as deleted
+            pending.addAll(ids);
+            logger.error("Error reading {} changed stations for the feed: {}", ids.size(), e.getMessage());
+            return;
+        }
+
+        List<StationAvailabilityDTO> changes = new ArrayList<>();
+        StationFeedDTO delta;
+        synchronized (lock) {
+            for (Long id : ids) {
+                ChargingStation station = stations.get(id);
+                if (station == null) {
+                    StationAvailabilityDTO previous = current.remove(id);
+                    // A removal of a station map clients never saw
+                    if (previous == null) {
+                        unchanged.incrementAndGet();
+                    } else {
+                        previous.setRemoved(true);
+                        previous.setTimestamp(LocalDateTime.now());
+                        changes.add(previous);
+                    }
+                    continue;
+                }
+                StationAvailabilityDTO change = toDTO(station);
+                // An update that left what map clients see as it was
+                if (sameState(current.put(id, change), change)) {
+                    unchanged.incrementAndGet();
+                } else {
+                    changes.add(change);
+                }
+            }
+            if (changes.isEmpty()) {
+                return;
+            }
+            delta = feed("DELTA", ++sequence, changes);
+        }
+        published.addAndGet(changes.size());
+        try {
+            messagingTemplate.convertAndSend(STATIONS_TOPIC, delta);
+        } catch (Exception e) {
+            logger.error("Error broadcasting station feed delta {}: {}", delta.getSequence(), e.getMessage());
+        }
+    }
+
+    // Changes committed through other nodes; this node's own changes come back too and are published only once,
+    // since an unchanged state is not published again
+    private void queueCommittedChanges() {
+        ChangeSetDTO<ChargingStation> changes;
+        try {
+            changes = changeLogService.changesSince(rowCursor, Tombstone.EntityType.CHARGING_STATION,
+                chargingStationRepository::findByUpdatedAtAfter, chargingStationRepository::findAll);
+        } catch (Exception e) {
+            logger.error("Error reading committed station changes for the feed: {}", e.getMessage());
+            return;
+        }
+        for (ChargingStation station : changes.getChanged()) {
+            pending.add(station.getId());
+        }
+        pending.addAll(changes.getDeleted());
+        if (changes.isFull()) {
+            // Stations missing from a full read were deleted
+            synchronized (lock) {
+                pending.addAll(current.keySet());
+            }
+        }
+        rowCursor = changes.getCursor();
+    }
+
+    public StationFeedDTO getSnapshot() {
+        synchronized (lock) {
+            return feed("SNAPSHOT", sequence, new ArrayList<>(current.values()));
+        }
+    }
+
+    private void queue(Long id) {
+        if (!pending.add(id)) {
+            coalesced.incrementAndGet();
+        }
+    }
+
+    private static boolean sameState(StationAvailabilityDTO a, StationAvailabilityDTO b) {
+        return a != null
+            && a.getStatus() == b.getStatus()
+            && Objects.equals(a.getAvailableConnectors(), b.getAvailableConnectors())
+            && Objects.equals(a.getTotalConnectors(), b.getTotalConnectors())
+            && Objects.equals(a.getName(), b.getName())
+            && Objects.equals(a.getStationId(), b.getStationId())
+            && Objects.equals(a.getLatitude(), b.getLatitude())
+            && Objects.equals(a.getLongitude(), b.getLongitude());
+    }
+
+    private static StationFeedDTO feed(String type, long sequence, List<StationAvailabilityDTO> stations) {
+        StationFeedDTO feed = new StationFeedDTO();
+        feed.setType(type);
+        feed.setSequence(sequence);
+        feed.setStations(stations);
+        feed.setTimestamp(LocalDateTime.now());
+        return feed;
+    }
+
+    private static StationAvailabilityDTO toDTO(ChargingStation station) {
+        StationAvailabilityDTO dto = new StationAvailabilityDTO();
+        dto.setId(station.getId());
+        dto.setStationId(station.getStationId());
+        dto.setName(station.getName());
+        dto.setLatitude(station.getLatitude());
+        dto.setLongitude(station.getLongitude());
+        dto.setStatus(station.getStatus());
+        dto.setAvailableConnectors(station.getAvailableConnectors());
+        dto.setTotalConnectors(station.getTotalConnectors());
+        dto.setTimestamp(LocalDateTime.now());
+        return dto;
+    }
+}
@@ -0,0 +1,128 @@
+package com.evfleet.service;
+
+import java.util.Arrays;
+
+// Uniform grid over station positions projected to a local km plane. Cells are stored CSR-style
+// (station indices sorted by cell plus per-cell offsets) and queried ring by ring around a point,
+// so a nearest-station search stops as soon as farther rings cannot beat the best candidate.
+final class StationGridIndex {
+    static final double KM_PER_DEGREE_LAT = 110.574;
+    static final double KM_PER_DEGREE_LNG = 111.320;
+
+    private final double kmPerDegreeLng;
+    private final double[] x;
+    private final double[] y;
+    private final double cellSizeKm;
+    private final double minX;
+    private final double minY;
+    private final int rows;
+    private final int columns;
+    private final int[] cellStart;
+    private final int[] cellStations;
+
+    StationGridIndex(double[] latitudes, double[] longitudes, int count, double cellSizeKm) {
+        this.cellSizeKm = cellSizeKm;
+
+        double meanLatitude = 0.0;
+        for (int i = 0; i < count; i++) {
+            meanLatitude += latitudes[i];
+        }
+        meanLatitude = count > 0 ? meanLatitude / count : 0.0;
+        this.kmPerDegreeLng = KM_PER_DEGREE_LNG * Math.cos(Math.toRadians(meanLatitude));
+
+        // Project once so distance checks are a subtraction and a square root
+        this.x = new double[count];
+        this.y = new double[count];
+        double lowX = Double.MAX_VALUE, highX = -Double.MAX_VALUE;
+        double lowY = Double.MAX_VALUE, highY = -Double.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            x[i] = projectX(longitudes[i]);
+            y[i] = projectY(latitudes[i]);
+            lowX = Math.min(lowX, x[i]);
+            highX = Math.max(highX, x[i]);
+            lowY = Math.min(lowY, y[i]);
+            highY = Math.max(highY, y[i]);
+        }
+        if (count == 0) {
+            lowX = highX = lowY = highY = 0.0;
+        }
+        this.minX = lowX;
+        this.minY = lowY;
+        this.rows = (int) ((highY - lowY) / cellSizeKm) + 1;
+        this.columns = (int) ((highX - lowX) / cellSizeKm) + 1;
+
+        // Counting sort of stations by cell
+        int[] cellOf = new int[count];
+        this.cellStart = new int[rows * columns + 1];
+        for (int i = 0; i < count; i++) {
+            cellOf[i] = row(y[i]) * columns + column(x[i]);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < rows * columns; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        this.cellStations = new int[count];
+        int[] fill = Arrays.copyOf(cellStart, cellStart.length);
+        for (int i = 0; i < count; i++) {
+            cellStations[fill[cellOf[i]]++] = i;
+        }
+    }
+
+    double projectX(double longitude) {
+        return longitude * kmPerDegreeLng;
+    }
+
+    double projectY(double latitude) {
+        return latitude * KM_PER_DEGREE_LAT;
+    }
+
+    double cellSizeKm() {
+        return cellSizeKm;
+    }
+
+    // Largest ring that can still contain a station for a point at (px, py)
+    int maxRing(double px, double py) {
+        int r = (int) Math.floor((py - minY) / cellSizeKm);
+        int c = (int) Math.floor((px - minX) / cellSizeKm);
+        return Math.max(Math.max(Math.abs(r), Math.abs(rows - 1 - r)), Math.max(Math.abs(c), Math.abs(columns - 1 - c)));
+    }
+
+    // Writes the stations of the cells exactly `ring` cells away (Chebyshev) from the point's cell into out
+    int ring(double px, double py, int ring, int[] out) {
+        int centerRow = (int) Math.floor((py - minY) / cellSizeKm);
+        int centerColumn = (int) Math.floor((px - minX) / cellSizeKm);
+
+        int found = 0;
+        for (int r = centerRow - ring; r <= centerRow + ring; r++) {
+            if (r < 0 || r >= rows) {
+                continue;
+            }
+            boolean edgeRow = r == centerRow - ring || r == centerRow + ring;
+            int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+            for (int c = centerColumn - ring; c <= centerColumn + ring; c += step) {
+                if (c < 0 || c >= columns) {
+                    continue;
+                }
+                int cell = r * columns + c;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1] && found < out.length; k++) {
+                    out[found++] = cellStations[k];
+                }
+            }
+        }
+        return found;
+    }
+
+    double distanceKm(int station, double px, double py) {
+        double dx = x[station] - px;
+        double dy = y[station] - py;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private int row(double py) {
+        return Math.min(rows - 1, (int) ((py - minY) / cellSizeKm));
+    }
+
+    private int column(double px) {
+        return Math.min(columns - 1, (int) ((px - minX) / cellSizeKm));
+    }
+}
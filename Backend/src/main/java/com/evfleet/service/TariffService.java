@@ -0,0 +1,120 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.BillingQuoteDTO;
+import com.evfleet.dto.TariffDTO;
+import com.evfleet.entity.ChargingStation;
+import com.evfleet.entity.Tariff;
+import com.evfleet.repository.ChargingStationRepository;
+import com.evfleet.repository.TariffRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Owns the compiled tariff table. Changes made through this service swap in a new table straight away; tables
+// built by other instances' changes are picked up on the periodic refresh.
+@Service
+public class TariffService {
+    private static final Logger logger = LoggerFactory.getLogger(TariffService.class);
+
+    private final TariffRepository tariffRepository;
+    private final ChargingStationRepository chargingStationRepository;
+    private volatile TariffTable table;
+
+    public TariffService(TariffRepository tariffRepository, ChargingStationRepository chargingStationRepository) {
+        this.tariffRepository = tariffRepository;
+        this.chargingStationRepository = chargingStationRepository;
+    }
+
+    public List<TariffDTO> getTariffs() {
+        return tariffRepository.findAll().stream()
+            .sorted(Comparator.comparing(Tariff::getId))
+            .map(TariffDTO::fromEntity)
+            .collect(Collectors.toList());
+    }
+
+    public TariffDTO createTariff(TariffDTO tariffDTO) {
+        Tariff tariff = tariffDTO.toEntity();
+        TariffTable.validate(tariff);
+        tariff = tariffRepository.save(tariff);
+        reload();
+        return TariffDTO.fromEntity(tariff);
+    }
+
+    // Closes the tariff's validity now rather than deleting it, so sessions it priced can still be re-priced
+    public TariffDTO retireTariff(Long id) {
+        Tariff tariff = tariffRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("Tariff not found"));
+        LocalDateTime now = LocalDateTime.now();
+        if (tariff.getValidUntil() != null && !tariff.getValidUntil().isAfter(now)) {
+            throw new IllegalStateException("Tariff is already retired");
+        }
+        if (tariff.getValidFrom() != null && !tariff.getValidFrom().isBefore(now)) {
+            // Never in force; nothing can have been priced with it
+            tariffRepository.delete(tariff);
+        } else {
+            tariff.setValidUntil(now);
+            tariff = tariffRepository.save(tariff);
+        }
+        reload();
+        return TariffDTO.fromEntity(tariff);
+    }
+
+    public double price(String operator, String connectorType, LocalDateTime start, LocalDateTime end,
+                        double energyKwh, double fallbackPrice) {
+        return table().price(operator, connectorType, start, end, energyKwh, fallbackPrice, null);
+    }
+
+    public BillingQuoteDTO quote(Long stationId, String connectorType, LocalDateTime start, LocalDateTime end,
+                                 double energyKwh) {
+        if (end.isBefore(start) || energyKwh < 0) {
+            throw new IllegalArgumentException("Quote needs start <= end and non-negative energy");
+        }
+        ChargingStation station = chargingStationRepository.findById(stationId)
+            .orElseThrow(() -> new EntityNotFoundException("Charging station not found"));
+
+        BillingQuoteDTO quote = new BillingQuoteDTO();
+        quote.setStationId(stationId);
+        quote.setOperator(station.getOperator());
+        quote.setConnectorType(connectorType);
+        quote.setStart(start);
+        quote.setEnd(end);
+        quote.setEnergyKwh(energyKwh);
+        List<BillingQuoteDTO.Segment> segments = new ArrayList<>();
+        quote.setCost(table().price(station.getOperator(), connectorType, start, end, energyKwh,
+            station.getPricePerKwh(), segments));
+        quote.setSegments(segments);
+        return quote;
+    }
+
+    @Scheduled(fixedDelayString = "${billing.tariffs.refresh-interval-ms:60000}",
+               initialDelayString = "${billing.tariffs.refresh-interval-ms:60000}")
+    public void reload() {
+        TariffTable compiled = TariffTable.compile(tariffRepository.findAll());
+        TariffTable previous = table;
+        table = compiled;
+        if (previous == null || previous.size() != compiled.size()) {
+            logger.info("Compiled {} tariffs", compiled.size());
+        }
+    }
+
+    TariffTable table() {
+        TariffTable current = table;
+        if (current == null) {
+            synchronized (this) {
+                if (table == null) {
+                    reload();
+                }
+                current = table;
+            }
+        }
+        return current;
+    }
+}
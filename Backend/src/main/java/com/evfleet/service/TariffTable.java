@@ -0,0 +1,278 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.BillingQuoteDTO;
+import com.evfleet.entity.Tariff;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tariffs compiled into interval lookup tables. Time is cut into epochs at every validity bound; within an epoch,
+// each (operator, connector type) pair gets a weekly schedule: sorted minute-of-week starts with the price in force
+// from each one. More specific tariffs paint over general ones (operator and connector > operator > connector >
+// any, later tariffs over earlier at the same level); minutes no tariff covers are NaN and fall back to the
+// station's flat price. Schedules are built on first use and never change, so a table is safe to share.
+final class TariffTable {
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private final List<Tariff> tariffs;
+    private final int[] dayMasks;
+    private final LocalDateTime[] epochBounds;
+    private final Map<String, Schedule> schedules = new ConcurrentHashMap<>();
+
+    static final class Schedule {
+        final int[] starts;
+        final double[] prices;
+        final Tariff[] tariffs;
+
+        private Schedule(int[] starts, double[] prices, Tariff[] tariffs) {
+            this.starts = starts;
+            this.prices = prices;
+            this.tariffs = tariffs;
+        }
+
+        int indexOf(int minuteOfWeek) {
+            int index = Arrays.binarySearch(starts, minuteOfWeek);
+            return index >= 0 ? index : -index - 2;
+        }
+
+        int endOf(int index) {
+            return index + 1 < starts.length ? starts[index + 1] : MINUTES_PER_WEEK;
+        }
+    }
+
+    private TariffTable(List<Tariff> tariffs) {
+        this.tariffs = tariffs;
+        this.dayMasks = new int[tariffs.size()];
+        TreeSet<LocalDateTime> bounds = new TreeSet<>();
+        for (int t = 0; t < tariffs.size(); t++) {
+            Tariff tariff = tariffs.get(t);
+            dayMasks[t] = parseDays(tariff.getDaysOfWeek());
+            if (tariff.getValidFrom() != null) {
+                bounds.add(tariff.getValidFrom());
+            }
+            if (tariff.getValidUntil() != null) {
+                bounds.add(tariff.getValidUntil());
+            }
+        }
+        this.epochBounds = bounds.toArray(new LocalDateTime[0]);
+    }
+
+    static TariffTable compile(List<Tariff> tariffs) {
+        List<Tariff> ordered = new ArrayList<>(tariffs);
+        ordered.forEach(TariffTable::validate);
+        ordered.sort(Comparator.comparingInt(TariffTable::specificity)
+            .thenComparing(Tariff::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return new TariffTable(ordered);
+    }
+
+    static void validate(Tariff tariff) {
+        if (tariff.getName() == null || tariff.getName().isBlank()) {
+            throw new IllegalArgumentException("Tariff name is required");
+        }
+        if (tariff.getPricePerKwh() == null || !(tariff.getPricePerKwh() >= 0)) {
+            throw new IllegalArgumentException("Tariff " + tariff.getName() + " needs a non-negative price per kWh");
+        }
+        if (tariff.getValidFrom() != null && tariff.getValidUntil() != null
+                && !tariff.getValidUntil().isAfter(tariff.getValidFrom())) {
+            throw new IllegalArgumentException("Tariff " + tariff.getName() + " must be valid until after it is valid from");
+        }
+        parseDays(tariff.getDaysOfWeek());
+    }
+
+    int size() {
+        return tariffs.size();
+    }
+
+    // Prices energy delivered evenly over [start, end), split at every schedule and epoch boundary it crosses.
+    // Segments are only collected when a list is passed. The schedule, and the key it is cached under, is looked up
+    // once per epoch the interval spans rather than once per segment.
+    double price(String operator, String connectorType, LocalDateTime start, LocalDateTime end, double energyKwh,
+                 double fallbackPrice, List<BillingQuoteDTO.Segment> segments) {
+        long totalMillis = Duration.between(start, end).toMillis();
+        if (totalMillis <= 0) {
+            end = start;
+        }
+
+        double cost = 0.0;
+        LocalDateTime cursor = start;
+        int scheduleEpoch = -1;
+        Schedule schedule = null;
+        do {
+            int epoch = epochOf(cursor);
+            if (epoch != scheduleEpoch) {
+                schedule = schedule(epoch, operator, connectorType);
+                scheduleEpoch = epoch;
+            }
+            int minute = minuteOfWeek(cursor);
+            int index = schedule.indexOf(minute);
+
+            LocalDateTime segmentEnd = cursor.truncatedTo(ChronoUnit.MINUTES).plusMinutes(schedule.endOf(index) - minute);
+            if (epoch < epochBounds.length && epochBounds[epoch].isBefore(segmentEnd)) {
+                segmentEnd = epochBounds[epoch];
+            }
+            if (segmentEnd.isAfter(end)) {
+                segmentEnd = end;
+            }
+
+            double energy = totalMillis > 0
+                ? energyKwh * Duration.between(cursor, segmentEnd).toMillis() / totalMillis
+                : energyKwh;
+            double price = Double.isNaN(schedule.prices[index]) ? fallbackPrice : schedule.prices[index];
+            cost += energy * price;
+
+            if (segments != null) {
+                Tariff tariff = schedule.tariffs[index];
+                BillingQuoteDTO.Segment previous = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+                if (previous != null && previous.getPricePerKwh() == price
+                        && Objects.equals(previous.getTariffId(), tariff != null ? tariff.getId() : null)) {
+                    // Same tariff on both sides of an epoch cut
+                    previous.setTo(segmentEnd);
+                    previous.setEnergyKwh(previous.getEnergyKwh() + energy);
+                    previous.setCost(previous.getCost() + energy * price);
+                    cursor = segmentEnd;
+                    continue;
+                }
+                BillingQuoteDTO.Segment segment = new BillingQuoteDTO.Segment();
+                segment.setFrom(cursor);
+                segment.setTo(segmentEnd);
+                segment.setEnergyKwh(energy);
+                segment.setPricePerKwh(price);
+                segment.setCost(energy * price);
+                segment.setTariffId(tariff != null ? tariff.getId() : null);
+                segment.setTariffName(tariff != null ? tariff.getName() : null);
+                segments.add(segment);
+            }
+            cursor = segmentEnd;
+        } while (cursor.isBefore(end));
+
+        return Math.round(cost * 100.0) / 100.0;
+    }
+
+    private int epochOf(LocalDateTime time) {
+        int index = Arrays.binarySearch(epochBounds, time);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private Schedule schedule(int epoch, String operator, String connectorType) {
+        String key = epoch + "|" + normalize(operator) + "|" + normalize(connectorType);
+        return schedules.computeIfAbsent(key, ignored -> build(epoch, operator, connectorType));
+    }
+
+    private Schedule build(int epoch, String operator, String connectorType) {
+        double[] minutePrices = new double[MINUTES_PER_WEEK];
+        Tariff[] minuteTariffs = new Tariff[MINUTES_PER_WEEK];
+        Arrays.fill(minutePrices, Double.NaN);
+
+        LocalDateTime epochStart = epoch > 0 ? epochBounds[epoch - 1] : null;
+        LocalDateTime epochEnd = epoch < epochBounds.length ? epochBounds[epoch] : null;
+        for (int t = 0; t < tariffs.size(); t++) {
+            Tariff tariff = tariffs.get(t);
+            if (!matches(tariff.getOperator(), operator) || !matches(tariff.getConnectorType(), connectorType)
+                    || !validThroughout(tariff, epochStart, epochEnd)) {
+                continue;
+            }
+            int from = minuteOfDay(tariff.getStartTime(), 0);
+            int to = minuteOfDay(tariff.getEndTime(), MINUTES_PER_DAY);
+            if (to <= from) {
+                to += MINUTES_PER_DAY;
+            }
+            for (int day = 0; day < 7; day++) {
+                if ((dayMasks[t] & (1 << day)) == 0) {
+                    continue;
+                }
+                for (int m = from; m < to; m++) {
+                    int k = (day * MINUTES_PER_DAY + m) % MINUTES_PER_WEEK;
+                    minutePrices[k] = tariff.getPricePerKwh();
+                    minuteTariffs[k] = tariff;
+                }
+            }
+        }
+
+        // Run-length compress the week into intervals
+        int[] starts = new int[MINUTES_PER_WEEK];
+        int count = 0;
+        for (int m = 0; m < MINUTES_PER_WEEK; m++) {
+            if (m == 0 || minuteTariffs[m] != minuteTariffs[m - 1]) {
+                starts[count++] = m;
+            }
+        }
+        starts = Arrays.copyOf(starts, count);
+        double[] prices = new double[count];
+        Tariff[] intervalTariffs = new Tariff[count];
+        for (int i = 0; i < count; i++) {
+            prices[i] = minutePrices[starts[i]];
+            intervalTariffs[i] = minuteTariffs[starts[i]];
+        }
+        return new Schedule(starts, prices, intervalTariffs);
+    }
+
+    // Epochs are cut at every validity bound, so a tariff either covers a whole epoch or none of it
+    private static boolean validThroughout(Tariff tariff, LocalDateTime epochStart, LocalDateTime epochEnd) {
+        boolean fromOk = tariff.getValidFrom() == null || (epochStart != null && !tariff.getValidFrom().isAfter(epochStart));
+        boolean untilOk = tariff.getValidUntil() == null || (epochEnd != null && !tariff.getValidUntil().isBefore(epochEnd));
+        return fromOk && untilOk;
+    }
+
+    private static boolean matches(String tariffValue, String value) {
+        return tariffValue == null || tariffValue.isBlank() || tariffValue.equalsIgnoreCase(value);
+    }
+
+    private static int specificity(Tariff tariff) {
+        return (isSet(tariff.getOperator()) ? 2 : 0) + (isSet(tariff.getConnectorType()) ? 1 : 0);
+    }
+
+    private static boolean isSet(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    static int minuteOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+
+    private static int minuteOfDay(LocalTime time, int defaultMinute) {
+        return time == null ? defaultMinute : time.getHour() * 60 + time.getMinute();
+    }
+
+    // Bit per day, Monday first; "MON-FRI,SUN" style lists, ranges may wrap (FRI-MON)
+    static int parseDays(String days) {
+        if (days == null || days.isBlank() || days.trim().equals("*")) {
+            return (1 << 7) - 1;
+        }
+        int mask = 0;
+        for (String part : days.split(",")) {
+            String[] range = part.trim().split("-");
+            if (range.length > 2) {
+                throw new IllegalArgumentException("Invalid days of week: " + days);
+            }
+            int first = dayIndex(range[0], days);
+            int last = range.length == 2 ? dayIndex(range[1], days) : first;
+            for (int day = first; ; day = (day + 1) % 7) {
+                mask |= 1 << day;
+                if (day == last) {
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static int dayIndex(String name, String days) {
+        String prefix = name.trim().toUpperCase(Locale.ROOT);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (prefix.length() >= 3 && day.name().startsWith(prefix)) {
+                return day.getValue() - 1;
+            }
+        }
+        throw new IllegalArgumentException("Invalid days of week: " + days);
+    }
+}
@@ -0,0 +1,552 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.TelemetryMessageDTO;
+import com.evfleet.dto.TelemetryStatsDTO;
+import com.evfleet.dto.VehicleLiveStateDTO;
+import com.evfleet.entity.Vehicle;
+import com.evfleet.repository.VehicleRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.Principal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+// Real-vehicle telemetry pipeline. Producers (STOMP and REST threads) only enqueue into a bounded lock-free ring;
+// one consumer thread drains it in batches and runs validation, the write into the live fleet state store,
+// coalesced fan-out and interval-batched state history inserts, so database latency is absorbed by the ring
+// instead of the producers. The store itself flushes vehicle rows. A vehicle that stops reporting for the silence
+// timeout is handed back to the simulation and announced on /topic/telemetry/silent.
+@Service
+public class TelemetryIngestionService {
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryIngestionService.class);
+    private static final String TELEMETRY_TOPIC = "/topic/telemetry/";
+    private static final String BACKPRESSURE_TOPIC = "/topic/telemetry/backpressure";
+    private static final String VEHICLE_STATUS_TOPIC = "/topic/vehicle-status/";
+    private static final String SILENT_TOPIC = "/topic/telemetry/silent";
+    private static final String INSERT_STATE_SQL =
+        "INSERT INTO vehicle_states (vehicle_id, state, timestamp, notes, position_x, position_y, soc_percentage) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Roles that may report any vehicle; drivers only report the vehicles assigned to them
+    private static final Set<String> FLEET_ROLES = Set.of("ROLE_ADMIN", "ROLE_STATION_MANAGER");
+
+    private static final double MAX_SPEED_KMH = 400.0;
+    private static final long MAX_CLOCK_SKEW_SECONDS = 300;
+    private static final long UNKNOWN_VIN_RETRY_MS = 60_000;
+    private static final long IDLE_PARK_NANOS = 200_000;
+
+    private final FleetStateStore fleetStateStore;
+    private final VehicleRepository vehicleRepository;
+    private final GeofenceService geofenceService;
+    private final AlertRuleEngine alertRuleEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final TelemetryRingBuffer<TelemetryMessageDTO> ring;
+    private final int batchSize;
+    private final long persistIntervalMillis;
+    private final double highWatermark;
+    private final double lowWatermark;
+    private final Timer batchTimer;
+    private final DistributionSummary batchMessages;
+    private final Timer persistTimer;
+    private final TimeoutService timeoutService;
+    private final long silenceTimeoutMillis;
+    private final int silenceTimeouts;
+
+    // Consumer-only state
+    private final Map<String, Long> unknownVinsUntil = new HashMap<>();
+    private final double[] position = new double[2];
+    private final List<Object[]> transitions = new ArrayList<>();
+    private long lastPersistAt = System.currentTimeMillis();
+    private boolean lastPersistFailed;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong forbidden = new AtomicLong();
+    private final AtomicLong invalid = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong unknownVehicle = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong persistedRows = new AtomicLong();
+    private final AtomicLong persistFailures = new AtomicLong();
+    private final AtomicLong persistDropped = new AtomicLong();
+    private final AtomicLong persistRefused = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong silenced = new AtomicLong();
+    private volatile boolean backpressure;
+    private volatile double messagesPerSecond;
+
+    private volatile boolean running;
+    private Thread consumer;
+
+    public TelemetryIngestionService(FleetStateStore fleetStateStore,
+                                     VehicleRepository vehicleRepository,
+                                     GeofenceService geofenceService,
+                                     AlertRuleEngine alertRuleEngine,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     SimpMessagingTemplate messagingTemplate,
+                                     TimeoutService timeoutService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${telemetry.buffer-capacity:65536}") int bufferCapacity,
+                                     @Value("${telemetry.batch-size:1024}") int batchSize,
+                                     @Value("${telemetry.persist-interval-ms:1000}") long persistIntervalMillis,
+                                     @Value("${telemetry.backpressure.high-watermark:0.8}") double highWatermark,
+                                     @Value("${telemetry.backpressure.low-watermark:0.5}") double lowWatermark,
+                                     @Value("${telemetry.silence-timeout-ms:300000}") long silenceTimeoutMillis) {
+        this.fleetStateStore = fleetStateStore;
+        this.vehicleRepository = vehicleRepository;
+        this.geofenceService = geofenceService;
+        this.alertRuleEngine = alertRuleEngine;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.messagingTemplate = messagingTemplate;
+        this.ring = new TelemetryRingBuffer<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.persistIntervalMillis = persistIntervalMillis;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.timeoutService = timeoutService;
+        this.silenceTimeoutMillis = silenceTimeoutMillis;
+        this.silenceTimeouts = timeoutService.registerKind("telemetry-silence", this::silent);
+
+        this.batchTimer = Timer.builder("evfleet.telemetry.batch")
+            .description("Consumer pass over one drained batch, including fan-out")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.batchMessages = DistributionSummary.builder("evfleet.telemetry.batch.messages")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.persistTimer = Timer.builder("evfleet.telemetry.persist")
+            .description("Batch insert of state transitions")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        Gauge.builder("evfleet.telemetry.buffer.size", ring, TelemetryRingBuffer::size).register(meterRegistry);
+        Gauge.builder("evfleet.telemetry.backpressure", this, service -> service.backpressure ? 1 : 0)
+            .register(meterRegistry);
+        for (Map.Entry<String, AtomicLong> counter : Map.of("received", received, "accepted", accepted,
+                "rejected", rejected, "forbidden", forbidden, "invalid", invalid, "stale", stale, "unknown-vehicle", unknownVehicle,
+                "processed", processed).entrySet()) {
+            FunctionCounter.builder("evfleet.telemetry.messages", counter.getValue(), AtomicLong::get)
+                .tag("outcome", counter.getKey())
+                .register(meterRegistry);
+        }
+        FunctionCounter.builder("evfleet.telemetry.persisted.rows", persistedRows, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("evfleet.telemetry.persist.failures", persistFailures, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("evfleet.telemetry.persist.dropped", persistDropped, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("evfleet.telemetry.persist.refused", persistRefused, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("evfleet.telemetry.silenced", silenced, AtomicLong::get).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        consumer = new Thread(this::consume, "telemetry-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            consumer.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Never blocks; false means the ring is full and the sample was dropped
+    public boolean offer(TelemetryMessageDTO message) {
+        received.incrementAndGet();
+        if (message == null) {
+            invalid.incrementAndGet();
+            return false;
+        }
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(LocalDateTime.now());
+        }
+        if (ring.offer(message)) {
+            accepted.incrementAndGet();
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    // Offers every message the sender may report. Indexes of the ones the full buffer turned away (worth retrying)
+    // and of the ones for vehicles the sender may not report are returned separately.
+    public OfferResult offerAll(List<TelemetryMessageDTO> messages, Predicate<String> mayReport) {
+        int count = 0;
+        List<Integer> rejectedIndexes = new ArrayList<>();
+        List<Integer> forbiddenIndexes = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            TelemetryMessageDTO message = messages.get(i);
+            if (message != null && !mayReport.test(message.getVin())) {
+                received.incrementAndGet();
+                forbidden.incrementAndGet();
+                forbiddenIndexes.add(i);
+            } else if (offer(message)) {
+                count++;
+            } else if (message != null) {
+                rejectedIndexes.add(i);
+            }
+        }
+        return new OfferResult(count, rejectedIndexes, forbiddenIndexes);
+    }
+
+    // Fleet operators may report any vehicle, drivers only the vehicles assigned to them: one query per call
+    public Predicate<String> reportableBy(Principal principal) {
+        if (principal instanceof Authentication authentication) {
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                if (FLEET_ROLES.contains(authority.getAuthority())) {
+                    return vin -> true;
+                }
+            }
+        }
+        if (principal == null) {
+            return vin -> false;
+        }
+        Set<String> vins = new HashSet<>(vehicleRepository.findVinsByDriverUsername(principal.getName()));
+        return vins::contains;
+    }
+
+    public record OfferResult(int accepted, List<Integer> rejected, List<Integer> forbidden) {
+    }
+
+    public boolean isBackpressure() {
+        return backpressure;
+    }
+
+    // Latest merged sample, or null if the vehicle has not reported telemetry since startup
+    public TelemetryMessageDTO getLatest(String vin) {
+        VehicleLiveStateDTO live = fleetStateStore.snapshot(vin);
+        return live != null && "TELEMETRY".equals(live.getSource()) ? toMessage(live) : null;
+    }
+
+    public TelemetryStatsDTO getStats() {
+        TelemetryStatsDTO stats = new TelemetryStatsDTO();
+        stats.setReceived(received.get());
+        stats.setAccepted(accepted.get());
+        stats.setRejected(rejected.get());
+        stats.setForbidden(forbidden.get());
+        stats.setInvalid(invalid.get());
+        stats.setStale(stale.get());
+        stats.setUnknownVehicle(unknownVehicle.get());
+        stats.setProcessed(processed.get());
+        stats.setPersistedRows(persistedRows.get());
+        stats.setPersistFailures(persistFailures.get());
+        stats.setPersistDropped(persistDropped.get());
+        stats.setPersistRefused(persistRefused.get());
+        stats.setPublished(published.get());
+        stats.setSilenced(silenced.get());
+        stats.setBufferSize(ring.size());
+        stats.setBufferCapacity(ring.capacity());
+        stats.setBackpressure(backpressure);
+        stats.setMessagesPerSecond(messagesPerSecond);
+        return stats;
+    }
+
+    private void consume() {
+        List<TelemetryMessageDTO> batch = new ArrayList<>(batchSize);
+        long rateWindowStart = System.nanoTime();
+        long rateWindowCount = 0;
+
+        while (running || ring.size() > 0) {
+            batch.clear();
+            int drained = ring.drainTo(batch, batchSize);
+            try {
+                if (drained > 0) {
+                    long startNanos = System.nanoTime();
+                    process(batch);
+                    batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                    batchMessages.record(drained);
+                    rateWindowCount += drained;
+                }
+                updateBackpressure();
+                persistIfDue(false);
+            } catch (Exception e) {
+                logger.error("Telemetry batch of {} messages failed: {}", drained, e.getMessage());
+            }
+
+            long elapsed = System.nanoTime() - rateWindowStart;
+            if (elapsed >= 1_000_000_000L) {
+                messagesPerSecond = rateWindowCount * 1_000_000_000.0 / elapsed;
+                rateWindowStart = System.nanoTime();
+                rateWindowCount = 0;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        persistIfDue(true);
+    }
+
+    private void process(List<TelemetryMessageDTO> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        resolveVehicles(batch);
+
+        // Only the newest state per vehicle in a batch is worth sending to subscribers
+        Map<String, Integer> fanOut = new LinkedHashMap<>();
+        Map<String, Vehicle.VehicleState> stateChanges = new LinkedHashMap<>();
+
+        for (TelemetryMessageDTO message : batch) {
+            if (!isValid(message, now)) {
+                invalid.incrementAndGet();
+                continue;
+            }
+            int slot = fleetStateStore.slotOf(message.getVin());
+            if (slot == FleetStateStore.NO_SLOT) {
+                unknownVehicle.incrementAndGet();
+                continue;
+            }
+
+            // Samples may carry only the fields that changed; the store keeps the rest
+            Vehicle.VehicleState oldState = fleetStateStore.state(slot);
+            long sampledAt = message.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            if (!fleetStateStore.write(slot, FleetStateStore.SOURCE_TELEMETRY, value(message.getLatitude()),
+                    value(message.getLongitude()), value(message.getSpeed()), value(message.getBatteryLevel()),
+                    value(message.getOdometer()), message.getState(), sampledAt)) {
+                stale.incrementAndGet();
+                continue;
+            }
+            fanOut.put(message.getVin(), slot);
+            if (message.getLatitude() != null || message.getLongitude() != null) {
+                fleetStateStore.position(slot, position);
+                geofenceService.evaluate(slot, position[0], position[1], sampledAt);
+            }
+            alertRuleEngine.evaluate(slot, value(message.getSpeed()), value(message.getBatteryLevel()),
+                value(message.getOdometer()), sampledAt);
+
+            Vehicle.VehicleState newState = message.getState();
+            if (newState != null && oldState != null && oldState != newState) {
+                VehicleLiveStateDTO live = fleetStateStore.snapshot(slot);
+                transitions.add(new Object[]{live.getVehicleId(), newState.name(), Timestamp.valueOf(message.getTimestamp()),
+                    "State changed from " + oldState + " to " + newState + " (telemetry)",
+                    valueOrZero(live.getLatitude()), valueOrZero(live.getLongitude()),
+                    valueOrZero(live.getBatteryLevel())});
+                stateChanges.put(message.getVin(), newState);
+            }
+            processed.incrementAndGet();
+        }
+
+        // Re-arming once per vehicle and batch keeps the timer lock off the per-sample path
+        long silentAt = System.currentTimeMillis() + silenceTimeoutMillis;
+        fanOut.forEach((vin, slot) -> {
+            timeoutService.schedule(silenceTimeouts, slot, silentAt);
+            send(TELEMETRY_TOPIC + vin, toMessage(fleetStateStore.snapshot(slot)));
+        });
+        stateChanges.forEach((vin, state) -> send(VEHICLE_STATUS_TOPIC + vin, state));
+    }
+
+    // Timeout handler, keyed by store slot. The last known state stays; only the simulation may move the vehicle again.
+    // A sample written while the timer fired keeps the vehicle on telemetry, and the timer is re-armed in case that
+    // sample's batch re-armed it before this ran.
+    private void silent(long slot) {
+        long now = System.currentTimeMillis();
+        if (fleetStateStore.releaseTelemetry((int) slot, now - silenceTimeoutMillis)) {
+            silenced.incrementAndGet();
+            TelemetryMessageDTO last = toMessage(fleetStateStore.snapshot((int) slot));
+            logger.info("No telemetry from {} for {} ms", last.getVin(), silenceTimeoutMillis);
+            send(SILENT_TOPIC, last);
+        } else if (fleetStateStore.source((int) slot) == FleetStateStore.SOURCE_TELEMETRY) {
+            timeoutService.schedule(silenceTimeouts, slot, now + silenceTimeoutMillis);
+        }
+    }
+
+    // One IN query per batch for VINs the store does not know yet; unknown VINs are retried only after a cool-down
+    private void resolveVehicles(List<TelemetryMessageDTO> batch) {
+        long now = System.currentTimeMillis();
+        Set<String> missing = new HashSet<>();
+        for (TelemetryMessageDTO message : batch) {
+            String vin = message.getVin();
+            if (vin != null && fleetStateStore.slotOf(vin) == FleetStateStore.NO_SLOT) {
+                Long retryAt = unknownVinsUntil.get(vin);
+                if (retryAt == null || retryAt <= now) {
+                    missing.add(vin);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        fleetStateStore.load(missing);
+        for (String vin : missing) {
+            if (fleetStateStore.slotOf(vin) == FleetStateStore.NO_SLOT) {
+                unknownVinsUntil.put(vin, now + UNKNOWN_VIN_RETRY_MS);
+            } else {
+                unknownVinsUntil.remove(vin);
+            }
+        }
+    }
+
+    private boolean isValid(TelemetryMessageDTO message, LocalDateTime now) {
+        if (message.getVin() == null || message.getVin().isBlank()) {
+            return false;
+        }
+        if (message.getTimestamp().isAfter(now.plusSeconds(MAX_CLOCK_SKEW_SECONDS))) {
+            return false;
+        }
+        return inRange(message.getLatitude(), -90.0, 90.0)
+            && inRange(message.getLongitude(), -180.0, 180.0)
+            && inRange(message.getSpeed(), 0.0, MAX_SPEED_KMH)
+            && inRange(message.getBatteryLevel(), 0.0, 100.0)
+            && inRange(message.getOdometer(), 0.0, Double.MAX_VALUE);
+    }
+
+    private boolean inRange(Double value, double min, double max) {
+        return value == null || (value >= min && value <= max);
+    }
+
+    private TelemetryMessageDTO toMessage(VehicleLiveStateDTO live) {
+        TelemetryMessageDTO message = new TelemetryMessageDTO();
+        message.setVin(live.getVin());
+        message.setTimestamp(live.getUpdatedAt());
+        message.setLatitude(live.getLatitude());
+        message.setLongitude(live.getLongitude());
+        message.setSpeed(live.getSpeed());
+        message.setBatteryLevel(live.getBatteryLevel());
+        message.setOdometer(live.getOdometer());
+        message.setState(live.getState());
+        return message;
+    }
+
+    private void updateBackpressure() {
+        double fill = (double) ring.size() / ring.capacity();
+        if (!backpressure && fill >= highWatermark) {
+            backpressure = true;
+            send(BACKPRESSURE_TOPIC, Map.of("backpressure", true, "bufferFill", fill));
+            logger.warn("Telemetry buffer {}% full, signalling back-pressure", Math.round(fill * 100));
+        } else if (backpressure && fill <= lowWatermark) {
+            backpressure = false;
+            send(BACKPRESSURE_TOPIC, Map.of("backpressure", false, "bufferFill", fill));
+            logger.info("Telemetry buffer drained to {}%, back-pressure cleared", Math.round(fill * 100));
+        }
+    }
+
+    // State history rows are written in batches; vehicle rows are flushed by the fleet state store
+    private void persistIfDue(boolean force) {
+        long now = System.currentTimeMillis();
+        if (transitions.isEmpty()) {
+            lastPersistAt = now;
+            return;
+        }
+        // A full batch goes out early, unless the last attempt failed: then retries wait for the interval
+        boolean full = transitions.size() >= batchSize * 4 && !lastPersistFailed;
+        if (!force && now - lastPersistAt < persistIntervalMillis && !full) {
+            return;
+        }
+        lastPersistAt = now;
+
+        try {
+            // One transaction, so a failed batch leaves no rows behind for the row by row retry to insert twice
+            persistTimer.record(() -> transactionTemplate.executeWithoutResult(
+                status -> jdbcTemplate.batchUpdate(INSERT_STATE_SQL, transitions)));
+            persistedRows.addAndGet(transitions.size());
+            transitions.clear();
+            lastPersistFailed = false;
+        } catch (Exception e) {
+            if (isOutage(e)) {
+                keepForRetry(e);
+            } else {
+                persistRowByRow();
+            }
+        }
+    }
+
+    // A row the database refuses fails the whole batch; one by one, only the refused rows are dropped
+    private void persistRowByRow() {
+        int done = 0;
+        int refused = 0;
+        DataAccessException outage = null;
+        try {
+            for (; done < transitions.size(); done++) {
+                try {
+                    jdbcTemplate.update(INSERT_STATE_SQL, transitions.get(done));
+                    persistedRows.incrementAndGet();
+                } catch (DataAccessException e) {
+                    if (isOutage(e)) {
+                        throw e;
+                    }
+                    refused++;
+                    logger.warn("Dropped telemetry state change of vehicle {}: {}", transitions.get(done)[0],
+                        e.getMessage());
+                }
+            }
+        } catch (DataAccessException e) {
+            outage = e;
+        }
+        transitions.subList(0, done).clear();
+        persistRefused.addAndGet(refused);
+        if (outage != null) {
+            keepForRetry(outage);
+        } else {
+            lastPersistFailed = false;
+        }
+    }
+
+    // Kept for the next attempt; during a long outage only the newest rows, up to the ring's capacity, stay
+    private void keepForRetry(Exception e) {
+        persistFailures.incrementAndGet();
+        lastPersistFailed = true;
+        int excess = transitions.size() - ring.capacity();
+        if (excess > 0) {
+            transitions.subList(0, excess).clear();
+            persistDropped.addAndGet(excess);
+        }
+        logger.error("Failed to persist {} telemetry state changes, retrying next interval ({} oldest dropped): {}",
+            transitions.size(), Math.max(0, excess), e.getMessage());
+    }
+
+    // The database is unreachable or busy, as opposed to refusing particular rows
+    private static boolean isOutage(Exception e) {
+        return e instanceof DataAccessResourceFailureException || e instanceof TransientDataAccessException
+            || e instanceof RecoverableDataAccessException || e instanceof TransactionException;
+    }
+
+    private void send(String destination, Object payload) {
+        try {
+            messagingTemplate.convertAndSend(destination, payload);
+            published.incrementAndGet();
+        } catch (Exception e) {
+            logger.error("Error broadcasting telemetry to {}: {}", destination, e.getMessage());
+        }
+    }
+
+    private double valueOrZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private double value(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+}
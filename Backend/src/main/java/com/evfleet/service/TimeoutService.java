@@ -0,0 +1,199 @@
+package com.evfleet.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+// Shared deadlines on one hierarchical timer wheel. Owners register a kind with an expiry handler and then arm,
+// re-arm and disarm timers by (kind, id); all three are O(1) and allocation-free once a handle is recycled, so
+// millions of pending timers cost a few primitive array slots each. Handlers run on the scheduler thread after the
+// wheel's lock is released, so they may do I/O and schedule again. Timers live in memory only: owners re-arm theirs
+// from the database on startup.
+@Service
+public class TimeoutService {
+    private static final Logger logger = LoggerFactory.getLogger(TimeoutService.class);
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_LEVELS = 4;
+
+    private final List<String> kindNames = new ArrayList<>();
+    private final List<LongConsumer> handlers = new ArrayList<>();
+    private final List<AtomicLong> firedByKind = new ArrayList<>();
+
+    // Guarded by lock
+    private final Object lock = new Object();
+    private final TimerWheel wheel;
+    private final List<LongIntHashMap> handlesByKind = new ArrayList<>();
+    private int[] pendingByKind = new int[0];
+    private int[] freeHandles = new int[0];
+    private int freeCount;
+    private int handleCount;
+    private byte[] kinds = new byte[0];
+    private long[] ids = new long[0];
+    private int expiredCount;
+    private int[] expired = new int[16];
+    private final IntConsumer collector = this::collect;
+
+    private final MeterRegistry meterRegistry;
+    private final long tickMs;
+    private final AtomicLong handlerFailures = new AtomicLong();
+
+    public TimeoutService(MeterRegistry meterRegistry,
+                          @Value("${timeouts.tick-ms:1000}") long tickMs) {
+        this.meterRegistry = meterRegistry;
+        this.tickMs = tickMs;
+        this.wheel = new TimerWheel(tickMs, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+        Gauge.builder("evfleet.timeouts.pending", this, TimeoutService::pending).register(meterRegistry);
+        FunctionCounter.builder("evfleet.timeouts.handler.failures", handlerFailures, AtomicLong::get)
+            .register(meterRegistry);
+    }
+
+    // Called once per owner, typically from its constructor; the returned kind identifies its timers
+    public int registerKind(String name, LongConsumer handler) {
+        synchronized (lock) {
+            if (kindNames.contains(name) || kindNames.size() == Byte.MAX_VALUE) {
+                throw new IllegalStateException("Timeout kind " + name + " cannot be registered");
+            }
+            int kind = kindNames.size();
+            AtomicLong fired = new AtomicLong();
+            kindNames.add(name);
+            handlers.add(handler);
+            firedByKind.add(fired);
+            handlesByKind.add(new LongIntHashMap(16));
+            pendingByKind = Arrays.copyOf(pendingByKind, kind + 1);
+            FunctionCounter.builder("evfleet.timeouts.fired", fired, AtomicLong::get)
+                .tag("kind", name)
+                .register(meterRegistry);
+            return kind;
+        }
+    }
+
+    // Arms the timer, replacing any pending deadline for the same id
+    public void schedule(int kind, long id, long dueAtMs) {
+        synchronized (lock) {
+            wheel.schedule(handle(kind, id), dueAtMs);
+        }
+    }
+
+    public boolean cancel(int kind, long id) {
+        synchronized (lock) {
+            int handle = handlesByKind.get(kind).remove(id);
+            if (handle == LongIntHashMap.MISSING) {
+                return false;
+            }
+            wheel.cancel(handle);
+            pendingByKind[kind]--;
+            release(handle);
+            return true;
+        }
+    }
+
+    @Scheduled(fixedRateString = "${timeouts.tick-ms:1000}")
+    public void tick() {
+        int count;
+        byte[] firedKinds;
+        long[] firedIds;
+        synchronized (lock) {
+            expiredCount = 0;
+            wheel.advance(System.currentTimeMillis(), collector);
+            count = expiredCount;
+            if (count == 0) {
+                return;
+            }
+            firedKinds = new byte[count];
+            firedIds = new long[count];
+            for (int i = 0; i < count; i++) {
+                int handle = expired[i];
+                firedKinds[i] = kinds[handle];
+                firedIds[i] = ids[handle];
+                handlesByKind.get(kinds[handle]).remove(ids[handle]);
+                pendingByKind[kinds[handle]]--;
+                release(handle);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            firedByKind.get(firedKinds[i]).incrementAndGet();
+            try {
+                handlers.get(firedKinds[i]).accept(firedIds[i]);
+            } catch (Exception e) {
+                handlerFailures.incrementAndGet();
+                logger.error("Timeout handler {} failed for {}: {}", kindNames.get(firedKinds[i]), firedIds[i],
+                    e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<String, Object> byKind = new LinkedHashMap<>();
+        synchronized (lock) {
+            for (int kind = 0; kind < kindNames.size(); kind++) {
+                byKind.put(kindNames.get(kind), Map.of("pending", pendingByKind[kind],
+                    "fired", firedByKind.get(kind).get()));
+            }
+            stats.put("pending", wheel.size());
+            stats.put("handles", handleCount);
+        }
+        stats.put("kinds", byKind);
+        stats.put("tickMs", tickMs);
+        stats.put("handlerFailures", handlerFailures.get());
+        return stats;
+    }
+
+    // Wheel callback, under lock
+    private void collect(int handle) {
+        if (expiredCount == expired.length) {
+            expired = Arrays.copyOf(expired, expired.length * 2);
+        }
+        expired[expiredCount++] = handle;
+    }
+
+    private int handle(int kind, long id) {
+        LongIntHashMap handles = handlesByKind.get(kind);
+        int handle = handles.get(id);
+        if (handle != LongIntHashMap.MISSING) {
+            return handle;
+        }
+        handle = allocate();
+        kinds[handle] = (byte) kind;
+        ids[handle] = id;
+        handles.putIfAbsent(id, handle);
+        pendingByKind[kind]++;
+        return handle;
+    }
+
+    private int pending() {
+        synchronized (lock) {
+            return wheel.size();
+        }
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeHandles[--freeCount];
+        }
+        int handle = handleCount++;
+        if (handle >= ids.length) {
+            int length = Math.max(16, ids.length * 2);
+            kinds = Arrays.copyOf(kinds, length);
+            ids = Arrays.copyOf(ids, length);
+        }
+        return handle;
+    }
+
+    private void release(int handle) {
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, Math.max(16, freeHandles.length * 2));
+        }
+        freeHandles[freeCount++] = handle;
+    }
+}
@@ -0,0 +1,219 @@
+package com.evfleet.service;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Hierarchical timing wheel over int handles. Each level has the same number of buckets, each bucket spanning a full
+// revolution of the level below, so a handle due within wheelSize^levels ticks sits in the coarsest level that fits
+// and moves down a level (at most levels - 1 times) as its time approaches. Handles further out wait in the top level
+// until it comes round to their tick. Buckets are intrusive doubly linked lists threaded through primitive arrays, so
+// scheduling, rescheduling and cancelling are O(1) and allocate nothing. Not thread-safe: callers serialize.
+final class TimerWheel {
+    private static final int NONE = -1;
+
+    private final long tickMs;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final int[] heads;
+    private int[] next = new int[0];
+    private int[] prev = new int[0];
+    private int[] bucketOf = new int[0];
+    private long[] dueTick = new long[0];
+    private long currentTick;
+    private int size;
+
+    // A single-level hashed wheel
+    TimerWheel(long tickMs, int wheelSize, long startMs) {
+        this(tickMs, wheelSize, 1, startMs);
+    }
+
+    // Wheel size is rounded up to a power of two
+    TimerWheel(long tickMs, int wheelSize, int levels, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 0 || levels <= 0) {
+            throw new IllegalArgumentException("Timer wheel needs a positive tick, size and number of levels");
+        }
+        this.tickMs = tickMs;
+        int buckets = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.bits = Integer.numberOfTrailingZeros(buckets);
+        if ((long) bits * levels >= Long.SIZE - 1) {
+            throw new IllegalArgumentException("Timer wheel levels exceed the range of a tick");
+        }
+        this.mask = buckets - 1;
+        this.levels = levels;
+        this.heads = new int[buckets * levels];
+        Arrays.fill(heads, NONE);
+        this.currentTick = startMs / tickMs;
+    }
+
+    // Replaces any pending timer for the handle. Due times round up to the tick, so a timer never fires early;
+    // times already past fire with the next tick the wheel has not yet processed.
+    void schedule(int handle, long dueAtMs) {
+        ensureHandle(handle);
+        if (bucketOf[handle] != NONE) {
+            unlink(handle);
+        } else {
+            size++;
+        }
+        dueTick[handle] = Math.max(currentTick, Math.floorDiv(dueAtMs + tickMs - 1, tickMs));
+        place(handle);
+    }
+
+    boolean cancel(int handle) {
+        if (handle >= bucketOf.length || bucketOf[handle] == NONE) {
+            return false;
+        }
+        unlink(handle);
+        size--;
+        return true;
+    }
+
+    boolean isScheduled(int handle) {
+        return handle < bucketOf.length && bucketOf[handle] != NONE;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Fires every handle due at or before now, tick by tick. A handle is unscheduled before its callback runs, so
+    // the callback may schedule it again (anything scheduled into the past fires on a later tick), but it must not
+    // touch other handles: the ones still to fire are chained through the same arrays.
+    int advance(long nowMs, IntConsumer expired) {
+        long nowTick = nowMs / tickMs;
+        int fired = 0;
+        if (size == 0) {
+            currentTick = Math.max(currentTick, nowTick + 1);
+            return 0;
+        }
+        // After a stall of more than a revolution of the first level, one pass over every bucket is cheaper than
+        // walking the ticks; whatever is not yet due is placed again relative to the new current tick
+        if (nowTick - currentTick > mask) {
+            currentTick = nowTick + 1;
+            int chain = NONE;
+            int later = NONE;
+            for (int bucket = 0; bucket < heads.length; bucket++) {
+                int handle = detach(bucket);
+                while (handle != NONE) {
+                    int following = next[handle];
+                    if (dueTick[handle] <= nowTick) {
+                        size--;
+                        next[handle] = chain;
+                        chain = handle;
+                    } else {
+                        next[handle] = later;
+                        later = handle;
+                    }
+                    handle = following;
+                }
+            }
+            replace(later);
+            return fire(chain, expired);
+        }
+        while (currentTick <= nowTick) {
+            long tick = currentTick;
+            cascade(tick);
+            int due = collect((int) (tick & mask), tick);
+            currentTick = tick + 1;
+            fired += fire(due, expired);
+        }
+        return fired;
+    }
+
+    // Moves handles down from every level whose bucket boundary this tick crosses
+    private void cascade(long tick) {
+        for (int level = 1; level < levels; level++) {
+            if ((tick & ((1L << (bits * level)) - 1)) != 0) {
+                return;
+            }
+            replace(detach(level * (mask + 1) + (int) ((tick >>> (bits * level)) & mask)));
+        }
+    }
+
+    // Unlinks the first-level bucket's handles due by the tick into a chain through next[]
+    private int collect(int bucket, long tick) {
+        int chain = NONE;
+        int handle = heads[bucket];
+        while (handle != NONE) {
+            int following = next[handle];
+            if (dueTick[handle] <= tick) {
+                unlink(handle);
+                size--;
+                next[handle] = chain;
+                chain = handle;
+            }
+            handle = following;
+        }
+        return chain;
+    }
+
+    private int fire(int chain, IntConsumer expired) {
+        int fired = 0;
+        while (chain != NONE) {
+            int handle = chain;
+            chain = next[handle];
+            expired.accept(handle);
+            fired++;
+        }
+        return fired;
+    }
+
+    // Empties a bucket, returning its handles chained through next[] and marked unscheduled
+    private int detach(int bucket) {
+        int chain = heads[bucket];
+        heads[bucket] = NONE;
+        for (int handle = chain; handle != NONE; handle = next[handle]) {
+            bucketOf[handle] = NONE;
+        }
+        return chain;
+    }
+
+    private void replace(int chain) {
+        while (chain != NONE) {
+            int handle = chain;
+            chain = next[handle];
+            place(handle);
+        }
+    }
+
+    // Links a handle into the coarsest level whose revolution still reaches its tick
+    private void place(int handle) {
+        long delta = dueTick[handle] - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >>> (bits * (level + 1)) != 0) {
+            level++;
+        }
+        int bucket = level * (mask + 1) + (int) ((dueTick[handle] >>> (bits * level)) & mask);
+        bucketOf[handle] = bucket;
+        next[handle] = heads[bucket];
+        prev[handle] = NONE;
+        if (heads[bucket] != NONE) {
+            prev[heads[bucket]] = handle;
+        }
+        heads[bucket] = handle;
+    }
+
+    private void unlink(int handle) {
+        if (prev[handle] != NONE) {
+            next[prev[handle]] = next[handle];
+        } else {
+            heads[bucketOf[handle]] = next[handle];
+        }
+        if (next[handle] != NONE) {
+            prev[next[handle]] = prev[handle];
+        }
+        bucketOf[handle] = NONE;
+    }
+
+    private void ensureHandle(int handle) {
+        if (handle >= bucketOf.length) {
+            int length = Math.max(handle + 1, Math.max(16, bucketOf.length * 2));
+            int from = bucketOf.length;
+            next = Arrays.copyOf(next, length);
+            prev = Arrays.copyOf(prev, length);
+            dueTick = Arrays.copyOf(dueTick, length);
+            bucketOf = Arrays.copyOf(bucketOf, length);
+            Arrays.fill(bucketOf, from, length, NONE);
+        }
+    }
+}
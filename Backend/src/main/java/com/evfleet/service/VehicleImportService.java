@@ -0,0 +1,405 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.SimulationVehicleDTO;
+import com.evfleet.dto.VehicleDTO;
+import com.evfleet.dto.VehicleImportResultDTO;
+import com.evfleet.entity.Vehicle;
+import com.evfleet.repository.VehicleRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Path;
+import jakarta.validation.TraversableResolver;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.annotation.ElementType;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// Bulk vehicle onboarding. Rows are parsed one at a time from a JSON array or a CSV file with a header row,
+// validated against the same constraints as single registration and written in chunks: one set-based VIN/name
+// lookup, one batch insert of the vehicles and one of their initial states per chunk, each chunk in its own
+// transaction. Rejected rows go to the per-row error report instead of failing the import.
+@Service
+public class VehicleImportService {
+    private static final Logger logger = LoggerFactory.getLogger(VehicleImportService.class);
+    private static final String INSERT_VEHICLE_SQL =
+        "INSERT INTO vehicles (vin, name, make, model, year, battery_capacity, current_battery_level, efficiency, " +
+        "current_speed, latitude, longitude, odometer, current_state, last_charged_level, active, initial_soc, type, " +
+        "total_energy_consumed, total_energy_charged, regenerative_energy, total_operating_hours, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_IDS_SQL = "SELECT id, vin FROM vehicles WHERE vin IN (";
+    private static final String INSERT_STATE_SQL =
+        "INSERT INTO vehicle_states (vehicle_id, state, timestamp, notes, position_x, position_y, soc_percentage) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INITIAL_STATE_NOTES = "Initial state - Vehicle registered";
+
+    public enum Format {
+        JSON,
+        CSV
+    }
+
+    private final VehicleRepository vehicleRepository;
+    private final FleetStateStore fleetStateStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public VehicleImportService(VehicleRepository vehicleRepository,
+                                FleetStateStore fleetStateStore,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ObjectMapper objectMapper,
+                                ValidatorFactory validatorFactory,
+                                @Value("${vehicle.import.chunk-size:1000}") int chunkSize,
+                                @Value("${vehicle.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.vehicleRepository = vehicleRepository;
+        this.fleetStateStore = fleetStateStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        // Rows are plain DTOs, so skip the JPA traversable resolver's lazy-loading probe on every property
+        this.validator = validatorFactory.usingContext().traversableResolver(new TraversableResolver() {
+            @Override
+            public boolean isReachable(Object bean, Path.Node property, Class<?> rootBeanType, Path path, ElementType elementType) {
+                return true;
+            }
+
+            @Override
+            public boolean isCascadable(Object bean, Path.Node property, Class<?> rootBeanType, Path path, ElementType elementType) {
+                return true;
+            }
+        }).getValidator();
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    // Rows are committed chunk by chunk, so a malformed tail still leaves the rows before it imported
+    public VehicleImportResultDTO importVehicles(InputStream input, Format format) throws IOException {
+        long startNanos = System.nanoTime();
+        Run run = new Run();
+        try {
+            if (format == Format.CSV) {
+                readCsv(input, run);
+            } else {
+                readJson(input, run);
+            }
+        } catch (JsonProcessingException e) {
+            run.reject(run.result.getTotalRows() + 1, null, "Malformed input, import stopped: " + e.getOriginalMessage());
+        } finally {
+            run.flush();
+        }
+
+        VehicleImportResultDTO result = run.result;
+        long elapsedNanos = Math.max(1L, System.nanoTime() - startNanos);
+        result.setDurationMs(elapsedNanos / 1_000_000);
+        result.setVehiclesPerSecond(result.getImported() * 1_000_000_000.0 / elapsedNanos);
+        logger.info("Vehicle import finished: {} rows, {} imported, {} duplicates, {} failed in {} ms",
+            result.getTotalRows(), result.getImported(), result.getDuplicates(), result.getFailed(), result.getDurationMs());
+        return result;
+    }
+
+    // For fleets the application builds itself: same chunked existence check and batch inserts, no row validation
+    public VehicleImportResultDTO registerAll(List<VehicleDTO> vehicles) {
+        Run run = new Run();
+        for (VehicleDTO vehicle : vehicles) {
+            run.result.setTotalRows(run.result.getTotalRows() + 1);
+            run.add(run.result.getTotalRows(), vehicle);
+        }
+        run.flush();
+        return run.result;
+    }
+
+    private void readJson(InputStream input, Run run) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of vehicles");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                run.accept(parser.readValueAsTree());
+            }
+            if (token != JsonToken.END_ARRAY) {
+                run.reject(run.result.getTotalRows() + 1, null, "Expected a vehicle object, import stopped at " + token);
+            }
+        }
+    }
+
+    private void readCsv(InputStream input, Run run) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String headerLine = reader.readLine();
+        if (headerLine == null || headerLine.isBlank()) {
+            throw new IllegalArgumentException("CSV import needs a header row");
+        }
+        if (headerLine.startsWith("\uFEFF")) {
+            headerLine = headerLine.substring(1);
+        }
+        List<String> header = splitCsvLine(headerLine);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> values = splitCsvLine(line);
+            ObjectNode row = objectMapper.createObjectNode();
+            for (int i = 0; i < Math.min(header.size(), values.size()); i++) {
+                if (!values.get(i).isEmpty()) {
+                    row.put(header.get(i), values.get(i));
+                }
+            }
+            if (values.size() != header.size()) {
+                run.rejectRow(row.path("vin").asText(null), "Expected " + header.size() + " columns, found " + values.size());
+                continue;
+            }
+            run.accept(row);
+        }
+    }
+
+    // One CSV record per line; quoted fields may contain commas and "" escapes
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(wasQuoted ? field.toString() : field.toString().trim());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(wasQuoted ? field.toString() : field.toString().trim());
+        return fields;
+    }
+
+    VehicleDTO toVehicleDTO(SimulationVehicleDTO row) {
+        VehicleDTO vehicleDTO = new VehicleDTO();
+        vehicleDTO.setVin(row.getVin());
+        vehicleDTO.setName(row.getName() != null ? row.getName()
+            : row.getMake() + " " + row.getModel() + " " + row.getVin());
+        vehicleDTO.setMake(row.getMake());
+        vehicleDTO.setModel(row.getModel());
+        vehicleDTO.setYear(row.getYear());
+        vehicleDTO.setBatteryCapacity(row.getBatteryCapacity());
+        vehicleDTO.setCurrentBatteryLevel(row.getCurrentBatteryLevel());
+        vehicleDTO.setEfficiency(row.getEfficiency());
+        vehicleDTO.setCurrentSpeed(row.getCurrentSpeed());
+        vehicleDTO.setLatitude(row.getLatitude());
+        vehicleDTO.setLongitude(row.getLongitude());
+        vehicleDTO.setOdometer(row.getOdometer());
+        vehicleDTO.setCurrentState(Vehicle.VehicleState.AVAILABLE);
+        vehicleDTO.setLastChargedLevel(row.getCurrentBatteryLevel());
+        vehicleDTO.setInitialSoc(row.getCurrentBatteryLevel());
+        vehicleDTO.setType(row.getType());
+        return vehicleDTO;
+    }
+
+    private List<Vehicle> insertChunk(List<PendingRow> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Vehicle> vehicles = new ArrayList<>(rows.size());
+        List<Object[]> vehicleRows = new ArrayList<>(rows.size());
+        Map<String, Vehicle> byVin = new HashMap<>();
+        for (PendingRow row : rows) {
+            // Same defaults the entity's @PrePersist applies on a single registration
+            Vehicle vehicle = row.vehicle.toEntity();
+            vehicle.setCurrentState(Vehicle.VehicleState.AVAILABLE);
+            vehicle.setActive(true);
+            vehicle.setInitialSoc(vehicle.getCurrentBatteryLevel());
+            vehicles.add(vehicle);
+            byVin.put(vehicle.getVin(), vehicle);
+            vehicleRows.add(new Object[]{
+                vehicle.getVin(), vehicle.getName(), vehicle.getMake(), vehicle.getModel(), vehicle.getYear(),
+                vehicle.getBatteryCapacity(), vehicle.getCurrentBatteryLevel(), vehicle.getEfficiency(),
+                vehicle.getCurrentSpeed(), vehicle.getLatitude(), vehicle.getLongitude(), vehicle.getOdometer(),
+                vehicle.getCurrentState().name(), vehicle.getLastChargedLevel(), vehicle.getActive(),
+                vehicle.getInitialSoc(), vehicle.getType(), 0.0, 0.0, 0.0, 0.0, now, now
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_VEHICLE_SQL, vehicleRows);
+
+        // Generated ids for the whole chunk in one query instead of one per row
+        String placeholders = String.join(",", Collections.nCopies(byVin.size(), "?"));
+        jdbcTemplate.query(SELECT_IDS_SQL + placeholders + ")",
+            rs -> { byVin.get(rs.getString(2)).setId(rs.getLong(1)); }, byVin.keySet().toArray());
+
+        List<Object[]> stateRows = new ArrayList<>(vehicles.size());
+        for (Vehicle vehicle : vehicles) {
+            stateRows.add(new Object[]{
+                vehicle.getId(), Vehicle.VehicleState.AVAILABLE.name(), now, INITIAL_STATE_NOTES,
+                vehicle.getLatitude(), vehicle.getLongitude(), vehicle.getCurrentBatteryLevel()
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_STATE_SQL, stateRows);
+        return vehicles;
+    }
+
+    private record PendingRow(long row, VehicleDTO vehicle) {
+    }
+
+    // State of one import: the chunk being filled, what has been seen so far and the report
+    private class Run {
+        private final VehicleImportResultDTO result = new VehicleImportResultDTO();
+        private final Set<String> seenVins = new HashSet<>();
+        private final Set<String> seenNames = new HashSet<>();
+        private List<PendingRow> chunk = new ArrayList<>();
+
+        void accept(JsonNode node) {
+            long row = result.getTotalRows() + 1;
+            result.setTotalRows(row);
+            String vin = node.path("vin").asText(null);
+
+            VehicleDTO vehicle;
+            try {
+                vehicle = toVehicleDTO(objectMapper.treeToValue(node, SimulationVehicleDTO.class));
+            } catch (JsonProcessingException e) {
+                reject(row, vin, "Unreadable row: " + e.getOriginalMessage());
+                return;
+            }
+
+            Set<ConstraintViolation<VehicleDTO>> violations = validator.validate(vehicle);
+            if (!violations.isEmpty()) {
+                reject(row, vin, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+                return;
+            }
+            add(row, vehicle);
+        }
+
+        void add(long row, VehicleDTO vehicle) {
+            String vin = vehicle.getVin();
+            if (seenVins.contains(vin)) {
+                duplicate(row, vin, "Vehicle with VIN " + vin + " appears earlier in the import");
+                return;
+            }
+            if (!seenNames.add(vehicle.getName())) {
+                reject(row, vin, "Vehicle name " + vehicle.getName() + " appears earlier in the import");
+                return;
+            }
+            seenVins.add(vin);
+
+            chunk.add(new PendingRow(row, vehicle));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<PendingRow> pending = chunk;
+            chunk = new ArrayList<>();
+            result.setChunks(result.getChunks() + 1);
+
+            Set<String> vins = new HashSet<>();
+            Set<String> names = new HashSet<>();
+            for (PendingRow row : pending) {
+                vins.add(row.vehicle.getVin());
+                names.add(row.vehicle.getName());
+            }
+            Set<String> takenVins = new HashSet<>();
+            Set<String> takenNames = new HashSet<>();
+            for (Object[] existing : vehicleRepository.findVinAndNameByVinInOrNameIn(vins, names)) {
+                takenVins.add((String) existing[0]);
+                takenNames.add((String) existing[1]);
+            }
+
+            List<PendingRow> inserts = new ArrayList<>(pending.size());
+            for (PendingRow row : pending) {
+                String vin = row.vehicle.getVin();
+                if (takenVins.contains(vin)) {
+                    duplicate(row.row, vin, "Vehicle with VIN " + vin + " already exists");
+                } else if (takenNames.contains(row.vehicle.getName())) {
+                    reject(row.row, vin, "Vehicle with name " + row.vehicle.getName() + " already exists");
+                } else {
+                    inserts.add(row);
+                }
+            }
+            if (inserts.isEmpty()) {
+                return;
+            }
+
+            try {
+                List<Vehicle> vehicles = transactionTemplate.execute(status -> insertChunk(inserts));
+                vehicles.forEach(fleetStateStore::register);
+                result.setImported(result.getImported() + vehicles.size());
+                logger.debug("Vehicle import chunk {} done: {} inserted, up to row {}",
+                    result.getChunks(), vehicles.size(), pending.get(pending.size() - 1).row);
+            } catch (Exception e) {
+                // Typically a concurrent registration taking one of the VINs; the whole chunk was rolled back
+                logger.warn("Vehicle import chunk {} failed: {}", result.getChunks(), e.getMessage());
+                for (PendingRow row : inserts) {
+                    reject(row.row, row.vehicle.getVin(), "Chunk insert failed: " + e.getMessage());
+                }
+            }
+        }
+
+        void rejectRow(String vin, String message) {
+            long row = result.getTotalRows() + 1;
+            result.setTotalRows(row);
+            reject(row, vin, message);
+        }
+
+        void reject(long row, String vin, String message) {
+            result.setFailed(result.getFailed() + 1);
+            report(row, vin, message);
+        }
+
+        void duplicate(long row, String vin, String message) {
+            result.setDuplicates(result.getDuplicates() + 1);
+            report(row, vin, message);
+        }
+
+        private void report(long row, String vin, String message) {
+            if (result.getErrors().size() >= maxReportedErrors) {
+                result.setErrorsTruncated(true);
+                return;
+            }
+            VehicleImportResultDTO.RowErrorDTO error = new VehicleImportResultDTO.RowErrorDTO();
+            error.setRow(row);
+            error.setVin(vin);
+            error.setMessage(message);
+            result.getErrors().add(error);
+        }
+    }
+}
@@ -1,34 +1,59 @@
 package com.evfleet.service;
 
+import com.evfleet.dto.AlertEventDTO;
+import com.evfleet.dto.DispatchAssignmentDTO;
 import com.evfleet.entity.Vehicle;
 import com.evfleet.entity.VehicleState;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class VehicleRecommendationService {
 
-    private static final double CRITICAL_BATTERY_LEVEL = 20.0;
-    private static final double WARNING_BATTERY_LEVEL = 30.0;
-    private static final double HIGH_SPEED_THRESHOLD = 100.0; // km/h
+    // Charging dispatch considers vehicles at or below this level
+    static final double WARNING_BATTERY_LEVEL = 30.0;
     private static final double HIGH_TRAFFIC_SPEED_REDUCTION = 0.7; // 30% speed reduction in high traffic
 
+    private final EnergyConsumptionModel energyConsumptionModel;
+    private final ChargingDispatchService chargingDispatchService;
+    private final AlertRuleEngine alertRuleEngine;
+
+    public VehicleRecommendationService(EnergyConsumptionModel energyConsumptionModel,
+                                        ChargingDispatchService chargingDispatchService,
+                                        AlertRuleEngine alertRuleEngine) {
+        this.energyConsumptionModel = energyConsumptionModel;
+        this.chargingDispatchService = chargingDispatchService;
+        this.alertRuleEngine = alertRuleEngine;
+    }
+
     public Map<String, Object> generateRecommendations(Vehicle vehicle) {
         Map<String, Object> recommendations = new HashMap<>();
+        List<AlertEventDTO> alerts = alerts(vehicle);
+        recommendations.put("alerts", alerts);
+
+        // Battery level recommendations, from the most severe battery alert rule
+        AlertEventDTO batteryAlert = mostSevere(alerts, "batteryLevel");
+        if (batteryAlert != null) {
+            recommendations.put("batteryAlert", batteryAlert.getSeverity());
+            recommendations.put("batteryRecommendation",
+                    "CRITICAL".equals(batteryAlert.getSeverity()) ? "IMMEDIATE_CHARGING" : "PLAN_CHARGING");
+        }
 
-        // Battery level recommendations
-        if (vehicle.getCurrentBatteryLevel() <= CRITICAL_BATTERY_LEVEL) {
-            recommendations.put("batteryAlert", "CRITICAL");
-            recommendations.put("batteryRecommendation", "IMMEDIATE_CHARGING");
-        } else if (vehicle.getCurrentBatteryLevel() <= WARNING_BATTERY_LEVEL) {
-            recommendations.put("batteryAlert", "WARNING");
-            recommendations.put("batteryRecommendation", "PLAN_CHARGING");
+        // Where to charge, from the latest dispatch run
+        DispatchAssignmentDTO assignment = chargingDispatchService.getAssignment(vehicle.getVin());
+        if (assignment != null) {
+            recommendations.put("recommendedStationId", assignment.getStationId());
+            recommendations.put("recommendedStationName", assignment.getStationName());
+            recommendations.put("recommendedStationDistanceKm", assignment.getDistanceKm());
+            recommendations.put("expectedWaitMinutes", assignment.getExpectedWaitMinutes());
         }
 
         // Speed recommendations
-        if (vehicle.getCurrentSpeed() > HIGH_SPEED_THRESHOLD) {
+        if (mostSevere(alerts, "speed") != null) {
             double recommendedSpeed = vehicle.getCurrentSpeed() * HIGH_TRAFFIC_SPEED_REDUCTION;
             recommendations.put("speedRecommendation", "REDUCE_SPEED");
             recommendations.put("recommendedSpeed", recommendedSpeed);
@@ -42,27 +67,37 @@ public class VehicleRecommendationService {
     }
 
     private double calculateRemainingRange(Vehicle vehicle) {
-        // Calculate remaining range based on current battery level and vehicle efficiency
         double availableEnergy = (vehicle.getCurrentBatteryLevel() / 100.0) * vehicle.getBatteryCapacity();
+
+        // Prefer the consumption learned from trip logs for this vehicle type
+        int typeIndex = energyConsumptionModel.typeIndex(vehicle.getType());
+        if (typeIndex >= 0) {
+            return energyConsumptionModel.predictRangeKm(typeIndex, availableEnergy * 1000.0); // km
+        }
+
+        // Fall back to the vehicle's rated efficiency
         return (availableEnergy / vehicle.getEfficiency()) * 100; // km
     }
 
     public String generateNotification(Vehicle vehicle) {
         StringBuilder notification = new StringBuilder();
+        List<AlertEventDTO> alerts = alerts(vehicle);
 
         // Battery notifications
-        if (vehicle.getCurrentBatteryLevel() <= CRITICAL_BATTERY_LEVEL) {
+        AlertEventDTO batteryAlert = mostSevere(alerts, "batteryLevel");
+        if (batteryAlert != null && "CRITICAL".equals(batteryAlert.getSeverity())) {
             notification.append("CRITICAL: Battery level at ")
                     .append(vehicle.getCurrentBatteryLevel())
                     .append("%. Immediate charging required.\n");
-        } else if (vehicle.getCurrentBatteryLevel() <= WARNING_BATTERY_LEVEL) {
-            notification.append("WARNING: Battery level at ")
+        } else if (batteryAlert != null) {
+            notification.append(batteryAlert.getSeverity())
+                    .append(": Battery level at ")
                     .append(vehicle.getCurrentBatteryLevel())
                     .append("%. Plan charging soon.\n");
         }
 
         // Speed notifications
-        if (vehicle.getCurrentSpeed() > HIGH_SPEED_THRESHOLD) {
+        if (mostSevere(alerts, "speed") != null) {
             notification.append("High speed detected: ")
                     .append(vehicle.getCurrentSpeed())
                     .append(" km/h. Consider reducing speed for better efficiency.\n");
@@ -70,4 +105,28 @@ public class VehicleRecommendationService {
 
         return notification.toString().trim();
     }
+
+    // Thresholds come from the configured alert rules rather than constants here
+    private List<AlertEventDTO> alerts(Vehicle vehicle) {
+        return alertRuleEngine.alertsFor(vehicle.getVin(), valueOrNaN(vehicle.getCurrentSpeed()),
+                valueOrNaN(vehicle.getCurrentBatteryLevel()), valueOrNaN(vehicle.getOdometer()));
+    }
+
+    private AlertEventDTO mostSevere(List<AlertEventDTO> alerts, String metric) {
+        AlertEventDTO best = null;
+        for (AlertEventDTO alert : alerts) {
+            if (metric.equals(alert.getMetric()) && (best == null || severityRank(alert) > severityRank(best))) {
+                best = alert;
+            }
+        }
+        return best;
+    }
+
+    private int severityRank(AlertEventDTO alert) {
+        return Arrays.asList(AlertRules.SEVERITIES).indexOf(alert.getSeverity());
+    }
+
+    private double valueOrNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
 } 
\ No newline at end of file
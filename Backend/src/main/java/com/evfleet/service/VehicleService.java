@@ -1,7 +1,10 @@
 package com.evfleet.service;
 
+import com.evfleet.dto.ChangeSetDTO;
 import com.evfleet.dto.VehicleDTO;
+import com.evfleet.dto.VehicleLiveStateDTO;
 import com.evfleet.dto.VehicleStateDTO;
+import com.evfleet.entity.Tombstone;
 import com.evfleet.entity.Vehicle;
 import com.evfleet.entity.VehicleState;
 import com.evfleet.entity.User;
@@ -14,6 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,11 +26,16 @@ public class VehicleService {
     private final VehicleRepository vehicleRepository;
     private final VehicleStateRepository vehicleStateRepository;
     private final UserRepository userRepository;
+    private final FleetStateStore fleetStateStore;
+    private final ChangeLogService changeLogService;
 
-    public VehicleService(VehicleRepository vehicleRepository, VehicleStateRepository vehicleStateRepository, UserRepository userRepository) {
+    public VehicleService(VehicleRepository vehicleRepository, VehicleStateRepository vehicleStateRepository, UserRepository userRepository,
+                          FleetStateStore fleetStateStore, ChangeLogService changeLogService) {
         this.vehicleRepository = vehicleRepository;
         this.vehicleStateRepository = vehicleStateRepository;
         this.userRepository = userRepository;
+        this.fleetStateStore = fleetStateStore;
+        this.changeLogService = changeLogService;
     }
 
     @Transactional
@@ -50,23 +59,56 @@ public class VehicleService {
         state.setSocPercentage(vehicle.getCurrentBatteryLevel());
         vehicleStateRepository.save(state);
 
+        fleetStateStore.register(vehicle);
         return VehicleDTO.fromEntity(vehicle);
     }
 
     @Transactional(readOnly = true)
     public VehicleDTO getVehicle(Long id) {
         return vehicleRepository.findById(id)
-                .map(VehicleDTO::fromEntity)
+                .map(this::toLiveDto)
                 .orElseThrow(() -> new EntityNotFoundException("Vehicle not found with id: " + id));
     }
 
     @Transactional(readOnly = true)
     public List<VehicleDTO> getAllVehicles() {
         return vehicleRepository.findAll().stream()
-                .map(VehicleDTO::fromEntity)
+                .map(this::toLiveDto)
                 .collect(Collectors.toList());
     }
 
+    // Vehicles whose record changed since the cursor, with their live state; live state alone does not move updated_at
+    public ChangeSetDTO<VehicleDTO> getVehicleChanges(Long since) {
+        return changeLogService.changesSince(since, Tombstone.EntityType.VEHICLE,
+                from -> vehicleRepository.findByUpdatedAtAfter(from).stream()
+                        .map(this::toLiveDto)
+                        .collect(Collectors.toList()),
+                this::getAllVehicles);
+    }
+
+    public List<VehicleLiveStateDTO> getLiveStates() {
+        return fleetStateStore.snapshotAll();
+    }
+
+    public VehicleLiveStateDTO getLiveState(String vin) {
+        VehicleLiveStateDTO live = fleetStateStore.snapshot(vin);
+        if (live == null) {
+            throw new EntityNotFoundException("Vehicle not found with VIN: " + vin);
+        }
+        return live;
+    }
+
+    public Map<String, Object> getLiveStateStats() {
+        return fleetStateStore.getStats();
+    }
+
+    // Position, speed, SoC and state come from the live store, which is ahead of the row between flushes
+    private VehicleDTO toLiveDto(Vehicle vehicle) {
+        VehicleDTO dto = VehicleDTO.fromEntity(vehicle);
+        fleetStateStore.overlay(dto);
+        return dto;
+    }
+
     @Transactional
     public VehicleStateDTO updateVehicleState(Long vehicleId, VehicleStateDTO stateDTO) {
         Vehicle vehicle = vehicleRepository.findById(vehicleId)
@@ -79,15 +121,17 @@ public class VehicleService {
         state.setNotes(stateDTO.getNotes());
 
         // Set the required fields from the vehicle's current position and battery
+        fleetStateStore.overlay(vehicle);
         state.setPositionX(vehicle.getLatitude());
         state.setPositionY(vehicle.getLongitude());
         state.setSocPercentage(vehicle.getCurrentBatteryLevel());
 
         state = vehicleStateRepository.save(state);
 
-        // Update vehicle's current state
-        vehicle.setCurrentState(state.getState());
-        vehicleRepository.save(vehicle);
+        // Update vehicle's current state in the live store, which flushes it to the vehicle row
+        int slot = fleetStateStore.register(vehicle);
+        fleetStateStore.write(slot, FleetStateStore.SOURCE_API, Double.NaN, Double.NaN, Double.NaN,
+                Double.NaN, Double.NaN, state.getState(), System.currentTimeMillis());
 
         return VehicleStateDTO.fromEntity(state);
     }
@@ -127,6 +171,7 @@ public class VehicleService {
         
         // Update vehicle with new driver
         vehicle.setDriver(driver);
+        fleetStateStore.overlay(vehicle);
         vehicle = vehicleRepository.save(vehicle);
         
         // Create a state change record
@@ -157,6 +202,7 @@ public class VehicleService {
         
         // Unassign the driver
         vehicle.setDriver(null);
+        fleetStateStore.overlay(vehicle);
         vehicle = vehicleRepository.save(vehicle);
         
         // Create a state change record
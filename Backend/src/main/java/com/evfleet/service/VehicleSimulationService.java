@@ -1,61 +1,35 @@
 package com.evfleet.service;
 
-import com.evfleet.dto.SimulationVehicleDTO;
-import com.evfleet.dto.VehicleDTO;
-import com.evfleet.entity.Vehicle;
+import com.evfleet.dto.VehicleImportResultDTO;
 import com.evfleet.repository.VehicleRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ResourceUtils;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.io.FileInputStream;
+import java.io.InputStream;
 
 @Service
 public class VehicleSimulationService {
 
-    private final VehicleService vehicleService;
+    private final VehicleImportService vehicleImportService;
     private final VehicleRepository vehicleRepository;
-    private final ObjectMapper objectMapper;
 
     @Autowired
-    public VehicleSimulationService(VehicleService vehicleService, 
-                                  VehicleRepository vehicleRepository,
-                                  ObjectMapper objectMapper) {
-        this.vehicleService = vehicleService;
+    public VehicleSimulationService(VehicleImportService vehicleImportService,
+                                  VehicleRepository vehicleRepository) {
+        this.vehicleImportService = vehicleImportService;
         this.vehicleRepository = vehicleRepository;
-        this.objectMapper = objectMapper;
     }
 
-    public List<VehicleDTO> loadSimulationVehicles(String jsonFilePath) throws Exception {
+    // Streams the file through the bulk import, so large fleets are not read into memory or inserted row by row
+    public VehicleImportResultDTO loadSimulationVehicles(String jsonFilePath) throws Exception {
         File file = ResourceUtils.getFile(jsonFilePath);
-        List<SimulationVehicleDTO> simulationVehicles = objectMapper.readValue(file, 
-            new TypeReference<List<SimulationVehicleDTO>>() {});
-
-        return simulationVehicles.stream()
-            .map(this::convertToVehicleDTO)
-            .map(vehicleService::registerVehicle)
-            .collect(Collectors.toList());
-    }
-
-    private VehicleDTO convertToVehicleDTO(SimulationVehicleDTO simVehicle) {
-        VehicleDTO vehicleDTO = new VehicleDTO();
-        vehicleDTO.setVin(simVehicle.getVin());
-        vehicleDTO.setMake(simVehicle.getMake());
-        vehicleDTO.setModel(simVehicle.getModel());
-        vehicleDTO.setYear(simVehicle.getYear());
-        vehicleDTO.setBatteryCapacity(simVehicle.getBatteryCapacity());
-        vehicleDTO.setCurrentBatteryLevel(simVehicle.getCurrentBatteryLevel());
-        vehicleDTO.setEfficiency(simVehicle.getEfficiency());
-        vehicleDTO.setCurrentSpeed(simVehicle.getCurrentSpeed());
-        vehicleDTO.setLatitude(simVehicle.getLatitude());
-        vehicleDTO.setLongitude(simVehicle.getLongitude());
-        vehicleDTO.setOdometer(simVehicle.getOdometer());
-        vehicleDTO.setCurrentState(Vehicle.VehicleState.AVAILABLE);
-        return vehicleDTO;
+        try (InputStream input = new BufferedInputStream(new FileInputStream(file))) {
+            return vehicleImportService.importVehicles(input, VehicleImportService.Format.JSON);
+        }
     }
 
     public boolean validateVIN(String vin) {
@@ -1,5 +1,6 @@
 package com.evfleet.service;
 
+import com.evfleet.dto.VehicleLiveStateDTO;
 import com.evfleet.entity.Vehicle;
 import com.evfleet.entity.VehicleState;
 import com.evfleet.repository.VehicleRepository;
@@ -12,7 +13,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
 
 @Service
 public class VehicleStatusService {
@@ -22,41 +23,47 @@ public class VehicleStatusService {
     private final VehicleRepository vehicleRepository;
     private final VehicleStateRepository vehicleStateRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final FleetStateStore fleetStateStore;
 
     @Autowired
     public VehicleStatusService(VehicleRepository vehicleRepository,
                               VehicleStateRepository vehicleStateRepository,
-                              SimpMessagingTemplate messagingTemplate) {
+                              SimpMessagingTemplate messagingTemplate,
+                              FleetStateStore fleetStateStore) {
         this.vehicleRepository = vehicleRepository;
         this.vehicleStateRepository = vehicleStateRepository;
         this.messagingTemplate = messagingTemplate;
+        this.fleetStateStore = fleetStateStore;
     }
 
     @Transactional
     public void updateVehicleStatus(String vin, Vehicle.VehicleState newState) {
         try {
-            Optional<Vehicle> vehicleOpt = vehicleRepository.findByVin(vin);
-            if (vehicleOpt.isEmpty()) {
+            int slot = resolveSlot(vin);
+            if (slot == FleetStateStore.NO_SLOT) {
                 logger.warn("Vehicle with VIN {} not found", vin);
                 return;
             }
 
-            Vehicle vehicle = vehicleOpt.get();
-            Vehicle.VehicleState currentState = vehicle.getCurrentState();
+            Vehicle.VehicleState currentState = fleetStateStore.state(slot);
 
             if (currentState != newState) {
+                // Update the live state; the store flushes it to the vehicle row
+                fleetStateStore.write(slot, FleetStateStore.SOURCE_API, Double.NaN, Double.NaN, Double.NaN,
+                    Double.NaN, Double.NaN, newState, System.currentTimeMillis());
+
                 // Create new state record
+                VehicleLiveStateDTO live = fleetStateStore.snapshot(slot);
                 VehicleState state = new VehicleState();
-                state.setVehicle(vehicle);
+                state.setVehicle(vehicleRepository.getReferenceById(live.getVehicleId()));
                 state.setState(newState);
                 state.setTimestamp(LocalDateTime.now());
                 state.setNotes("State changed from " + currentState + " to " + newState);
+                state.setPositionX(valueOrZero(live.getLatitude()));
+                state.setPositionY(valueOrZero(live.getLongitude()));
+                state.setSocPercentage(valueOrZero(live.getBatteryLevel()));
                 vehicleStateRepository.save(state);
 
-                // Update vehicle's current state
-                vehicle.setCurrentState(newState);
-                vehicleRepository.save(vehicle);
-
                 // Broadcast status update
                 broadcastVehicleStatus(vin, newState);
                 logger.info("Vehicle {} state updated from {} to {}", vin, currentState, newState);
@@ -79,10 +86,25 @@ public class VehicleStatusService {
         }
     }
 
-    @Transactional(readOnly = true)
     public Vehicle.VehicleState getCurrentVehicleState(String vin) {
-        return vehicleRepository.findByVin(vin)
-                .map(Vehicle::getCurrentState)
-                .orElseThrow(() -> new RuntimeException("Vehicle not found"));
+        int slot = resolveSlot(vin);
+        if (slot == FleetStateStore.NO_SLOT) {
+            throw new RuntimeException("Vehicle not found");
+        }
+        return fleetStateStore.state(slot);
+    }
+
+    // Memory lookup; only a VIN the store has not seen yet costs a query
+    private int resolveSlot(String vin) {
+        int slot = fleetStateStore.slotOf(vin);
+        if (slot == FleetStateStore.NO_SLOT) {
+            fleetStateStore.load(List.of(vin));
+            slot = fleetStateStore.slotOf(vin);
+        }
+        return slot;
+    }
+
+    private double valueOrZero(Double value) {
+        return value != null ? value : 0.0;
     }
 } 
\ No newline at end of file
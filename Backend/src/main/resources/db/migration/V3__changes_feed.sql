@@ -0,0 +1,11 @@
+CREATE INDEX IF NOT EXISTS idx_vehicles_updated_at ON vehicles (updated_at);
+CREATE INDEX IF NOT EXISTS idx_charging_stations_updated_at ON charging_stations (updated_at);
+
+CREATE TABLE IF NOT EXISTS tombstones (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(255) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    natural_key VARCHAR(255),
+    deleted_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_tombstones_type_deleted_at ON tombstones (entity_type, deleted_at);
@@ -0,0 +1,39 @@
+CREATE TABLE IF NOT EXISTS tariffs (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    operator VARCHAR(255),
+    connector_type VARCHAR(255),
+    days_of_week VARCHAR(255),
+    start_time TIME,
+    end_time TIME,
+    price_per_kwh DOUBLE PRECISION NOT NULL,
+    valid_from TIMESTAMP(6),
+    valid_until TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS billing_runs (
+    id BIGSERIAL PRIMARY KEY,
+    status VARCHAR(255) NOT NULL,
+    from_session_id BIGINT NOT NULL,
+    to_session_id BIGINT NOT NULL,
+    sessions_billed BIGINT NOT NULL,
+    amount_billed DOUBLE PRECISION NOT NULL,
+    started_at TIMESTAMP(6) NOT NULL,
+    finished_at TIMESTAMP(6),
+    last_error VARCHAR(1000)
+);
+
+CREATE TABLE IF NOT EXISTS billing_checkpoints (
+    id BIGSERIAL PRIMARY KEY,
+    run_id BIGINT NOT NULL,
+    partition_no INTEGER NOT NULL,
+    last_session_id BIGINT NOT NULL,
+    to_session_id BIGINT NOT NULL,
+    sessions_billed BIGINT NOT NULL,
+    amount_billed DOUBLE PRECISION NOT NULL,
+    completed BOOLEAN NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_billing_checkpoints_run ON billing_checkpoints (run_id);
+
+ALTER TABLE charging_sessions ADD COLUMN IF NOT EXISTS billed_at TIMESTAMP(6);
+ALTER TABLE charging_sessions ADD COLUMN IF NOT EXISTS billing_run_id BIGINT;
@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS simulation_nodes (
+    node_id VARCHAR(255) PRIMARY KEY,
+    host VARCHAR(255),
+    started_at TIMESTAMP(6) NOT NULL,
+    heartbeat_at TIMESTAMP(6) NOT NULL,
+    tracked_vehicles INTEGER NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS simulation_handoffs (
+    vin VARCHAR(255) PRIMARY KEY,
+    from_node VARCHAR(255) NOT NULL,
+    to_node VARCHAR(255),
+    trip_index INTEGER NOT NULL,
+    path_index INTEGER NOT NULL,
+    speed_multiplier DOUBLE PRECISION,
+    handed_off_at TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,4 @@
+ALTER TABLE billing_runs ADD COLUMN IF NOT EXISTS attempts INTEGER NOT NULL DEFAULT 1;
+
+-- Hibernate's generated check on the status enum predates ABANDONED
+ALTER TABLE billing_runs DROP CONSTRAINT IF EXISTS billing_runs_status_check;
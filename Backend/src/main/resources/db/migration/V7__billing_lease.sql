@@ -0,0 +1,5 @@
+CREATE TABLE IF NOT EXISTS billing_lease (
+    name VARCHAR(255) PRIMARY KEY,
+    holder VARCHAR(255),
+    held_until TIMESTAMP(6)
+);
@@ -0,0 +1,135 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.ChargingProgressDTO;
+import com.evfleet.entity.ChargingSession;
+import com.evfleet.entity.ChargingStation;
+import com.evfleet.entity.Vehicle;
+import com.evfleet.repository.ChargingSessionRepository;
+import com.evfleet.repository.ChargingStationRepository;
+import com.evfleet.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Against an embedded H2 database, since the point is the row locks; each call commits on its own
+@DataJpaTest(showSql = false, properties = {
+    "spring.datasource.url=jdbc:h2:mem:sessions;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=YEAR,VALUE",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChargingSessionServiceTest {
+    @Autowired
+    private ChargingSessionRepository chargingSessionRepository;
+    @Autowired
+    private ChargingStationRepository chargingStationRepository;
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentEndsReleaseTheConnectorOnce() throws Exception {
+        ChargingStation station = new ChargingStation();
+        station.setStationId("ST-RACE");
+        station.setName("Race");
+        station.setAddress("1 Test Road");
+        station.setLatitude(47.0);
+        station.setLongitude(8.0);
+        station.setLocation("Test");
+        station.setTotalConnectors(2);
+        station.setAvailableConnectors(1);
+        station.setPowerRating(50.0);
+        station.setPricePerKwh(0.3);
+        station = chargingStationRepository.save(station);
+
+        Vehicle vehicle = new Vehicle();
+        vehicle.setVin("1HGCM82633A004352");
+        vehicle.setName("Race car");
+        vehicle.setMake("Test");
+        vehicle.setModel("T");
+        vehicle.setYear(2022);
+        vehicle.setBatteryCapacity(60.0);
+        vehicle.setCurrentBatteryLevel(40.0);
+        vehicle.setEfficiency(18.0);
+        vehicle.setCurrentSpeed(0.0);
+        vehicle.setLatitude(47.0);
+        vehicle.setLongitude(8.0);
+        vehicle.setOdometer(100.0);
+        vehicle.setLastChargedLevel(40.0);
+        vehicle = vehicleRepository.save(vehicle);
+
+        ChargingSession session = new ChargingSession();
+        session.setChargingStation(station);
+        session.setVehicle(vehicle);
+        session.setStartTime(LocalDateTime.now().minusMinutes(30));
+        session.setStatus(ChargingSession.SessionStatus.IN_PROGRESS);
+        session.setConnectorType("CCS");
+        session.setInitialBatteryLevel(40.0);
+        session.setInitialSoc(40.0);
+        session.setActive(true);
+        Long sessionId = chargingSessionRepository.save(session).getId();
+
+        // Settling takes a while, so without the session lock both ends would get past the status check
+        ChargingCurveEngine curveEngine = mock(ChargingCurveEngine.class);
+        when(curveEngine.settle(any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            ChargingProgressDTO outcome = new ChargingProgressDTO();
+            outcome.setEnergyDeliveredKwh(12.0);
+            outcome.setStateOfCharge(60.0);
+            return outcome;
+        });
+        ChargingSessionService service = new ChargingSessionService(chargingSessionRepository,
+            chargingStationRepository, vehicleRepository, mock(ChargingQueueService.class),
+            mock(FleetStateStore.class), mock(TariffService.class), curveEngine,
+            new TimeoutService(new SimpleMeterRegistry(), 1000), mock(StationFeedService.class),
+            mock(SimulationShardService.class), transactionManager, new SimpleMeterRegistry(), 43_200_000, 1_800_000);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> ends = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ends.add(executor.submit(() -> {
+                start.await();
+                return transaction.execute(status -> service.endSession(sessionId));
+            }));
+        }
+        start.countDown();
+
+        int ended = 0;
+        int rejected = 0;
+        for (Future<?> end : ends) {
+            try {
+                end.get(10, TimeUnit.SECONDS);
+                ended++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(1, ended);
+        assertEquals(1, rejected);
+        assertEquals(2, chargingStationRepository.findById(station.getId()).orElseThrow().getAvailableConnectors());
+        verify(curveEngine, times(1)).settle(any(), any());
+    }
+}
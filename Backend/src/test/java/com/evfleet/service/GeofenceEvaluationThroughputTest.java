@@ -0,0 +1,109 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.GeofenceDTO;
+import com.evfleet.entity.Geofence;
+import com.evfleet.entity.Vehicle;
+import com.evfleet.repository.GeofenceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Position updates for a drifting fleet against 24-gon city zones scattered over a metropolitan area, after a JIT
+// warm-up. Enter/exit events go to a broker channel that drops them.
+//
+//   mvn test -Dbenchmarks=true -Dtest=GeofenceEvaluationThroughputTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class GeofenceEvaluationThroughputTest {
+    private static final int VEHICLES = 10_000;
+    private static final int GEOFENCES = 200;
+    private static final int TICKS = 300;
+
+    @Test
+    void evaluatesPositionUpdates() {
+        FleetStateStore store = new FleetStateStore(mock(JdbcTemplate.class), new SimpleMeterRegistry());
+        for (int i = 0; i < VEHICLES; i++) {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setId((long) i + 1);
+            vehicle.setVin("V" + i);
+            store.register(vehicle);
+        }
+        Random random = new Random(1);
+        List<Geofence> geofences = new ArrayList<>();
+        for (int g = 0; g < GEOFENCES; g++) {
+            double lat = 51.4 + random.nextDouble() * 0.2;
+            double lng = -0.3 + random.nextDouble() * 0.3;
+            double radius = 0.002 + random.nextDouble() * 0.01;
+            StringBuilder polygon = new StringBuilder();
+            for (int k = 0; k < 24; k++) {
+                double angle = 2 * Math.PI * k / 24;
+                if (k > 0) {
+                    polygon.append(';');
+                }
+                polygon.append(lat + radius * Math.sin(angle)).append(',').append(lng + radius * 1.6 * Math.cos(angle));
+            }
+            Geofence geofence = new Geofence();
+            geofence.setId((long) g + 1);
+            geofence.setName("G" + g);
+            geofence.setType(Geofence.GeofenceType.CITY_ZONE);
+            geofence.setPolygon(polygon.toString());
+            geofence.setActive(true);
+            geofences.add(geofence);
+        }
+        GeofenceRepository repository = mock(GeofenceRepository.class);
+        when(repository.findByActiveTrue()).thenReturn(geofences);
+        GeofenceService service = new GeofenceService(repository, new SimpMessagingTemplate((message, timeout) -> true),
+            store, 1.0);
+        service.rebuildIndex();
+
+        double[] lat = new double[VEHICLES], lng = new double[VEHICLES];
+        double[] dLat = new double[VEHICLES], dLng = new double[VEHICLES];
+        for (int i = 0; i < VEHICLES; i++) {
+            lat[i] = 51.4 + random.nextDouble() * 0.2;
+            lng[i] = -0.3 + random.nextDouble() * 0.3;
+            dLat[i] = (random.nextDouble() - 0.5) * 1e-4;
+            dLng[i] = (random.nextDouble() - 0.5) * 1e-4;
+        }
+        for (int tick = 0; tick < 50; tick++) {
+            move(service, lat, lng, dLat, dLng, tick);
+        }
+        AtomicLong evaluations = new AtomicLong();
+        long start = System.nanoTime();
+        for (int tick = 0; tick < TICKS; tick++) {
+            move(service, lat, lng, dLat, dLng, 100 + tick);
+            evaluations.addAndGet(VEHICLES);
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        System.out.printf("%d evaluations over %d geofences in %.2f s: %.0f evaluations/s, %.0f ns each; %s%n",
+            evaluations.get(), GEOFENCES, seconds, evaluations.get() / seconds,
+            seconds * 1_000_000_000.0 / evaluations.get(), service.getStats());
+
+        // A vehicle at the centre of the first zone is inside it
+        String[] vertices = geofences.get(0).getPolygon().split(";");
+        double centreLat = 0, centreLng = 0;
+        for (String vertex : vertices) {
+            centreLat += Double.parseDouble(vertex.split(",")[0]) / vertices.length;
+            centreLng += Double.parseDouble(vertex.split(",")[1]) / vertices.length;
+        }
+        service.evaluate(0, centreLat, centreLng, 10_000);
+        assertTrue(service.getVehicleGeofences("V0").stream().map(GeofenceDTO::getName).anyMatch("G0"::equals));
+    }
+
+    private static void move(GeofenceService service, double[] lat, double[] lng, double[] dLat, double[] dLng, long at) {
+        for (int i = 0; i < lat.length; i++) {
+            lat[i] += dLat[i];
+            lng[i] += dLng[i];
+            service.evaluate(i, lat[i], lng[i], at);
+        }
+    }
+}
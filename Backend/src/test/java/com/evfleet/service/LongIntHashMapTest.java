@@ -0,0 +1,114 @@
+package com.evfleet.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+    // A map for 8 entries has 16 slots and does not grow before the 9th
+    private static final int MASK = 15;
+
+    @Test
+    void removeShiftsCollidingKeysBack() {
+        List<Long> sameHome = keysWithHome(3, 4);
+        LongIntHashMap map = new LongIntHashMap(8);
+        for (int i = 0; i < sameHome.size(); i++) {
+            map.putIfAbsent(sameHome.get(i), i);
+        }
+
+        // Removing the head of the run must leave the keys probed past it reachable
+        assertEquals(0, map.remove(sameHome.get(0)));
+        for (int i = 1; i < sameHome.size(); i++) {
+            assertEquals(i, map.get(sameHome.get(i)));
+        }
+        assertEquals(2, map.remove(sameHome.get(2)));
+        assertEquals(1, map.get(sameHome.get(1)));
+        assertEquals(3, map.get(sameHome.get(3)));
+        assertEquals(LongIntHashMap.MISSING, map.get(sameHome.get(0)));
+        assertEquals(LongIntHashMap.MISSING, map.get(sameHome.get(2)));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void removeLeavesKeysThatWouldMoveBeforeTheirHome() {
+        // Homes 5, 5, 7 sit in slots 5, 6, 7. Removing the first moves the second back to 5; the home-7 key must
+        // stay, since slot 6 lies before its home and a lookup starting at 7 would no longer find it
+        List<Long> sameHome = keysWithHome(5, 2);
+        long atHome = keysWithHome(7, 1).get(0);
+        LongIntHashMap map = new LongIntHashMap(8);
+        map.putIfAbsent(sameHome.get(0), 1);
+        map.putIfAbsent(sameHome.get(1), 2);
+        map.putIfAbsent(atHome, 3);
+
+        assertEquals(1, map.remove(sameHome.get(0)));
+        assertEquals(2, map.get(sameHome.get(1)));
+        assertEquals(3, map.get(atHome));
+        assertEquals(LongIntHashMap.MISSING, map.remove(sameHome.get(0)));
+        assertEquals(2, map.remove(sameHome.get(1)));
+        assertEquals(3, map.get(atHome));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void removeShiftsAcrossTheEndOfTheTable() {
+        List<Long> wrapping = keysWithHome(MASK, 3);
+        long startsAtZero = keysWithHome(0, 1).get(0);
+        LongIntHashMap map = new LongIntHashMap(8);
+        for (int i = 0; i < wrapping.size(); i++) {
+            map.putIfAbsent(wrapping.get(i), i);
+        }
+        // Its home slot is taken by a wrapped key, so it probes on to slot 2
+        map.putIfAbsent(startsAtZero, 99);
+
+        assertEquals(0, map.remove(wrapping.get(0)));
+        assertEquals(1, map.get(wrapping.get(1)));
+        assertEquals(2, map.get(wrapping.get(2)));
+        assertEquals(99, map.get(startsAtZero));
+        assertEquals(1, map.remove(wrapping.get(1)));
+        assertEquals(99, map.remove(startsAtZero));
+        assertEquals(2, map.get(wrapping.get(2)));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(11);
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> reference = new HashMap<>();
+        for (int i = 0; i < 500_000; i++) {
+            // A small key space keeps probe runs long and removals frequent
+            long key = random.nextInt(3000) * 0x10000L;
+            if (random.nextBoolean()) {
+                int value = random.nextInt(1000);
+                Integer previous = reference.putIfAbsent(key, value);
+                assertEquals(previous != null ? previous : value, map.putIfAbsent(key, value));
+            } else {
+                Integer previous = reference.remove(key);
+                assertEquals(previous != null ? previous : LongIntHashMap.MISSING, map.remove(key));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        for (long key = 0; key < 3000; key++) {
+            Integer value = reference.get(key * 0x10000L);
+            assertEquals(value != null ? value : LongIntHashMap.MISSING, map.get(key * 0x10000L));
+        }
+    }
+
+    // Same hash as LongIntHashMap.slot for a table of MASK + 1 slots
+    private static List<Long> keysWithHome(int home, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            if (((int) (h ^ (h >>> 32)) & MASK) == home) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,148 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.TelemetryMessageDTO;
+import com.evfleet.dto.TelemetryStatsDTO;
+import com.evfleet.entity.Vehicle;
+import com.evfleet.repository.GeofenceRepository;
+import com.evfleet.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TelemetryIngestionServiceTest {
+    private static final int FLEET_SIZE = 20;
+    private static final long POISON_VEHICLE_ID = 7;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true);
+    private final VehicleRepository vehicleRepository = mock(VehicleRepository.class);
+    private final List<Object> inserted = new ArrayList<>();
+
+    // Refuses the state history row of one vehicle, as a foreign key would once that vehicle is deleted
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            for (Object[] row : batchArgs) {
+                refuse(row);
+            }
+            batchArgs.forEach(row -> inserted.add(row[0]));
+            return new int[batchArgs.size()];
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            refuse(args);
+            inserted.add(args[0]);
+            return 1;
+        }
+
+        private void refuse(Object[] row) {
+            if (row[0].equals(POISON_VEHICLE_ID)) {
+                throw new DataIntegrityViolationException("vehicle " + row[0] + " does not exist");
+            }
+        }
+    };
+
+    @Test
+    void refusedStateChangeDropsOnlyItsRow() {
+        TelemetryIngestionService ingestion = newIngestion();
+        ingestion.start();
+        List<TelemetryMessageDTO> messages = new ArrayList<>();
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            messages.add(charging("VIN" + i));
+        }
+        assertEquals(FLEET_SIZE, ingestion.offerAll(messages, vin -> true).accepted());
+        awaitProcessed(ingestion, FLEET_SIZE);
+        ingestion.stop();
+
+        TelemetryStatsDTO stats = ingestion.getStats();
+        assertEquals(FLEET_SIZE - 1, stats.getPersistedRows());
+        assertEquals(1, stats.getPersistRefused());
+        assertEquals(FLEET_SIZE - 1, inserted.size());
+        assertFalse(inserted.contains(POISON_VEHICLE_ID));
+    }
+
+    @Test
+    void driversReportOnlyTheirOwnVehicles() {
+        TelemetryIngestionService ingestion = newIngestion();
+        when(vehicleRepository.findVinsByDriverUsername("driver1")).thenReturn(List.of("VIN1"));
+        UsernamePasswordAuthenticationToken driver = new UsernamePasswordAuthenticationToken("driver1", null,
+            List.of(new SimpleGrantedAuthority("ROLE_DRIVER")));
+        UsernamePasswordAuthenticationToken admin = new UsernamePasswordAuthenticationToken("admin1", null,
+            List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        List<TelemetryMessageDTO> messages = List.of(charging("VIN1"), charging("VIN2"));
+
+        TelemetryIngestionService.OfferResult byDriver = ingestion.offerAll(messages, ingestion.reportableBy(driver));
+        assertEquals(1, byDriver.accepted());
+        assertEquals(List.of(1), byDriver.forbidden());
+        assertTrue(byDriver.rejected().isEmpty());
+
+        TelemetryIngestionService.OfferResult byAdmin = ingestion.offerAll(messages, ingestion.reportableBy(admin));
+        assertEquals(2, byAdmin.accepted());
+        assertTrue(byAdmin.forbidden().isEmpty());
+        verify(vehicleRepository, never()).findVinsByDriverUsername("admin1");
+    }
+
+    @Test
+    void fullBufferSkipsAndReportsRejectedMessages() {
+        // Not started, so nothing drains the four slots
+        TelemetryIngestionService ingestion = newIngestion(4);
+        List<TelemetryMessageDTO> messages = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            messages.add(charging("VIN" + i));
+        }
+
+        TelemetryIngestionService.OfferResult result = ingestion.offerAll(messages, vin -> true);
+        assertEquals(4, result.accepted());
+        assertEquals(List.of(4, 5), result.rejected());
+    }
+
+    private TelemetryIngestionService newIngestion() {
+        return newIngestion(1024);
+    }
+
+    private TelemetryIngestionService newIngestion(int bufferCapacity) {
+        FleetStateStore store = new FleetStateStore(jdbcTemplate, registry);
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setId((long) i + 1);
+            vehicle.setVin("VIN" + i);
+            vehicle.setCurrentState(Vehicle.VehicleState.AVAILABLE);
+            store.register(vehicle);
+        }
+        GeofenceService geofenceService = new GeofenceService(mock(GeofenceRepository.class), messagingTemplate, store, 1.0);
+        AlertRuleEngine alertRuleEngine = new AlertRuleEngine(store, messagingTemplate, "");
+        return new TelemetryIngestionService(store, vehicleRepository, geofenceService, alertRuleEngine, jdbcTemplate,
+            mock(PlatformTransactionManager.class), messagingTemplate, new TimeoutService(registry, 1000), registry,
+            bufferCapacity, 64, 60_000, 0.8, 0.5, 300_000);
+    }
+
+    private static TelemetryMessageDTO charging(String vin) {
+        TelemetryMessageDTO message = new TelemetryMessageDTO();
+        message.setVin(vin);
+        message.setTimestamp(LocalDateTime.now());
+        message.setBatteryLevel(50.0);
+        message.setState(Vehicle.VehicleState.CHARGING);
+        return message;
+    }
+
+    private static void awaitProcessed(TelemetryIngestionService ingestion, long count) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (ingestion.getStats().getProcessed() < count) {
+            assertTrue(System.currentTimeMillis() < deadline, "consumer did not catch up");
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.TelemetryMessageDTO;
+import com.evfleet.dto.TelemetryStatsDTO;
+import com.evfleet.entity.Vehicle;
+import com.evfleet.repository.GeofenceRepository;
+import com.evfleet.repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// End-to-end consumer throughput with the database stubbed out and a broker channel that drops every message, so
+// what is timed is the ring, validation, hot-state writes, geofence and alert checks and the JSON-free fan-out.
+//
+//   mvn test -Dbenchmarks=true -Dtest=TelemetryIngestionThroughputTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class TelemetryIngestionThroughputTest {
+    private static final int PRODUCERS = 4;
+    private static final int MESSAGES_PER_PRODUCER = 500_000;
+    private static final int FLEET_SIZE = 10_000;
+
+    @Test
+    void sustainsProducersAgainstOneConsumer() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AtomicLong persistedRows = new AtomicLong();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                persistedRows.addAndGet(batchArgs.size());
+                return new int[batchArgs.size()];
+            }
+        };
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true);
+        FleetStateStore store = new FleetStateStore(jdbcTemplate, registry);
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            Vehicle vehicle = new Vehicle();
+            vehicle.setId((long) i + 1);
+            vehicle.setVin("VIN" + i);
+            store.register(vehicle);
+        }
+        GeofenceService geofenceService = new GeofenceService(mock(GeofenceRepository.class), messagingTemplate, store, 1.0);
+        AlertRuleEngine alertRuleEngine = new AlertRuleEngine(store, messagingTemplate, "");
+        TimeoutService timeoutService = new TimeoutService(registry, 1000);
+        TelemetryIngestionService ingestion = new TelemetryIngestionService(store, mock(VehicleRepository.class),
+            geofenceService, alertRuleEngine, jdbcTemplate, mock(PlatformTransactionManager.class), messagingTemplate,
+            timeoutService, registry, 65536, 1024, 1000, 0.8, 0.5, 300_000);
+
+        ingestion.start();
+        long total = (long) PRODUCERS * MESSAGES_PER_PRODUCER;
+        long start = System.nanoTime();
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            Random random = new Random(p);
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                    TelemetryMessageDTO message = new TelemetryMessageDTO();
+                    message.setVin("VIN" + random.nextInt(FLEET_SIZE));
+                    message.setTimestamp(LocalDateTime.now());
+                    message.setLatitude(51.5 + random.nextDouble() * 0.1);
+                    message.setLongitude(-0.12 + random.nextDouble() * 0.1);
+                    message.setSpeed(40.0);
+                    message.setBatteryLevel(60.0);
+                    while (!ingestion.offer(message)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }, "producer-" + p);
+            producers[p].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        TelemetryStatsDTO stats = ingestion.getStats();
+        while (stats.getProcessed() + stats.getStale() < total) {
+            Thread.sleep(5);
+            stats = ingestion.getStats();
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        ingestion.stop();
+
+        System.out.printf("%d producers, %d messages for %d vehicles in %.2f s: %.0f msg/s (%d processed, %d stale, "
+                + "%d rejected offers retried)%n", PRODUCERS, total, FLEET_SIZE, seconds, total / seconds,
+            stats.getProcessed(), stats.getStale(), stats.getRejected());
+        assertEquals(total, stats.getAccepted());
+        assertEquals(total, stats.getProcessed() + stats.getStale());
+        assertEquals(0, stats.getInvalid());
+        assertEquals(0, stats.getUnknownVehicle());
+    }
+}
@@ -0,0 +1,105 @@
+package com.evfleet.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeoutServiceTest {
+    private final TimeoutService timeouts = new TimeoutService(new SimpleMeterRegistry(), 1);
+
+    @Test
+    void firesOnlyDueTimersOfEachKind() {
+        List<Long> sessions = new ArrayList<>();
+        List<Long> queue = new ArrayList<>();
+        int sessionKind = timeouts.registerKind("session", sessions::add);
+        int queueKind = timeouts.registerKind("queue", queue::add);
+        long now = System.currentTimeMillis();
+
+        timeouts.schedule(sessionKind, 1, now - 10);
+        timeouts.schedule(sessionKind, 2, now + 60_000);
+        // Same id under another kind is a separate timer
+        timeouts.schedule(queueKind, 1, now - 10);
+        timeouts.tick();
+
+        assertEquals(List.of(1L), sessions);
+        assertEquals(List.of(1L), queue);
+        assertTrue(timeouts.cancel(sessionKind, 2));
+        assertFalse(timeouts.cancel(sessionKind, 2));
+        assertFalse(timeouts.cancel(queueKind, 1));
+        assertEquals(0, timeouts.getStats().get("pending"));
+    }
+
+    @Test
+    void rescheduleReplacesTheDeadline() {
+        List<Long> fired = new ArrayList<>();
+        int kind = timeouts.registerKind("reschedule", fired::add);
+        long now = System.currentTimeMillis();
+
+        timeouts.schedule(kind, 7, now + 60_000);
+        timeouts.schedule(kind, 7, now - 1);
+        timeouts.tick();
+        timeouts.tick();
+        assertEquals(List.of(7L), fired);
+
+        timeouts.schedule(kind, 8, now - 1);
+        timeouts.schedule(kind, 8, now + 60_000);
+        timeouts.tick();
+        assertEquals(List.of(7L), fired);
+    }
+
+    @Test
+    void handlerMayArmAgainAndFailuresDoNotStopOthers() throws InterruptedException {
+        List<Long> fired = new ArrayList<>();
+        int[] kind = new int[1];
+        kind[0] = timeouts.registerKind("rearm", id -> {
+            fired.add(id);
+            if (id == 1 && fired.size() == 1) {
+                timeouts.schedule(kind[0], id, System.currentTimeMillis() - 1);
+            }
+            if (id == 2) {
+                throw new IllegalStateException("handler failure");
+            }
+        });
+        long now = System.currentTimeMillis();
+        timeouts.schedule(kind[0], 1, now - 1);
+        timeouts.schedule(kind[0], 2, now - 1);
+        timeouts.schedule(kind[0], 3, now - 1);
+        timeouts.tick();
+        assertEquals(3, fired.size());
+        assertTrue(fired.containsAll(List.of(1L, 2L, 3L)));
+        assertEquals(1L, timeouts.getStats().get("handlerFailures"));
+
+        // Re-armed into the past, so due on the next 1 ms tick
+        Thread.sleep(2);
+        timeouts.tick();
+        assertEquals(List.of(1L), fired.subList(3, fired.size()));
+    }
+
+    @Test
+    void recyclesHandles() {
+        int kind = timeouts.registerKind("recycle", id -> { });
+        long later = System.currentTimeMillis() + 60_000;
+        for (int round = 0; round < 10; round++) {
+            for (long id = 0; id < 1000; id++) {
+                timeouts.schedule(kind, id, later);
+            }
+            for (long id = 0; id < 1000; id++) {
+                assertTrue(timeouts.cancel(kind, id));
+            }
+        }
+        Map<String, Object> stats = timeouts.getStats();
+        assertEquals(1000, stats.get("handles"));
+        assertEquals(0, stats.get("pending"));
+    }
+
+    @Test
+    void rejectsDuplicateKinds() {
+        timeouts.registerKind("twice", id -> { });
+        assertThrows(IllegalStateException.class, () -> timeouts.registerKind("twice", id -> { }));
+    }
+}
@@ -0,0 +1,123 @@
+package com.evfleet.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+    private static final long TICK_MS = 10;
+
+    // Random schedules, reschedules, cancels and advances (including stalls longer than a revolution) against a map
+    // of handle -> effective due time: every advance must fire exactly the handles due by then, never one early
+    @Test
+    void matchesReferenceUnderRandomOperations() {
+        for (int levels = 1; levels <= 4; levels++) {
+            Random random = new Random(7 + levels);
+            long now = 1_000_003;
+            long currentTick = now / TICK_MS;
+            TimerWheel wheel = new TimerWheel(TICK_MS, 8, levels, now);
+            Map<Integer, Long> due = new HashMap<>();
+            long fired = 0;
+
+            for (int step = 0; step < 200_000; step++) {
+                int op = random.nextInt(10);
+                int handle = random.nextInt(2000);
+                if (op < 5) {
+                    // Mostly near deadlines, some far beyond the wheel's range, some already past
+                    long dueAt = now + (long) (Math.pow(random.nextDouble(), 3) * 200_000) - 50;
+                    wheel.schedule(handle, dueAt);
+                    due.put(handle, Math.max(Math.floorDiv(dueAt + TICK_MS - 1, TICK_MS), currentTick) * TICK_MS);
+                } else if (op < 7) {
+                    assertEquals(due.remove(handle) != null, wheel.cancel(handle), "cancel of handle " + handle);
+                } else {
+                    now += random.nextInt(random.nextInt(50) == 0 ? 5000 : 40);
+                    long advancedTo = now;
+                    Set<Integer> expected = new HashSet<>();
+                    due.forEach((h, dueAt) -> {
+                        if (dueAt <= advancedTo) {
+                            expected.add(h);
+                        }
+                    });
+                    Set<Integer> actual = new HashSet<>();
+                    wheel.advance(now, h -> assertTrue(actual.add(h), "handle " + h + " fired twice"));
+                    assertEquals(expected, actual, "handles fired at " + now + " with " + levels + " levels");
+                    expected.forEach(due::remove);
+                    fired += actual.size();
+                    currentTick = Math.max(currentTick, now / TICK_MS + 1);
+                }
+                assertEquals(due.size(), wheel.size());
+            }
+            assertTrue(fired > 10_000, "too few timers fired to be meaningful: " + fired);
+        }
+    }
+
+    @Test
+    void neverFiresBeforeDueTime() {
+        TimerWheel wheel = new TimerWheel(1000, 4, 3, 0);
+        wheel.schedule(1, 1);
+        wheel.schedule(2, 999_999);
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(999, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(1000, fired::add);
+        assertEquals(List.of(1), fired);
+        wheel.advance(998_999, fired::add);
+        assertEquals(List.of(1), fired);
+        wheel.advance(999_999, fired::add);
+        assertEquals(List.of(1), fired);
+        wheel.advance(1_000_000, fired::add);
+        assertEquals(List.of(1, 2), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleReplacesPendingTimer() {
+        TimerWheel wheel = new TimerWheel(10, 16, 2, 0);
+        wheel.schedule(3, 50);
+        wheel.schedule(3, 5_000);
+        assertEquals(1, wheel.size());
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(100, fired::add);
+        assertTrue(fired.isEmpty());
+        assertTrue(wheel.isScheduled(3));
+        wheel.advance(5_000, fired::add);
+        assertEquals(List.of(3), fired);
+        assertFalse(wheel.isScheduled(3));
+    }
+
+    @Test
+    void callbackMayRescheduleItsOwnHandle() {
+        TimerWheel wheel = new TimerWheel(10, 8, 2, 0);
+        for (int handle = 0; handle < 50; handle++) {
+            wheel.schedule(handle, 10 + handle);
+        }
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(100, handle -> {
+            fired.add(handle);
+            if (handle % 2 == 0) {
+                wheel.schedule(handle, 10_000);
+            }
+        });
+        assertEquals(50, fired.size());
+        assertEquals(25, wheel.size());
+        fired.clear();
+        wheel.advance(10_000, fired::add);
+        assertEquals(25, fired.size());
+        assertTrue(fired.stream().allMatch(handle -> handle % 2 == 0));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel(0, 8, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel(10, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel(10, 256, 8, 0));
+    }
+}
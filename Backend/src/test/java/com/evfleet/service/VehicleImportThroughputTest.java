@@ -0,0 +1,103 @@
+package com.evfleet.service;
+
+import com.evfleet.dto.VehicleImportResultDTO;
+import com.evfleet.repository.VehicleRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Parse, validation and chunking cost of a 100k-row JSON import with JDBC stubbed out: the batch inserts only count
+// rows and the id lookup hands out ids, so what is timed is everything the service does besides the database.
+//
+//   mvn test -Dbenchmarks=true -Dtest=VehicleImportThroughputTest
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class VehicleImportThroughputTest {
+    private static final int ROWS = 100_000;
+    private static final int RUNS = 12;
+
+    @Test
+    void importsOneHundredThousandRows() throws Exception {
+        AtomicLong ids = new AtomicLong();
+        AtomicLong insertedRows = new AtomicLong();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                insertedRows.addAndGet(batchArgs.size());
+                return new int[batchArgs.size()];
+            }
+
+            // The id lookup: one row per VIN asked for, with a fresh id. A proxy rather than a Mockito mock, which
+            // would record every call and dominate the timing.
+            @Override
+            public void query(String sql, RowCallbackHandler handler, Object... args) {
+                String[] vin = new String[1];
+                ResultSet rs = (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, method, methodArgs) -> switch (method.getName()) {
+                        case "getString" -> vin[0];
+                        case "getLong" -> ids.incrementAndGet();
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+                try {
+                    for (Object arg : args) {
+                        vin[0] = (String) arg;
+                        handler.processRow(rs);
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        VehicleRepository repository = mock(VehicleRepository.class);
+        when(repository.findVinAndNameByVinInOrNameIn(any(), any())).thenReturn(List.of());
+        ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+        VehicleImportService service = new VehicleImportService(repository,
+            new FleetStateStore(jdbcTemplate, new SimpleMeterRegistry()), jdbcTemplate,
+            mock(PlatformTransactionManager.class), new ObjectMapper(), validatorFactory, 1000, 20);
+
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ROWS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format("{\"vin\":\"2HGCM%011dA\",\"make\":\"Tesla\",\"model\":\"Y\",\"year\":2023,"
+                + "\"battery_capacity\":75,\"current_battery_level\":60,\"efficiency\":16,\"current_speed\":0,"
+                + "\"latitude\":51.5,\"longitude\":-0.1,\"odometer\":%d}", i, i));
+        }
+        byte[] input = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            insertedRows.set(0);
+            VehicleImportResultDTO result = service.importVehicles(new ByteArrayInputStream(input),
+                VehicleImportService.Format.JSON);
+            assertEquals(ROWS, result.getImported(), "errors: " + result.getErrors());
+            assertEquals(0, result.getFailed());
+            // A vehicle row and its initial state row per vehicle
+            assertEquals(2L * ROWS, insertedRows.get());
+            best = Math.min(best, result.getDurationMs());
+            System.out.printf("run %d: %d rows in %d ms, %.0f vehicles/s, %d chunks%n", run + 1, result.getImported(),
+                result.getDurationMs(), result.getVehiclesPerSecond(), result.getChunks());
+        }
+        System.out.printf("best of %d runs: %d ms for %d rows%n", RUNS, best, ROWS);
+        validatorFactory.close();
+    }
+}